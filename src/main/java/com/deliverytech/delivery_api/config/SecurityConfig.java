@@ -1,6 +1,7 @@
 package com.deliverytech.delivery_api.config;
 
 import com.deliverytech.delivery_api.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,6 +33,9 @@ public class SecurityConfig {
                 .cors(cors -> {}) // Se precisar configurar CORS, faça aqui
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // Redespacho assíncrono (SSE): a requisição original já foi autenticada e autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Endpoints de Autenticação
                         .requestMatchers(HttpMethod.POST, "/api/auth/login", "/api/auth/register").permitAll()
 
@@ -39,6 +43,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/restaurantes/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/produtos/**").permitAll()
 
+                        // Actuator: métricas só para administradores
+                        .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
+
                         // Actuator (Health check)
                         .requestMatchers(HttpMethod.GET, "/actuator/**", "/health", "/info").permitAll()
 
@@ -12,8 +12,8 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
@@ -60,15 +60,17 @@ public class ClienteController {
      */
     @GetMapping
     @Operation(summary = "Listar todos os clientes ativos (paginado)")
-    public ResponseEntity<ApiResponse<PagedResponse<ClienteResponseDTO>>> listarAtivos(
+    public ResponseEntity<ApiResponse<SliceResponse<ClienteResponseDTO>>> listarAtivos(
             // 3.4: Recebe parâmetros de paginação (?page=0&size=10&sort=nome,asc)
             @Parameter(description = "Parâmetros de paginação (page, size, sort)")
-            @PageableDefault(size = 10, sort = "nome") Pageable pageable) {
+            @PageableDefault(size = 10, sort = "nome") Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
-        Page<ClienteResponseDTO> clientePage = clienteService.listarClientesAtivos(pageable);
+        Slice<ClienteResponseDTO> clientePage = clienteService.listarClientesAtivos(pageable, count);
 
-        // 3.2: Envelopa a Página no PagedResponse e no ApiResponse
-        PagedResponse<ClienteResponseDTO> pagedResponse = new PagedResponse<>(clientePage);
+        // 3.2: Envelopa a Página no PagedResponse (ou SliceResponse, com count=false) e no ApiResponse
+        SliceResponse<ClienteResponseDTO> pagedResponse = SliceResponse.of(clientePage);
         return ResponseEntity.ok(ApiResponse.success(pagedResponse));
     }
 
@@ -3,11 +3,12 @@ package com.deliverytech.delivery_api.controller;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
 
 import com.deliverytech.delivery_api.dto.*;
-import com.deliverytech.delivery_api.entity.Restaurante;
 import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
-import com.deliverytech.delivery_api.repository.RestauranteRepository;
+import com.deliverytech.delivery_api.repository.PedidoFiltro;
 import com.deliverytech.delivery_api.security.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,17 +16,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.deliverytech.delivery_api.enums.StatusPedido;
 import com.deliverytech.delivery_api.services.PedidoService;
+import com.deliverytech.delivery_api.services.admissao.ControleAdmissao;
+import com.deliverytech.delivery_api.services.cotacao.CotacaoService;
+import com.deliverytech.delivery_api.services.idempotencia.IdempotenciaService;
+import com.deliverytech.delivery_api.services.pipeline.PedidoPipeline;
+import com.deliverytech.delivery_api.services.stream.PedidoStreamHub;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
@@ -38,34 +46,136 @@ public class PedidoController {
     private PedidoService pedidoService;
 
     @Autowired
-    private RestauranteRepository restauranteRepository;
+    private CotacaoService cotacaoService;
 
     @Autowired
     private SecurityUtils securityUtils;
 
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private PedidoStreamHub pedidoStreamHub;
+
+    @Autowired
+    private PedidoPipeline pedidoPipeline;
+
+    @Autowired
+    private ControleAdmissao controleAdmissao;
+
+    // RFC 7240: o cliente pede processamento assíncrono
+    private static final String PREFER_ASSINCRONO = "respond-async";
+
     @PostMapping
     @PreAuthorize("hasRole('CLIENTE')")
     @Operation(summary = "Criar novo pedido", description = "Registra um pedido contendo múltiplos itens. Valida se produtos pertencem ao restaurante e calcula o total.")
     @ApiResponses(value = {
-            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "Pedido criado com sucesso"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "Pedido criado com sucesso (ou repetição de uma Idempotency-Key já processada)"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Erro de validação (ex: produto de outro restaurante, restaurante fechado)"),
-            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Apenas clientes podem criar pedidos")
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Apenas clientes podem criar pedidos"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Idempotency-Key reutilizada com outro conteúdo ou ainda em processamento"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Restaurante no limite de pedidos: tente novamente após o Retry-After")
     })
     public ResponseEntity<ApiResponse<PedidoResponseDTO>> criarPedido(
+            @Parameter(description = "Chave única gerada pelo cliente para que retentativas não dupliquem o pedido")
+            @RequestHeader(value = IdempotenciaService.HEADER_CHAVE, required = false) String idempotencyKey,
             @Valid @RequestBody PedidoRequestDTO dto) {
 
-        PedidoResponseDTO pedido = pedidoService.criarPedido(dto);
+        // Com chave, a admissão fica dentro da ação idempotente: a repetição volta do store sem reservar vaga
+        Supplier<PedidoResponseDTO> criar = () -> controleAdmissao.admitir(dto.getRestauranteId(),
+                () -> pedidoService.criarPedido(dto));
+        PedidoResponseDTO pedido;
+        boolean repetida = false;
+        if (idempotencyKey == null) {
+            pedido = criar.get();
+        } else {
+            IdempotenciaService.Resultado<PedidoResponseDTO> resultado = idempotenciaService.executar(
+                    "criar-pedido", idempotencyKey, dto, PedidoResponseDTO.class, criar);
+            pedido = resultado.valor();
+            repetida = resultado.repetida();
+        }
 
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(pedido.getId()).toUri();
 
-        return ResponseEntity.created(location).body(ApiResponse.success(pedido));
+        return ResponseEntity.created(location)
+                .header(IdempotenciaService.HEADER_REPETIDA, String.valueOf(repetida))
+                .body(ApiResponse.success(pedido));
+    }
+
+    @PostMapping(headers = "Prefer=" + PREFER_ASSINCRONO)
+    @PreAuthorize("hasRole('CLIENTE')")
+    @Operation(summary = "Criar novo pedido (assíncrono)",
+            description = "Com o header 'Prefer: respond-async' o pedido é validado, enfileirado e respondido com 202 e o número " +
+                    "do pedido; a gravação acontece em lote logo em seguida. Acompanhe em GET /api/pedidos/aceites/{numeroPedido}.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Pedido aceito para processamento"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Erro de validação dos campos"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Restaurante no limite de pedidos: tente novamente após o Retry-After"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Fila cheia: tente novamente após o Retry-After")
+    })
+    public ResponseEntity<ApiResponse<PedidoAceiteDTO>> criarPedidoAssincrono(
+            @Parameter(description = "Chave única gerada pelo cliente para que retentativas não dupliquem o pedido")
+            @RequestHeader(value = IdempotenciaService.HEADER_CHAVE, required = false) String idempotencyKey,
+            @Valid @RequestBody PedidoRequestDTO dto) {
+
+        String usuario = securityUtils.getCurrentUsername();
+        // Aceito na fila conta como em andamento; se o worker rejeitar depois, a vaga volta na ressincronização
+        Supplier<PedidoAceiteDTO> aceitar = () -> controleAdmissao.admitir(dto.getRestauranteId(),
+                () -> pedidoPipeline.aceitar(dto, usuario));
+        PedidoAceiteDTO aceite;
+        boolean repetida = false;
+        if (idempotencyKey == null) {
+            aceite = aceitar.get();
+        } else {
+            IdempotenciaService.Resultado<PedidoAceiteDTO> resultado = idempotenciaService.executar(
+                    "criar-pedido-async", idempotencyKey, dto, PedidoAceiteDTO.class, aceitar);
+            aceite = resultado.valor();
+            repetida = resultado.repetida();
+        }
+
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/aceites/{numeroPedido}")
+                .buildAndExpand(aceite.getNumeroPedido()).toUri();
+
+        return ResponseEntity.accepted()
+                .location(location)
+                .header("Preference-Applied", PREFER_ASSINCRONO)
+                .header(IdempotenciaService.HEADER_REPETIDA, String.valueOf(repetida))
+                .body(ApiResponse.success(aceite));
+    }
+
+    @GetMapping("/aceites/{numeroPedido}")
+    @PreAuthorize("hasRole('CLIENTE')")
+    @Operation(summary = "Acompanhar pedido assíncrono", description = "Situação de um pedido aceito com 202: EM_FILA, CRIADO (com o id) ou REJEITADO (com o motivo).")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Situação do pedido"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Número desconhecido ou de outro usuário")
+    })
+    public ResponseEntity<ApiResponse<PedidoAceiteDTO>> acompanharPedidoAssincrono(@PathVariable String numeroPedido) {
+        PedidoAceiteDTO aceite = pedidoPipeline.acompanhar(numeroPedido, securityUtils.getCurrentUsername())
+                .orElseThrow(() -> new EntityNotFoundException("Acompanhamento não encontrado: " + numeroPedido));
+        return ResponseEntity.ok(ApiResponse.success(aceite));
+    }
+
+    @PostMapping("/lote")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Criar pedidos em lote (Integrações)", description = "Recebe um array de pedidos, valida e precifica o lote inteiro e grava os válidos em lotes JDBC. Retorna o resultado de cada item.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Lote processado (verifique o resultado de cada item)"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Lote vazio ou acima do tamanho máximo"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Apenas administradores podem enviar lotes")
+    })
+    public ResponseEntity<ApiResponse<PedidoLoteResponseDTO>> criarPedidosEmLote(
+            @RequestBody List<PedidoRequestDTO> dtos) {
+
+        return ResponseEntity.ok(ApiResponse.success(pedidoService.criarPedidosEmLote(dtos)));
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Listar todos os pedidos (Admin)", description = "Endpoint administrativo para visão geral com filtros.")
-    public ResponseEntity<ApiResponse<PagedResponse<PedidoResumoDTO>>> listarPedidos(
+    @Operation(summary = "Listar todos os pedidos (Admin)", description = "Endpoint administrativo para visão geral com filtros. " +
+            "Os filtros são combináveis e opcionais; os intervalos aceitam só um dos limites.")
+    public ResponseEntity<ApiResponse<SliceResponse<PedidoResumoDTO>>> listarPedidos(
             @Parameter(description = "Filtrar por status", example = "PENDENTE")
             @RequestParam(required = false) StatusPedido status,
 
@@ -75,11 +185,26 @@ public class PedidoController {
             @Parameter(description = "Fim do período (ISO DateTime)", example = "2025-10-31T23:59:59")
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
 
+            @Parameter(description = "Filtrar por restaurante", example = "1")
+            @RequestParam(required = false) Long restauranteId,
+
+            @Parameter(description = "Filtrar por cliente", example = "1")
+            @RequestParam(required = false) Long clienteId,
+
+            @Parameter(description = "Valor total mínimo", example = "50.00")
+            @RequestParam(required = false) BigDecimal valorMinimo,
+
+            @Parameter(description = "Valor total máximo", example = "200.00")
+            @RequestParam(required = false) BigDecimal valorMaximo,
+
             @Parameter(description = "Paginação")
-            @PageableDefault(size = 10, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable) {
+            @PageableDefault(size = 10, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
-        Page<PedidoResumoDTO> page = pedidoService.listarPedidos(status, dataInicio, dataFim, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        PedidoFiltro filtro = new PedidoFiltro(status, dataInicio, dataFim, restauranteId, clienteId, valorMinimo, valorMaximo);
+        Slice<PedidoResumoDTO> page = pedidoService.listarPedidos(filtro, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
     }
 
     @GetMapping("/{id}")
@@ -97,79 +222,177 @@ public class PedidoController {
         return ResponseEntity.ok(ApiResponse.success(pedido));
     }
 
+    @PatchMapping("/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'RESTAURANTE')")
+    @Operation(summary = "Atualizar status em lote (Telas da cozinha)",
+            description = "Recebe um array de {pedidoId, status} e aplica todas as transições em uma transação: uma consulta " +
+                    "para os status atuais e um UPDATE por status de destino. Retorna o resultado de cada transição.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Lote processado (verifique o resultado de cada transição)"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Lote vazio ou acima do limite"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Apenas ADMIN ou RESTAURANTE"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Pedidos alterados concorrentemente: nada foi aplicado, tente novamente")
+    })
+    public ResponseEntity<ApiResponse<PedidoStatusLoteResponseDTO>> atualizarStatusEmLote(
+            @RequestBody List<PedidoStatusLoteItemDTO> itens) {
+
+        // Pedidos fora do escopo do restaurante viram falhas individuais, sem afetar os demais
+        PedidoStatusLoteResponseDTO resposta = pedidoService.atualizarStatusEmLote(itens, securityUtils.getEscopoPedido());
+        return ResponseEntity.ok(ApiResponse.success(resposta));
+    }
+
     @PatchMapping("/{id}/status")
-    @Operation(summary = "Atualizar status", description = "Avança o status do pedido (ex: PENDENTE -> PREPARANDO).")
+    @PreAuthorize("hasAnyRole('ADMIN', 'RESTAURANTE')")
+    @Operation(summary = "Atualizar status", description = "Avança o status do pedido (ex: PENDENTE -> PREPARANDO). " +
+            "Transições: PENDENTE -> CONFIRMADO/PREPARANDO/CANCELADO, CONFIRMADO -> PREPARANDO/CANCELADO, " +
+            "PREPARANDO -> SAIU_PARA_ENTREGA/CANCELADO, SAIU_PARA_ENTREGA -> ENTREGUE.")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Status atualizado"),
-            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Transição de status inválida (ex: tentar confirmar pedido já cancelado)")
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Transição de status inválida (ex: tentar confirmar pedido já cancelado)"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Pedido de outro restaurante"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Pedido não encontrado")
     })
-    public ResponseEntity<ApiResponse<PedidoResponseDTO>> atualizarStatus(
+    public ResponseEntity<ApiResponse<PedidoStatusDTO>> atualizarStatus(
             @PathVariable Long id,
             @Parameter(description = "Novo status") @RequestParam StatusPedido status) {
 
-        PedidoResponseDTO pedido = pedidoService.atualizarStatusPedido(id, status);
+        // A posse vai no WHERE do próprio UPDATE: não há leitura prévia para autorizar
+        PedidoStatusDTO pedido = pedidoService.atualizarStatusPedido(id, status, securityUtils.getEscopoPedido());
         return ResponseEntity.ok(ApiResponse.success(pedido));
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Cancelar pedido", description = "Cancela um pedido se ele ainda não tiver saído para entrega.")
+    @Operation(summary = "Cancelar pedido", description = "Cancela um pedido se ele ainda não tiver saído para entrega. Cancelar um pedido já cancelado não tem efeito (204).")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "204", description = "Pedido cancelado com sucesso"),
-            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Não é possível cancelar (já entregue ou saiu para entrega)")
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Não é possível cancelar (já entregue ou saiu para entrega)"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Pedido de outro cliente/restaurante")
     })
     public ResponseEntity<Void> cancelarPedido(@PathVariable Long id) {
-        pedidoService.cancelarPedido(id);
+        pedidoService.cancelarPedido(id, securityUtils.getEscopoPedido());
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/calcular")
-    @Operation(summary = "Simular total", description = "Calcula o valor total do pedido (produtos + frete) sem salvar no banco.")
-    public ResponseEntity<ApiResponse<BigDecimal>> calcularTotal(@Valid @RequestBody PedidoRequestDTO dto) {
-        Restaurante r = restauranteRepository.findById(dto.getRestauranteId())
-                .orElseThrow(() -> new EntityNotFoundException("Restaurante não encontrado"));
-
-        BigDecimal total = pedidoService.calcularTotalPedido(dto.getItens(), dto.getRestauranteId(), r.getTaxaEntrega());
-        return ResponseEntity.ok(ApiResponse.success(total));
+    @Operation(summary = "Simular total", description = "Calcula o valor total do pedido (produtos + frete) sem salvar no banco. " +
+            "Os preços saem de uma tabela em memória por restaurante; o token devolvido pode ser enviado em tokenCotacao " +
+            "na criação do pedido para manter os preços cotados enquanto for válido.")
+    public ResponseEntity<ApiResponse<CotacaoDTO>> calcularTotal(@Valid @RequestBody PedidoRequestDTO dto) {
+        return ResponseEntity.ok(ApiResponse.success(cotacaoService.cotar(dto.getRestauranteId(), dto.getItens())));
     }
 
     @GetMapping("/meus")
     @PreAuthorize("hasRole('CLIENTE')")
     @Operation(summary = "Meus Pedidos (Cliente)", description = "Histórico de pedidos do usuário logado.")
-    public ResponseEntity<ApiResponse<PagedResponse<PedidoResumoDTO>>> meusPedidos(
-            @PageableDefault(size = 10, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable) {
+    public ResponseEntity<ApiResponse<SliceResponse<PedidoResumoDTO>>> meusPedidos(
+            @PageableDefault(size = 10, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
         Long clienteId = securityUtils.getCurrentUserId();
-        Page<PedidoResumoDTO> page = pedidoService.buscarPedidosPorCliente(clienteId, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<PedidoResumoDTO> page = pedidoService.buscarPedidosPorCliente(clienteId, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
+    }
+
+    @GetMapping("/meus/cursor")
+    @PreAuthorize("hasRole('CLIENTE')")
+    @Operation(summary = "Meus Pedidos por cursor (Cliente)", description = "Histórico do usuário logado paginado por cursor: envie o nextCursor da resposta anterior para a próxima página. Não calcula total.")
+    public ResponseEntity<ApiResponse<CursorResponse<PedidoResumoDTO>>> meusPedidosCursor(
+            @Parameter(description = "Cursor devolvido pela página anterior (vazio na primeira)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Itens por página (1 a 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+
+        Long clienteId = securityUtils.getCurrentUserId();
+        return ResponseEntity.ok(ApiResponse.success(pedidoService.buscarPedidosPorClienteCursor(clienteId, cursor, size)));
     }
 
     @GetMapping("/recebidos")
     @PreAuthorize("hasRole('RESTAURANTE')")
     @Operation(summary = "Pedidos Recebidos (Restaurante)", description = "Fila de pedidos do restaurante logado.")
-    public ResponseEntity<ApiResponse<PagedResponse<PedidoResumoDTO>>> pedidosDoRestaurante(
-            @PageableDefault(size = 10, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable) {
+    public ResponseEntity<ApiResponse<SliceResponse<PedidoResumoDTO>>> pedidosDoRestaurante(
+            @PageableDefault(size = 10, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
         Long restauranteId = securityUtils.getCurrentRestauranteId();
-        Page<PedidoResumoDTO> page = pedidoService.buscarPedidosPorRestaurante(restauranteId, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<PedidoResumoDTO> page = pedidoService.buscarPedidosPorRestaurante(restauranteId, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
+    }
+
+    @GetMapping("/recebidos/cursor")
+    @PreAuthorize("hasRole('RESTAURANTE')")
+    @Operation(summary = "Pedidos Recebidos por cursor (Restaurante)", description = "Fila de pedidos do restaurante logado paginada por cursor. Não calcula total.")
+    public ResponseEntity<ApiResponse<CursorResponse<PedidoResumoDTO>>> pedidosDoRestauranteCursor(
+            @Parameter(description = "Cursor devolvido pela página anterior (vazio na primeira)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Itens por página (1 a 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+
+        Long restauranteId = securityUtils.getCurrentRestauranteId();
+        return ResponseEntity.ok(ApiResponse.success(pedidoService.buscarPedidosPorRestauranteCursor(restauranteId, cursor, size)));
+    }
+
+    @GetMapping(value = "/recebidos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('RESTAURANTE')")
+    @Operation(summary = "Stream de pedidos recebidos (Restaurante)",
+            description = "Server-Sent Events com os pedidos novos (CRIADO) e mudanças de status (STATUS_ALTERADO) do restaurante logado. " +
+                    "Substitui o polling em /recebidos. Ao reconectar, o header Last-Event-ID retoma de onde parou; " +
+                    "se eventos tiverem sido perdidos chega um evento \"reset\" e a lista deve ser recarregada.")
+    public ResponseEntity<SseEmitter> streamPedidosRecebidos(
+            @Parameter(description = "Id do último evento recebido (enviado automaticamente pelo EventSource ao reconectar)")
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+
+        Long restauranteId = securityUtils.getCurrentRestauranteId();
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no") // Evita que proxies (nginx) segurem os eventos em buffer
+                .body(pedidoStreamHub.assinar(restauranteId, ultimoEventoId));
     }
 
     // Endpoints legados mantidos para compatibilidade, mas documentados
     @GetMapping("/cliente/{clienteId}")
     @Operation(summary = "Histórico por Cliente ID", description = "Busca administrativa de pedidos de um cliente específico.")
-    public ResponseEntity<ApiResponse<PagedResponse<PedidoResumoDTO>>> buscarPedidosPorCliente(
+    public ResponseEntity<ApiResponse<SliceResponse<PedidoResumoDTO>>> buscarPedidosPorCliente(
             @PathVariable Long clienteId,
-            @PageableDefault(size = 5, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<PedidoResumoDTO> page = pedidoService.buscarPedidosPorCliente(clienteId, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+            @PageableDefault(size = 5, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
+        Slice<PedidoResumoDTO> page = pedidoService.buscarPedidosPorCliente(clienteId, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
     }
 
     @GetMapping("/restaurante/{restauranteId}")
     @Operation(summary = "Histórico por Restaurante ID", description = "Busca administrativa de pedidos de um restaurante específico.")
-    public ResponseEntity<ApiResponse<PagedResponse<PedidoResumoDTO>>> buscarPedidosPorRestaurante(
+    public ResponseEntity<ApiResponse<SliceResponse<PedidoResumoDTO>>> buscarPedidosPorRestaurante(
+            @PathVariable Long restauranteId,
+            @PageableDefault(size = 5, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
+        Slice<PedidoResumoDTO> page = pedidoService.buscarPedidosPorRestaurante(restauranteId, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
+    }
+
+    @GetMapping("/cliente/{clienteId}/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Histórico por Cliente ID (cursor)", description = "Busca administrativa de pedidos de um cliente, paginada por cursor.")
+    public ResponseEntity<ApiResponse<CursorResponse<PedidoResumoDTO>>> buscarPedidosPorClienteCursor(
+            @PathVariable Long clienteId,
+            @Parameter(description = "Cursor devolvido pela página anterior (vazio na primeira)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Itens por página (1 a 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(ApiResponse.success(pedidoService.buscarPedidosPorClienteCursor(clienteId, cursor, size)));
+    }
+
+    @GetMapping("/restaurante/{restauranteId}/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Histórico por Restaurante ID (cursor)", description = "Busca administrativa de pedidos de um restaurante, paginada por cursor.")
+    public ResponseEntity<ApiResponse<CursorResponse<PedidoResumoDTO>>> buscarPedidosPorRestauranteCursor(
             @PathVariable Long restauranteId,
-            @PageableDefault(size = 5, sort = "dataPedido", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<PedidoResumoDTO> page = pedidoService.buscarPedidosPorRestaurante(restauranteId, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+            @Parameter(description = "Cursor devolvido pela página anterior (vazio na primeira)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Itens por página (1 a 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(ApiResponse.success(pedidoService.buscarPedidosPorRestauranteCursor(restauranteId, cursor, size)));
     }
-}
\ No newline at end of file
+}
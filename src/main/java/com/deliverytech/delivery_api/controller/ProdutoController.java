@@ -1,9 +1,9 @@
 package com.deliverytech.delivery_api.controller;
 
 import com.deliverytech.delivery_api.dto.ApiResponse;
-import com.deliverytech.delivery_api.dto.PagedResponse;
 import com.deliverytech.delivery_api.dto.ProdutoRequestDTO;
 import com.deliverytech.delivery_api.dto.ProdutoResponseDTO;
+import com.deliverytech.delivery_api.dto.SliceResponse;
 import com.deliverytech.delivery_api.services.ProdutoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,8 +11,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -64,22 +64,26 @@ public class ProdutoController {
 
     @GetMapping("/categoria/{categoria}")
     @Operation(summary = "Listar por categoria", description = "Busca paginada de produtos filtrados pelo tipo de culinária.")
-    public ResponseEntity<ApiResponse<PagedResponse<ProdutoResponseDTO>>> buscarPorCategoria(
+    public ResponseEntity<ApiResponse<SliceResponse<ProdutoResponseDTO>>> buscarPorCategoria(
             @Parameter(description = "Nome da categoria", example = "Hambúrguer") @PathVariable String categoria,
-            @Parameter(description = "Paginação") @PageableDefault(size = 10, sort = "nome") Pageable pageable) {
+            @Parameter(description = "Paginação") @PageableDefault(size = 10, sort = "nome") Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
-        Page<ProdutoResponseDTO> page = produtoService.buscarProdutosPorCategoria(categoria, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<ProdutoResponseDTO> page = produtoService.buscarProdutosPorCategoria(categoria, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
     }
 
     @GetMapping("/buscar")
     @Operation(summary = "Buscar por nome", description = "Pesquisa produtos contendo o termo informado (case insensitive).")
-    public ResponseEntity<ApiResponse<PagedResponse<ProdutoResponseDTO>>> buscarPorNome(
+    public ResponseEntity<ApiResponse<SliceResponse<ProdutoResponseDTO>>> buscarPorNome(
             @Parameter(description = "Termo de busca", example = "Pizza") @RequestParam String nome,
-            @Parameter(description = "Paginação") @PageableDefault(size = 10) Pageable pageable) {
+            @Parameter(description = "Paginação") @PageableDefault(size = 10) Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
-        Page<ProdutoResponseDTO> page = produtoService.buscarProdutosPorNome(nome, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<ProdutoResponseDTO> page = produtoService.buscarProdutosPorNome(nome, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
     }
 
     @PutMapping("/{id}")
@@ -1,31 +1,58 @@
 package com.deliverytech.delivery_api.controller;
 
 import com.deliverytech.delivery_api.dto.ApiResponse;
-import com.deliverytech.delivery_api.dto.PagedResponse;
+import com.deliverytech.delivery_api.dto.RelatorioJobDTO;
+import com.deliverytech.delivery_api.dto.RelatorioJobRequestDTO;
+import com.deliverytech.delivery_api.dto.SliceResponse;
 import com.deliverytech.delivery_api.dto.PedidoResumoDTO;
+import com.deliverytech.delivery_api.dto.reports.RelatorioFaturamentoCategoriaDTO;
 import com.deliverytech.delivery_api.dto.reports.RelatorioProdutoVendidoDTO;
 import com.deliverytech.delivery_api.dto.reports.RelatorioRankingClienteDTO;
 import com.deliverytech.delivery_api.dto.reports.RelatorioVendasRestauranteDTO;
 import com.deliverytech.delivery_api.entity.Pedido;
+import com.deliverytech.delivery_api.exceptions.BusinessException;
 import com.deliverytech.delivery_api.repository.ClienteRepository;
-import com.deliverytech.delivery_api.repository.PedidoRepository;
+import com.deliverytech.delivery_api.repository.PedidoFiltro;
 import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import com.deliverytech.delivery_api.repository.RestauranteRepository;
 import com.deliverytech.delivery_api.services.PedidoService; // 1. IMPORTAR PedidoService
+import com.deliverytech.delivery_api.services.analitico.ColunasPedidos;
+import com.deliverytech.delivery_api.services.analitico.RelatoriosColunares;
+import com.deliverytech.delivery_api.services.maisvendidos.Janela;
+import com.deliverytech.delivery_api.services.maisvendidos.RankingProdutos;
+import com.deliverytech.delivery_api.services.relatorios.CacheRelatorios;
+import com.deliverytech.delivery_api.services.relatorios.ExportadorPedidos;
+import com.deliverytech.delivery_api.services.relatorios.JobsRelatorios;
+import com.deliverytech.delivery_api.services.relatorios.ReconciliadorRollups;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/relatorios")
@@ -33,8 +60,11 @@ import java.util.stream.Collectors;
 @Tag(name = "Relatórios", description = "Endpoints para extração de dados e métricas de negócio")
 public class RelatorioController {
 
+    // Reconstrução manual dos rollups limitada a um ano por chamada (roda na thread da requisição)
+    private static final long MAXIMO_DIAS_RECONSTRUCAO = 366;
+
     @Autowired
-    private PedidoRepository pedidoRepository;
+    private RestauranteRepository restauranteRepository;
     @Autowired
     private ClienteRepository clienteRepository;
     @Autowired
@@ -43,42 +73,93 @@ public class RelatorioController {
     @Autowired
     private PedidoService pedidoService; // 2. INJETAR PedidoService
 
+    @Autowired
+    private ReconciliadorRollups reconciliadorRollups;
+
+    @Autowired
+    private RelatoriosColunares relatoriosColunares;
+
+    @Autowired
+    private ColunasPedidos colunasPedidos;
+
+    @Autowired
+    private ExportadorPedidos exportadorPedidos;
+
+    @Autowired
+    private RankingProdutos rankingProdutos;
+
+    // Painel administrativo atualiza sozinho: agregados servidos por fatia de tempo (ver CacheRelatorios).
+    // As listagens paginadas de pedidos não passam pelo cache: uma página velha repetiria ou pularia pedidos
+    @Autowired
+    private CacheRelatorios cacheRelatorios;
+
+    @Autowired
+    private JobsRelatorios jobsRelatorios;
+
     @GetMapping("/vendas-por-restaurante")
-    @Operation(summary = "Relatório de total de vendas agrupado por restaurante")
+    @Operation(summary = "Relatório de total de vendas agrupado por restaurante (inclui pedidos arquivados)",
+            description = "Lido dos rollups diários; pedidos cancelados não entram no total.")
     public ResponseEntity<ApiResponse<List<RelatorioVendasRestauranteDTO>>> getVendasRestaurante() {
 
-        List<RelatorioVendasRestauranteDTO> relatorio = pedidoRepository.findTotalVendasPorRestaurante()
-                .stream()
-                .map(RelatorioVendasRestauranteDTO::new)
-                .collect(Collectors.toList());
+        List<RelatorioVendasRestauranteDTO> relatorio = cacheRelatorios.obter("vendas-por-restaurante", () ->
+                restauranteRepository.findTotalVendasPorRestaurante()
+                        .stream()
+                        .map(RelatorioVendasRestauranteDTO::new)
+                        .collect(Collectors.toList()));
+
+        return ResponseEntity.ok(ApiResponse.success(relatorio));
+    }
+
+    @GetMapping("/faturamento-por-categoria")
+    @Operation(summary = "Relatório de faturamento agrupado por categoria de restaurante (inclui pedidos arquivados)",
+            description = "Lido dos rollups diários; pedidos cancelados não entram no total.")
+    public ResponseEntity<ApiResponse<List<RelatorioFaturamentoCategoriaDTO>>> getFaturamentoPorCategoria() {
+
+        List<RelatorioFaturamentoCategoriaDTO> relatorio = cacheRelatorios.obter("faturamento-por-categoria", () ->
+                restauranteRepository.findFaturamentoPorCategoria()
+                        .stream()
+                        .map(RelatorioFaturamentoCategoriaDTO::new)
+                        .collect(Collectors.toList()));
 
         return ResponseEntity.ok(ApiResponse.success(relatorio));
     }
 
     @GetMapping("/clientes-mais-ativos")
-    @Operation(summary = "Ranking de clientes por número total de pedidos")
+    @Operation(summary = "Ranking de clientes por número total de pedidos (sem os cancelados)")
     public ResponseEntity<ApiResponse<List<RelatorioRankingClienteDTO>>> getClientesMaisAtivos() {
 
-        List<RelatorioRankingClienteDTO> relatorio = clienteRepository.findRankingClientesPorPedidos()
-                .stream()
-                .map(RelatorioRankingClienteDTO::new)
-                .collect(Collectors.toList());
+        List<RelatorioRankingClienteDTO> relatorio = cacheRelatorios.obter("clientes-mais-ativos", () ->
+                clienteRepository.findRankingClientesPorPedidos()
+                        .stream()
+                        .map(RelatorioRankingClienteDTO::new)
+                        .collect(Collectors.toList()));
 
         return ResponseEntity.ok(ApiResponse.success(relatorio));
     }
 
     @GetMapping("/produtos-mais-vendidos")
-    @Operation(summary = "Ranking dos produtos mais vendidos (Top N)")
+    @Operation(summary = "Ranking dos produtos mais vendidos (Top N)",
+            description = "Lido do ranking em memória, atualizado a cada pedido: quantidades estimadas (nunca abaixo da real). " +
+                    "Janelas HORA, DIA e SEMANA são deslizantes; TOTAL considera todos os pedidos.")
     public ResponseEntity<ApiResponse<List<RelatorioProdutoVendidoDTO>>> getProdutosMaisVendidos(
             @Parameter(description = "Quantidade de produtos no ranking", example = "10")
-            @RequestParam(defaultValue = "10") int limite) {
+            @RequestParam(defaultValue = "10") int limite,
+            @Parameter(description = "Período do ranking: TOTAL, HORA, DIA ou SEMANA", example = "DIA")
+            @RequestParam(defaultValue = "TOTAL") Janela janela,
+            @Parameter(description = "Ranking de um restaurante só (omitido = geral)")
+            @RequestParam(required = false) Long restauranteId) {
 
-        List<RelatorioProdutoVendidoDTO> relatorio = produtoRepository.findProdutosMaisVendidos(limite)
-                .stream()
-                .map(RelatorioProdutoVendidoDTO::new)
-                .collect(Collectors.toList());
+        // Ranking geral de sempre ainda sem o ranking em memória (subindo, ou desligado): agregação exata no banco
+        if (janela == Janela.TOTAL && restauranteId == null && !rankingProdutos.isPronto()) {
+            List<RelatorioProdutoVendidoDTO> relatorio = cacheRelatorios.obter("produtos-mais-vendidos", () ->
+                    produtoRepository.findProdutosMaisVendidos(limite)
+                            .stream()
+                            .map(RelatorioProdutoVendidoDTO::new)
+                            .collect(Collectors.toList()), limite);
+            return ResponseEntity.ok(ApiResponse.success(relatorio));
+        }
 
-        return ResponseEntity.ok(ApiResponse.success(relatorio));
+        return ResponseEntity.ok(ApiResponse.success(rankingProdutos.maisVendidos(janela, restauranteId, limite)));
     }
 
     /**
@@ -86,17 +167,69 @@ public class RelatorioController {
      */
     @GetMapping("/pedidos-por-periodo")
     @Operation(summary = "Listar todos os pedidos dentro de um período (paginado)")
-    public ResponseEntity<ApiResponse<PagedResponse<PedidoResumoDTO>>> getPedidosPorPeriodo(
+    public ResponseEntity<ApiResponse<SliceResponse<PedidoResumoDTO>>> getPedidosPorPeriodo(
             @Parameter(description = "Data/Hora inicial (formato ISO: YYYY-MM-DDTHH:MM:SS)")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
             @Parameter(description = "Data/Hora final (formato ISO: YYYY-MM-DDTHH:MM:SS)")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
             @Parameter(description = "Parâmetros de paginação")
-            @PageableDefault(size = 10, sort = "dataPedido") Pageable pageable) {
+            @PageableDefault(size = 10, sort = "dataPedido") Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
         // 3. USAR O SERVICE, passando null para o status (pois este endpoint não filtra por status)
-        Page<PedidoResumoDTO> page = pedidoService.listarPedidos(null, dataInicio, dataFim, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<PedidoResumoDTO> page = pedidoService.listarPedidos(PedidoFiltro.de(null, dataInicio, dataFim), pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
+    }
+
+    /**
+     * Período inteiro de uma vez, em vez de página a página: as linhas saem do cursor direto para a resposta
+     * (StreamingResponseBody, fora da thread do servidor), comprimidas se o cliente aceitar gzip.
+     */
+    @GetMapping("/pedidos-por-periodo/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Exportar os pedidos de um período em CSV ou NDJSON (streaming)",
+            description = "Mesmas colunas da listagem por período. Com Accept-Encoding: gzip a resposta sai comprimida. " +
+                    "Exportações simultâneas são limitadas: acima do limite, 429 com Retry-After.")
+    public ResponseEntity<StreamingResponseBody> exportarPedidosPorPeriodo(
+            @Parameter(description = "Data/Hora inicial (formato ISO: YYYY-MM-DDTHH:MM:SS)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @Parameter(description = "Data/Hora final, inclusive (formato ISO: YYYY-MM-DDTHH:MM:SS)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @Parameter(description = "csv ou ndjson", example = "csv")
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        if (dataFim.isBefore(dataInicio)) {
+            throw new BusinessException("dataFim deve ser igual ou posterior a dataInicio");
+        }
+        ExportadorPedidos.Formato formato = ExportadorPedidos.Formato.de(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        // Vaga reservada antes de responder (429 ainda sem corpo) e liberada quando o streaming termina
+        ExportadorPedidos.Vaga vaga = exportadorPedidos.reservarVaga();
+        StreamingResponseBody corpo = saida -> {
+            try (vaga) {
+                if (gzip) {
+                    GZIPOutputStream comprimida = new GZIPOutputStream(saida, 16 * 1024);
+                    exportadorPedidos.exportar(dataInicio, dataFim, formato, comprimida);
+                    comprimida.finish();
+                } else {
+                    exportadorPedidos.exportar(dataInicio, dataFim, formato, saida);
+                }
+            }
+        };
+
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("pedidos-" + dataInicio.toLocalDate() + "-" + dataFim.toLocalDate() + "." + formato.getExtensao())
+                        .build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(corpo);
     }
 
     /**
@@ -104,14 +237,161 @@ public class RelatorioController {
      */
     @GetMapping("/pedidos-por-valor")
     @Operation(summary = "Relatório de pedidos acima de um determinado valor (paginado)")
-    public ResponseEntity<ApiResponse<PagedResponse<PedidoResumoDTO>>> getPedidosAcimaDe(
+    public ResponseEntity<ApiResponse<SliceResponse<PedidoResumoDTO>>> getPedidosAcimaDe(
             @Parameter(description = "Valor mínimo do pedido", example = "100.00")
             @RequestParam BigDecimal valor,
             @Parameter(description = "Parâmetros de paginação")
-            @PageableDefault(size = 10, sort = "valorTotal") Pageable pageable) {
+            @PageableDefault(size = 10, sort = "valorTotal") Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
         // 3. USAR O NOVO MÉTODO DO SERVICE
-        Page<PedidoResumoDTO> page = pedidoService.buscarPedidosAcimaDeValor(valor, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<PedidoResumoDTO> page = pedidoService.buscarPedidosAcimaDeValor(valor, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
+    }
+
+    /**
+     * Refaz os rollups dos relatórios a partir dos pedidos, dia a dia (ex.: depois de uma carga direta no banco).
+     */
+    @PostMapping("/rollups/reconstruir")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reconstruir os rollups diários dos relatórios em um período",
+            description = "Cada dia é refeito em uma transação a partir de pedidos ativos e arquivados. Até " + MAXIMO_DIAS_RECONSTRUCAO + " dias por chamada.")
+    public ResponseEntity<ApiResponse<Integer>> reconstruirRollups(
+            @Parameter(description = "Primeiro dia (formato ISO: YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @Parameter(description = "Último dia, inclusive (formato ISO: YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
+
+        if (dataFim.isBefore(dataInicio)) {
+            throw new BusinessException("dataFim deve ser igual ou posterior a dataInicio");
+        }
+        if (ChronoUnit.DAYS.between(dataInicio, dataFim) >= MAXIMO_DIAS_RECONSTRUCAO) {
+            throw new BusinessException("Período máximo de " + MAXIMO_DIAS_RECONSTRUCAO + " dias por reconstrução");
+        }
+        int dias = reconciliadorRollups.reconstruir(dataInicio, dataFim);
+        cacheRelatorios.limpar();
+        return ResponseEntity.ok(ApiResponse.success(dias));
+    }
+
+    /**
+     * Relatórios ad hoc (período com hora, top N) calculados na base colunar em memória, sem consultar pedidos no banco.
+     */
+    @GetMapping("/analitico/vendas-por-restaurante")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Top N restaurantes por vendas em um período (base analítica em memória)",
+            description = "Pedidos cancelados não entram no total. Sem período, considera todos os pedidos.")
+    public ResponseEntity<ApiResponse<List<RelatorioVendasRestauranteDTO>>> getVendasRestauranteAnalitico(
+            @Parameter(description = "Data/Hora inicial (formato ISO: YYYY-MM-DDTHH:MM:SS)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @Parameter(description = "Data/Hora final, inclusive (formato ISO: YYYY-MM-DDTHH:MM:SS)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @Parameter(description = "Quantidade de restaurantes no ranking", example = "10")
+            @RequestParam(defaultValue = "10") int limite) {
+
+        return ResponseEntity.ok(ApiResponse.success(cacheRelatorios.obter("analitico/vendas-por-restaurante", () ->
+                relatoriosColunares.vendasPorRestaurante(dataInicio, dataFim, limite), dataInicio, dataFim, limite)));
+    }
+
+    @GetMapping("/analitico/faturamento-por-categoria")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Faturamento por categoria de restaurante em um período (base analítica em memória)",
+            description = "Pedidos cancelados não entram no total. Sem período, considera todos os pedidos.")
+    public ResponseEntity<ApiResponse<List<RelatorioFaturamentoCategoriaDTO>>> getFaturamentoPorCategoriaAnalitico(
+            @Parameter(description = "Data/Hora inicial (formato ISO: YYYY-MM-DDTHH:MM:SS)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @Parameter(description = "Data/Hora final, inclusive (formato ISO: YYYY-MM-DDTHH:MM:SS)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim) {
+
+        return ResponseEntity.ok(ApiResponse.success(cacheRelatorios.obter("analitico/faturamento-por-categoria", () ->
+                relatoriosColunares.faturamentoPorCategoria(dataInicio, dataFim), dataInicio, dataFim)));
+    }
+
+    @GetMapping("/analitico/clientes-mais-ativos")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Top N clientes por número de pedidos em um período (base analítica em memória)",
+            description = "Pedidos cancelados não contam. Sem período, considera todos os pedidos.")
+    public ResponseEntity<ApiResponse<List<RelatorioRankingClienteDTO>>> getClientesMaisAtivosAnalitico(
+            @Parameter(description = "Data/Hora inicial (formato ISO: YYYY-MM-DDTHH:MM:SS)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @Parameter(description = "Data/Hora final, inclusive (formato ISO: YYYY-MM-DDTHH:MM:SS)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @Parameter(description = "Quantidade de clientes no ranking", example = "10")
+            @RequestParam(defaultValue = "10") int limite) {
+
+        return ResponseEntity.ok(ApiResponse.success(cacheRelatorios.obter("analitico/clientes-mais-ativos", () ->
+                relatoriosColunares.clientesMaisAtivos(dataInicio, dataFim, limite), dataInicio, dataFim, limite)));
+    }
+
+    /**
+     * Recarga completa da base analítica (o complemento periódico só lê pedidos novos e os em andamento).
+     */
+    @PostMapping("/analitico/recarregar")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recarregar a base analítica em memória a partir do banco",
+            description = "Lê pedidos ativos e arquivados por inteiro e troca o conteúdo de uma vez, sem interromper consultas. " +
+                    "Devolve a quantidade de pedidos carregados.")
+    public ResponseEntity<ApiResponse<Integer>> recarregarAnalitico() {
+        int pedidos = colunasPedidos.recarregar();
+        cacheRelatorios.limpar();
+        return ResponseEntity.ok(ApiResponse.success(pedidos));
+    }
+
+    /**
+     * Relatórios que passam do tempo de uma requisição: gerados em segundo plano e baixados quando prontos.
+     */
+    @PostMapping("/jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Gerar um relatório em segundo plano",
+            description = "Responde 202 com o id do job; acompanhe em GET /api/relatorios/jobs/{id} e baixe em /jobs/{id}/resultado. " +
+                    "Os mesmos parâmetros de um job na fila, executando ou concluído devolvem esse job.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Job aceito (ou já existente)"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Tipo, período ou formato inválido"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Fila de relatórios cheia: tente novamente após o Retry-After")
+    })
+    public ResponseEntity<ApiResponse<RelatorioJobDTO>> submeterJob(@Valid @RequestBody RelatorioJobRequestDTO dto) {
+        RelatorioJobDTO job = jobsRelatorios.submeter(dto);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
+                .buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted()
+                .location(location)
+                .body(ApiResponse.success(job));
+    }
+
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Acompanhar um relatório em segundo plano",
+            description = "Situação (EM_FILA, EXECUTANDO, CONCLUIDO, FALHOU, CANCELADO) e progresso em linhas.")
+    public ResponseEntity<ApiResponse<RelatorioJobDTO>> consultarJob(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.success(jobsRelatorios.consultar(id)));
+    }
+
+    @GetMapping("/jobs/{id}/resultado")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Baixar o arquivo de um relatório concluído")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Arquivo CSV ou NDJSON"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Job desconhecido ou expirado"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Job ainda não concluído")
+    })
+    public ResponseEntity<Resource> baixarResultadoJob(@PathVariable String id) {
+        JobsRelatorios.Resultado resultado = jobsRelatorios.resultado(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(resultado.formato().getContentType()))
+                .contentLength(resultado.tamanhoBytes())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(resultado.nomeArquivo())
+                        .build().toString())
+                .body(new FileSystemResource(resultado.arquivo()));
+    }
+
+    @DeleteMapping("/jobs/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Cancelar um relatório em segundo plano",
+            description = "Na fila ou executando: cancela e apaga o arquivo parcial. Já terminado: descarta o resultado.")
+    public ResponseEntity<Void> cancelarJob(@PathVariable String id) {
+        jobsRelatorios.cancelar(id);
+        return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+}
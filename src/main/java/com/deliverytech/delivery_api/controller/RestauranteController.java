@@ -3,13 +3,14 @@ package com.deliverytech.delivery_api.controller;
 import com.deliverytech.delivery_api.dto.*;
 import com.deliverytech.delivery_api.services.ProdutoService;
 import com.deliverytech.delivery_api.services.RestauranteService;
+import com.deliverytech.delivery_api.services.admissao.ControleAdmissao;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.CacheControl;
 import com.deliverytech.delivery_api.dto.ApiResponse;
@@ -36,6 +37,9 @@ public class RestauranteController {
     @Autowired
     private ProdutoService produtoService; // Necessário para o endpoint 2.3
 
+    @Autowired
+    private ControleAdmissao controleAdmissao;
+
     /**
      * 2.2: POST /api/restaurantes - Cadastrar restaurante
      * ATIVIDADE 3.1, 3.2, 3.3: Retorna 201 com Location e ApiResponse
@@ -66,16 +70,18 @@ public class RestauranteController {
      */
     @GetMapping
     @Operation(summary = "Listar restaurantes com filtros opcionais (paginado)")
-    public ResponseEntity<ApiResponse<PagedResponse<RestauranteResponseDTO>>> listarRestaurantes(
+    public ResponseEntity<ApiResponse<SliceResponse<RestauranteResponseDTO>>> listarRestaurantes(
             @Parameter(description = "Filtrar por tipo de culinária", example = "Italiana")
             @RequestParam(required = false) String categoria,
             @Parameter(description = "Filtrar por status (true=ativos, false=inativos)")
             @RequestParam(required = false) Boolean ativo,
             @Parameter(description = "Parâmetros de paginação (page, size, sort)")
-            @PageableDefault(size = 10, sort = "nome") Pageable pageable) {
+            @PageableDefault(size = 10, sort = "nome") Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
-        Page<RestauranteResponseDTO> page = restauranteService.buscarRestaurantes(categoria, ativo, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<RestauranteResponseDTO> page = restauranteService.buscarRestaurantes(categoria, ativo, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
     }
 
     /**
@@ -98,13 +104,15 @@ public class RestauranteController {
      */
     @GetMapping("/categoria/{categoria}")
     @Operation(summary = "Buscar restaurantes por categoria (paginado)")
-    public ResponseEntity<ApiResponse<PagedResponse<RestauranteResponseDTO>>> buscarPorCategoria(
+    public ResponseEntity<ApiResponse<SliceResponse<RestauranteResponseDTO>>> buscarPorCategoria(
             @Parameter(description = "Nome da categoria", example = "Italiana") @PathVariable String categoria,
             @Parameter(description = "Parâmetros de paginação")
-            @PageableDefault(size = 10, sort = "nome") Pageable pageable) {
+            @PageableDefault(size = 10, sort = "nome") Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
-        Page<RestauranteResponseDTO> page = restauranteService.buscarRestaurantesPorCategoria(categoria, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<RestauranteResponseDTO> page = restauranteService.buscarRestaurantesPorCategoria(categoria, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
     }
 
     /**
@@ -135,6 +143,55 @@ public class RestauranteController {
         return ResponseEntity.ok(ApiResponse.success(restaurante));
     }
 
+    /**
+     * Limites de admissão de pedidos (429 acima deles). Ajustes valem nesta instância até o próximo restart.
+     */
+    @GetMapping("/{id}/admissao")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Consultar limites de admissão de pedidos do restaurante", description = "Limites em vigor (próprios ou padrão) e pedidos em andamento contabilizados nesta instância.")
+    public ResponseEntity<ApiResponse<LimitesAdmissaoDTO>> consultarAdmissao(
+            @Parameter(description = "ID do restaurante") @PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(controleAdmissao.consultar(id)));
+    }
+
+    @PutMapping("/{id}/admissao")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Definir limites de admissão de pedidos do restaurante", description = "Substitui os limites padrão para este restaurante. 0 = sem limite.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Limites aplicados"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Erro de validação dos campos"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Restaurante não encontrado")
+    })
+    public ResponseEntity<ApiResponse<LimitesAdmissaoDTO>> definirAdmissao(
+            @Parameter(description = "ID do restaurante") @PathVariable Long id,
+            @Valid @RequestBody LimitesAdmissaoDTO dto) {
+        restauranteService.buscarRestaurantePorId(id);
+        return ResponseEntity.ok(ApiResponse.success(controleAdmissao.definir(id, dto)));
+    }
+
+    @DeleteMapping("/{id}/admissao")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Remover limites próprios do restaurante", description = "O restaurante volta a usar os limites padrão.")
+    public ResponseEntity<Void> removerAdmissao(
+            @Parameter(description = "ID do restaurante") @PathVariable Long id) {
+        controleAdmissao.removerLimites(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/admissao/padrao")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Consultar limites padrão de admissão de pedidos")
+    public ResponseEntity<ApiResponse<LimitesAdmissaoDTO>> consultarAdmissaoPadrao() {
+        return ResponseEntity.ok(ApiResponse.success(controleAdmissao.consultarPadrao()));
+    }
+
+    @PutMapping("/admissao/padrao")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Definir limites padrão de admissão de pedidos", description = "Vale para todos os restaurantes sem limites próprios. 0 = sem limite.")
+    public ResponseEntity<ApiResponse<LimitesAdmissaoDTO>> definirAdmissaoPadrao(@Valid @RequestBody LimitesAdmissaoDTO dto) {
+        return ResponseEntity.ok(ApiResponse.success(controleAdmissao.definirPadrao(dto)));
+    }
+
     /**
      * 2.2: GET /api/restaurantes/{id}/taxa-entrega/{cep} - Calcular taxa
      * ATIVIDADE 3.2: Adiciona ApiResponse
@@ -156,13 +213,15 @@ public class RestauranteController {
      */
     @GetMapping("/proximos/{cep}")
     @Operation(summary = "Buscar restaurantes próximos a um CEP (paginado)")
-    public ResponseEntity<ApiResponse<PagedResponse<RestauranteResponseDTO>>> buscarProximos(
+    public ResponseEntity<ApiResponse<SliceResponse<RestauranteResponseDTO>>> buscarProximos(
             @Parameter(description = "CEP do cliente", example = "30110000") @PathVariable String cep,
             @Parameter(description = "Parâmetros de paginação")
-            @PageableDefault(size = 5, sort = "avaliacao") Pageable pageable) {
+            @PageableDefault(size = 5, sort = "avaliacao") Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
-        Page<RestauranteResponseDTO> page = restauranteService.buscarRestaurantesProximos(cep, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<RestauranteResponseDTO> page = restauranteService.buscarRestaurantesProximos(cep, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
     }
 
     /**
@@ -171,12 +230,14 @@ public class RestauranteController {
      */
     @GetMapping("/{restauranteId}/produtos")
     @Operation(summary = "Listar todos os produtos disponíveis de um restaurante (paginado)")
-    public ResponseEntity<ApiResponse<PagedResponse<ProdutoResponseDTO>>> buscarProdutosPorRestaurante(
+    public ResponseEntity<ApiResponse<SliceResponse<ProdutoResponseDTO>>> buscarProdutosPorRestaurante(
             @Parameter(description = "ID do restaurante") @PathVariable Long restauranteId,
             @Parameter(description = "Parâmetros de paginação")
-            @PageableDefault(size = 10, sort = "nome") Pageable pageable) {
+            @PageableDefault(size = 10, sort = "nome") Pageable pageable,
+            @Parameter(description = "false = não calcula totais (sem COUNT), devolve apenas hasNext")
+            @RequestParam(defaultValue = "true") boolean count) {
 
-        Page<ProdutoResponseDTO> page = produtoService.buscarProdutosPorRestaurante(restauranteId, pageable);
-        return ResponseEntity.ok(ApiResponse.success(new PagedResponse<>(page)));
+        Slice<ProdutoResponseDTO> page = produtoService.buscarProdutosPorRestaurante(restauranteId, pageable, count);
+        return ResponseEntity.ok(ApiResponse.success(SliceResponse.of(page)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.deliverytech.delivery_api.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Resultado da precificação de um pedido: snapshot dos preços unitários no momento
+ * do cálculo. Permite que o checkout reutilize os valores já calculados sem
+ * consultar os produtos novamente.
+ */
+public record CestaPrecificada(
+        Long restauranteId,
+        List<Item> itens,
+        BigDecimal subtotal,
+        BigDecimal taxaEntrega,
+        BigDecimal valorTotal
+) {
+
+    public record Item(
+            Long produtoId,
+            String nome,
+            Integer quantidade,
+            BigDecimal precoUnitario,
+            BigDecimal subtotal
+    ) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.deliverytech.delivery_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cotação do carrinho (POST /api/pedidos/calcular)")
+public class CotacaoDTO {
+
+    @Schema(description = "ID do restaurante cotado", example = "1")
+    private Long restauranteId;
+
+    @Schema(description = "Itens com o preço unitário usado na cotação")
+    private List<CestaPrecificada.Item> itens;
+
+    @Schema(description = "Soma dos itens", example = "70.00")
+    private BigDecimal subtotal;
+
+    @Schema(description = "Taxa de entrega do restaurante", example = "5.00")
+    private BigDecimal taxaEntrega;
+
+    @Schema(description = "Total (itens + taxa)", example = "75.00")
+    private BigDecimal valorTotal;
+
+    @Schema(description = "Token assinado da cotação: enviado em tokenCotacao ao criar o pedido, dispensa a reprecificação enquanto for válido")
+    private String token;
+
+    @Schema(description = "Validade do token")
+    private LocalDateTime validaAte;
+}
@@ -0,0 +1,32 @@
+package com.deliverytech.delivery_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * DTO para respostas paginadas por cursor (keyset).
+ * Não traz total de elementos nem número de página: o custo de cada página é o mesmo,
+ * seja a primeira ou a milésima.
+ *
+ * @param <T> O tipo do conteúdo da lista (ex: PedidoResumoDTO)
+ */
+@Getter
+@AllArgsConstructor
+@Schema(description = "Wrapper para respostas paginadas por cursor")
+public class CursorResponse<T> {
+
+    @Schema(description = "A lista de itens desta página")
+    private final List<T> content;
+
+    @Schema(description = "A quantidade de itens por página", example = "10")
+    private final int size;
+
+    @Schema(description = "Indica se existem mais itens após esta página", example = "true")
+    private final boolean hasNext;
+
+    @Schema(description = "Cursor opaco para buscar a próxima página (null na última)", example = "MjAyNS0xMC0wMVQxMjowMDowMHw1MDE")
+    private final String nextCursor;
+}
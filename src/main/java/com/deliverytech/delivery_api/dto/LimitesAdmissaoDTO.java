@@ -0,0 +1,41 @@
+package com.deliverytech.delivery_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Limites de admissão de pedidos de um restaurante (0 = sem limite)")
+public class LimitesAdmissaoDTO {
+
+    @Schema(description = "Máximo de pedidos em andamento (PENDENTE, CONFIRMADO, PREPARANDO)", example = "200")
+    @NotNull(message = "O máximo de pedidos em andamento é obrigatório")
+    @Min(value = 0, message = "O máximo de pedidos em andamento não pode ser negativo")
+    private Integer maxEmAndamento;
+
+    @Schema(description = "Novos pedidos por minuto (taxa sustentada)", example = "120")
+    @NotNull(message = "A taxa de pedidos por minuto é obrigatória")
+    @Min(value = 0, message = "A taxa de pedidos por minuto não pode ser negativa")
+    private Integer pedidosPorMinuto;
+
+    @Schema(description = "Pedidos aceitos de uma vez acima da taxa (rajada)", example = "30")
+    @NotNull(message = "A rajada é obrigatória")
+    @Min(value = 1, message = "A rajada deve ser de pelo menos 1")
+    private Integer rajada;
+
+    @Schema(description = "Pedidos em andamento agora nesta instância (somente leitura)", example = "12", accessMode = Schema.AccessMode.READ_ONLY)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer emAndamento;
+
+    @Schema(description = "true se o restaurante tem limites próprios; false se usa o padrão (somente leitura)", accessMode = Schema.AccessMode.READ_ONLY)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Boolean personalizado;
+}
@@ -0,0 +1,38 @@
+package com.deliverytech.delivery_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Acompanhamento de um pedido aceito no modo assíncrono (202)")
+public class PedidoAceiteDTO {
+
+    public enum Situacao {
+        EM_FILA,
+        CRIADO,
+        REJEITADO
+    }
+
+    @Schema(description = "Número do pedido, reservado no aceite", example = "PED0AB12CD34EF56")
+    private String numeroPedido;
+
+    @Schema(description = "Situação do processamento", example = "EM_FILA")
+    private Situacao situacao;
+
+    @Schema(description = "ID do pedido gravado (quando CRIADO)", example = "501")
+    private Long pedidoId;
+
+    @Schema(description = "Motivo da rejeição (quando REJEITADO)", example = "Produto indisponível: Pizza Margherita")
+    private String erro;
+
+    @Schema(description = "Data e hora do aceite")
+    private LocalDateTime dataAceite;
+}
@@ -0,0 +1,16 @@
+package com.deliverytech.delivery_api.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Linha plana da consulta de detalhe do pedido (PedidoRepository.findDetalheById): pedido, cliente e restaurante
+ * repetidos em cada linha, uma linha por item. Montada em PedidoResponseDTO pelo PedidoService, sem reflexão.
+ */
+public record PedidoDetalheLinha(
+        Long id, String numeroPedido, LocalDateTime dataPedido, String status, BigDecimal valorTotal, String observacoes,
+        Long clienteId, String clienteNome, String clienteEmail, String clienteTelefone, String clienteEndereco, Boolean clienteAtivo,
+        Long restauranteId, String restauranteNome, String restauranteCategoria, String restauranteEndereco,
+        String restauranteTelefone, BigDecimal restauranteTaxaEntrega, BigDecimal restauranteAvaliacao, Boolean restauranteAtivo,
+        Long itemProdutoId, Integer itemQuantidade) {
+}
@@ -0,0 +1,32 @@
+package com.deliverytech.delivery_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Resumo de uma ingestão de pedidos em lote")
+public class PedidoLoteResponseDTO {
+
+    @Schema(description = "Quantidade de pedidos recebidos", example = "100")
+    private int total;
+
+    @Schema(description = "Quantidade de pedidos criados", example = "98")
+    private int criados;
+
+    @Schema(description = "Quantidade de pedidos rejeitados", example = "2")
+    private int rejeitados;
+
+    @Schema(description = "Resultado de cada pedido, na mesma ordem do envio")
+    private List<PedidoLoteResultadoDTO> resultados;
+
+    public PedidoLoteResponseDTO(List<PedidoLoteResultadoDTO> resultados) {
+        this.resultados = resultados;
+        this.total = resultados.size();
+        this.criados = (int) resultados.stream().filter(PedidoLoteResultadoDTO::isSucesso).count();
+        this.rejeitados = total - criados;
+    }
+}
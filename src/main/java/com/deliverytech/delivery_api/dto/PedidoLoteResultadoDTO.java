@@ -0,0 +1,42 @@
+package com.deliverytech.delivery_api.dto;
+
+import com.deliverytech.delivery_api.entity.Pedido;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de um pedido dentro de uma ingestão em lote")
+public class PedidoLoteResultadoDTO {
+
+    @Schema(description = "Posição do pedido no array enviado (base 0)", example = "0")
+    private int indice;
+
+    @Schema(description = "Indica se o pedido foi criado", example = "true")
+    private boolean sucesso;
+
+    @Schema(description = "ID do pedido criado", example = "501")
+    private Long pedidoId;
+
+    @Schema(description = "Código do pedido criado", example = "PED-A8C4E")
+    private String numeroPedido;
+
+    @Schema(description = "Valor total do pedido criado", example = "98.99")
+    private BigDecimal valorTotal;
+
+    @Schema(description = "Motivo da rejeição", example = "Produto indisponível: Pizza Margherita")
+    private String erro;
+
+    public static PedidoLoteResultadoDTO sucesso(int indice, Pedido pedido) {
+        return new PedidoLoteResultadoDTO(indice, true, pedido.getId(), pedido.getNumeroPedido(), pedido.getValorTotal(), null);
+    }
+
+    public static PedidoLoteResultadoDTO falha(int indice, String erro) {
+        return new PedidoLoteResultadoDTO(indice, false, null, null, null, erro);
+    }
+}
@@ -26,4 +26,7 @@ public class PedidoRequestDTO {
 
     @Schema(description = "Instruções especiais (ex: tirar cebola, ponto da carne)", example = "Tirar a cebola da pizza, por favor.") // ATIVIDADE 2.3
     private String observacoes;
-}
\ No newline at end of file
+
+    @Schema(description = "Token devolvido por POST /api/pedidos/calcular (opcional). Válido e com os mesmos itens, o pedido usa os preços cotados sem reprecificar")
+    private String tokenCotacao;
+}
@@ -2,10 +2,14 @@ package com.deliverytech.delivery_api.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.PersistenceCreator;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 @Schema(description = "DTO resumido para listagens de pedidos (histórico)") // ATIVIDADE 2.3
 public class PedidoResumoDTO {
 
@@ -26,4 +30,19 @@ public class PedidoResumoDTO {
 
     @Schema(description = "Nome do restaurante onde o pedido foi feito", example = "Pizzaria Bella Italia") // ATIVIDADE 2.3
     private String nomeRestaurante;
+
+    /**
+     * Projeção das listagens: JPQL (SELECT new ...) e consultas derivadas do Spring Data (cursor), que leem cada
+     * parâmetro pelo nome como caminho na entidade; restauranteNome é o caminho restaurante.nome.
+     */
+    @PersistenceCreator
+    public PedidoResumoDTO(Long id, String numeroPedido, LocalDateTime dataPedido, String status, BigDecimal valorTotal,
+                           String restauranteNome) {
+        this.id = id;
+        this.numeroPedido = numeroPedido;
+        this.dataPedido = dataPedido;
+        this.status = status;
+        this.valorTotal = valorTotal;
+        this.nomeRestaurante = restauranteNome;
+    }
 }
\ No newline at end of file
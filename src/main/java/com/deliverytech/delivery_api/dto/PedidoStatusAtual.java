@@ -0,0 +1,8 @@
+package com.deliverytech.delivery_api.dto;
+
+/**
+ * Status atual de um pedido e seus donos, lidos na atualização de status (PedidoRepository.findStatusParaAtualizar
+ * no lote, findStatusAtualById depois do UPDATE condicional) e repassados no PedidoEvento.
+ */
+public record PedidoStatusAtual(Long id, String status, Long restauranteId, Long clienteId) {
+}
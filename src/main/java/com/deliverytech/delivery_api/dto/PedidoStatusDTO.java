@@ -0,0 +1,32 @@
+package com.deliverytech.delivery_api.dto;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de uma transição de status do pedido")
+public class PedidoStatusDTO {
+
+    @Schema(description = "ID do pedido", example = "501")
+    private Long id;
+
+    @Schema(description = "Novo status do pedido", example = "PREPARANDO")
+    private StatusPedido status;
+
+    @Schema(description = "Descrição do novo status", example = "Preparando")
+    private String descricao;
+
+    @Schema(description = "Status para os quais o pedido ainda pode avançar", example = "[\"SAIU_PARA_ENTREGA\", \"CANCELADO\"]")
+    private Set<StatusPedido> proximos;
+
+    public static PedidoStatusDTO de(Long id, StatusPedido status) {
+        return new PedidoStatusDTO(id, status, status.getDescricao(), status.getProximos());
+    }
+}
@@ -0,0 +1,20 @@
+package com.deliverytech.delivery_api.dto;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Transição de status de um pedido dentro de uma atualização em lote")
+public class PedidoStatusLoteItemDTO {
+
+    @Schema(description = "ID do pedido", example = "501")
+    private Long pedidoId;
+
+    @Schema(description = "Novo status do pedido", example = "SAIU_PARA_ENTREGA")
+    private StatusPedido status;
+}
@@ -0,0 +1,32 @@
+package com.deliverytech.delivery_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Resumo de uma atualização de status em lote")
+public class PedidoStatusLoteResponseDTO {
+
+    @Schema(description = "Quantidade de transições recebidas", example = "30")
+    private int total;
+
+    @Schema(description = "Quantidade de transições aceitas (cancelar um pedido já cancelado conta como aceita)", example = "29")
+    private int alterados;
+
+    @Schema(description = "Quantidade de transições rejeitadas", example = "1")
+    private int rejeitados;
+
+    @Schema(description = "Resultado de cada transição, na mesma ordem do envio")
+    private List<PedidoStatusLoteResultadoDTO> resultados;
+
+    public PedidoStatusLoteResponseDTO(List<PedidoStatusLoteResultadoDTO> resultados) {
+        this.resultados = resultados;
+        this.total = resultados.size();
+        this.alterados = (int) resultados.stream().filter(PedidoStatusLoteResultadoDTO::isSucesso).count();
+        this.rejeitados = total - alterados;
+    }
+}
@@ -0,0 +1,37 @@
+package com.deliverytech.delivery_api.dto;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de uma transição dentro de uma atualização de status em lote")
+public class PedidoStatusLoteResultadoDTO {
+
+    @Schema(description = "Posição da transição no array enviado (base 0)", example = "0")
+    private int indice;
+
+    @Schema(description = "ID do pedido", example = "501")
+    private Long pedidoId;
+
+    @Schema(description = "Indica se o status foi alterado", example = "true")
+    private boolean sucesso;
+
+    @Schema(description = "Status do pedido após a atualização (status atual quando rejeitado)", example = "SAIU_PARA_ENTREGA")
+    private StatusPedido status;
+
+    @Schema(description = "Motivo da rejeição", example = "Transição de status inválida: ENTREGUE -> CANCELADO")
+    private String erro;
+
+    public static PedidoStatusLoteResultadoDTO sucesso(int indice, Long pedidoId, StatusPedido status) {
+        return new PedidoStatusLoteResultadoDTO(indice, pedidoId, true, status, null);
+    }
+
+    public static PedidoStatusLoteResultadoDTO falha(int indice, Long pedidoId, StatusPedido statusAtual, String erro) {
+        return new PedidoStatusLoteResultadoDTO(indice, pedidoId, false, statusAtual, erro);
+    }
+}
@@ -0,0 +1,58 @@
+package com.deliverytech.delivery_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Situação de um relatório gerado em segundo plano")
+public class RelatorioJobDTO {
+
+    public enum Situacao {
+        EM_FILA,
+        EXECUTANDO,
+        CONCLUIDO,
+        FALHOU,
+        CANCELADO
+    }
+
+    @Schema(description = "Identificador do job", example = "5f0c6f4e-8d2a-4a57-9d5e-0b7f1c2a9e31")
+    private String id;
+
+    @Schema(description = "Relatório", example = "PEDIDOS_POR_PERIODO")
+    private RelatorioJobRequestDTO.Tipo tipo;
+
+    @Schema(description = "Formato do arquivo", example = "csv")
+    private String formato;
+
+    @Schema(description = "Situação do processamento", example = "EXECUTANDO")
+    private Situacao situacao;
+
+    @Schema(description = "Linhas escritas até agora", example = "125000")
+    private Long linhasProcessadas;
+
+    @Schema(description = "Total de linhas estimado no início da execução", example = "480000")
+    private Long totalEstimado;
+
+    @Schema(description = "Progresso em porcentagem (quando o total é conhecido)", example = "26")
+    private Integer percentual;
+
+    @Schema(description = "Tamanho do arquivo gerado em bytes (quando CONCLUIDO)", example = "31457280")
+    private Long tamanhoBytes;
+
+    @Schema(description = "Motivo da falha (quando FALHOU)")
+    private String erro;
+
+    @Schema(description = "Data e hora da submissão")
+    private LocalDateTime criadoEm;
+
+    @Schema(description = "Data e hora de término (CONCLUIDO, FALHOU ou CANCELADO)")
+    private LocalDateTime concluidoEm;
+}
@@ -0,0 +1,34 @@
+package com.deliverytech.delivery_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Relatório a ser gerado em segundo plano (POST /api/relatorios/jobs)")
+public class RelatorioJobRequestDTO {
+
+    public enum Tipo {
+        PEDIDOS_POR_PERIODO,
+        CLIENTES_MAIS_ATIVOS
+    }
+
+    @Schema(description = "Relatório: PEDIDOS_POR_PERIODO (exige o período) ou CLIENTES_MAIS_ATIVOS (ranking completo)", example = "PEDIDOS_POR_PERIODO")
+    @NotNull(message = "O tipo do relatório é obrigatório")
+    private Tipo tipo;
+
+    @Schema(description = "Data/Hora inicial (PEDIDOS_POR_PERIODO)", example = "2025-01-01T00:00:00")
+    private LocalDateTime dataInicio;
+
+    @Schema(description = "Data/Hora final, inclusive (PEDIDOS_POR_PERIODO)", example = "2025-12-31T23:59:59")
+    private LocalDateTime dataFim;
+
+    @Schema(description = "Formato do arquivo: csv ou ndjson", example = "csv", defaultValue = "csv")
+    private String formato = "csv";
+}
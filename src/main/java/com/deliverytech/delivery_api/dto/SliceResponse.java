@@ -0,0 +1,54 @@
+package com.deliverytech.delivery_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * DTO para respostas paginadas sem total (?count=false).
+ * Vem de um Slice do Spring Data: a consulta busca size + 1 linhas para saber se há próxima
+ * página e dispensa o SELECT COUNT(*). PagedResponse estende este DTO com os totais.
+ *
+ * @param <T> O tipo do conteúdo da lista (ex: ClienteResponseDTO)
+ */
+@Getter
+@Schema(description = "Wrapper para respostas paginadas sem contagem de total")
+public class SliceResponse<T> {
+
+    @Schema(description = "A lista de itens da página atual")
+    private final List<T> content;
+
+    @Schema(description = "O número da página atual (começando em 0)", example = "0")
+    private final int page;
+
+    @Schema(description = "A quantidade de itens por página", example = "10")
+    private final int size;
+
+    @Schema(description = "Indica se esta é a primeira página", example = "true")
+    private final boolean first;
+
+    @Schema(description = "Indica se esta é a última página", example = "false")
+    private final boolean last;
+
+    @Schema(description = "Indica se existe uma próxima página", example = "true")
+    private final boolean hasNext;
+
+    public SliceResponse(Slice<T> slice) {
+        this.content = slice.getContent();
+        this.page = slice.getNumber();
+        this.size = slice.getSize();
+        this.first = slice.isFirst();
+        this.last = slice.isLast();
+        this.hasNext = slice.hasNext();
+    }
+
+    /**
+     * Escolhe o envelope conforme o que o service devolveu: Page (com totais) ou Slice (sem).
+     */
+    public static <T> SliceResponse<T> of(Slice<T> slice) {
+        return slice instanceof Page<T> page ? new PagedResponse<>(page) : new SliceResponse<>(slice);
+    }
+}
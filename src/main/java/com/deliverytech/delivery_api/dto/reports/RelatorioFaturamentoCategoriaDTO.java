@@ -0,0 +1,18 @@
+package com.deliverytech.delivery_api.dto.reports;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+
+@Schema(description = "DTO para o relatório de faturamento por categoria de restaurante")
+public record RelatorioFaturamentoCategoriaDTO(
+        @Schema(example = "Italiana")
+        String categoria,
+
+        @Schema(description = "Soma dos pedidos não cancelados", example = "12500.40")
+        BigDecimal faturamentoTotal
+) {
+    // Construtor auxiliar para facilitar o mapeamento
+    public RelatorioFaturamentoCategoriaDTO(RelatorioFaturamentoCategoria projection) {
+        this(projection.getCategoria(), projection.getFaturamentoTotal());
+    }
+}
@@ -6,4 +6,5 @@ import java.math.BigDecimal;
 public interface RelatorioVendasRestaurante {
     String getRestauranteNome();
     BigDecimal getTotalVendas();
+    BigDecimal getTotalEntregue();
 }
\ No newline at end of file
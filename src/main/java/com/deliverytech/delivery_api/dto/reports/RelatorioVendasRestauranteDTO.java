@@ -8,11 +8,14 @@ public record RelatorioVendasRestauranteDTO(
         @Schema(example = "Pizzaria Bella")
         String restauranteNome,
 
-        @Schema(example = "4500.75")
-        BigDecimal totalVendas
+        @Schema(description = "Soma dos pedidos não cancelados", example = "4500.75")
+        BigDecimal totalVendas,
+
+        @Schema(description = "Soma dos pedidos já entregues", example = "3980.50")
+        BigDecimal totalEntregue
 ) {
     // Construtor auxiliar para facilitar o mapeamento
     public RelatorioVendasRestauranteDTO(RelatorioVendasRestaurante projection) {
-        this(projection.getRestauranteNome(), projection.getTotalVendas());
+        this(projection.getRestauranteNome(), projection.getTotalVendas(), projection.getTotalEntregue());
     }
 }
\ No newline at end of file
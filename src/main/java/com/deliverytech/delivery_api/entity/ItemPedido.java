@@ -0,0 +1,40 @@
+package com.deliverytech.delivery_api.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "itens_pedido")
+public class ItemPedido {
+
+    // Sequence com alocação em bloco: permite que o Hibernate agrupe os INSERTs em lotes JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itens_pedido_seq")
+    @SequenceGenerator(name = "itens_pedido_seq", sequenceName = "itens_pedido_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "pedido_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Pedido pedido;
+
+    @Column(name = "produto_id")
+    private Long produtoId;
+
+    private Integer quantidade;
+
+    // Preço do produto no momento da compra
+    @Column(name = "preco_unitario")
+    private BigDecimal precoUnitario;
+
+}
@@ -0,0 +1,34 @@
+package com.deliverytech.delivery_api.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Leitura somente: item de um pedido arquivado (itens_pedido_historico), ligado pelo id do pedido.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Immutable
+@Table(name = "itens_pedido_historico")
+public class ItemPedidoArquivado {
+
+    @Id
+    private Long id;
+
+    @Column(name = "pedido_id")
+    private Long pedidoId;
+
+    @Column(name = "produto_id")
+    private Long produtoId;
+
+    private Integer quantidade;
+
+    @Column(name = "preco_unitario")
+    private BigDecimal precoUnitario;
+
+}
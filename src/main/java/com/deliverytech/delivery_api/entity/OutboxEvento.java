@@ -0,0 +1,34 @@
+package com.deliverytech.delivery_api.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "pedidos_outbox")
+public class OutboxEvento {
+
+    // Sequence com alocação em bloco: o evento entra no mesmo lote JDBC dos INSERTs do pedido
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_outbox_seq")
+    @SequenceGenerator(name = "pedidos_outbox_seq", sequenceName = "pedidos_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    private String tipo;
+
+    @Column(name = "pedido_id")
+    private Long pedidoId;
+
+    // PedidoEvento serializado em JSON
+    private String payload;
+
+    @Column(name = "criado_em")
+    private LocalDateTime criadoEm;
+
+}
@@ -2,11 +2,15 @@ package com.deliverytech.delivery_api.entity;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Data
@@ -15,8 +19,10 @@ import lombok.NoArgsConstructor;
 @Table(name = "pedidos")
 public class Pedido {
     
+    // Sequence com alocação em bloco (em vez de IDENTITY): permite que o Hibernate agrupe os INSERTs em lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_seq")
+    @SequenceGenerator(name = "pedidos_seq", sequenceName = "pedidos_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "numero_pedido")
@@ -35,10 +41,21 @@ public class Pedido {
     @Column(name = "cliente_id")
     private Long clienteId;
 
-    @ManyToOne
+    // LAZY: listagens projetam só o nome; quem precisa do restaurante declara o fetch (EntityGraph / JOIN FETCH)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "restaurante_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Restaurante restaurante;
 
-    private String itens;
+    @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<ItemPedido> itens = new ArrayList<>();
+
+    public void adicionarItem(ItemPedido item) {
+        item.setPedido(this);
+        this.itens.add(item);
+    }
 
 }
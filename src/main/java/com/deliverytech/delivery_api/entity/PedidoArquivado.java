@@ -0,0 +1,53 @@
+package com.deliverytech.delivery_api.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Leitura somente: pedido já movido para pedidos_historico pelo ArquivadorPedidos (mesmo id do pedido original).
+ * Usada no detalhe e nas checagens de existência por cliente/restaurante; a gravação é feita em SQL pelo arquivador.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Immutable
+@Table(name = "pedidos_historico")
+public class PedidoArquivado {
+
+    @Id
+    private Long id;
+
+    @Column(name = "numero_pedido")
+    private String numeroPedido;
+
+    @Column(name = "data_pedido")
+    private LocalDateTime dataPedido;
+
+    private String status;
+
+    @Column(name = "valor_total")
+    private BigDecimal valorTotal;
+
+    private String observacoes;
+
+    @Column(name = "cliente_id")
+    private Long clienteId;
+
+    // pedidos_historico não tem FK para restaurantes (schema.sql / migração 006)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "restaurante_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Restaurante restaurante;
+
+    @Column(name = "arquivado_em")
+    private LocalDateTime arquivadoEm;
+
+}
@@ -0,0 +1,60 @@
+package com.deliverytech.delivery_api.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+/**
+ * Leitura somente: pedidos ativos (tabela pedidos) + arquivados (pedidos_historico).
+ * Usada pelos relatórios e pelas listagens que podem alcançar pedidos já arquivados;
+ * as consultas do dia a dia continuam na entidade Pedido, que só enxerga a tabela quente.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Immutable
+@Subselect("SELECT id, numero_pedido, data_pedido, status, valor_total, observacoes, cliente_id, restaurante_id, FALSE AS arquivado " +
+        "FROM pedidos " +
+        "UNION ALL " +
+        "SELECT id, numero_pedido, data_pedido, status, valor_total, observacoes, cliente_id, restaurante_id, TRUE AS arquivado " +
+        "FROM pedidos_historico")
+@Synchronize({"pedidos", "pedidos_historico"})
+public class PedidoConsolidado {
+
+    @Id
+    private Long id;
+
+    @Column(name = "numero_pedido")
+    private String numeroPedido;
+
+    @Column(name = "data_pedido")
+    private LocalDateTime dataPedido;
+
+    private String status;
+
+    @Column(name = "valor_total")
+    private BigDecimal valorTotal;
+
+    private String observacoes;
+
+    @Column(name = "cliente_id")
+    private Long clienteId;
+
+    // LAZY: listagens projetam só o nome; quem precisa do restaurante declara o fetch (EntityGraph / JOIN FETCH)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "restaurante_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Restaurante restaurante;
+
+    private boolean arquivado;
+
+}
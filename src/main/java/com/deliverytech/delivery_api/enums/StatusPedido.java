@@ -1,5 +1,12 @@
 package com.deliverytech.delivery_api.enums;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 public enum StatusPedido {
     PENDENTE("Pendente"),
     CONFIRMADO("Confirmado"),
@@ -8,6 +15,28 @@ public enum StatusPedido {
     ENTREGUE("Entregue"),
     CANCELADO("Cancelado");
 
+    // Máquina de estados do pedido: status atual -> status para os quais pode avançar.
+    // ENTREGUE e CANCELADO são finais (sem saídas).
+    private static final Map<StatusPedido, Set<StatusPedido>> TRANSICOES = new EnumMap<>(StatusPedido.class);
+    // Índice inverso (destino -> origens), usado no WHERE status IN (...) do UPDATE condicional
+    private static final Map<StatusPedido, List<String>> ORIGENS = new EnumMap<>(StatusPedido.class);
+
+    static {
+        TRANSICOES.put(PENDENTE, EnumSet.of(CONFIRMADO, PREPARANDO, CANCELADO));
+        TRANSICOES.put(CONFIRMADO, EnumSet.of(PREPARANDO, CANCELADO));
+        TRANSICOES.put(PREPARANDO, EnumSet.of(SAIU_PARA_ENTREGA, CANCELADO));
+        TRANSICOES.put(SAIU_PARA_ENTREGA, EnumSet.of(ENTREGUE));
+        TRANSICOES.put(ENTREGUE, EnumSet.noneOf(StatusPedido.class));
+        TRANSICOES.put(CANCELADO, EnumSet.noneOf(StatusPedido.class));
+
+        for (StatusPedido destino : values()) {
+            ORIGENS.put(destino, TRANSICOES.entrySet().stream()
+                    .filter(e -> e.getValue().contains(destino))
+                    .map(e -> e.getKey().name())
+                    .toList());
+        }
+    }
+
     private final String descricao;
 
     StatusPedido(String descricao) {
@@ -17,4 +46,23 @@ public enum StatusPedido {
     public String getDescricao() {
         return descricao;
     }
+
+    public Set<StatusPedido> getProximos() {
+        return Collections.unmodifiableSet(TRANSICOES.get(this));
+    }
+
+    public boolean podeAvancarPara(StatusPedido destino) {
+        return TRANSICOES.get(this).contains(destino);
+    }
+
+    public boolean isFinal() {
+        return TRANSICOES.get(this).isEmpty();
+    }
+
+    /**
+     * Status a partir dos quais é permitido chegar em {@code destino} (nomes, como gravados na coluna status).
+     */
+    public static List<String> origensDe(StatusPedido destino) {
+        return ORIGENS.get(destino);
+    }
 }
@@ -0,0 +1,19 @@
+package com.deliverytech.delivery_api.exceptions;
+
+/**
+ * Exceção para sobrecarga temporária (ex: fila de pedidos assíncronos cheia).
+ * Mapeada para o status HTTP 503 Service Unavailable, com o header Retry-After.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSegundos;
+
+    public ServiceUnavailableException(String message, long retryAfterSegundos) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
@@ -0,0 +1,19 @@
+package com.deliverytech.delivery_api.exceptions;
+
+/**
+ * Exceção para limite de admissão excedido (ex: restaurante com a cozinha no limite de pedidos em andamento).
+ * Mapeada para o status HTTP 429 Too Many Requests, com o header Retry-After.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSegundos;
+
+    public TooManyRequestsException(String message, long retryAfterSegundos) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
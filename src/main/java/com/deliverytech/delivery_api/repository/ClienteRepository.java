@@ -3,6 +3,7 @@ package com.deliverytech.delivery_api.repository;
 import com.deliverytech.delivery_api.dto.reports.RelatorioRankingCliente;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.deliverytech.delivery_api.entity.Cliente;
@@ -28,13 +29,18 @@ public interface ClienteRepository extends JpaRepository <Cliente, Long> {
      */
     Page<Cliente> findByAtivoTrue(Pageable pageable);
 
+    // Variante Slice (?count=false): mesma consulta, sem o SELECT COUNT(*) do Page
+    Slice<Cliente> findSliceByAtivoTrue(Pageable pageable);
+
     // Buscar clientes por nome (contendo)
     List<Cliente> findByNomeContainingIgnoreCase(String nome);
 
-    @Query(value = "SELECT c.nome as clienteNome, COUNT(p.id) as totalPedidos " +
-            "FROM clientes c " +
-            "JOIN pedidos p ON c.id = p.cliente_id " +
+    // Pedidos ativos e arquivados, lidos do rollup diário por cliente; cancelados não contam
+    @Query(value = "SELECT c.nome as clienteNome, SUM(v.pedidos - v.cancelados) as totalPedidos " +
+            "FROM pedidos_cliente_dia v " +
+            "JOIN clientes c ON c.id = v.cliente_id " +
             "GROUP BY c.nome " +
+            "HAVING SUM(v.pedidos - v.cancelados) > 0 " +
             "ORDER BY totalPedidos DESC",
             nativeQuery = true)
     List<RelatorioRankingCliente> findRankingClientesPorPedidos();
@@ -0,0 +1,25 @@
+package com.deliverytech.delivery_api.repository;
+
+import java.util.List;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import com.deliverytech.delivery_api.entity.OutboxEvento;
+
+@Repository
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+
+    // Próximo lote do relay, na ordem de gravação. FOR UPDATE SKIP LOCKED (lock.timeout = -2):
+    // várias instâncias do relay dividem a fila sem entregar a mesma linha ao mesmo tempo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM OutboxEvento o ORDER BY o.criadoEm, o.id")
+    List<OutboxEvento> findPendentes(Limit limit);
+}
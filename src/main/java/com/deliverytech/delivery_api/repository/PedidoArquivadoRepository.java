@@ -0,0 +1,44 @@
+package com.deliverytech.delivery_api.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.deliverytech.delivery_api.dto.PedidoDetalheLinha;
+import com.deliverytech.delivery_api.entity.PedidoArquivado;
+
+/**
+ * Consultas pontuais em pedidos_historico: detalhe de um pedido arquivado e as checagens que decidem se uma
+ * listagem por cliente/restaurante precisa do UNION (PedidoConsolidado) ou só da tabela quente.
+ */
+@Repository
+public interface PedidoArquivadoRepository extends JpaRepository<PedidoArquivado, Long> {
+
+    // Mesma projeção e mesma restrição de dono do PedidoRepository.findDetalheById, sobre as tabelas de histórico
+    @Query("SELECT new com.deliverytech.delivery_api.dto.PedidoDetalheLinha(" +
+            "p.id, p.numeroPedido, p.dataPedido, p.status, p.valorTotal, p.observacoes, " +
+            "c.id, c.nome, c.email, c.telefone, c.endereco, c.ativo, " +
+            "r.id, r.nome, r.categoria, r.endereco, r.telefone, r.taxaEntrega, r.avaliacao, r.ativo, " +
+            "i.produtoId, i.quantidade) " +
+            "FROM PedidoArquivado p " +
+            "LEFT JOIN Cliente c ON c.id = p.clienteId " +
+            "LEFT JOIN p.restaurante r " +
+            "LEFT JOIN ItemPedidoArquivado i ON i.pedidoId = p.id " +
+            "WHERE p.id = :id " + PedidoRepository.DO_DONO +
+            "ORDER BY i.id")
+    List<PedidoDetalheLinha> findDetalheById(@Param("id") Long id, @Param("clienteId") Long clienteId,
+                                             @Param("restauranteId") Long restauranteId);
+
+    @Query("SELECT p.status FROM PedidoArquivado p WHERE p.id = :id " + PedidoRepository.DO_DONO)
+    Optional<String> findStatusById(@Param("id") Long id, @Param("clienteId") Long clienteId,
+                                    @Param("restauranteId") Long restauranteId);
+
+    // Início dos índices (cliente_id, data_pedido, id) / (restaurante_id, data_pedido, id): lê no máximo uma entrada
+    boolean existsByClienteId(Long clienteId);
+
+    boolean existsByRestauranteId(Long restauranteId);
+}
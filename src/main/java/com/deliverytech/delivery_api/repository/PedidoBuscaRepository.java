@@ -0,0 +1,82 @@
+package com.deliverytech.delivery_api.repository;
+
+import com.deliverytech.delivery_api.dto.PedidoResumoDTO;
+import com.deliverytech.delivery_api.entity.Restaurante;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Busca de pedidos por Specification com a mesma projeção das listagens (PedidoResumoDTO + nome do restaurante
+ * em um LEFT JOIN), sem carregar entidades: o findAll(Specification) do Spring Data devolveria entidades.
+ * {@code origem} é Pedido ou PedidoConsolidado.
+ */
+@Repository
+public class PedidoBuscaRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <T> Page<PedidoResumoDTO> buscar(Class<T> origem, Specification<T> spec, Pageable pageable) {
+        List<PedidoResumoDTO> conteudo = consultar(origem, spec, pageable, 0);
+        return PageableExecutionUtils.getPage(conteudo, pageable, () -> contar(origem, spec));
+    }
+
+    /**
+     * Variante sem COUNT (?count=false): lê um registro a mais para saber se há próxima página.
+     */
+    public <T> Slice<PedidoResumoDTO> fatiar(Class<T> origem, Specification<T> spec, Pageable pageable) {
+        List<PedidoResumoDTO> conteudo = consultar(origem, spec, pageable, 1);
+        boolean temProxima = pageable.isPaged() && conteudo.size() > pageable.getPageSize();
+        return new SliceImpl<>(temProxima ? conteudo.subList(0, pageable.getPageSize()) : conteudo, pageable, temProxima);
+    }
+
+    private <T> List<PedidoResumoDTO> consultar(Class<T> origem, Specification<T> spec, Pageable pageable, int extras) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PedidoResumoDTO> query = cb.createQuery(PedidoResumoDTO.class);
+        Root<T> p = query.from(origem);
+        Join<T, Restaurante> r = p.join("restaurante", JoinType.LEFT);
+        query.select(cb.construct(PedidoResumoDTO.class,
+                p.get("id"), p.get("numeroPedido"), p.get("dataPedido"), p.get("status"), p.get("valorTotal"), r.get("nome")));
+        Predicate where = spec.toPredicate(p, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), p, cb));
+
+        TypedQuery<PedidoResumoDTO> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize() + extras);
+        }
+        return typed.getResultList();
+    }
+
+    private <T> long contar(Class<T> origem, Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> p = query.from(origem);
+        query.select(cb.count(p));
+        Predicate where = spec.toPredicate(p, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
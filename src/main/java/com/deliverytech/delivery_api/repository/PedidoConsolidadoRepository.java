@@ -0,0 +1,79 @@
+package com.deliverytech.delivery_api.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.deliverytech.delivery_api.dto.PedidoResumoDTO;
+import com.deliverytech.delivery_api.entity.PedidoConsolidado;
+
+/**
+ * Consultas sobre pedidos ativos + arquivados (UNION ALL de pedidos e pedidos_historico).
+ * A listagem com filtros usa o PedidoBuscaRepository com esta entidade como origem, para o PedidoService
+ * trocar de fonte sem mudar o contrato.
+ */
+@Repository
+public interface PedidoConsolidadoRepository extends JpaRepository<PedidoConsolidado, Long> {
+
+    // Data do pedido arquivado mais recente: abaixo dela a tabela quente basta. Lida do fim do índice (data_pedido, id)
+    @Query(value = "SELECT MAX(data_pedido) FROM pedidos_historico", nativeQuery = true)
+    Optional<LocalDateTime> findDataMaisRecenteArquivada();
+
+    // Projeção direto em PedidoResumoDTO, como nas listagens do PedidoRepository
+    String RESUMO = "SELECT new com.deliverytech.delivery_api.dto.PedidoResumoDTO(" +
+            "p.id, p.numeroPedido, p.dataPedido, p.status, p.valorTotal, r.nome) " +
+            "FROM PedidoConsolidado p LEFT JOIN p.restaurante r ";
+
+    @Query(value = RESUMO + "WHERE p.valorTotal > :valor",
+            countQuery = "SELECT COUNT(p) FROM PedidoConsolidado p WHERE p.valorTotal > :valor")
+    Page<PedidoResumoDTO> findByValorTotalGreaterThan(@Param("valor") BigDecimal valor, Pageable pageable);
+
+    @Query(RESUMO + "WHERE p.valorTotal > :valor")
+    Slice<PedidoResumoDTO> findSliceByValorTotalGreaterThan(@Param("valor") BigDecimal valor, Pageable pageable);
+
+    // Cursor (keyset em data_pedido, id) do histórico de quem já tem pedidos arquivados: o filtro e a posição
+    // valem nos dois ramos do UNION, cada um atendido pelo seu índice (cliente_id/restaurante_id, data_pedido, id).
+    // Mesma projeção em PedidoResumoDTO do cursor do PedidoRepository
+    Window<PedidoResumoDTO> findByClienteIdOrderByDataPedidoDescIdDesc(Long clienteId, ScrollPosition position, Limit limit);
+
+    Window<PedidoResumoDTO> findByRestauranteIdOrderByDataPedidoDescIdDesc(Long restauranteId, ScrollPosition position, Limit limit);
+
+    // Carga do armazenamento colunar (ColunasPedidos): linhas cruas em ordem de id, lidas em streaming pela PK.
+    // Colunas: id, data_pedido, restaurante_id, cliente_id, valor_total, status
+    String COLUNAS = "SELECT id, data_pedido, restaurante_id, cliente_id, valor_total, status ";
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = COLUNAS + "FROM pedidos_historico ORDER BY id", nativeQuery = true)
+    Stream<Object[]> streamColunasArquivadas();
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = COLUNAS + "FROM pedidos ORDER BY id", nativeQuery = true)
+    Stream<Object[]> streamColunasAtivas();
+
+    // Complemento incremental: só os pedidos ativos acima da marca, pela PK
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = COLUNAS + "FROM pedidos WHERE id > :depoisDe ORDER BY id", nativeQuery = true)
+    Stream<Object[]> streamColunasAtivasApos(@Param("depoisDe") long depoisDe);
+
+    // Status atual (id, status) dos pedidos informados, ativos ou já arquivados
+    @Query(value = "SELECT id, status FROM pedidos WHERE id IN (:ids) " +
+            "UNION ALL SELECT id, status FROM pedidos_historico WHERE id IN (:ids)", nativeQuery = true)
+    List<Object[]> findStatusPorIds(@Param("ids") Collection<Long> ids);
+}
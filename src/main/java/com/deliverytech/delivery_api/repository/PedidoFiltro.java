@@ -0,0 +1,24 @@
+package com.deliverytech.delivery_api.repository;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Filtros da busca administrativa de pedidos. Qualquer campo nulo é ignorado; os intervalos aceitam
+ * só um dos limites (a partir de / até).
+ */
+public record PedidoFiltro(
+        StatusPedido status,
+        LocalDateTime dataInicio,
+        LocalDateTime dataFim,
+        Long restauranteId,
+        Long clienteId,
+        BigDecimal valorMinimo,
+        BigDecimal valorMaximo) {
+
+    public static PedidoFiltro de(StatusPedido status, LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return new PedidoFiltro(status, dataInicio, dataFim, null, null, null, null);
+    }
+}
@@ -1,48 +1,151 @@
 package com.deliverytech.delivery_api.repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-import com.deliverytech.delivery_api.dto.reports.RelatorioVendasRestaurante;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.deliverytech.delivery_api.dto.PedidoDetalheLinha;
+import com.deliverytech.delivery_api.dto.PedidoResumoDTO;
+import com.deliverytech.delivery_api.dto.PedidoStatusAtual;
 import com.deliverytech.delivery_api.entity.Pedido;
 
 @Repository
 public interface PedidoRepository extends JpaRepository <Pedido, Long> {
 
+    // Listagens: projeção direto em PedidoResumoDTO com um único JOIN no restaurante (só o nome),
+    // sem carregar entidades. Cada página é uma consulta (+ o COUNT quando a resposta é um Page)
+    String RESUMO = "SELECT new com.deliverytech.delivery_api.dto.PedidoResumoDTO(" +
+            "p.id, p.numeroPedido, p.dataPedido, p.status, p.valorTotal, r.nome) " +
+            "FROM Pedido p LEFT JOIN p.restaurante r ";
+
+    // Status com os donos (restaurante_id e cliente_id são colunas da própria linha, sem JOIN) para a atualização de status
+    String STATUS_ATUAL = "new com.deliverytech.delivery_api.dto.PedidoStatusAtual(p.id, p.status, p.restaurante.id, p.clienteId) " +
+            "FROM Pedido p ";
+
+    // Restrição de dono (EscopoPedido) no próprio WHERE: parâmetro nulo = sem restrição (ADMIN)
+    String DO_DONO = "AND (:clienteId IS NULL OR p.clienteId = :clienteId) " +
+            "AND (:restauranteId IS NULL OR p.restaurante.id = :restauranteId) ";
+
     // Buscar pedidos por cliente ID
-    Page<Pedido> findByClienteId(Long clienteId, Pageable pageable);
+    @Query(value = RESUMO + "WHERE p.clienteId = :clienteId",
+            countQuery = "SELECT COUNT(p) FROM Pedido p WHERE p.clienteId = :clienteId")
+    Page<PedidoResumoDTO> findByClienteId(@Param("clienteId") Long clienteId, Pageable pageable);
 
     // Buscar por número do pedido
     Pedido findByNumeroPedido(String numeroPedido);
 
+    // Detalhe do pedido (GET /api/pedidos/{id}): pedido, cliente, restaurante e itens em uma consulta,
+    // uma linha por item, direto na projeção (sem carregar entidades)
+    @Query("SELECT new com.deliverytech.delivery_api.dto.PedidoDetalheLinha(" +
+            "p.id, p.numeroPedido, p.dataPedido, p.status, p.valorTotal, p.observacoes, " +
+            "c.id, c.nome, c.email, c.telefone, c.endereco, c.ativo, " +
+            "r.id, r.nome, r.categoria, r.endereco, r.telefone, r.taxaEntrega, r.avaliacao, r.ativo, " +
+            "i.produtoId, i.quantidade) " +
+            "FROM Pedido p " +
+            "LEFT JOIN Cliente c ON c.id = p.clienteId " +
+            "LEFT JOIN p.restaurante r " +
+            "LEFT JOIN p.itens i " +
+            "WHERE p.id = :id " + DO_DONO +
+            "ORDER BY i.id")
+    List<PedidoDetalheLinha> findDetalheById(@Param("id") Long id, @Param("clienteId") Long clienteId,
+                                             @Param("restauranteId") Long restauranteId);
+
     //Buscar pedidos por restaurante ID
-    Page<Pedido> findByRestauranteIdOrderByDataPedidoDesc(Long restauranteId, Pageable pageable);
+    @Query(value = RESUMO + "WHERE r.id = :restauranteId ORDER BY p.dataPedido DESC",
+            countQuery = "SELECT COUNT(p) FROM Pedido p WHERE p.restaurante.id = :restauranteId")
+    Page<PedidoResumoDTO> findByRestauranteIdOrderByDataPedidoDesc(@Param("restauranteId") Long restauranteId, Pageable pageable);
+
+    // Paginação por cursor (keyset) sobre (data_pedido, id): sem OFFSET e sem COUNT(*),
+    // usa os índices idx_pedidos_cliente_data / idx_pedidos_restaurante_data.
+    // Projeção em PedidoResumoDTO (só as colunas do resumo + nome do restaurante), sem carregar entidades
+    Window<PedidoResumoDTO> findByClienteIdOrderByDataPedidoDescIdDesc(Long clienteId, ScrollPosition position, Limit limit);
+
+    Window<PedidoResumoDTO> findByRestauranteIdOrderByDataPedidoDescIdDesc(Long restauranteId, ScrollPosition position, Limit limit);
 
     List<Pedido> findTop10ByOrderByDataPedidoDesc();
 
-    // Buscar pedidos entre datas
-    Page<Pedido> findByDataPedidoBetween(LocalDateTime dataInicio, LocalDateTime dataFim, Pageable pageable);
+    // Transição de status atômica: só altera a linha se o status atual for uma das origens permitidas
+    // e o pedido for do dono informado (ids nulos = sem restrição).
+    // Retorna 0 quando o pedido não existe, é de outro dono ou está em um status que não permite a transição.
+    @Modifying
+    @Query("UPDATE Pedido p SET p.status = :novoStatus WHERE p.id = :id AND p.status IN :origens " + DO_DONO)
+    int atualizarStatusSeEm(@Param("id") Long id, @Param("novoStatus") String novoStatus,
+                            @Param("origens") Collection<String> origens,
+                            @Param("clienteId") Long clienteId, @Param("restauranteId") Long restauranteId);
 
-    Page<Pedido> findByStatus(String status, Pageable pageable); // Status é String na entidade
+    @Query("SELECT p.status FROM Pedido p WHERE p.id = :id " + DO_DONO)
+    Optional<String> findStatusById(@Param("id") Long id, @Param("clienteId") Long clienteId,
+                                    @Param("restauranteId") Long restauranteId);
 
-    @Query("SELECT p.restaurante.nome as restauranteNome, SUM(p.valorTotal) as totalVendas " +
-            "FROM Pedido p " +
-            "GROUP BY p.restaurante.nome " +
-            "ORDER BY totalVendas DESC")
-    List<RelatorioVendasRestaurante> findTotalVendasPorRestaurante();
+    // Atualização em lote: status de todos os pedidos do escopo em uma consulta, com as linhas travadas (FOR UPDATE)
+    // até o fim da transação, para que os UPDATEs por status de destino alterem exatamente os pedidos validados
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT " + STATUS_ATUAL + "WHERE p.id IN :ids " + DO_DONO)
+    List<PedidoStatusAtual> findStatusParaAtualizar(@Param("ids") Collection<Long> ids, @Param("clienteId") Long clienteId,
+                                                    @Param("restauranteId") Long restauranteId);
 
-    // ATIVIDADE 3.4: Corrigido para suportar paginação
-    Page<Pedido> findByValorTotalGreaterThan(BigDecimal valor, Pageable pageable);
+    @Modifying
+    @Query("UPDATE Pedido p SET p.status = :novoStatus WHERE p.id IN :ids AND p.status IN :origens " + DO_DONO)
+    int atualizarStatusEmLoteSeEm(@Param("ids") Collection<Long> ids, @Param("novoStatus") String novoStatus,
+                                  @Param("origens") Collection<String> origens,
+                                  @Param("clienteId") Long clienteId, @Param("restauranteId") Long restauranteId);
+
+    // Donos do pedido para o PedidoEvento, lidos pela chave logo depois do UPDATE condicional (linha já travada por ele)
+    @Query("SELECT " + STATUS_ATUAL + "WHERE p.id = :id")
+    Optional<PedidoStatusAtual> findStatusAtualById(@Param("id") Long id);
+
+    // Pedidos em andamento na cozinha, por restaurante (sincronização do controle de admissão): [restauranteId, total]
+    @Query("SELECT p.restaurante.id, COUNT(p) FROM Pedido p WHERE p.status IN :status GROUP BY p.restaurante.id")
+    List<Object[]> countEmAndamentoPorRestaurante(@Param("status") Collection<String> status);
 
     List<Pedido> findByDataPedidoBetweenAndStatus(LocalDateTime dataInicio, LocalDateTime dataFim, String status);
 
-    // ATIVIDADE 3.4: Corrigido para suportar paginação
-    Page<Pedido> findByDataPedidoBetweenAndStatus(LocalDateTime dataInicio, LocalDateTime dataFim, String status, Pageable pageable);
-}
\ No newline at end of file
+    // Variantes Slice (?count=false): mesma consulta, sem o SELECT COUNT(*) do Page
+    @Query(RESUMO + "WHERE p.clienteId = :clienteId")
+    Slice<PedidoResumoDTO> findSliceByClienteId(@Param("clienteId") Long clienteId, Pageable pageable);
+
+    @Query(RESUMO + "WHERE r.id = :restauranteId ORDER BY p.dataPedido DESC")
+    Slice<PedidoResumoDTO> findSliceByRestauranteIdOrderByDataPedidoDesc(@Param("restauranteId") Long restauranteId, Pageable pageable);
+
+    // Arquivamento (ArquivadorPedidos): pedidos em status final, mais antigos que o limite, via idx_pedidos_status_data.
+    // Status final não tem transição de saída, então o lote selecionado não muda até ser movido
+    @Query("SELECT p.id FROM Pedido p WHERE p.status IN :status AND p.dataPedido < :limite ORDER BY p.dataPedido, p.id")
+    List<Long> findIdsArquivaveis(@Param("status") Collection<String> status, @Param("limite") LocalDateTime limite, Limit limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO pedidos_historico (id, numero_pedido, data_pedido, status, valor_total, observacoes, cliente_id, restaurante_id, arquivado_em) " +
+            "SELECT id, numero_pedido, data_pedido, status, valor_total, observacoes, cliente_id, restaurante_id, :arquivadoEm " +
+            "FROM pedidos WHERE id IN (:ids)",
+            nativeQuery = true)
+    int copiarParaHistorico(@Param("ids") Collection<Long> ids, @Param("arquivadoEm") LocalDateTime arquivadoEm);
+
+    @Modifying
+    @Query(value = "INSERT INTO itens_pedido_historico (id, pedido_id, produto_id, quantidade, preco_unitario) " +
+            "SELECT id, pedido_id, produto_id, quantidade, preco_unitario " +
+            "FROM itens_pedido WHERE pedido_id IN (:ids)",
+            nativeQuery = true)
+    int copiarItensParaHistorico(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM itens_pedido WHERE pedido_id IN (:ids)", nativeQuery = true)
+    int removerItens(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM pedidos WHERE id IN (:ids)", nativeQuery = true)
+    int removerPedidos(@Param("ids") Collection<Long> ids);
+}
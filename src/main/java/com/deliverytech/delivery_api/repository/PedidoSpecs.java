@@ -0,0 +1,47 @@
+package com.deliverytech.delivery_api.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Predicados da busca de pedidos (JPA Specifications), combinados só com os filtros informados.
+ *
+ * Genéricos na entidade: Pedido (tabela quente) e PedidoConsolidado (quente + histórico) têm os mesmos
+ * atributos, então a mesma busca serve às duas fontes. Cada predicado tem um índice composto que o atende
+ * (schema.sql / migração 007): status -> (status, data_pedido), restaurante -> (restaurante_id, status, data_pedido)
+ * e (restaurante_id, data_pedido, id), cliente -> (cliente_id, data_pedido, id), período -> (data_pedido, id),
+ * valor -> (valor_total, id).
+ */
+public final class PedidoSpecs {
+
+    private PedidoSpecs() {
+    }
+
+    public static <T> Specification<T> doFiltro(PedidoFiltro filtro) {
+        return Specification.allOf(
+                igual("status", filtro.status() != null ? filtro.status().name() : null),
+                doRestaurante(filtro.restauranteId()),
+                igual("clienteId", filtro.clienteId()),
+                aPartirDe("dataPedido", filtro.dataInicio()),
+                ate("dataPedido", filtro.dataFim()),
+                aPartirDe("valorTotal", filtro.valorMinimo()),
+                ate("valorTotal", filtro.valorMaximo()));
+    }
+
+    // restaurante.id é a própria FK (restaurante_id): sem JOIN
+    public static <T> Specification<T> doRestaurante(Long restauranteId) {
+        return restauranteId == null ? null
+                : (root, query, cb) -> cb.equal(root.get("restaurante").get("id"), restauranteId);
+    }
+
+    private static <T> Specification<T> igual(String atributo, Object valor) {
+        return valor == null ? null : (root, query, cb) -> cb.equal(root.get(atributo), valor);
+    }
+
+    private static <T, Y extends Comparable<? super Y>> Specification<T> aPartirDe(String atributo, Y valor) {
+        return valor == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(atributo), valor);
+    }
+
+    private static <T, Y extends Comparable<? super Y>> Specification<T> ate(String atributo, Y valor) {
+        return valor == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get(atributo), valor);
+    }
+}
@@ -3,6 +3,7 @@ package com.deliverytech.delivery_api.repository;
 import com.deliverytech.delivery_api.dto.reports.RelatorioProdutoVendido;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import com.deliverytech.delivery_api.entity.Produto;
 
+import java.util.Collection;
 import java.util.List;
 
 
@@ -18,6 +20,9 @@ public interface ProdutoRepository extends JpaRepository <Produto, Long> {
     // buscar produto por restaurante ID
     List<Produto> findByRestauranteId(Long restauranteId);
 
+    // Carrega todos os produtos de uma cesta em uma única consulta (IN), restrita ao restaurante
+    List<Produto> findByRestauranteIdAndIdIn(Long restauranteId, Collection<Long> ids);
+
     // buscar por disponibilidade
     List<Produto> findByDisponivelTrue();
 
@@ -29,10 +34,12 @@ public interface ProdutoRepository extends JpaRepository <Produto, Long> {
     // buscar por preço menor ou igual a X
     List<Produto> findByPrecoLessThanEqual(Double preco);
 
-    @Query(value = "SELECT pr.nome as produtoNome, COUNT(p.id) as quantidadeVendida " +
-            "FROM produtos pr " +
-            "JOIN pedidos p ON p.itens LIKE CONCAT('%', pr.nome, '%') " +
-            "GROUP BY pr.nome " +
+    // Agrega itens_pedido + itens_pedido_historico (índices em produto_id, quantidade) em vez de LIKE sobre texto livre
+    @Query(value = "SELECT pr.nome as produtoNome, SUM(i.quantidade) as quantidadeVendida " +
+            "FROM (SELECT produto_id, quantidade FROM itens_pedido " +
+            "      UNION ALL SELECT produto_id, quantidade FROM itens_pedido_historico) i " +
+            "JOIN produtos pr ON pr.id = i.produto_id " +
+            "GROUP BY pr.id, pr.nome " +
             "ORDER BY quantidadeVendida DESC " +
             "LIMIT :limite",
             nativeQuery = true)
@@ -47,4 +54,9 @@ public interface ProdutoRepository extends JpaRepository <Produto, Long> {
      * ATIVIDADE 3.4: Modificado para suportar paginação
      */
     Page<Produto> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
+
+    // Variantes Slice (?count=false): mesma consulta, sem o SELECT COUNT(*) do Page
+    Slice<Produto> findSliceByCategoria(String categoria, Pageable pageable);
+    Slice<Produto> findSliceByRestauranteIdAndDisponivelTrue(Long restauranteId, Pageable pageable);
+    Slice<Produto> findSliceByNomeContainingIgnoreCase(String nome, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.deliverytech.delivery_api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Persistência do ranking de mais vendidos em memória (RankingProdutos): o checkpoint (uma linha com o estado em
+ * JSON) e as leituras em streaming dos itens vendidos usadas para montá-lo sem checkpoint ou completá-lo depois de
+ * um. JdbcTemplate com fetch size: as leituras passam por todos os itens e não cabem numa lista.
+ *
+ * A marca d'água é o maior id de pedido já somado (lido do banco na carga, não do relógio): as leituras vão até ela
+ * e a reposição depois de um checkpoint recomeça logo acima dela, pela PK.
+ */
+@Repository
+public class RankingProdutosRepository {
+
+    private static final int ID_CHECKPOINT = 1;
+    private static final int FETCH_SIZE = 1000;
+
+    public record Checkpoint(LocalDateTime instante, long ultimoPedidoId, String dados) {
+    }
+
+    @FunctionalInterface
+    public interface Venda {
+        void aceitar(long restauranteId, long produtoId, LocalDateTime dataPedido, long quantidade);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RankingProdutosRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    public Optional<Checkpoint> findCheckpoint() {
+        return jdbcTemplate.query("SELECT instante, ultimo_pedido_id, dados FROM ranking_produtos_checkpoint WHERE id = ?",
+                (rs, i) -> new Checkpoint(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2), rs.getString(3)), ID_CHECKPOINT)
+                .stream().findFirst();
+    }
+
+    /**
+     * Grava o checkpoint só se ele não for mais antigo (marca d'água menor) que o já salvo: com mais de uma instância
+     * no ar, uma que subiu antes ou ficou para trás não sobrescreve um estado mais novo. Devolve se gravou.
+     */
+    public boolean salvarCheckpoint(LocalDateTime instante, long ultimoPedidoId, String dados) {
+        int alteradas = jdbcTemplate.update("UPDATE ranking_produtos_checkpoint SET instante = ?, ultimo_pedido_id = ?, dados = ? " +
+                "WHERE id = ? AND ultimo_pedido_id <= ?", Timestamp.valueOf(instante), ultimoPedidoId, dados, ID_CHECKPOINT, ultimoPedidoId);
+        if (alteradas > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO ranking_produtos_checkpoint (id, instante, ultimo_pedido_id, dados) VALUES (?, ?, ?, ?)",
+                    ID_CHECKPOINT, Timestamp.valueOf(instante), ultimoPedidoId, dados);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Já existe um checkpoint com marca d'água maior
+            return false;
+        }
+    }
+
+    /**
+     * Maior id de pedido gravado (ativos + arquivados), pelo fim das PKs: a marca d'água de uma carga.
+     */
+    public long ultimoPedidoId() {
+        Long ultimo = jdbcTemplate.queryForObject("SELECT GREATEST(COALESCE((SELECT MAX(id) FROM pedidos), 0), " +
+                "COALESCE((SELECT MAX(id) FROM pedidos_historico), 0))", Long.class);
+        return ultimo != null ? ultimo : 0;
+    }
+
+    /**
+     * Quantidade vendida de cada produto nos pedidos até {@code ateId} (ativos + arquivados), sem data.
+     * Restaurante do cadastro do produto.
+     */
+    public void somarPorProduto(long ateId, Venda venda) {
+        jdbcTemplate.query("SELECT pr.restaurante_id, i.produto_id, SUM(i.quantidade) " +
+                "FROM (SELECT produto_id, quantidade FROM itens_pedido WHERE pedido_id <= ? " +
+                "      UNION ALL SELECT produto_id, quantidade FROM itens_pedido_historico WHERE pedido_id <= ?) i " +
+                "JOIN produtos pr ON pr.id = i.produto_id " +
+                "WHERE pr.restaurante_id IS NOT NULL " +
+                "GROUP BY pr.restaurante_id, i.produto_id", rs -> {
+            venda.aceitar(rs.getLong(1), rs.getLong(2), null, rs.getLong(3));
+        }, ateId, ateId);
+    }
+
+    /**
+     * Cada item dos pedidos (ativos e arquivados) até {@code ateId} com data_pedido depois de {@code desde},
+     * pelos índices de data.
+     */
+    public void itensDesde(LocalDateTime desde, long ateId, Venda venda) {
+        Timestamp inicio = Timestamp.valueOf(desde);
+        jdbcTemplate.query("SELECT p.restaurante_id, i.produto_id, p.data_pedido, i.quantidade " +
+                "FROM pedidos p JOIN itens_pedido i ON i.pedido_id = p.id " +
+                "WHERE p.data_pedido > ? AND p.id <= ? AND p.restaurante_id IS NOT NULL " +
+                "UNION ALL " +
+                "SELECT p.restaurante_id, i.produto_id, p.data_pedido, i.quantidade " +
+                "FROM pedidos_historico p JOIN itens_pedido_historico i ON i.pedido_id = p.id " +
+                "WHERE p.data_pedido > ? AND p.id <= ? AND p.restaurante_id IS NOT NULL", rs -> {
+            venda.aceitar(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3).toLocalDateTime(), rs.getLong(4));
+        }, inicio, ateId, inicio, ateId);
+    }
+
+    /**
+     * Cada item dos pedidos (ativos e arquivados) com id no intervalo ({@code aposId}, {@code ateId}], pela PK:
+     * o que foi gravado depois de um checkpoint.
+     */
+    public void itensEntre(long aposId, long ateId, Venda venda) {
+        jdbcTemplate.query("SELECT p.restaurante_id, i.produto_id, p.data_pedido, i.quantidade " +
+                "FROM pedidos p JOIN itens_pedido i ON i.pedido_id = p.id " +
+                "WHERE p.id > ? AND p.id <= ? AND p.restaurante_id IS NOT NULL " +
+                "UNION ALL " +
+                "SELECT p.restaurante_id, i.produto_id, p.data_pedido, i.quantidade " +
+                "FROM pedidos_historico p JOIN itens_pedido_historico i ON i.pedido_id = p.id " +
+                "WHERE p.id > ? AND p.id <= ? AND p.restaurante_id IS NOT NULL", rs -> {
+            venda.aceitar(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3).toLocalDateTime(), rs.getLong(4));
+        }, aposId, ateId, aposId, ateId);
+    }
+}
@@ -4,8 +4,10 @@ import java.util.List;
 import java.util.Optional;
 
 import com.deliverytech.delivery_api.dto.reports.RelatorioFaturamentoCategoria;
+import com.deliverytech.delivery_api.dto.reports.RelatorioVendasRestaurante;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -34,10 +36,20 @@ public interface RestauranteRepository extends JpaRepository <Restaurante, Long>
     //buscar por top 5 pedidos pelo nome do restaurante
     List<Restaurante> findTop5ByOrderByNomeAsc();
 
-    @Query(value = "SELECT r.categoria, SUM(p.valor_total) as faturamentoTotal " +
-            "FROM restaurantes r " +
-            "JOIN pedidos p ON r.id = p.restaurante_id " +
-            "GROUP BY r.categoria " +
+    // Relatórios sobre os rollups diários (ativos e arquivados): custo proporcional a dias x chaves, não a pedidos.
+    // Pedidos cancelados não entram no faturamento
+    @Query(value = "SELECT r.nome as restauranteNome, SUM(v.valor_total - v.valor_cancelado) as totalVendas, " +
+            "SUM(v.valor_entregue) as totalEntregue " +
+            "FROM vendas_restaurante_dia v " +
+            "JOIN restaurantes r ON r.id = v.restaurante_id " +
+            "GROUP BY r.nome " +
+            "ORDER BY totalVendas DESC",
+            nativeQuery = true)
+    List<RelatorioVendasRestaurante> findTotalVendasPorRestaurante();
+
+    @Query(value = "SELECT v.categoria, SUM(v.valor_total - v.valor_cancelado) as faturamentoTotal " +
+            "FROM vendas_categoria_dia v " +
+            "GROUP BY v.categoria " +
             "ORDER BY faturamentoTotal DESC",
             nativeQuery = true)
     List<RelatorioFaturamentoCategoria> findFaturamentoPorCategoria();
@@ -45,4 +57,11 @@ public interface RestauranteRepository extends JpaRepository <Restaurante, Long>
     // Métodos da ATIVIDADE 1.1 (filtros) atualizados para ATIVIDADE 3.4 (paginação)
     Page<Restaurante> findByAtivo(Boolean ativo, Pageable pageable);
     Page<Restaurante> findByCategoriaAndAtivo(String categoria, Boolean ativo, Pageable pageable);
+
+    // Variantes Slice (?count=false): mesma consulta, sem o SELECT COUNT(*) do Page
+    Slice<Restaurante> findSliceBy(Pageable pageable);
+    Slice<Restaurante> findSliceByAtivoTrue(Pageable pageable);
+    Slice<Restaurante> findSliceByCategoria(String categoria, Pageable pageable);
+    Slice<Restaurante> findSliceByAtivo(Boolean ativo, Pageable pageable);
+    Slice<Restaurante> findSliceByCategoriaAndAtivo(String categoria, Boolean ativo, Pageable pageable);
 }
\ No newline at end of file
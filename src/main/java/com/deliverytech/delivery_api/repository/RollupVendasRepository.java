@@ -0,0 +1,143 @@
+package com.deliverytech.delivery_api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Escrita dos rollups diários dos relatórios (vendas_restaurante_dia, vendas_categoria_dia, pedidos_cliente_dia).
+ * As três tabelas têm as mesmas medidas; muda só a chave. Sem entidades: as linhas são somadas com
+ * INSERT ... SELECT ... ON DUPLICATE KEY UPDATE (MariaDB, e o H2 dos testes em MODE=MariaDB), um comando por
+ * tabela e tipo de movimento, qualquer que seja o número de pedidos.
+ * A leitura fica nas consultas de relatório dos repositórios de restaurante e cliente.
+ */
+@Repository
+public class RollupVendasRepository {
+
+    /**
+     * O que aconteceu com os pedidos: cada tipo soma em um par de colunas (quantidade, valor).
+     */
+    public enum Movimento {
+        CRIADO("COUNT(*), COALESCE(SUM(p.valor_total), 0), 0, 0, 0, 0"),
+        CANCELADO("0, 0, COUNT(*), COALESCE(SUM(p.valor_total), 0), 0, 0"),
+        ENTREGUE("0, 0, 0, 0, COUNT(*), COALESCE(SUM(p.valor_total), 0)");
+
+        private final String medidas;
+
+        Movimento(String medidas) {
+            this.medidas = medidas;
+        }
+    }
+
+    private enum Rollup {
+        RESTAURANTE("vendas_restaurante_dia", "restaurante_id", "p.restaurante_id", ""),
+        CATEGORIA("vendas_categoria_dia", "categoria", "COALESCE(r.categoria, 'Sem categoria')",
+                " JOIN restaurantes r ON r.id = p.restaurante_id"),
+        CLIENTE("pedidos_cliente_dia", "cliente_id", "p.cliente_id", "");
+
+        private final String tabela;
+        private final String chave;
+        private final String expressaoChave;
+        private final String join;
+
+        Rollup(String tabela, String chave, String expressaoChave, String join) {
+            this.tabela = tabela;
+            this.chave = chave;
+            this.expressaoChave = expressaoChave;
+            this.join = join;
+        }
+
+        String insert() {
+            return "INSERT INTO " + tabela + " (dia, " + chave
+                    + ", pedidos, valor_total, cancelados, valor_cancelado, entregues, valor_entregue) ";
+        }
+
+        // Pedidos sem data, cliente ou restaurante não têm linha no rollup (chave primária)
+        String origem(String fonte) {
+            return "SELECT CAST(p.data_pedido AS DATE), " + expressaoChave + ", %s FROM " + fonte + " p" + join
+                    + " WHERE p.data_pedido IS NOT NULL AND p.restaurante_id IS NOT NULL AND p.cliente_id IS NOT NULL%s"
+                    + " GROUP BY CAST(p.data_pedido AS DATE), " + expressaoChave;
+        }
+    }
+
+    private static final String SOMAR_EXISTENTES = " ON DUPLICATE KEY UPDATE "
+            + "pedidos = pedidos + VALUES(pedidos), valor_total = valor_total + VALUES(valor_total), "
+            + "cancelados = cancelados + VALUES(cancelados), valor_cancelado = valor_cancelado + VALUES(valor_cancelado), "
+            + "entregues = entregues + VALUES(entregues), valor_entregue = valor_entregue + VALUES(valor_entregue)";
+
+    private static final String MEDIDAS_RECONSTRUCAO = "COUNT(*), COALESCE(SUM(p.valor_total), 0), "
+            + "SUM(CASE WHEN p.status = 'CANCELADO' THEN 1 ELSE 0 END), "
+            + "COALESCE(SUM(CASE WHEN p.status = 'CANCELADO' THEN p.valor_total END), 0), "
+            + "SUM(CASE WHEN p.status = 'ENTREGUE' THEN 1 ELSE 0 END), "
+            + "COALESCE(SUM(CASE WHEN p.status = 'ENTREGUE' THEN p.valor_total END), 0)";
+
+    // Ativos + arquivados do período; cada lado usa o índice por data da própria tabela
+    private static final String PEDIDOS_DO_PERIODO = "(SELECT data_pedido, status, valor_total, cliente_id, restaurante_id "
+            + "FROM pedidos WHERE data_pedido >= :inicio AND data_pedido < :fim "
+            + "UNION ALL SELECT data_pedido, status, valor_total, cliente_id, restaurante_id "
+            + "FROM pedidos_historico WHERE data_pedido >= :inicio AND data_pedido < :fim)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Soma o movimento dos pedidos nos três rollups, no dia de cada pedido, lendo os pedidos já commitados.
+     * Chamado pelo AtualizadorRollups na transação do OutboxRelay, nunca na transação do pedido.
+     */
+    public void somar(Movimento movimento, Collection<Long> pedidoIds) {
+        if (pedidoIds.isEmpty()) {
+            return;
+        }
+        for (Rollup rollup : Rollup.values()) {
+            entityManager.createNativeQuery(rollup.insert()
+                            + String.format(rollup.origem("pedidos"), movimento.medidas, " AND p.id IN (:ids)")
+                            + SOMAR_EXISTENTES)
+                    .setParameter("ids", pedidoIds)
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * Refaz as linhas do dia nos três rollups a partir de pedidos + pedidos_historico.
+     */
+    public void reconstruir(LocalDate dia) {
+        LocalDateTime inicio = dia.atStartOfDay();
+        LocalDateTime fim = dia.plusDays(1).atStartOfDay();
+        for (Rollup rollup : Rollup.values()) {
+            entityManager.createNativeQuery("DELETE FROM " + rollup.tabela + " WHERE dia = :dia")
+                    .setParameter("dia", dia)
+                    .executeUpdate();
+            entityManager.createNativeQuery(rollup.insert()
+                            + String.format(rollup.origem(PEDIDOS_DO_PERIODO), MEDIDAS_RECONSTRUCAO, ""))
+                    .setParameter("inicio", inicio)
+                    .setParameter("fim", fim)
+                    .executeUpdate();
+        }
+    }
+
+    public boolean vazio() {
+        return entityManager.createNativeQuery("SELECT dia FROM vendas_restaurante_dia")
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Dia do pedido mais antigo (ativo ou arquivado): início de uma reconstrução completa.
+     */
+    public Optional<LocalDate> findPrimeiroDia() {
+        LocalDateTime ativos = (LocalDateTime) entityManager
+                .createNativeQuery("SELECT MIN(data_pedido) FROM pedidos", LocalDateTime.class).getSingleResult();
+        LocalDateTime arquivados = (LocalDateTime) entityManager
+                .createNativeQuery("SELECT MIN(data_pedido) FROM pedidos_historico", LocalDateTime.class).getSingleResult();
+        if (ativos == null || (arquivados != null && arquivados.isBefore(ativos))) {
+            ativos = arquivados;
+        }
+        return Optional.ofNullable(ativos).map(LocalDateTime::toLocalDate);
+    }
+}
@@ -0,0 +1,31 @@
+package com.deliverytech.delivery_api.security;
+
+/**
+ * Restrição de dono aplicada nas consultas e comandos de pedido.
+ * ADMIN não tem restrição (ids nulos); CLIENTE só alcança os próprios pedidos e RESTAURANTE os do seu restaurante.
+ * Os ids entram no WHERE junto com a chave primária, então o pedido de outro dono custa uma sondagem pelo índice.
+ */
+public record EscopoPedido(Long clienteId, Long restauranteId) {
+
+    public static final EscopoPedido IRRESTRITO = new EscopoPedido(null, null);
+
+    public static EscopoPedido doCliente(Long clienteId) {
+        return new EscopoPedido(clienteId, null);
+    }
+
+    public static EscopoPedido doRestaurante(Long restauranteId) {
+        return new EscopoPedido(null, restauranteId);
+    }
+
+    public boolean isIrrestrito() {
+        return clienteId == null && restauranteId == null;
+    }
+
+    /**
+     * Mesma regra do WHERE, para pedidos já carregados (cache ou contexto da requisição).
+     */
+    public boolean permite(Long clienteIdDoPedido, Long restauranteIdDoPedido) {
+        return (clienteId == null || clienteId.equals(clienteIdDoPedido))
+                && (restauranteId == null || restauranteId.equals(restauranteIdDoPedido));
+    }
+}
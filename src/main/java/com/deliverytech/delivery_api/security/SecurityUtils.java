@@ -1,7 +1,9 @@
 package com.deliverytech.delivery_api.security;
 
 import com.deliverytech.delivery_api.entity.Usuario;
+import com.deliverytech.delivery_api.enums.Role;
 import com.deliverytech.delivery_api.exceptions.BusinessException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -22,6 +24,19 @@ public class SecurityUtils {
         throw new BusinessException("Usuário não autenticado ou contexto inválido");
     }
 
+    /**
+     * Retorna o login (email) do usuário autenticado, qualquer que seja o tipo de principal.
+     */
+    public String getCurrentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.isAuthenticated()) {
+            return authentication.getName();
+        }
+
+        throw new BusinessException("Usuário não autenticado ou contexto inválido");
+    }
+
     /**
      * Retorna apenas o ID do usuário logado.
      */
@@ -39,4 +54,22 @@ public class SecurityUtils {
         }
         return restauranteId;
     }
-}
\ No newline at end of file
+
+    /**
+     * Escopo de pedidos visível ao usuário logado: ADMIN vê todos, CLIENTE os próprios, RESTAURANTE os do restaurante.
+     * ADMIN é reconhecido pela authority, então também vale para principals que não são Usuario.
+     */
+    public EscopoPedido getEscopoPedido() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> ("ROLE_" + Role.ADMIN.name()).equals(a.getAuthority()))) {
+            return EscopoPedido.IRRESTRITO;
+        }
+
+        Usuario user = getCurrentUser();
+        if (user.getRole() == Role.CLIENTE) return EscopoPedido.doCliente(user.getId());
+        if (user.getRole() == Role.RESTAURANTE) return EscopoPedido.doRestaurante(getCurrentRestauranteId());
+
+        throw new AccessDeniedException("Perfil sem acesso a pedidos: " + user.getRole());
+    }
+}
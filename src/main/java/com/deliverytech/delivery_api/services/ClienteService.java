@@ -10,6 +10,7 @@ import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -65,6 +66,18 @@ public class ClienteService {
                 .map(cliente -> modelMapper.map(cliente, ClienteResponseDTO.class));
     }
 
+    /**
+     * Variante com ?count=false: sem contar, devolve um Slice (sem SELECT COUNT(*))
+     */
+    @Transactional(readOnly = true)
+    public Slice<ClienteResponseDTO> listarClientesAtivos(Pageable pageable, boolean contar) {
+        if (contar) {
+            return listarClientesAtivos(pageable);
+        }
+        return clienteRepository.findSliceByAtivoTrue(pageable)
+                .map(cliente -> modelMapper.map(cliente, ClienteResponseDTO.class));
+    }
+
     public ClienteResponseDTO atualizarCliente(Long id, ClienteResquestDTO dto) {
         Cliente cliente = clienteRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Cliente não encontrado com ID: " + id));
@@ -0,0 +1,55 @@
+package com.deliverytech.delivery_api.services;
+
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Posição (data_pedido, id) do último pedido de uma página, trafegada como token opaco (Base64 URL).
+ * O cliente não deve interpretar o conteúdo; o formato pode mudar sem aviso.
+ */
+record PedidoCursor(LocalDateTime dataPedido, Long id) {
+
+    private static final String SEPARADOR = "|";
+
+    static PedidoCursor decodificar(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf(SEPARADOR);
+            return new PedidoCursor(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.valueOf(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BusinessException("Cursor de paginação inválido");
+        }
+    }
+
+    /**
+     * Cursor nulo significa "primeira página".
+     */
+    static ScrollPosition posicao(String token) {
+        if (token == null || token.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        return decodificar(token).posicao();
+    }
+
+    String codificar() {
+        String valor = dataPedido + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    KeysetScrollPosition posicao() {
+        // Mesma ordem das chaves do ORDER BY (dataPedido DESC, id DESC)
+        Map<String, Object> chaves = new LinkedHashMap<>();
+        chaves.put("dataPedido", dataPedido);
+        chaves.put("id", id);
+        return ScrollPosition.forward(chaves);
+    }
+}
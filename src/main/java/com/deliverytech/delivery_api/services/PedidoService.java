@@ -2,26 +2,68 @@ package com.deliverytech.delivery_api.services;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.deliverytech.delivery_api.dto.*;
 import com.deliverytech.delivery_api.entity.*;
-import com.deliverytech.delivery_api.enums.Role;
 import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.exceptions.ConflictException;
 import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
+import com.deliverytech.delivery_api.security.EscopoPedido;
 import com.deliverytech.delivery_api.security.SecurityUtils;
+import com.deliverytech.delivery_api.services.cotacao.CotacaoService;
+import com.deliverytech.delivery_api.services.cotacao.Precificador;
+import com.deliverytech.delivery_api.services.detalhe.PedidoContextoRequisicao;
+import com.deliverytech.delivery_api.services.detalhe.PedidoDetalheCache;
+import com.deliverytech.delivery_api.services.maisvendidos.ProdutosVendidos;
+import com.deliverytech.delivery_api.services.numeracao.GeradorNumeroPedido;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.deliverytech.delivery_api.enums.StatusPedido;
 import com.deliverytech.delivery_api.repository.ClienteRepository;
+import com.deliverytech.delivery_api.repository.PedidoArquivadoRepository;
+import com.deliverytech.delivery_api.repository.PedidoBuscaRepository;
+import com.deliverytech.delivery_api.repository.PedidoConsolidadoRepository;
+import com.deliverytech.delivery_api.repository.PedidoFiltro;
 import com.deliverytech.delivery_api.repository.PedidoRepository;
+import com.deliverytech.delivery_api.repository.PedidoSpecs;
 import com.deliverytech.delivery_api.repository.ProdutoRepository;
 import com.deliverytech.delivery_api.repository.RestauranteRepository;
 
@@ -32,6 +74,12 @@ public class PedidoService {
     @Autowired
     private PedidoRepository pedidoRepository;
     @Autowired
+    private PedidoConsolidadoRepository pedidoConsolidadoRepository;
+    @Autowired
+    private PedidoArquivadoRepository pedidoArquivadoRepository;
+    @Autowired
+    private PedidoBuscaRepository pedidoBuscaRepository;
+    @Autowired
     private ClienteRepository clienteRepository;
     @Autowired
     private RestauranteRepository restauranteRepository;
@@ -41,6 +89,33 @@ public class PedidoService {
     private ModelMapper modelMapper;
     @Autowired
     private SecurityUtils securityUtils;
+    @Autowired
+    private GeradorNumeroPedido geradorNumeroPedido;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PedidoDetalheCache pedidoDetalheCache;
+    @Autowired
+    private PedidoContextoRequisicao pedidoContextoRequisicao;
+    @Autowired
+    private CotacaoService cotacaoService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${pedidos.lote.tamanho-maximo:1000}")
+    private int tamanhoMaximoLote;
+
+    @Value("${pedidos.status.lote.tamanho-maximo:200}")
+    private int tamanhoMaximoLoteStatus;
+
+    // Mesmo valor de hibernate.jdbc.batch_size e do allocationSize das sequences
+    private static final int TAMANHO_FLUSH_LOTE = 50;
+
+    private static final int TAMANHO_MAXIMO_PAGINA_CURSOR = 100;
 
     /**
      * 1.4: Criar Pedido (Transação Complexa)
@@ -48,48 +123,244 @@ public class PedidoService {
     public PedidoResponseDTO criarPedido(PedidoRequestDTO dto) {
         Cliente cliente = clienteRepository.findById(dto.getClienteId())
                 .orElseThrow(() -> new EntityNotFoundException("Cliente não encontrado: " + dto.getClienteId()));
-        if (!cliente.getAtivo()) {
-            throw new BusinessException("Cliente inativo não pode fazer pedidos");
-        }
+        validarCliente(cliente);
 
         Restaurante restaurante = restauranteRepository.findById(dto.getRestauranteId())
                 .orElseThrow(() -> new EntityNotFoundException("Restaurante não encontrado: " + dto.getRestauranteId()));
-        if (!restaurante.getAtivo()) {
-            throw new BusinessException("Restaurante não está disponível");
+        validarRestaurante(restaurante);
+
+        // Com um token de cotação ainda válido, os preços cotados valem e a consulta dos produtos é dispensada
+        CestaPrecificada cesta = cotacaoService.resgatar(dto.getTokenCotacao(), restaurante.getId(), dto.getItens())
+                .orElseGet(() -> precificarCesta(dto.getItens(), restaurante.getId(), restaurante.getTaxaEntrega()));
+
+        Pedido pedidoSalvo = pedidoRepository.save(montarPedido(dto, cliente, restaurante, cesta, geradorNumeroPedido.proximo()));
+        eventPublisher.publishEvent(PedidoEvento.criado(pedidoSalvo));
+        eventPublisher.publishEvent(ProdutosVendidos.de(pedidoSalvo));
+
+        return mapToPedidoResponseDTO(pedidoSalvo, cliente, restaurante, dto.getItens());
+    }
+
+    /**
+     * Ingestão em lote para integrações parceiras.
+     * Clientes, restaurantes e produtos de todo o lote são carregados com uma consulta (IN) cada;
+     * validação e precificação acontecem em memória e cada pedido recebe seu próprio resultado.
+     * Os pedidos válidos são gravados em lotes JDBC (ids de sequence com alocação em bloco), cada bloco
+     * na sua própria transação: um erro de banco recusa só os pedidos daquele bloco, não o lote inteiro.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PedidoLoteResponseDTO criarPedidosEmLote(List<PedidoRequestDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            throw new BusinessException("O lote deve conter pelo menos um pedido");
+        }
+        if (dtos.size() > tamanhoMaximoLote) {
+            throw new BusinessException("O lote excede o limite de " + tamanhoMaximoLote + " pedidos");
+        }
+        return gravarPedidosEmLote(dtos, null);
+    }
+
+    /**
+     * Grava pedidos aceitos pelo modo assíncrono (PedidoPipeline), em uma transação por bloco.
+     * Os números de pedido já foram entregues ao cliente no 202 e são mantidos.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PedidoLoteResponseDTO criarPedidosAceitos(List<PedidoRequestDTO> dtos, List<String> numerosPedido) {
+        return gravarPedidosEmLote(dtos, numerosPedido);
+    }
+
+    /**
+     * NOVO MÉTODO (Helper): Núcleo da gravação em lote. Sem {@code numerosPedido}, gera um número por pedido.
+     */
+    private PedidoLoteResponseDTO gravarPedidosEmLote(List<PedidoRequestDTO> dtos, List<String> numerosPedido) {
+        List<PedidoLoteResultadoDTO> resultados = new ArrayList<>(dtos.size());
+        List<PedidoRequestDTO> validos = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            PedidoRequestDTO dto = dtos.get(i);
+            String erro = validarCampos(dto);
+            resultados.add(erro == null ? null : PedidoLoteResultadoDTO.falha(i, erro));
+            if (erro == null) {
+                validos.add(dto);
+            }
+        }
+
+        Map<Long, Cliente> clientes = clienteRepository.findAllById(idsDistintos(validos, PedidoRequestDTO::getClienteId))
+                .stream().collect(Collectors.toMap(Cliente::getId, Function.identity()));
+        Map<Long, Restaurante> restaurantes = restauranteRepository.findAllById(idsDistintos(validos, PedidoRequestDTO::getRestauranteId))
+                .stream().collect(Collectors.toMap(Restaurante::getId, Function.identity()));
+        Set<Long> produtoIds = validos.stream()
+                .flatMap(dto -> dto.getItens().stream())
+                .map(ItemPedidoDTO::getProdutoId)
+                .collect(Collectors.toSet());
+        Map<Long, Produto> produtos = produtoRepository.findAllById(produtoIds)
+                .stream().collect(Collectors.toMap(Produto::getId, Function.identity()));
+
+        List<Supplier<Pedido>> pendentes = new ArrayList<>(TAMANHO_FLUSH_LOTE);
+        List<Integer> indicesPendentes = new ArrayList<>(TAMANHO_FLUSH_LOTE);
+        for (int i = 0; i < dtos.size(); i++) {
+            if (resultados.get(i) != null) {
+                continue;
+            }
+            PedidoRequestDTO dto = dtos.get(i);
+            try {
+                Cliente cliente = clientes.get(dto.getClienteId());
+                if (cliente == null) {
+                    throw new EntityNotFoundException("Cliente não encontrado: " + dto.getClienteId());
+                }
+                validarCliente(cliente);
+
+                Restaurante restaurante = restaurantes.get(dto.getRestauranteId());
+                if (restaurante == null) {
+                    throw new EntityNotFoundException("Restaurante não encontrado: " + dto.getRestauranteId());
+                }
+                validarRestaurante(restaurante);
+
+                CestaPrecificada cesta = Precificador.precificar(dto.getItens(), produtos, restaurante.getId(), restaurante.getTaxaEntrega());
+                String numeroPedido = numerosPedido == null ? geradorNumeroPedido.proximo() : numerosPedido.get(i);
+                pendentes.add(() -> montarPedido(dto, cliente, restaurante, cesta, numeroPedido));
+                indicesPendentes.add(i);
+            } catch (BusinessException | EntityNotFoundException e) {
+                resultados.set(i, PedidoLoteResultadoDTO.falha(i, e.getMessage()));
+            }
+
+            if (pendentes.size() == TAMANHO_FLUSH_LOTE) {
+                gravarBloco(pendentes, indicesPendentes, resultados);
+            }
+        }
+        gravarBloco(pendentes, indicesPendentes, resultados);
+
+        return new PedidoLoteResponseDTO(resultados);
+    }
+
+    /**
+     * NOVO MÉTODO (Helper): Grava um bloco de pedidos em uma transação própria. Se o banco recusar o bloco
+     * (número repetido, restrição violada), a transação do bloco é desfeita e cada pedido dele é regravado
+     * sozinho, para que só o pedido com problema seja recusado. Os pedidos são montados dentro da transação
+     * (uma nova tentativa recomeça de objetos nunca gravados).
+     */
+    private void gravarBloco(List<Supplier<Pedido>> montagens, List<Integer> indices, List<PedidoLoteResultadoDTO> resultados) {
+        if (montagens.isEmpty()) {
+            return;
+        }
+        try {
+            gravarEmTransacao(montagens, indices, resultados);
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            if (montagens.size() == 1) {
+                resultados.set(indices.get(0), PedidoLoteResultadoDTO.falha(indices.get(0), "Falha ao gravar o pedido"));
+            } else {
+                for (int j = 0; j < montagens.size(); j++) {
+                    gravarBloco(new ArrayList<>(List.of(montagens.get(j))), new ArrayList<>(List.of(indices.get(j))), resultados);
+                }
+            }
         }
+        montagens.clear();
+        indices.clear();
+    }
 
-        BigDecimal valorTotal = calcularTotalPedido(dto.getItens(), restaurante.getId(), restaurante.getTaxaEntrega());
+    private void gravarEmTransacao(List<Supplier<Pedido>> montagens, List<Integer> indices, List<PedidoLoteResultadoDTO> resultados) {
+        TransactionTemplate bloco = new TransactionTemplate(transactionManager);
+        bloco.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<Pedido> pedidos = bloco.execute(status -> {
+            List<Pedido> montados = montagens.stream().map(Supplier::get).toList();
+            pedidoRepository.saveAll(montados);
+            entityManager.flush();
+            for (Pedido pedido : montados) {
+                eventPublisher.publishEvent(PedidoEvento.criado(pedido));
+                eventPublisher.publishEvent(ProdutosVendidos.de(pedido));
+            }
+            // Libera o contexto de persistência: uso de memória constante em lotes grandes
+            entityManager.clear();
+            return montados;
+        });
+        // Só depois do commit: uma falha no commit não deixa sucesso registrado
+        for (int j = 0; j < pedidos.size(); j++) {
+            resultados.set(indices.get(j), PedidoLoteResultadoDTO.sucesso(indices.get(j), pedidos.get(j)));
+        }
+    }
 
+    private Pedido montarPedido(PedidoRequestDTO dto, Cliente cliente, Restaurante restaurante, CestaPrecificada cesta,
+                                String numeroPedido) {
         Pedido pedido = new Pedido();
         pedido.setClienteId(cliente.getId());
         pedido.setRestaurante(restaurante);
         pedido.setStatus(StatusPedido.PENDENTE.name());
         pedido.setDataPedido(LocalDateTime.now());
-        pedido.setNumeroPedido(UUID.randomUUID().toString().substring(0, 10).toUpperCase());
-        pedido.setValorTotal(valorTotal);
+        pedido.setNumeroPedido(numeroPedido);
+        pedido.setValorTotal(cesta.valorTotal());
         pedido.setObservacoes(dto.getObservacoes());
 
-        String itens = dto.getItens().stream()
-                .map(item -> item.getQuantidade() + "x (ID: " + item.getProdutoId() + ")")
-                .collect(Collectors.joining(", "));
-        pedido.setItens(itens);
+        for (CestaPrecificada.Item item : cesta.itens()) {
+            pedido.adicionarItem(new ItemPedido(null, null, item.produtoId(), item.quantidade(), item.precoUnitario()));
+        }
+        return pedido;
+    }
 
-        Pedido pedidoSalvo = pedidoRepository.save(pedido);
+    private void validarCliente(Cliente cliente) {
+        if (!cliente.getAtivo()) {
+            throw new BusinessException("Cliente inativo não pode fazer pedidos");
+        }
+    }
 
-        return mapToPedidoResponseDTO(pedidoSalvo, cliente, restaurante, dto.getItens());
+    private void validarRestaurante(Restaurante restaurante) {
+        if (!restaurante.getAtivo()) {
+            throw new BusinessException("Restaurante não está disponível");
+        }
+    }
+
+    /**
+     * NOVO MÉTODO (Helper): Bean Validation de um item do lote (o @Valid do controller
+     * rejeitaria o lote inteiro). Retorna null quando o DTO é válido.
+     */
+    private String validarCampos(PedidoRequestDTO dto) {
+        if (dto == null) {
+            return "Pedido não informado";
+        }
+        Set<ConstraintViolation<PedidoRequestDTO>> violacoes = validator.validate(dto);
+        if (violacoes.isEmpty()) {
+            return null;
+        }
+        return violacoes.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Set<Long> idsDistintos(List<PedidoRequestDTO> dtos, Function<PedidoRequestDTO, Long> extrator) {
+        return dtos.stream().map(extrator).filter(Objects::nonNull).collect(Collectors.toSet());
     }
 
     /**
      * 1.4: Buscar Pedido por ID (com itens)
+     * SUPPORTS: sem transação própria, para um acerto no cache não abrir conexão com o banco
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public PedidoResponseDTO buscarPedidoPorId(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
+        return obterDetalhe(id, EscopoPedido.IRRESTRITO)
                 .orElseThrow(() -> new EntityNotFoundException("Pedido não encontrado: " + id));
+    }
 
-        Cliente cliente = clienteRepository.findById(pedido.getClienteId()).orElse(null);
-
-        return mapToPedidoResponseDTO(pedido, cliente, pedido.getRestaurante(), null);
+    /**
+     * Detalhe já carregado nesta requisição (pelo canAccess), do cache curto ou, na falta, de uma única consulta
+     * (pedido + cliente + restaurante + itens) com a restrição de dono no WHERE. Fora do escopo = vazio.
+     * Sem linha na tabela quente, o pedido pode ter sido arquivado: a mesma consulta roda em pedidos_historico (pela PK).
+     */
+    private Optional<PedidoResponseDTO> obterDetalhe(Long id, EscopoPedido escopo) {
+        Optional<PedidoResponseDTO> carregado = pedidoContextoRequisicao.buscar(id).or(() -> pedidoDetalheCache.buscar(id));
+        if (carregado.isPresent()) {
+            return carregado.filter(p -> escopo.permite(
+                    p.getCliente() != null ? p.getCliente().getId() : null,
+                    p.getRestaurante() != null ? p.getRestaurante().getId() : null));
+        }
+        long versao = pedidoDetalheCache.versaoAtual();
+        List<PedidoDetalheLinha> linhas = pedidoRepository.findDetalheById(id, escopo.clienteId(), escopo.restauranteId());
+        if (linhas.isEmpty()) {
+            linhas = pedidoArquivadoRepository.findDetalheById(id, escopo.clienteId(), escopo.restauranteId());
+        }
+        if (linhas.isEmpty()) {
+            return Optional.empty();
+        }
+        PedidoResponseDTO detalhe = mapToPedidoResponseDTO(linhas);
+        pedidoDetalheCache.guardar(id, detalhe, versao);
+        pedidoContextoRequisicao.guardar(id, detalhe);
+        return Optional.of(detalhe);
     }
 
     /**
@@ -102,27 +373,164 @@ public class PedidoService {
             throw new EntityNotFoundException("Cliente não encontrado: " + clienteId);
         }
 
-        Page<Pedido> pedidosPage = pedidoRepository.findByClienteId(clienteId, pageable);
+        if (pedidoArquivadoRepository.existsByClienteId(clienteId)) {
+            return pedidoBuscaRepository.buscar(PedidoConsolidado.class, PedidoSpecs.doFiltro(doCliente(clienteId)), pageable);
+        }
+        return pedidoRepository.findByClienteId(clienteId, pageable);
+    }
+
+    /**
+     * Variante com ?count=false: sem contar, devolve um Slice (sem SELECT COUNT(*))
+     */
+    @Transactional(readOnly = true)
+    public Slice<PedidoResumoDTO> buscarPedidosPorCliente(Long clienteId, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarPedidosPorCliente(clienteId, pageable);
+        }
+        if (!clienteRepository.existsById(clienteId)) {
+            throw new EntityNotFoundException("Cliente não encontrado: " + clienteId);
+        }
 
-        return pedidosPage.map(this::mapToPedidoResumoDTO);
+        if (pedidoArquivadoRepository.existsByClienteId(clienteId)) {
+            return pedidoBuscaRepository.fatiar(PedidoConsolidado.class, PedidoSpecs.doFiltro(doCliente(clienteId)), pageable);
+        }
+        return pedidoRepository.findSliceByClienteId(clienteId, pageable);
     }
 
     /**
      * 1.4: Atualizar Status do Pedido
+     * A transição é validada e aplicada no próprio UPDATE (WHERE status IN origens permitidas),
+     * sem ler o pedido antes: atualizações concorrentes não se sobrescrevem. Depois do UPDATE, os donos são lidos
+     * pela chave (linha já travada) e seguem no evento.
      */
-    public PedidoResponseDTO atualizarStatusPedido(Long id, StatusPedido status) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Pedido não encontrado: " + id));
+    public PedidoStatusDTO atualizarStatusPedido(Long id, StatusPedido status) {
+        return atualizarStatusPedido(id, status, EscopoPedido.IRRESTRITO);
+    }
 
-        StatusPedido statusAtual = StatusPedido.valueOf(pedido.getStatus());
-        if (statusAtual == StatusPedido.ENTREGUE || statusAtual == StatusPedido.CANCELADO) {
-            throw new BusinessException("Pedido já finalizado ou cancelado. Não é possível alterar o status.");
+    /**
+     * Variante com restrição de dono: a posse entra no mesmo UPDATE, então checagem e alteração são um único comando.
+     */
+    public PedidoStatusDTO atualizarStatusPedido(Long id, StatusPedido status, EscopoPedido escopo) {
+        int alterados = pedidoRepository.atualizarStatusSeEm(id, status.name(), StatusPedido.origensDe(status),
+                escopo.clienteId(), escopo.restauranteId());
+        if (alterados == 0) {
+            StatusPedido atual = statusAtualOuRejeitar(id, escopo);
+            if (isCancelamentoRepetido(atual, status)) {
+                return PedidoStatusDTO.de(id, status);
+            }
+            throw new BusinessException(motivoTransicaoInvalida(atual, status));
         }
+        PedidoStatusAtual donos = pedidoRepository.findStatusAtualById(id).orElseThrow();
+        pedidoContextoRequisicao.remover(id);
+        eventPublisher.publishEvent(PedidoEvento.statusAlterado(id, status, donos.restauranteId(), donos.clienteId()));
+        return PedidoStatusDTO.de(id, status);
+    }
 
-        pedido.setStatus(status.name());
-        Pedido pedidoSalvo = pedidoRepository.save(pedido);
+    /**
+     * Atualização de status em lote (telas da cozinha). Em uma única transação: os status atuais de todos os
+     * pedidos do escopo são lidos com os donos em uma consulta (linhas travadas até o commit), as transições são validadas
+     * em memória e os pedidos válidos são alterados com um UPDATE condicional por status de destino.
+     * Cada transição recebe seu próprio resultado; as rejeitadas não impedem as demais.
+     */
+    public PedidoStatusLoteResponseDTO atualizarStatusEmLote(List<PedidoStatusLoteItemDTO> itens, EscopoPedido escopo) {
+        if (itens == null || itens.isEmpty()) {
+            throw new BusinessException("O lote deve conter pelo menos uma transição");
+        }
+        if (itens.size() > tamanhoMaximoLoteStatus) {
+            throw new BusinessException("O lote excede o limite de " + tamanhoMaximoLoteStatus + " transições");
+        }
 
-        return buscarPedidoPorId(pedidoSalvo.getId()); // Reutiliza a busca
+        Set<Long> ids = itens.stream()
+                .filter(Objects::nonNull)
+                .map(PedidoStatusLoteItemDTO::getPedidoId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, PedidoStatusAtual> lidos = ids.isEmpty() ? Map.of()
+                : pedidoRepository.findStatusParaAtualizar(ids, escopo.clienteId(), escopo.restauranteId()).stream()
+                        .collect(Collectors.toMap(PedidoStatusAtual::id, Function.identity()));
+
+        List<PedidoStatusLoteResultadoDTO> resultados = new ArrayList<>(itens.size());
+        Map<StatusPedido, List<Long>> porDestino = new EnumMap<>(StatusPedido.class);
+        Set<Long> vistos = new HashSet<>();
+        for (int i = 0; i < itens.size(); i++) {
+            PedidoStatusLoteItemDTO item = itens.get(i);
+            Long id = item == null ? null : item.getPedidoId();
+            StatusPedido destino = item == null ? null : item.getStatus();
+            PedidoStatusAtual lido = id == null ? null : lidos.get(id);
+            StatusPedido atual = lido == null ? null : StatusPedido.valueOf(lido.status());
+            if (id == null || destino == null) {
+                resultados.add(PedidoStatusLoteResultadoDTO.falha(i, id, null, "pedidoId e status são obrigatórios"));
+            } else if (!vistos.add(id)) {
+                resultados.add(PedidoStatusLoteResultadoDTO.falha(i, id, null, "Pedido repetido no lote: " + id));
+            } else if (atual == null) {
+                resultados.add(PedidoStatusLoteResultadoDTO.falha(i, id, null, motivoPedidoAusente(id, escopo)));
+            } else if (isCancelamentoRepetido(atual, destino)) {
+                resultados.add(PedidoStatusLoteResultadoDTO.sucesso(i, id, destino));
+            } else if (!atual.podeAvancarPara(destino)) {
+                resultados.add(PedidoStatusLoteResultadoDTO.falha(i, id, atual, motivoTransicaoInvalida(atual, destino)));
+            } else {
+                resultados.add(PedidoStatusLoteResultadoDTO.sucesso(i, id, destino));
+                porDestino.computeIfAbsent(destino, d -> new ArrayList<>()).add(id);
+            }
+        }
+
+        porDestino.forEach((destino, idsDestino) -> {
+            int alterados = pedidoRepository.atualizarStatusEmLoteSeEm(idsDestino, destino.name(), StatusPedido.origensDe(destino),
+                    escopo.clienteId(), escopo.restauranteId());
+            if (alterados != idsDestino.size()) {
+                // As linhas estão travadas desde a leitura: só acontece se algo alterou o pedido fora do lock
+                throw new ConflictException("Pedidos alterados durante a atualização em lote. Tente novamente.");
+            }
+            for (Long id : idsDestino) {
+                pedidoContextoRequisicao.remover(id);
+                PedidoStatusAtual lido = lidos.get(id);
+                eventPublisher.publishEvent(PedidoEvento.statusAlterado(id, destino, lido.restauranteId(), lido.clienteId()));
+            }
+        });
+        return new PedidoStatusLoteResponseDTO(resultados);
+    }
+
+    /**
+     * NOVO MÉTODO (Helper): Caminho de erro da transição. Só consulta o status atual quando o
+     * UPDATE condicional não alterou nenhuma linha, para diferenciar 404/403 de transição inválida.
+     * Com escopo restrito, pedido inexistente e pedido de outro dono respondem igual (403), como no canAccess.
+     * Pedido arquivado existe (está em status final): responde com o status dele, não como 404.
+     */
+    private StatusPedido statusAtualOuRejeitar(Long id, EscopoPedido escopo) {
+        return pedidoRepository.findStatusById(id, escopo.clienteId(), escopo.restauranteId())
+                .or(() -> pedidoArquivadoRepository.findStatusById(id, escopo.clienteId(), escopo.restauranteId()))
+                .map(StatusPedido::valueOf)
+                .orElseThrow(() -> escopo.isIrrestrito()
+                        ? new EntityNotFoundException(motivoPedidoAusente(id, escopo))
+                        : new AccessDeniedException(motivoPedidoAusente(id, escopo)));
+    }
+
+    /**
+     * Cancelar um pedido já cancelado é a repetição da mesma intenção (ex.: retry do cliente após timeout):
+     * responde com sucesso, sem alterar a linha nem publicar evento. Não é uma transição da tabela.
+     */
+    private static boolean isCancelamentoRepetido(StatusPedido atual, StatusPedido destino) {
+        return atual == StatusPedido.CANCELADO && destino == StatusPedido.CANCELADO;
+    }
+
+    private static String motivoPedidoAusente(Long id, EscopoPedido escopo) {
+        return escopo.isIrrestrito() ? "Pedido não encontrado: " + id : "Pedido fora do escopo do usuário: " + id;
+    }
+
+    private static String motivoTransicaoInvalida(StatusPedido statusAtual, StatusPedido destino) {
+        if (destino == StatusPedido.CANCELADO) {
+            if (statusAtual == StatusPedido.ENTREGUE) {
+                return "Não é possível cancelar um pedido já entregue.";
+            }
+            if (statusAtual == StatusPedido.SAIU_PARA_ENTREGA) {
+                return "Não é possível cancelar um pedido que já saiu para entrega.";
+            }
+        }
+        if (statusAtual.isFinal()) {
+            return "Pedido já finalizado ou cancelado. Não é possível alterar o status.";
+        }
+        return "Transição de status inválida: " + statusAtual + " -> " + destino
+                + ". Permitidos: " + statusAtual.getProximos();
     }
 
     /**
@@ -130,23 +538,28 @@ public class PedidoService {
      */
     @Transactional(readOnly = true)
     public BigDecimal calcularTotalPedido(List<ItemPedidoDTO> itens, Long restauranteId, BigDecimal taxaEntrega) {
-        BigDecimal subtotal = BigDecimal.ZERO;
+        return precificarCesta(itens, restauranteId, taxaEntrega).valorTotal();
+    }
 
-        for (ItemPedidoDTO item : itens) {
-            Produto produto = produtoRepository.findById(item.getProdutoId())
-                    .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado: " + item.getProdutoId()));
+    /**
+     * Precifica todos os itens com uma única consulta (IN) restrita ao restaurante.
+     * Disponibilidade e pertencimento são validados em memória; a cesta retornada
+     * guarda o preço unitário de cada item para ser reutilizada na criação do pedido.
+     */
+    @Transactional(readOnly = true)
+    public CestaPrecificada precificarCesta(List<ItemPedidoDTO> itens, Long restauranteId, BigDecimal taxaEntrega) {
+        Set<Long> ids = itens.stream()
+                .map(ItemPedidoDTO::getProdutoId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
-            if (!produto.getDisponivel()) {
-                throw new BusinessException("Produto indisponível: " + produto.getNome());
-            }
-            if (!produto.getRestauranteId().equals(restauranteId)) {
-                throw new BusinessException("Produto " + produto.getNome() + " não pertence ao restaurante selecionado.");
-            }
+        Map<Long, Produto> produtos = produtoRepository.findByRestauranteIdAndIdIn(restauranteId, ids).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
 
-            BigDecimal quantidade = new BigDecimal(item.getQuantidade());
-            subtotal = subtotal.add(produto.getPreco().multiply(quantidade));
+        if (produtos.size() < ids.size()) {
+            Precificador.rejeitarProdutosForaDoRestaurante(produtoRepository, ids, produtos.keySet());
         }
-        return subtotal.add(taxaEntrega);
+
+        return Precificador.precificar(itens, produtos, restauranteId, taxaEntrega);
     }
 
     /**
@@ -154,42 +567,48 @@ public class PedidoService {
      * ATIVIDADE 3.1: Modificado para retornar void
      */
     public void cancelarPedido(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Pedido não encontrado: " + id));
-
-        StatusPedido statusAtual = StatusPedido.valueOf(pedido.getStatus());
-
-        if (statusAtual == StatusPedido.ENTREGUE) {
-            throw new BusinessException("Não é possível cancelar um pedido já entregue.");
-        }
-        if (statusAtual == StatusPedido.SAIU_PARA_ENTREGA) {
-            throw new BusinessException("Não é possível cancelar um pedido que já saiu para entrega.");
-        }
+        cancelarPedido(id, EscopoPedido.IRRESTRITO);
+    }
 
-        pedido.setStatus(StatusPedido.CANCELADO.name());
-        pedidoRepository.save(pedido);
+    public void cancelarPedido(Long id, EscopoPedido escopo) {
+        atualizarStatusPedido(id, StatusPedido.CANCELADO, escopo);
     }
 
     /**
      * NOVO MÉTODO (ATIVIDADE 1.3): Listar Pedidos com Filtros
      * ATIVIDADE 3.4: Modificado para aceitar Pageable e retornar Page<DTO>
+     * Busca composta (PedidoSpecs): só os filtros informados entram no WHERE, cada um atendido por um índice composto.
      */
     @Transactional(readOnly = true)
-    public Page<PedidoResumoDTO> listarPedidos(StatusPedido status, LocalDateTime dataInicio, LocalDateTime dataFim, Pageable pageable) {
-        Page<Pedido> pedidosPage;
-        String statusName = (status != null) ? status.name() : null;
+    public Page<PedidoResumoDTO> listarPedidos(PedidoFiltro filtro, Pageable pageable) {
+        if (podeAlcancarArquivados(filtro)) {
+            return pedidoBuscaRepository.buscar(PedidoConsolidado.class, PedidoSpecs.doFiltro(filtro), pageable);
+        }
+        return pedidoBuscaRepository.buscar(Pedido.class, PedidoSpecs.doFiltro(filtro), pageable);
+    }
 
-        if (statusName != null && dataInicio != null && dataFim != null) {
-            pedidosPage = pedidoRepository.findByDataPedidoBetweenAndStatus(dataInicio, dataFim, statusName, pageable);
-        } else if (statusName != null) {
-            pedidosPage = pedidoRepository.findByStatus(statusName, pageable);
-        } else if (dataInicio != null && dataFim != null) {
-            pedidosPage = pedidoRepository.findByDataPedidoBetween(dataInicio, dataFim, pageable);
-        } else {
-            pedidosPage = pedidoRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public Slice<PedidoResumoDTO> listarPedidos(PedidoFiltro filtro, Pageable pageable, boolean contar) {
+        if (contar) {
+            return listarPedidos(filtro, pageable);
+        }
+        if (podeAlcancarArquivados(filtro)) {
+            return pedidoBuscaRepository.fatiar(PedidoConsolidado.class, PedidoSpecs.doFiltro(filtro), pageable);
         }
+        return pedidoBuscaRepository.fatiar(Pedido.class, PedidoSpecs.doFiltro(filtro), pageable);
+    }
 
-        return pedidosPage.map(this::mapToPedidoResumoDTO);
+    /**
+     * Pedidos arquivados estão sempre em status final e são mais antigos que o arquivado mais recente.
+     * Filtro por status ativo, período iniciado depois dessa data ou histórico vazio: só a tabela quente (pedidos) responde.
+     */
+    private boolean podeAlcancarArquivados(PedidoFiltro filtro) {
+        if (filtro.status() != null && !filtro.status().isFinal()) {
+            return false;
+        }
+        return pedidoConsolidadoRepository.findDataMaisRecenteArquivada()
+                .map(maisRecente -> filtro.dataInicio() == null || !filtro.dataInicio().isAfter(maisRecente))
+                .orElse(false);
     }
 
     /**
@@ -202,9 +621,80 @@ public class PedidoService {
             throw new EntityNotFoundException("Restaurante não encontrado: " + restauranteId);
         }
 
-        Page<Pedido> pedidos = pedidoRepository.findByRestauranteIdOrderByDataPedidoDesc(restauranteId, pageable);
+        if (pedidoArquivadoRepository.existsByRestauranteId(restauranteId)) {
+            return pedidoBuscaRepository.buscar(PedidoConsolidado.class, PedidoSpecs.doFiltro(doRestaurante(restauranteId)),
+                    maisRecentesPrimeiro(pageable));
+        }
+        return pedidoRepository.findByRestauranteIdOrderByDataPedidoDesc(restauranteId, pageable);
+    }
 
-        return pedidos.map(this::mapToPedidoResumoDTO);
+    @Transactional(readOnly = true)
+    public Slice<PedidoResumoDTO> buscarPedidosPorRestaurante(Long restauranteId, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarPedidosPorRestaurante(restauranteId, pageable);
+        }
+        if (!restauranteRepository.existsById(restauranteId)) {
+            throw new EntityNotFoundException("Restaurante não encontrado: " + restauranteId);
+        }
+
+        if (pedidoArquivadoRepository.existsByRestauranteId(restauranteId)) {
+            return pedidoBuscaRepository.fatiar(PedidoConsolidado.class, PedidoSpecs.doFiltro(doRestaurante(restauranteId)),
+                    maisRecentesPrimeiro(pageable));
+        }
+        return pedidoRepository.findSliceByRestauranteIdOrderByDataPedidoDesc(restauranteId, pageable);
+    }
+
+    /**
+     * Listagens por dono roteadas para PedidoConsolidado: só quem já tem pedido arquivado paga o UNION.
+     * A checagem lê no máximo uma entrada do índice de pedidos_historico (cliente_id/restaurante_id, data_pedido, id).
+     */
+    private static PedidoFiltro doCliente(Long clienteId) {
+        return new PedidoFiltro(null, null, null, null, clienteId, null, null);
+    }
+
+    private static PedidoFiltro doRestaurante(Long restauranteId) {
+        return new PedidoFiltro(null, null, null, restauranteId, null, null, null);
+    }
+
+    // Mesma ordem da consulta da tabela quente (ORDER BY p.dataPedido DESC seguido da ordenação pedida)
+    private static Pageable maisRecentesPrimeiro(Pageable pageable) {
+        Sort ordem = Sort.by(Sort.Direction.DESC, "dataPedido").and(pageable.getSort());
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), ordem) : Pageable.unpaged(ordem);
+    }
+
+    /**
+     * Histórico do cliente paginado por cursor (keyset em data_pedido, id), sem COUNT(*)
+     */
+    @Transactional(readOnly = true)
+    public CursorResponse<PedidoResumoDTO> buscarPedidosPorClienteCursor(Long clienteId, String cursor, int size) {
+        if (!clienteRepository.existsById(clienteId)) {
+            throw new EntityNotFoundException("Cliente não encontrado: " + clienteId);
+        }
+
+        ScrollPosition posicao = PedidoCursor.posicao(cursor);
+        Limit limite = Limit.of(tamanhoPaginaCursor(size));
+        // O cursor é a posição (data_pedido, id): vale nas duas fontes, mesmo que o arquivamento rode entre páginas
+        if (pedidoArquivadoRepository.existsByClienteId(clienteId)) {
+            return mapToCursorResponse(pedidoConsolidadoRepository.findByClienteIdOrderByDataPedidoDescIdDesc(clienteId, posicao, limite));
+        }
+        return mapToCursorResponse(pedidoRepository.findByClienteIdOrderByDataPedidoDescIdDesc(clienteId, posicao, limite));
+    }
+
+    /**
+     * Pedidos do restaurante paginados por cursor (keyset em data_pedido, id), sem COUNT(*)
+     */
+    @Transactional(readOnly = true)
+    public CursorResponse<PedidoResumoDTO> buscarPedidosPorRestauranteCursor(Long restauranteId, String cursor, int size) {
+        if (!restauranteRepository.existsById(restauranteId)) {
+            throw new EntityNotFoundException("Restaurante não encontrado: " + restauranteId);
+        }
+
+        ScrollPosition posicao = PedidoCursor.posicao(cursor);
+        Limit limite = Limit.of(tamanhoPaginaCursor(size));
+        if (pedidoArquivadoRepository.existsByRestauranteId(restauranteId)) {
+            return mapToCursorResponse(pedidoConsolidadoRepository.findByRestauranteIdOrderByDataPedidoDescIdDesc(restauranteId, posicao, limite));
+        }
+        return mapToCursorResponse(pedidoRepository.findByRestauranteIdOrderByDataPedidoDescIdDesc(restauranteId, posicao, limite));
     }
 
     /**
@@ -212,25 +702,88 @@ public class PedidoService {
      */
     @Transactional(readOnly = true)
     public Page<PedidoResumoDTO> buscarPedidosAcimaDeValor(BigDecimal valor, Pageable pageable) {
-        Page<Pedido> pedidosPage = pedidoRepository.findByValorTotalGreaterThan(valor, pageable);
-        return pedidosPage.map(this::mapToPedidoResumoDTO);
+        // Relatório: inclui pedidos arquivados
+        return pedidoConsolidadoRepository.findByValorTotalGreaterThan(valor, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<PedidoResumoDTO> buscarPedidosAcimaDeValor(BigDecimal valor, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarPedidosAcimaDeValor(valor, pageable);
+        }
+        return pedidoConsolidadoRepository.findSliceByValorTotalGreaterThan(valor, pageable);
     }
 
 
     /**
-     * NOVO MÉTODO (Helper): Mapeia Pedido para PedidoResumoDTO
+     * NOVO MÉTODO (Helper): Converte uma janela de scroll em CursorResponse; o próximo cursor é a posição
+     * (dataPedido, id) do último item
      */
-    private PedidoResumoDTO mapToPedidoResumoDTO(Pedido pedido) {
-        PedidoResumoDTO dto = new PedidoResumoDTO();
-        dto.setId(pedido.getId());
-        dto.setNumeroPedido(pedido.getNumeroPedido());
-        dto.setDataPedido(pedido.getDataPedido());
-        dto.setStatus(pedido.getStatus());
-        dto.setValorTotal(pedido.getValorTotal());
-        if (pedido.getRestaurante() != null) {
-            dto.setNomeRestaurante(pedido.getRestaurante().getNome());
+    private CursorResponse<PedidoResumoDTO> mapToCursorResponse(Window<PedidoResumoDTO> janela) {
+        List<PedidoResumoDTO> content = janela.getContent();
+        String nextCursor = null;
+        if (janela.hasNext() && !janela.isEmpty()) {
+            PedidoResumoDTO ultimo = content.get(content.size() - 1);
+            nextCursor = new PedidoCursor(ultimo.getDataPedido(), ultimo.getId()).codificar();
         }
-        return dto;
+        return new CursorResponse<>(content, content.size(), nextCursor != null, nextCursor);
+    }
+
+    private int tamanhoPaginaCursor(int size) {
+        if (size < 1 || size > TAMANHO_MAXIMO_PAGINA_CURSOR) {
+            throw new BusinessException("O tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA_CURSOR);
+        }
+        return size;
+    }
+
+    /**
+     * Monta o detalhe a partir das linhas de findDetalheById (uma por item; sem item, uma linha com item nulo)
+     */
+    private PedidoResponseDTO mapToPedidoResponseDTO(List<PedidoDetalheLinha> linhas) {
+        PedidoDetalheLinha primeira = linhas.get(0);
+        PedidoResponseDTO response = new PedidoResponseDTO();
+        response.setId(primeira.id());
+        response.setNumeroPedido(primeira.numeroPedido());
+        response.setDataPedido(primeira.dataPedido());
+        response.setStatus(primeira.status());
+        response.setValorTotal(primeira.valorTotal());
+        response.setObservacoes(primeira.observacoes());
+
+        if (primeira.clienteId() != null) {
+            ClienteResponseDTO cliente = new ClienteResponseDTO();
+            cliente.setId(primeira.clienteId());
+            cliente.setNome(primeira.clienteNome());
+            cliente.setEmail(primeira.clienteEmail());
+            cliente.setTelefone(primeira.clienteTelefone());
+            cliente.setEndereco(primeira.clienteEndereco());
+            cliente.setAtivo(primeira.clienteAtivo());
+            response.setCliente(cliente);
+        }
+
+        if (primeira.restauranteId() != null) {
+            RestauranteResponseDTO restaurante = new RestauranteResponseDTO();
+            restaurante.setId(primeira.restauranteId());
+            restaurante.setNome(primeira.restauranteNome());
+            restaurante.setCategoria(primeira.restauranteCategoria());
+            restaurante.setEndereco(primeira.restauranteEndereco());
+            restaurante.setTelefone(primeira.restauranteTelefone());
+            restaurante.setTaxaEntrega(primeira.restauranteTaxaEntrega());
+            restaurante.setAvaliacao(primeira.restauranteAvaliacao());
+            restaurante.setAtivo(primeira.restauranteAtivo());
+            response.setRestaurante(restaurante);
+        }
+
+        List<ItemPedidoDTO> itens = new ArrayList<>(linhas.size());
+        for (PedidoDetalheLinha linha : linhas) {
+            if (linha.itemProdutoId() != null) {
+                ItemPedidoDTO item = new ItemPedidoDTO();
+                item.setProdutoId(linha.itemProdutoId());
+                item.setQuantidade(linha.itemQuantidade());
+                itens.add(item);
+            }
+        }
+        response.setItens(itens);
+        return response;
     }
 
     /**
@@ -244,21 +797,19 @@ public class PedidoService {
         if (restaurante != null) {
             response.setRestaurante(modelMapper.map(restaurante, RestauranteResponseDTO.class));
         }
-        response.setItens(itens); // Itens vêm do DTO de request ou são nulos na busca
+        response.setItens(itens); // Itens vêm do DTO de request ou da tabela itens_pedido na busca
         return response;
     }
 
+    /**
+     * Checagem do @PreAuthorize do GET /{id}. A posse vai no WHERE da consulta de detalhe (pedido de outro dono
+     * custa uma sondagem pela chave primária) e o detalhe carregado fica no contexto da requisição para o
+     * buscarPedidoPorId: checagem e resposta custam juntas no máximo uma consulta, e nenhuma com o cache quente.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public boolean canAccess(Long pedidoId) {
         try {
-            Usuario user = securityUtils.getCurrentUser();
-            Pedido pedido = pedidoRepository.findById(pedidoId).orElse(null);
-            if (pedido == null) return false;
-
-            if (user.getRole() == Role.ADMIN) return true;
-            if (user.getRole() == Role.CLIENTE) return user.getId().equals(pedido.getClienteId());
-            if (user.getRole() == Role.RESTAURANTE) return user.getRestauranteId().equals(pedido.getRestaurante().getId());
-
-            return false;
+            return obterDetalhe(pedidoId, securityUtils.getEscopoPedido()).isPresent();
         } catch (Exception e) {
             return false;
         }
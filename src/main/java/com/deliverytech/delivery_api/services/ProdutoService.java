@@ -5,10 +5,13 @@ import com.deliverytech.delivery_api.dto.ProdutoResponseDTO;
 import com.deliverytech.delivery_api.entity.Usuario;
 import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
 import com.deliverytech.delivery_api.security.SecurityUtils;
+import com.deliverytech.delivery_api.services.cotacao.PrecosAlterados;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.cache.annotation.Cacheable;
@@ -34,6 +37,9 @@ public class ProdutoService {
     @Autowired
     private SecurityUtils securityUtils;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 1.3: Cadastrar Produto (Validar restaurante existe)
      */
@@ -48,6 +54,7 @@ public class ProdutoService {
         produto.setDisponivel(true); // Produto começa disponível por padrão
 
         Produto produtoSalvo = produtoRepository.save(produto);
+        eventPublisher.publishEvent(new PrecosAlterados(produtoSalvo.getRestauranteId()));
 
         return modelMapper.map(produtoSalvo, ProdutoResponseDTO.class);
     }
@@ -64,6 +71,18 @@ public class ProdutoService {
         return produtos.map(produto -> modelMapper.map(produto, ProdutoResponseDTO.class));
     }
 
+    /**
+     * Variante com ?count=false: sem contar, devolve um Slice (sem SELECT COUNT(*))
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProdutoResponseDTO> buscarProdutosPorRestaurante(Long restauranteId, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarProdutosPorRestaurante(restauranteId, pageable);
+        }
+        return produtoRepository.findSliceByRestauranteIdAndDisponivelTrue(restauranteId, pageable)
+                .map(produto -> modelMapper.map(produto, ProdutoResponseDTO.class));
+    }
+
     /**
      * 1.3: Buscar Produto por ID (Com validação de disponibilidade)
      */
@@ -93,9 +112,15 @@ public class ProdutoService {
             throw new EntityNotFoundException("Restaurante não encontrado com ID: " + dto.getRestauranteId());
         }
 
+        Long restauranteAnterior = produto.getRestauranteId();
         modelMapper.map(dto, produto);
 
         Produto produtoAtualizado = produtoRepository.save(produto);
+        // Invalida a cotação dos dois restaurantes quando o produto troca de restaurante
+        eventPublisher.publishEvent(new PrecosAlterados(restauranteAnterior));
+        if (!restauranteAnterior.equals(produtoAtualizado.getRestauranteId())) {
+            eventPublisher.publishEvent(new PrecosAlterados(produtoAtualizado.getRestauranteId()));
+        }
 
         return modelMapper.map(produtoAtualizado, ProdutoResponseDTO.class);
     }
@@ -111,6 +136,7 @@ public class ProdutoService {
         produto.setDisponivel(disponivel);
 
         Produto produtoSalvo = produtoRepository.save(produto);
+        eventPublisher.publishEvent(new PrecosAlterados(produtoSalvo.getRestauranteId()));
 
         return modelMapper.map(produtoSalvo, ProdutoResponseDTO.class);
     }
@@ -127,15 +153,24 @@ public class ProdutoService {
         return produtos.map(produto -> modelMapper.map(produto, ProdutoResponseDTO.class));
     }
 
+    @Transactional(readOnly = true)
+    public Slice<ProdutoResponseDTO> buscarProdutosPorCategoria(String categoria, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarProdutosPorCategoria(categoria, pageable);
+        }
+        return produtoRepository.findSliceByCategoria(categoria, pageable)
+                .map(produto -> modelMapper.map(produto, ProdutoResponseDTO.class));
+    }
+
     /**
      * NOVO MÉTODO (ATIVIDADE 1.2): Remover produto
      * ATIVIDADE 3.1: Modificado para retornar void (para o Controller retornar 204)
      */
     public void removerProduto(Long id) {
-        if (!produtoRepository.existsById(id)) {
-            throw new EntityNotFoundException("Produto não encontrado com ID: " + id);
-        }
-        produtoRepository.deleteById(id);
+        Produto produto = produtoRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado com ID: " + id));
+        produtoRepository.delete(produto);
+        eventPublisher.publishEvent(new PrecosAlterados(produto.getRestauranteId()));
     }
 
     /**
@@ -148,6 +183,15 @@ public class ProdutoService {
         return produtos.map(produto -> modelMapper.map(produto, ProdutoResponseDTO.class));
     }
 
+    @Transactional(readOnly = true)
+    public Slice<ProdutoResponseDTO> buscarProdutosPorNome(String nome, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarProdutosPorNome(nome, pageable);
+        }
+        return produtoRepository.findSliceByNomeContainingIgnoreCase(nome, pageable)
+                .map(produto -> modelMapper.map(produto, ProdutoResponseDTO.class));
+    }
+
     public boolean isOwner(Long produtoId) {
         try {
             Produto produto = produtoRepository.findById(produtoId).orElse(null);
@@ -8,10 +8,13 @@ import com.deliverytech.delivery_api.exceptions.BusinessException;
 import com.deliverytech.delivery_api.exceptions.ConflictException; // IMPORTAR
 import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
 import com.deliverytech.delivery_api.security.SecurityUtils;
+import com.deliverytech.delivery_api.services.cotacao.PrecosAlterados;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +34,9 @@ public class RestauranteService {
     @Autowired
     private SecurityUtils securityUtils;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public RestauranteResponseDTO cadastrarRestaurante(RestauranteRequestDTO dto) {
         if (restauranteRepository.findByNome(dto.getNome()).isPresent()) {
             // ATIVIDADE 2.2: Lançar 409 Conflict em vez de 400
@@ -71,6 +77,29 @@ public class RestauranteService {
         return restaurantesPage.map(restaurante -> modelMapper.map(restaurante, RestauranteResponseDTO.class));
     }
 
+    /**
+     * Variante com ?count=false: sem contar, devolve um Slice (sem SELECT COUNT(*))
+     */
+    @Transactional(readOnly = true)
+    public Slice<RestauranteResponseDTO> buscarRestaurantes(String categoria, Boolean ativo, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarRestaurantes(categoria, ativo, pageable);
+        }
+        Slice<Restaurante> restaurantes;
+
+        if (categoria != null && ativo != null) {
+            restaurantes = restauranteRepository.findSliceByCategoriaAndAtivo(categoria, ativo, pageable);
+        } else if (categoria != null) {
+            restaurantes = restauranteRepository.findSliceByCategoria(categoria, pageable);
+        } else if (ativo != null) {
+            restaurantes = restauranteRepository.findSliceByAtivo(ativo, pageable);
+        } else {
+            restaurantes = restauranteRepository.findSliceBy(pageable);
+        }
+
+        return restaurantes.map(restaurante -> modelMapper.map(restaurante, RestauranteResponseDTO.class));
+    }
+
     // ... (restante do método buscarRestaurantesPorCategoria) ...
     @Transactional(readOnly = true)
     public Page<RestauranteResponseDTO> buscarRestaurantesPorCategoria(String categoria, Pageable pageable) {
@@ -78,6 +107,15 @@ public class RestauranteService {
         return restaurantes.map(restaurante -> modelMapper.map(restaurante, RestauranteResponseDTO.class));
     }
 
+    @Transactional(readOnly = true)
+    public Slice<RestauranteResponseDTO> buscarRestaurantesPorCategoria(String categoria, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarRestaurantesPorCategoria(categoria, pageable);
+        }
+        return restauranteRepository.findSliceByCategoria(categoria, pageable)
+                .map(restaurante -> modelMapper.map(restaurante, RestauranteResponseDTO.class));
+    }
+
     public RestauranteResponseDTO atualizarRestaurante(Long id, RestauranteRequestDTO dto) {
         Restaurante restaurante = restauranteRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Restaurante não encontrado com ID: " + id));
@@ -88,8 +126,12 @@ public class RestauranteService {
             throw new ConflictException("Nome já cadastrado: " + dto.getNome());
         }
 
+        BigDecimal taxaAnterior = restaurante.getTaxaEntrega();
         modelMapper.map(dto, restaurante);
         Restaurante restauranteAtualizado = restauranteRepository.save(restaurante);
+        if (taxaAnterior == null || taxaAnterior.compareTo(restauranteAtualizado.getTaxaEntrega()) != 0) {
+            eventPublisher.publishEvent(new PrecosAlterados(id)); // Taxa de entrega entra na cotação
+        }
         return modelMapper.map(restauranteAtualizado, RestauranteResponseDTO.class);
     }
 
@@ -121,6 +163,15 @@ public class RestauranteService {
         return restaurantes.map(restaurante -> modelMapper.map(restaurante, RestauranteResponseDTO.class));
     }
 
+    @Transactional(readOnly = true)
+    public Slice<RestauranteResponseDTO> buscarRestaurantesProximos(String cep, Pageable pageable, boolean contar) {
+        if (contar) {
+            return buscarRestaurantesProximos(cep, pageable);
+        }
+        return restauranteRepository.findSliceByAtivoTrue(pageable)
+                .map(restaurante -> modelMapper.map(restaurante, RestauranteResponseDTO.class));
+    }
+
     /**
      * ATIVIDADE 4.2: Verifica se o usuário logado é dono deste restaurante.
      * Chamado via SpEL no @PreAuthorize.
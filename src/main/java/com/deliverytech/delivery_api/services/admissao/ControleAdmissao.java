@@ -0,0 +1,334 @@
+package com.deliverytech.delivery_api.services.admissao;
+
+import com.deliverytech.delivery_api.dto.LimitesAdmissaoDTO;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.exceptions.TooManyRequestsException;
+import com.deliverytech.delivery_api.repository.PedidoRepository;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import com.deliverytech.delivery_api.services.tarefas.TarefaPeriodica;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Controle de admissão de novos pedidos por restaurante, antes de qualquer acesso ao banco.
+ *
+ * Dois limites, ambos por restaurante e sem locks:
+ * - pedidos em andamento (PENDENTE, CONFIRMADO, PREPARANDO): a cozinha não dá conta de mais do que isso.
+ *   Contadores LongAdder (células espalhadas por thread, sem um único CAS disputado) e teto aproximado:
+ *   chegadas simultâneas podem passar o limite por algumas unidades;
+ * - taxa de novos pedidos (pedidos por minuto, com rajada), pelo algoritmo GCRA: um único "horário teórico
+ *   de chegada" por restaurante, avançado a cada pedido aceito.
+ * Acima do limite a requisição falha na hora com 429 e Retry-After, em vez de esperar por conexão do banco.
+ *
+ * Entre uma sincronização e outra o contador sobe na reserva e desce quando o pedido sai para entrega ou é
+ * cancelado. A sincronização roda em segundo plano (na subida, antes do servidor web, e a cada intervalo): um
+ * COUNT agrupado por restaurante, aplicado como diferença sobre os pedidos confirmados. Corrige pedidos de outras
+ * instâncias e reservas de pedidos rejeitados depois do aceite sem apagar as reservas em andamento, e a
+ * requisição nunca espera pelo banco.
+ *
+ * Os limites padrão vêm da configuração; limites por restaurante podem ser ajustados em tempo de execução
+ * (PUT /api/restaurantes/{id}/admissao) e valem só nesta instância, até o próximo restart.
+ */
+@Slf4j
+@Component
+public class ControleAdmissao extends TarefaPeriodica {
+
+    private static final List<String> EM_ANDAMENTO = List.of(
+            StatusPedido.PENDENTE.name(), StatusPedido.CONFIRMADO.name(), StatusPedido.PREPARANDO.name());
+    // Transições que tiram o pedido da cozinha (cada pedido passa por exatamente uma delas)
+    private static final Set<String> SAIDAS = Set.of(StatusPedido.SAIU_PARA_ENTREGA.name(), StatusPedido.CANCELADO.name());
+    // Antes do servidor web (DEFAULT_PHASE - 2048): os contadores já estão semeados no primeiro pedido
+    private static final int FASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final PedidoRepository pedidoRepository;
+    private final boolean habilitado;
+    private final long retryAfterCapacidadeSegundos;
+    private volatile Limites padrao;
+
+    private final Map<Long, Estado> estados = new ConcurrentHashMap<>();
+
+    private final Counter recusadosCapacidade;
+    private final Counter recusadosTaxa;
+
+    @Autowired
+    public ControleAdmissao(PedidoRepository pedidoRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${pedidos.admissao.habilitado:true}") boolean habilitado,
+                            @Value("${pedidos.admissao.max-em-andamento:200}") int maxEmAndamento,
+                            @Value("${pedidos.admissao.pedidos-por-minuto:120}") int pedidosPorMinuto,
+                            @Value("${pedidos.admissao.rajada:30}") int rajada,
+                            @Value("${pedidos.admissao.intervalo-sincronizacao:60s}") Duration intervaloSincronizacao,
+                            @Value("${pedidos.admissao.retry-after-capacidade:30s}") Duration retryAfterCapacidade) {
+        super("pedidos-admissao-sincronizacao", habilitado, intervaloSincronizacao,
+                "Falha na sincronização do controle de admissão");
+        this.pedidoRepository = pedidoRepository;
+        this.habilitado = habilitado;
+        this.padrao = new Limites(maxEmAndamento, pedidosPorMinuto, rajada);
+        this.retryAfterCapacidadeSegundos = Math.max(1, retryAfterCapacidade.toSeconds());
+
+        this.recusadosCapacidade = Counter.builder("pedidos.admissao.recusados").tag("motivo", "capacidade")
+                .description("Pedidos recusados com 429: restaurante no limite de pedidos em andamento")
+                .register(meterRegistry);
+        this.recusadosTaxa = Counter.builder("pedidos.admissao.recusados").tag("motivo", "taxa")
+                .description("Pedidos recusados com 429: restaurante acima da taxa de pedidos por minuto")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserva uma vaga para um novo pedido do restaurante ou lança 429. A reserva deve ser confirmada
+     * quando o pedido for aceito ou liberada se ele não chegar a existir.
+     */
+    public Reserva reservar(Long restauranteId) {
+        if (!habilitado) {
+            return Reserva.NENHUMA;
+        }
+        Estado estado = estado(restauranteId);
+        Limites limites = estado.limites != null ? estado.limites : padrao;
+
+        if (!estado.ocuparVaga(limites.maxEmAndamento())) {
+            recusadosCapacidade.increment();
+            throw new TooManyRequestsException("Restaurante no limite de pedidos em andamento. Tente novamente em instantes.",
+                    retryAfterCapacidadeSegundos);
+        }
+        long esperaNanos = estado.consumirTaxa(limites, System.nanoTime());
+        if (esperaNanos > 0) {
+            estado.devolverReserva();
+            recusadosTaxa.increment();
+            throw new TooManyRequestsException("Muitos pedidos para este restaurante. Tente novamente em instantes.",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        return new Reserva(estado);
+    }
+
+    /**
+     * Reserva a vaga, cria o pedido e confirma a reserva; se a criação falhar, a vaga volta.
+     * Numa requisição com Idempotency-Key deve rodar dentro da ação idempotente: a repetição
+     * é respondida pelo store sem passar pela admissão (sem 429 e sem ocupar vaga).
+     */
+    public <T> T admitir(Long restauranteId, Supplier<T> criacao) {
+        Reserva reserva = reservar(restauranteId);
+        try {
+            T criado = criacao.get();
+            reserva.confirmar();
+            return criado;
+        } finally {
+            reserva.liberar();
+        }
+    }
+
+    /**
+     * Pedido que saiu da cozinha (saiu para entrega ou foi cancelado) libera a vaga, depois do commit.
+     */
+    @TransactionalEventListener
+    public void aoAlterarPedido(PedidoEvento evento) {
+        if (evento.tipo() != PedidoEvento.Tipo.STATUS_ALTERADO || !SAIDAS.contains(evento.status()) || estados.isEmpty()) {
+            return;
+        }
+        Estado estado = evento.restauranteId() == null ? null : estados.get(evento.restauranteId());
+        if (estado != null) {
+            estado.liberarVaga();
+        }
+    }
+
+    public LimitesAdmissaoDTO consultar(Long restauranteId) {
+        Estado estado = estados.get(restauranteId);
+        Limites limites = estado != null && estado.limites != null ? estado.limites : padrao;
+        return limites.paraDTO(estado != null ? (int) estado.emAndamento() : null, estado != null && estado.limites != null);
+    }
+
+    public LimitesAdmissaoDTO definir(Long restauranteId, LimitesAdmissaoDTO dto) {
+        estado(restauranteId).limites = Limites.de(dto);
+        return consultar(restauranteId);
+    }
+
+    /**
+     * Volta o restaurante para os limites padrão.
+     */
+    public void removerLimites(Long restauranteId) {
+        Estado estado = estados.get(restauranteId);
+        if (estado != null) {
+            estado.limites = null;
+        }
+    }
+
+    public LimitesAdmissaoDTO consultarPadrao() {
+        return padrao.paraDTO(null, null);
+    }
+
+    public LimitesAdmissaoDTO definirPadrao(LimitesAdmissaoDTO dto) {
+        padrao = Limites.de(dto);
+        return consultarPadrao();
+    }
+
+    private Estado estado(Long restauranteId) {
+        return estados.computeIfAbsent(restauranteId, id -> new Estado());
+    }
+
+    /**
+     * Ajusta os pedidos confirmados de cada restaurante pelo banco. Aplica a diferença entre o COUNT e o valor
+     * lido antes dele, então reservas e confirmações que acontecem durante a consulta não se perdem; uma
+     * confirmação de pedido já contado no COUNT fica a mais até a próxima rodada.
+     */
+    void sincronizar() {
+        Map<Long, Long> antes = new HashMap<>();
+        estados.forEach((id, estado) -> antes.put(id, estado.confirmados.sum()));
+
+        Map<Long, Long> noBanco = new HashMap<>();
+        for (Object[] linha : pedidoRepository.countEmAndamentoPorRestaurante(EM_ANDAMENTO)) {
+            noBanco.put((Long) linha[0], (Long) linha[1]);
+        }
+        antes.forEach((id, confirmados) -> estados.get(id).confirmados.add(noBanco.getOrDefault(id, 0L) - confirmados));
+        noBanco.forEach((id, total) -> {
+            if (!antes.containsKey(id)) {
+                estado(id).confirmados.add(total);
+            }
+        });
+    }
+
+    @Override
+    protected boolean executarRodada() {
+        sincronizar();
+        return false;
+    }
+
+    @Override
+    public void start() {
+        try {
+            sincronizar();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao semear o controle de admissão, nova tentativa em {}: {}", getIntervalo(), e.getMessage());
+        }
+        super.start();
+    }
+
+    @Override
+    protected Duration esperaInicial() {
+        return getIntervalo(); // a primeira sincronização foi no start()
+    }
+
+    @Override
+    public int getPhase() {
+        return FASE;
+    }
+
+    /**
+     * Vaga reservada por um pedido em admissão.
+     */
+    public static class Reserva {
+
+        static final Reserva NENHUMA = new Reserva(null);
+
+        private final Estado estado;
+        private final AtomicBoolean concluida = new AtomicBoolean();
+
+        private Reserva(Estado estado) {
+            this.estado = estado;
+        }
+
+        /**
+         * O pedido foi aceito: a vaga fica ocupada até ele sair da cozinha.
+         */
+        public void confirmar() {
+            if (concluida.compareAndSet(false, true) && estado != null) {
+                estado.confirmarReserva();
+            }
+        }
+
+        /**
+         * O pedido não foi criado: devolve a vaga. Sem efeito após confirmar().
+         */
+        public void liberar() {
+            if (concluida.compareAndSet(false, true) && estado != null) {
+                estado.devolverReserva();
+            }
+        }
+    }
+
+    private record Limites(int maxEmAndamento, int pedidosPorMinuto, int rajada) {
+
+        static Limites de(LimitesAdmissaoDTO dto) {
+            return new Limites(dto.getMaxEmAndamento(), dto.getPedidosPorMinuto(), dto.getRajada());
+        }
+
+        LimitesAdmissaoDTO paraDTO(Integer emAndamento, Boolean personalizado) {
+            return new LimitesAdmissaoDTO(maxEmAndamento, pedidosPorMinuto, rajada, emAndamento, personalizado);
+        }
+    }
+
+    private static class Estado {
+
+        // Pedidos aceitos que ainda estão na cozinha (ajustados pela sincronização) e reservas em andamento
+        private final LongAdder confirmados = new LongAdder();
+        private final LongAdder reservas = new LongAdder();
+        // GCRA: horário teórico (nanoTime) em que o próximo pedido estaria "em dia" com a taxa
+        private final AtomicLong horarioTeorico = new AtomicLong(Long.MIN_VALUE);
+        private volatile Limites limites;
+
+        long emAndamento() {
+            return Math.max(0, confirmados.sum() + reservas.sum());
+        }
+
+        // Teto aproximado: a soma lida e o incremento não são atômicos juntos (no máximo uma vaga a mais por
+        // thread que chega ao mesmo tempo), em troca de nenhuma disputa entre elas
+        boolean ocuparVaga(int maximo) {
+            if (maximo > 0 && emAndamento() >= maximo) {
+                return false;
+            }
+            reservas.increment();
+            return true;
+        }
+
+        void confirmarReserva() {
+            reservas.decrement();
+            confirmados.increment();
+        }
+
+        void devolverReserva() {
+            reservas.decrement();
+        }
+
+        void liberarVaga() {
+            confirmados.decrement();
+        }
+
+        /**
+         * Aceita o pedido na taxa (0) ou devolve quanto falta, em nanos, para haver espaço.
+         */
+        long consumirTaxa(Limites limites, long agora) {
+            if (limites.pedidosPorMinuto() <= 0) {
+                return 0;
+            }
+            long intervalo = TimeUnit.MINUTES.toNanos(1) / limites.pedidosPorMinuto();
+            long tolerancia = intervalo * Math.max(1, limites.rajada());
+            while (true) {
+                long atual = horarioTeorico.get();
+                long proximo = Math.max(atual, agora) + intervalo;
+                long excesso = proximo - agora - tolerancia;
+                if (excesso > 0) {
+                    return excesso;
+                }
+                if (horarioTeorico.compareAndSet(atual, proximo)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.deliverytech.delivery_api.services.analitico;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dicionário id -> código denso (0..n-1). As colunas guardam o código, e as agregações usam o código
+ * como índice de um array de acumuladores em vez de um mapa. Escrita sob o lock do ColunasPedidos.
+ */
+final class CodigosDensos {
+
+    private final Map<Long, Integer> codigos = new HashMap<>();
+    private volatile long[] ids = new long[16];
+    private volatile int tamanho;
+
+    int codificar(long id) {
+        Integer codigo = codigos.get(id);
+        if (codigo != null) {
+            return codigo;
+        }
+        int novo = tamanho;
+        if (novo == ids.length) {
+            ids = Arrays.copyOf(ids, novo * 2);
+        }
+        ids[novo] = id;
+        codigos.put(id, novo);
+        tamanho = novo + 1;
+        return novo;
+    }
+
+    long id(int codigo) {
+        return ids[codigo];
+    }
+
+    /**
+     * Quantidade de códigos: todo código presente numa coluna já publicada é menor que este valor.
+     */
+    int tamanho() {
+        return tamanho;
+    }
+}
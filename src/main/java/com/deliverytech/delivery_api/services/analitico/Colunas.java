@@ -0,0 +1,48 @@
+package com.deliverytech.delivery_api.services.analitico;
+
+import java.util.Arrays;
+
+/**
+ * Um array primitivo por coluna, linha i = pedido i. Só o ColunasPedidos escreve (sob o próprio lock);
+ * as linhas até {@code tamanho} estão completas para quem leu {@code tamanho} (escrito por último, volatile).
+ */
+final class Colunas {
+
+    final long[] pedidoId;
+    final long[] data;           // data_pedido em segundos (epoch, sem fuso)
+    final int[] restaurante;     // código denso do restaurante (CodigosDensos)
+    final int[] cliente;         // código denso do cliente
+    final long[] centavos;       // valor_total x 100
+    final byte[] status;         // ordinal de StatusPedido, -1 se nulo
+
+    volatile int tamanho;
+
+    Colunas(int capacidade) {
+        this(new long[capacidade], new long[capacidade], new int[capacidade], new int[capacidade],
+                new long[capacidade], new byte[capacidade], 0);
+    }
+
+    private Colunas(long[] pedidoId, long[] data, int[] restaurante, int[] cliente, long[] centavos, byte[] status, int tamanho) {
+        this.pedidoId = pedidoId;
+        this.data = data;
+        this.restaurante = restaurante;
+        this.cliente = cliente;
+        this.centavos = centavos;
+        this.status = status;
+        this.tamanho = tamanho;
+    }
+
+    int capacidade() {
+        return pedidoId.length;
+    }
+
+    /**
+     * Cópia com o dobro da capacidade. Quem já lia a cópia anterior continua com ela.
+     */
+    Colunas crescer() {
+        int capacidade = Math.max(16, capacidade() * 2);
+        return new Colunas(Arrays.copyOf(pedidoId, capacidade), Arrays.copyOf(data, capacidade),
+                Arrays.copyOf(restaurante, capacidade), Arrays.copyOf(cliente, capacidade),
+                Arrays.copyOf(centavos, capacidade), Arrays.copyOf(status, capacidade), tamanho);
+    }
+}
@@ -0,0 +1,348 @@
+package com.deliverytech.delivery_api.services.analitico;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.repository.PedidoConsolidadoRepository;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import com.deliverytech.delivery_api.services.tarefas.TarefaPeriodica;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Cópia colunar em memória dos pedidos (ativos e arquivados) para relatórios ad hoc, fora do banco transacional.
+ *
+ * Carregada na inicialização (streaming das duas tabelas em ordem de id) e mantida pelos eventos de pedido
+ * depois do commit: criação acrescenta uma linha, mudança de status altera a coluna status no lugar.
+ * Eventos que chegam durante uma carga ficam em espera e são aplicados sobre o resultado dela. Mudança de status
+ * de um pedido que ainda não tem linha (evento de criação atrasado ou de outra instância) fica guardada, a última
+ * por pedido, e é aplicada quando a criação chegar.
+ *
+ * Os eventos são só do próprio processo: pedidos gravados por outra instância ou fora do PedidoService, ou um
+ * evento perdido, não chegam. Por isso, a cada pedidos.analitico.complemento.intervalo, um complemento incremental
+ * lê do banco os pedidos ativos com id acima do maior já lido e o status atual dos que a base ainda tem em andamento
+ * (não finais), pela PK, em vez de refazer a leitura das duas tabelas. Ids de sequence em bloco fazem um pedido de
+ * id menor que commite depois escapar da marca; isso, e o que mais divergir, só a recarga completa corrige, pedida
+ * por um administrador (POST /api/relatorios/analitico/recarregar). A recarga troca o conteúdo de uma vez, sem
+ * interromper leituras.
+ * Um único escritor por vez (lock deste objeto); leitores pegam um retrato ({@link #retrato()}) sem lock.
+ * Nomes e categorias não ficam aqui: os relatórios os resolvem só para os grupos do resultado.
+ */
+@Slf4j
+@Component
+public class ColunasPedidos extends TarefaPeriodica {
+
+    static final byte SEM_STATUS = -1;
+    private static final StatusPedido[] STATUS = StatusPedido.values();
+
+    // Mudanças de status guardadas à espera da criação; acima disso, as mais antigas saem (a recarga corrige)
+    private static final int LIMITE_STATUS_SEM_LINHA = 10_000;
+    // Ids por consulta de status no complemento
+    private static final int LOTE_STATUS = 1000;
+
+    private final PedidoConsolidadoRepository pedidoConsolidadoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+    private final int capacidadeInicial;
+
+    private final Object carga = new Object();
+    private volatile Estado estado;
+    // Guardados pelo lock deste objeto
+    private boolean carregando;
+    private final List<PedidoEvento> pendentes = new ArrayList<>();
+    private final Map<Long, PedidoEvento> statusSemLinha = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, PedidoEvento> maisAntigo) {
+            return size() > LIMITE_STATUS_SEM_LINHA;
+        }
+    };
+
+    @Autowired
+    public ColunasPedidos(PedidoConsolidadoRepository pedidoConsolidadoRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${pedidos.analitico.habilitado:true}") boolean habilitado,
+                          @Value("${pedidos.analitico.capacidade-inicial:65536}") int capacidadeInicial,
+                          @Value("${pedidos.analitico.complemento.intervalo:1m}") Duration intervaloComplemento) {
+        super("pedidos-colunas-carga", habilitado, intervaloComplemento, "Falha na carga da base analítica");
+        this.pedidoConsolidadoRepository = pedidoConsolidadoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.habilitado = habilitado;
+        this.capacidadeInicial = Math.max(16, capacidadeInicial);
+    }
+
+    /**
+     * (Re)carrega tudo a partir do banco e troca o conteúdo de uma vez. Devolve a quantidade de pedidos.
+     */
+    public int carregar() {
+        synchronized (carga) {
+            synchronized (this) {
+                carregando = true;
+            }
+            try {
+                long inicio = System.nanoTime();
+                Estado novo = new Estado(capacidadeInicial);
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<Object[]> arquivados = pedidoConsolidadoRepository.streamColunasArquivadas()) {
+                        arquivados.forEach(novo::adicionar);
+                    }
+                    try (Stream<Object[]> ativos = pedidoConsolidadoRepository.streamColunasAtivas()) {
+                        ativos.forEach(novo::adicionar);
+                    }
+                });
+                synchronized (this) {
+                    // O que a carga já leu do banco vale mais que um status guardado antes dela
+                    statusSemLinha.keySet().removeIf(pedidoId -> novo.linha(pedidoId) >= 0);
+                    pendentes.forEach(evento -> aplicar(novo, evento));
+                    estado = novo;
+                }
+                int total = novo.colunas.tamanho;
+                log.info("Base analítica carregada: {} pedidos em {} ms", total, (System.nanoTime() - inicio) / 1_000_000);
+                return total;
+            } finally {
+                synchronized (this) {
+                    pendentes.clear();
+                    carregando = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Recarga completa pedida por um administrador. Com a base desligada não há eventos para mantê-la: recusa.
+     */
+    public int recarregar() {
+        if (!habilitado) {
+            throw new BusinessException("Base analítica desligada (pedidos.analitico.habilitado=false)");
+        }
+        return carregar();
+    }
+
+    /**
+     * Complemento incremental: pedidos ativos com id acima da marca e status atual dos pedidos em andamento na base.
+     * Eventos que chegam enquanto isso ficam em espera, como na carga. Devolve a quantidade de linhas lidas do banco.
+     */
+    public int complementar() {
+        synchronized (carga) {
+            Estado atual;
+            long marca;
+            List<Long> emAndamento;
+            synchronized (this) {
+                atual = estado;
+                if (atual == null) {
+                    return 0;
+                }
+                carregando = true;
+                marca = atual.maiorIdLido;
+                emAndamento = atual.emAndamento();
+            }
+            try {
+                List<Object[]> novos = new ArrayList<>();
+                List<Object[]> status = new ArrayList<>();
+                transactionTemplate.executeWithoutResult(tx -> {
+                    try (Stream<Object[]> ativos = pedidoConsolidadoRepository.streamColunasAtivasApos(marca)) {
+                        ativos.forEach(novos::add);
+                    }
+                    for (int i = 0; i < emAndamento.size(); i += LOTE_STATUS) {
+                        status.addAll(pedidoConsolidadoRepository.findStatusPorIds(
+                                emAndamento.subList(i, Math.min(i + LOTE_STATUS, emAndamento.size()))));
+                    }
+                });
+                synchronized (this) {
+                    novos.forEach(atual::adicionar);
+                    for (Object[] linha : status) {
+                        atual.atualizarStatus(((Number) linha[0]).longValue(), (String) linha[1]);
+                    }
+                    statusSemLinha.keySet().removeIf(pedidoId -> atual.linha(pedidoId) >= 0);
+                }
+                log.debug("Base analítica complementada: {} pedidos novos, {} status conferidos", novos.size(), status.size());
+                return novos.size() + status.size();
+            } finally {
+                synchronized (this) {
+                    // Também depois de uma falha: os eventos em espera não se perdem
+                    pendentes.forEach(evento -> aplicar(atual, evento));
+                    pendentes.clear();
+                    carregando = false;
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void aoAlterarPedido(PedidoEvento evento) {
+        if (!habilitado) {
+            return;
+        }
+        synchronized (this) {
+            if (carregando) {
+                pendentes.add(evento);
+            } else if (estado != null) {
+                aplicar(estado, evento);
+            }
+        }
+    }
+
+    // Chamado com o lock deste objeto
+    private void aplicar(Estado alvo, PedidoEvento evento) {
+        if (evento.tipo() == PedidoEvento.Tipo.CRIADO) {
+            alvo.aplicar(evento);
+            PedidoEvento adiantado = statusSemLinha.remove(evento.pedidoId());
+            if (adiantado != null) {
+                alvo.aplicar(adiantado);
+            }
+        } else if (!alvo.aplicar(evento)) {
+            statusSemLinha.put(evento.pedidoId(), evento);
+        }
+    }
+
+    /**
+     * Colunas e dicionários como estão agora; null antes da primeira carga.
+     */
+    Retrato retrato() {
+        Estado atual = estado;
+        if (atual == null) {
+            return null;
+        }
+        // Colunas antes dos dicionários: todo código nas linhas lidas já está neles
+        Colunas colunas = atual.colunas;
+        int tamanho = colunas.tamanho;
+        return new Retrato(colunas, tamanho, atual.restaurantes, atual.clientes);
+    }
+
+    public boolean isPronto() {
+        return estado != null;
+    }
+
+    record Retrato(Colunas colunas, int tamanho, CodigosDensos restaurantes, CodigosDensos clientes) {
+    }
+
+    // Primeira rodada carrega tudo; as seguintes só complementam (ou tentam a carga de novo, se ela falhou)
+    @Override
+    protected boolean executarRodada() {
+        if (isPronto()) {
+            complementar();
+        } else {
+            carregar();
+        }
+        return false;
+    }
+
+    static long segundos(LocalDateTime data) {
+        return data.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Estado {
+
+        private final CodigosDensos restaurantes = new CodigosDensos();
+        private final CodigosDensos clientes = new CodigosDensos();
+        private volatile Colunas colunas;
+        // Índice id -> linha: ids em ordem crescente ocupam um prefixo (busca binária); os demais ficam no mapa
+        private int prefixoOrdenado;
+        private final Map<Long, Integer> foraDeOrdem = new HashMap<>();
+        // Marca do complemento: maior id lido do banco (os eventos não avançam, para não pular pedidos de outra instância)
+        private long maiorIdLido;
+
+        Estado(int capacidade) {
+            this.colunas = new Colunas(capacidade);
+        }
+
+        void adicionar(Object[] linha) {
+            long pedidoId = ((Number) linha[0]).longValue();
+            maiorIdLido = Math.max(maiorIdLido, pedidoId);
+            adicionar(pedidoId, data(linha[1]), numero(linha[2]), numero(linha[3]), (BigDecimal) linha[4], (String) linha[5]);
+        }
+
+        /**
+         * Devolve false para mudança de status de um pedido sem linha.
+         */
+        boolean aplicar(PedidoEvento evento) {
+            if (evento.tipo() == PedidoEvento.Tipo.CRIADO) {
+                adicionar(evento.pedidoId(), evento.dataEvento(), evento.restauranteId(), evento.clienteId(),
+                        evento.valorTotal(), evento.status());
+                return true;
+            }
+            return atualizarStatus(evento.pedidoId(), evento.status());
+        }
+
+        boolean atualizarStatus(long pedidoId, String status) {
+            int linha = linha(pedidoId);
+            if (linha < 0) {
+                return false;
+            }
+            colunas.status[linha] = codigoStatus(status);
+            return true;
+        }
+
+        // Pedidos com status ainda não final: os únicos cujo status o complemento confere no banco
+        List<Long> emAndamento() {
+            Colunas atual = colunas;
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < atual.tamanho; i++) {
+                if (atual.status[i] != SEM_STATUS && !STATUS[atual.status[i]].isFinal()) {
+                    ids.add(atual.pedidoId[i]);
+                }
+            }
+            return ids;
+        }
+
+        private void adicionar(long pedidoId, LocalDateTime data, Long restauranteId, Long clienteId, BigDecimal valor, String status) {
+            // Pedidos sem data, restaurante ou cliente não entram em nenhum relatório
+            if (data == null || restauranteId == null || clienteId == null || linha(pedidoId) >= 0) {
+                return;
+            }
+            Colunas atual = colunas;
+            int i = atual.tamanho;
+            if (i == atual.capacidade()) {
+                atual = atual.crescer();
+            }
+            atual.pedidoId[i] = pedidoId;
+            atual.data[i] = segundos(data);
+            atual.restaurante[i] = restaurantes.codificar(restauranteId);
+            atual.cliente[i] = clientes.codificar(clienteId);
+            atual.centavos[i] = valor == null ? 0 : valor.movePointRight(2).longValue();
+            atual.status[i] = codigoStatus(status);
+            if (prefixoOrdenado == i && (i == 0 || atual.pedidoId[i - 1] < pedidoId)) {
+                prefixoOrdenado++;
+            } else {
+                foraDeOrdem.put(pedidoId, i);
+            }
+            atual.tamanho = i + 1;
+            colunas = atual;
+        }
+
+        private int linha(long pedidoId) {
+            Colunas atual = colunas;
+            int i = Arrays.binarySearch(atual.pedidoId, 0, prefixoOrdenado, pedidoId);
+            return i >= 0 ? i : foraDeOrdem.getOrDefault(pedidoId, -1);
+        }
+
+        private static byte codigoStatus(String status) {
+            return status == null ? SEM_STATUS : (byte) StatusPedido.valueOf(status).ordinal();
+        }
+
+        private static Long numero(Object valor) {
+            return valor == null ? null : ((Number) valor).longValue();
+        }
+
+        private static LocalDateTime data(Object valor) {
+            return valor instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) valor;
+        }
+    }
+}
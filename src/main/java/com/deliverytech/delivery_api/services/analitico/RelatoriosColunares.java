@@ -0,0 +1,246 @@
+package com.deliverytech.delivery_api.services.analitico;
+
+import com.deliverytech.delivery_api.dto.reports.RelatorioFaturamentoCategoriaDTO;
+import com.deliverytech.delivery_api.dto.reports.RelatorioRankingClienteDTO;
+import com.deliverytech.delivery_api.dto.reports.RelatorioVendasRestauranteDTO;
+import com.deliverytech.delivery_api.entity.Cliente;
+import com.deliverytech.delivery_api.entity.Restaurante;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.exceptions.ServiceUnavailableException;
+import com.deliverytech.delivery_api.repository.ClienteRepository;
+import com.deliverytech.delivery_api.repository.RestauranteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Relatórios ad hoc sobre o ColunasPedidos, sem consultar pedidos no banco. Mesmas regras dos rollups:
+ * pedidos cancelados não entram em vendas nem no ranking.
+ *
+ * Cada consulta é um laço sobre arrays primitivos dividido em fork-join (pool comum) em até um pedaço por núcleo;
+ * cada pedaço acumula em arrays indexados pelo código denso do grupo e os pedaços são somados no fim.
+ * O banco só é lido para os nomes (e categorias) dos grupos que entram no resultado.
+ */
+@Service
+public class RelatoriosColunares {
+
+    private static final byte CANCELADO = (byte) StatusPedido.CANCELADO.ordinal();
+    private static final byte ENTREGUE = (byte) StatusPedido.ENTREGUE.ordinal();
+    // Abaixo disso um pedaço não compensa o custo de dividir
+    private static final int LINHAS_MINIMAS_POR_PEDACO = 1 << 15;
+
+    @Autowired
+    private ColunasPedidos colunasPedidos;
+    @Autowired
+    private RestauranteRepository restauranteRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    public List<RelatorioVendasRestauranteDTO> vendasPorRestaurante(LocalDateTime inicio, LocalDateTime fim, int limite) {
+        ColunasPedidos.Retrato retrato = retrato();
+        Agregado agregado = agregar(retrato, false, inicio, fim);
+        int[] top = maiores(agregado.vendas, limite);
+        Map<Long, Restaurante> restaurantes = restaurantes(retrato, top);
+        List<RelatorioVendasRestauranteDTO> relatorio = new ArrayList<>(top.length);
+        for (int codigo : top) {
+            Restaurante restaurante = restaurantes.get(retrato.restaurantes().id(codigo));
+            relatorio.add(new RelatorioVendasRestauranteDTO(restaurante != null ? restaurante.getNome() : null,
+                    reais(agregado.vendas[codigo]), reais(agregado.entregue[codigo])));
+        }
+        return relatorio;
+    }
+
+    public List<RelatorioFaturamentoCategoriaDTO> faturamentoPorCategoria(LocalDateTime inicio, LocalDateTime fim) {
+        ColunasPedidos.Retrato retrato = retrato();
+        Agregado agregado = agregar(retrato, false, inicio, fim);
+        // Poucos restaurantes: agrega por restaurante e dobra para a categoria atual de cada um
+        int[] comVendas = maiores(agregado.vendas, agregado.vendas.length);
+        Map<Long, Restaurante> restaurantes = restaurantes(retrato, comVendas);
+        Map<String, Long> porCategoria = new HashMap<>();
+        for (int codigo : comVendas) {
+            Restaurante restaurante = restaurantes.get(retrato.restaurantes().id(codigo));
+            porCategoria.merge(restaurante != null ? restaurante.getCategoria() : null, agregado.vendas[codigo], Long::sum);
+        }
+        return porCategoria.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(e -> new RelatorioFaturamentoCategoriaDTO(e.getKey(), reais(e.getValue())))
+                .toList();
+    }
+
+    public List<RelatorioRankingClienteDTO> clientesMaisAtivos(LocalDateTime inicio, LocalDateTime fim, int limite) {
+        ColunasPedidos.Retrato retrato = retrato();
+        Agregado agregado = agregar(retrato, true, inicio, fim);
+        int[] top = maiores(agregado.pedidos, limite);
+        List<Long> ids = new ArrayList<>(top.length);
+        for (int codigo : top) {
+            ids.add(retrato.clientes().id(codigo));
+        }
+        Map<Long, Cliente> clientes = clienteRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Cliente::getId, Function.identity()));
+        List<RelatorioRankingClienteDTO> relatorio = new ArrayList<>(top.length);
+        for (int i = 0; i < top.length; i++) {
+            Cliente cliente = clientes.get(ids.get(i));
+            relatorio.add(new RelatorioRankingClienteDTO(cliente != null ? cliente.getNome() : null, agregado.pedidos[top[i]]));
+        }
+        return relatorio;
+    }
+
+    private ColunasPedidos.Retrato retrato() {
+        ColunasPedidos.Retrato retrato = colunasPedidos.retrato();
+        if (retrato == null) {
+            throw new ServiceUnavailableException("Base analítica ainda em carga. Tente novamente em instantes.", 5);
+        }
+        return retrato;
+    }
+
+    private Agregado agregar(ColunasPedidos.Retrato retrato, boolean porCliente, LocalDateTime inicio, LocalDateTime fim) {
+        int grupos = porCliente ? retrato.clientes().tamanho() : retrato.restaurantes().tamanho();
+        long de = inicio == null ? Long.MIN_VALUE : ColunasPedidos.segundos(inicio);
+        long ate = fim == null ? Long.MAX_VALUE : ColunasPedidos.segundos(fim);
+        int pedaco = Math.max(LINHAS_MINIMAS_POR_PEDACO, retrato.tamanho() / ForkJoinPool.getCommonPoolParallelism() + 1);
+        return ForkJoinPool.commonPool().invoke(
+                new Agregacao(retrato.colunas(), porCliente, grupos, de, ate, 0, retrato.tamanho(), pedaco));
+    }
+
+    private Map<Long, Restaurante> restaurantes(ColunasPedidos.Retrato retrato, int[] codigos) {
+        List<Long> ids = new ArrayList<>(codigos.length);
+        for (int codigo : codigos) {
+            ids.add(retrato.restaurantes().id(codigo));
+        }
+        return restauranteRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Restaurante::getId, Function.identity()));
+    }
+
+    /**
+     * Códigos dos até {@code limite} maiores valores positivos, do maior para o menor (heap de tamanho limite).
+     */
+    static int[] maiores(long[] valores, int limite) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Comparator.comparingLong((Integer codigo) -> valores[codigo]));
+        for (int codigo = 0; codigo < valores.length && limite > 0; codigo++) {
+            if (valores[codigo] <= 0) {
+                continue;
+            }
+            if (heap.size() < limite) {
+                heap.add(codigo);
+            } else if (valores[codigo] > valores[heap.peek()]) {
+                heap.poll();
+                heap.add(codigo);
+            }
+        }
+        int[] ordem = new int[heap.size()];
+        for (int i = ordem.length - 1; i >= 0; i--) {
+            ordem[i] = heap.poll();
+        }
+        return ordem;
+    }
+
+    private static BigDecimal reais(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    /**
+     * Acumuladores por código de grupo: vendas e entregue (centavos) por restaurante, ou pedidos por cliente.
+     */
+    private record Agregado(long[] vendas, long[] entregue, long[] pedidos) {
+
+        Agregado somar(Agregado outro) {
+            somar(vendas, outro.vendas);
+            somar(entregue, outro.entregue);
+            somar(pedidos, outro.pedidos);
+            return this;
+        }
+
+        private static void somar(long[] destino, long[] origem) {
+            if (destino == null) {
+                return;
+            }
+            for (int i = 0; i < destino.length; i++) {
+                destino[i] += origem[i];
+            }
+        }
+    }
+
+    private static final class Agregacao extends RecursiveTask<Agregado> {
+
+        private final Colunas colunas;
+        private final boolean porCliente;
+        private final int grupos;
+        private final long inicio;
+        private final long fim;
+        private final int de;
+        private final int ate;
+        private final int pedaco;
+
+        Agregacao(Colunas colunas, boolean porCliente, int grupos, long inicio, long fim, int de, int ate, int pedaco) {
+            this.colunas = colunas;
+            this.porCliente = porCliente;
+            this.grupos = grupos;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.de = de;
+            this.ate = ate;
+            this.pedaco = pedaco;
+        }
+
+        @Override
+        protected Agregado compute() {
+            if (ate - de <= pedaco) {
+                return porCliente ? pedidosPorCliente() : vendasPorRestaurante();
+            }
+            int meio = (de + ate) >>> 1;
+            Agregacao esquerda = new Agregacao(colunas, porCliente, grupos, inicio, fim, de, meio, pedaco);
+            esquerda.fork();
+            Agregado direita = new Agregacao(colunas, porCliente, grupos, inicio, fim, meio, ate, pedaco).compute();
+            return esquerda.join().somar(direita);
+        }
+
+        // Laços só sobre arrays primitivos locais, sem objetos por linha
+        private Agregado vendasPorRestaurante() {
+            long[] data = colunas.data;
+            int[] restaurante = colunas.restaurante;
+            long[] centavos = colunas.centavos;
+            byte[] status = colunas.status;
+            long[] vendas = new long[grupos];
+            long[] entregue = new long[grupos];
+            for (int i = de; i < ate; i++) {
+                long t = data[i];
+                byte s = status[i];
+                if (t < inicio || t > fim || s == CANCELADO) {
+                    continue;
+                }
+                vendas[restaurante[i]] += centavos[i];
+                if (s == ENTREGUE) {
+                    entregue[restaurante[i]] += centavos[i];
+                }
+            }
+            return new Agregado(vendas, entregue, null);
+        }
+
+        private Agregado pedidosPorCliente() {
+            long[] data = colunas.data;
+            int[] cliente = colunas.cliente;
+            byte[] status = colunas.status;
+            long[] pedidos = new long[grupos];
+            for (int i = de; i < ate; i++) {
+                long t = data[i];
+                if (t < inicio || t > fim || status[i] == CANCELADO) {
+                    continue;
+                }
+                pedidos[cliente[i]]++;
+            }
+            return new Agregado(null, null, pedidos);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.deliverytech.delivery_api.services.arquivamento;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.repository.PedidoRepository;
+import com.deliverytech.delivery_api.services.tarefas.TarefaPeriodica;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Move pedidos finalizados (ENTREGUE/CANCELADO) mais antigos que pedidos.arquivamento.idade da tabela pedidos
+ * para pedidos_historico (e os itens para itens_pedido_historico), mantendo os ids.
+ *
+ * Cada lote é uma transação curta: copia pedidos e itens, apaga os originais. Entre lotes há uma pausa,
+ * para o arquivamento não disputar o banco com o tráfego de pedidos. Uma rodada completa roda a cada intervalo.
+ * Várias instâncias podem rodar juntas: se duas pegarem o mesmo lote, a segunda falha na PK do histórico,
+ * desfaz a transação e segue na próxima rodada.
+ */
+@Slf4j
+@Component
+public class ArquivadorPedidos extends TarefaPeriodica {
+
+    private static final List<String> STATUS_ARQUIVAVEIS = Arrays.stream(StatusPedido.values())
+            .filter(StatusPedido::isFinal)
+            .map(StatusPedido::name)
+            .toList();
+
+    private final PedidoRepository pedidoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration idade;
+    private final int tamanhoLote;
+    private final Duration pausaEntreLotes;
+
+    private final Counter arquivados;
+    private final Timer duracaoLote;
+
+    @Autowired
+    public ArquivadorPedidos(PedidoRepository pedidoRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${pedidos.arquivamento.habilitado:true}") boolean habilitado,
+                             @Value("${pedidos.arquivamento.idade:30d}") Duration idade,
+                             @Value("${pedidos.arquivamento.tamanho-lote:500}") int tamanhoLote,
+                             @Value("${pedidos.arquivamento.pausa-entre-lotes:200ms}") Duration pausaEntreLotes,
+                             @Value("${pedidos.arquivamento.intervalo:1h}") Duration intervalo) {
+        super("pedidos-arquivamento", habilitado, intervalo, "Falha no arquivamento de pedidos");
+        this.pedidoRepository = pedidoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idade = idade;
+        this.tamanhoLote = tamanhoLote;
+        this.pausaEntreLotes = pausaEntreLotes;
+
+        this.arquivados = Counter.builder("pedidos.arquivamento.arquivados")
+                .description("Pedidos movidos para pedidos_historico")
+                .register(meterRegistry);
+        this.duracaoLote = Timer.builder("pedidos.arquivamento.lote")
+                .description("Duração da transação de cada lote de arquivamento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rodada completa: arquiva lote a lote tudo o que tiver passado da idade. Devolve o total arquivado.
+     */
+    public int arquivar() throws InterruptedException {
+        LocalDateTime limite = LocalDateTime.now().minus(idade);
+        int total = 0;
+        int quantidade;
+        do {
+            quantidade = arquivarLote(limite);
+            total += quantidade;
+            if (quantidade == tamanhoLote && !pausaEntreLotes.isZero()) {
+                Thread.sleep(pausaEntreLotes);
+            }
+        } while (quantidade == tamanhoLote);
+        if (total > 0) {
+            log.info("{} pedidos finalizados antes de {} movidos para o histórico", total, limite);
+        }
+        return total;
+    }
+
+    int arquivarLote(LocalDateTime limite) {
+        Integer quantidade = duracaoLote.record(() -> transactionTemplate.execute(status -> {
+            List<Long> ids = pedidoRepository.findIdsArquivaveis(STATUS_ARQUIVAVEIS, limite, Limit.of(tamanhoLote));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            pedidoRepository.copiarParaHistorico(ids, LocalDateTime.now());
+            pedidoRepository.copiarItensParaHistorico(ids);
+            pedidoRepository.removerItens(ids);
+            return pedidoRepository.removerPedidos(ids);
+        }));
+        int arquivadosNoLote = quantidade == null ? 0 : quantidade;
+        arquivados.increment(arquivadosNoLote);
+        return arquivadosNoLote;
+    }
+
+    @Override
+    protected boolean executarRodada() throws InterruptedException {
+        arquivar();
+        return false;
+    }
+}
@@ -0,0 +1,276 @@
+package com.deliverytech.delivery_api.services.cotacao;
+
+import com.deliverytech.delivery_api.dto.CestaPrecificada;
+import com.deliverytech.delivery_api.dto.CotacaoDTO;
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.entity.Produto;
+import com.deliverytech.delivery_api.entity.Restaurante;
+import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
+import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import com.deliverytech.delivery_api.repository.RestauranteRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cotação do carrinho (POST /api/pedidos/calcular) sem acesso ao banco.
+ *
+ * Cada restaurante tem uma tabela de preços em memória (produtos + taxa de entrega), carregada na primeira
+ * cotação com duas consultas. Ela é descartada quando um PrecosAlterados é publicado (ao fim da transação que
+ * alterou produto ou taxa) e, para limitar a defasagem entre instâncias, também quando o TTL vence.
+ *
+ * A cotação devolve um token assinado (JWS, HS256) com os preços usados. O criarPedido aceita o token no lugar
+ * da reprecificação se ele não expirou, é do mesmo restaurante e itens e a tabela de onde saiu não foi
+ * invalidada depois (o token guarda a versão da tabela: um contador por restaurante que cada invalidação avança).
+ *
+ * Como a invalidação por evento só alcança esta instância, o resgate também confere a cesta contra a tabela
+ * atual do restaurante (no máximo ttl-tabela de idade, recarregada do banco depois de um reinício): produto
+ * ausente ou indisponível, preço ou taxa diferentes recusam o token. A defasagem aceita é a do TTL da tabela,
+ * não a validade do token.
+ *
+ * A chave é própria (pedidos.cotacao.segredo, sem cair no jwt.secret) e o token leva aud = "cotacao": um JWT de
+ * login, ou qualquer outro assinado com outra finalidade, nunca é lido como cotação.
+ */
+@Slf4j
+@Service
+public class CotacaoService {
+
+    private static final String AUDIENCIA = "cotacao";
+
+    private final ProdutoRepository produtoRepository;
+    private final RestauranteRepository restauranteRepository;
+    private final Key chave;
+    private final Duration validade;
+    private final long ttlTabelaMillis;
+
+    private final Map<Long, TabelaPrecos> tabelas = new ConcurrentHashMap<>();
+    // Versão atual de cada restaurante, avançada a cada invalidação: tabela ou token de outra versão não vale.
+    // Só muda dentro de um compute em tabelas, então a versão e a remoção da tabela são vistas juntas.
+    private final Map<Long, Long> versoes = new ConcurrentHashMap<>();
+
+    private final Counter tabelaEmMemoria;
+    private final Counter tabelaCarregada;
+    private final Counter tokensAceitos;
+    private final Counter tokensRecusados;
+
+    @Autowired
+    public CotacaoService(ProdutoRepository produtoRepository,
+                          RestauranteRepository restauranteRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${pedidos.cotacao.segredo}") String segredo,
+                          @Value("${pedidos.cotacao.validade:5m}") Duration validade,
+                          @Value("${pedidos.cotacao.ttl-tabela:60s}") Duration ttlTabela) {
+        this.produtoRepository = produtoRepository;
+        this.restauranteRepository = restauranteRepository;
+        this.chave = Keys.hmacShaKeyFor(segredo.getBytes(StandardCharsets.UTF_8));
+        this.validade = validade;
+        this.ttlTabelaMillis = ttlTabela.toMillis();
+
+        this.tabelaEmMemoria = Counter.builder("pedidos.cotacao.tabela").tag("origem", "memoria").register(meterRegistry);
+        this.tabelaCarregada = Counter.builder("pedidos.cotacao.tabela").tag("origem", "banco").register(meterRegistry);
+        this.tokensAceitos = Counter.builder("pedidos.cotacao.tokens").tag("resultado", "aceito").register(meterRegistry);
+        this.tokensRecusados = Counter.builder("pedidos.cotacao.tokens")
+                .tag("resultado", "recusado")
+                .description("Tokens expirados, adulterados, de outra cesta ou de tabela já alterada (o pedido é reprecificado)")
+                .register(meterRegistry);
+    }
+
+    public CotacaoDTO cotar(Long restauranteId, List<ItemPedidoDTO> itens) {
+        Set<Long> ids = itens.stream()
+                .map(ItemPedidoDTO::getProdutoId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        TabelaPrecos tabela = tabela(restauranteId);
+        if (!tabela.produtos().keySet().containsAll(ids)) {
+            // Produto novo que a tabela ainda não conhece (ex.: cadastrado em outra instância): recarrega uma vez.
+            // Não é alteração de preço, então a versão fica: os tokens já emitidos continuam valendo
+            tabelas.remove(restauranteId);
+            tabela = tabela(restauranteId);
+            if (!tabela.produtos().keySet().containsAll(ids)) {
+                Precificador.rejeitarProdutosForaDoRestaurante(produtoRepository, ids, tabela.produtos().keySet());
+            }
+        }
+
+        CestaPrecificada cesta = Precificador.precificar(itens, tabela.produtos(), restauranteId, tabela.taxaEntrega());
+        long expiraEm = System.currentTimeMillis() + validade.toMillis();
+        return new CotacaoDTO(restauranteId, cesta.itens(), cesta.subtotal(), cesta.taxaEntrega(), cesta.valorTotal(),
+                assinar(cesta, tabela.versao(), expiraEm),
+                LocalDateTime.ofInstant(new Date(expiraEm).toInstant(), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Cesta cotada pelo token, se ele ainda vale para este restaurante e estes itens. Vazio = reprecificar.
+     */
+    public Optional<CestaPrecificada> resgatar(String token, Long restauranteId, List<ItemPedidoDTO> itens) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(chave)
+                    .requireAudience(AUDIENCIA)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            Long base = claims.get("base", Long.class);
+            if (base == null || claims.get("itens") == null || claims.get("taxa") == null
+                    || !restauranteId.equals(claims.get("rid", Long.class))
+                    || base != versao(restauranteId)) {
+                return recusar(null);
+            }
+            CestaPrecificada cesta = lerCesta(claims, restauranteId);
+            if (!quantidadesPorProduto(itens, ItemPedidoDTO::getProdutoId, ItemPedidoDTO::getQuantidade)
+                    .equals(quantidadesPorProduto(cesta.itens(), CestaPrecificada.Item::produtoId, CestaPrecificada.Item::quantidade))) {
+                return recusar(null);
+            }
+            Optional<CestaPrecificada> conferida = conferir(cesta, tabela(restauranteId));
+            if (conferida.isEmpty()) {
+                return recusar(null);
+            }
+            tokensAceitos.increment();
+            return conferida;
+        } catch (JwtException | IllegalArgumentException | ClassCastException e) {
+            return recusar(e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void aoAlterarPrecos(PrecosAlterados evento) {
+        invalidar(evento.restauranteId());
+    }
+
+    public void invalidar(Long restauranteId) {
+        tabelas.compute(restauranteId, (id, atual) -> {
+            versoes.merge(id, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    public void limpar() {
+        tabelas.clear();
+        versoes.clear();
+    }
+
+    private long versao(Long restauranteId) {
+        return versoes.getOrDefault(restauranteId, 0L);
+    }
+
+    private TabelaPrecos tabela(Long restauranteId) {
+        TabelaPrecos atual = tabelas.get(restauranteId);
+        if (atual != null && System.currentTimeMillis() - atual.carregadaEm() < ttlTabelaMillis) {
+            tabelaEmMemoria.increment();
+            return atual;
+        }
+
+        long versao = versao(restauranteId);
+        long carregadaEm = System.currentTimeMillis();
+        Restaurante restaurante = restauranteRepository.findById(restauranteId)
+                .orElseThrow(() -> new EntityNotFoundException("Restaurante não encontrado"));
+        Map<Long, Produto> produtos = produtoRepository.findByRestauranteId(restauranteId).stream()
+                .collect(Collectors.toUnmodifiableMap(Produto::getId, Function.identity()));
+        TabelaPrecos carregada = new TabelaPrecos(produtos, restaurante.getTaxaEntrega(), versao, carregadaEm);
+        tabelaCarregada.increment();
+
+        // Uma invalidação durante a carga torna a leitura suspeita: usa nesta cotação, mas não guarda
+        // (e o token sai com a versão anterior, então não será aceito). A conferência da versão roda no mesmo
+        // compute que o invalidar usa, então não há janela entre conferir e guardar.
+        tabelas.compute(restauranteId, (id, guardada) -> versao(id) == versao ? carregada : guardada);
+        return carregada;
+    }
+
+    private String assinar(CestaPrecificada cesta, long base, long expiraEm) {
+        List<List<Object>> itens = new ArrayList<>(cesta.itens().size());
+        for (CestaPrecificada.Item item : cesta.itens()) {
+            itens.add(List.of(item.produtoId(), item.quantidade(), item.precoUnitario().toPlainString()));
+        }
+        return Jwts.builder()
+                .setSubject("cotacao")
+                .setAudience(AUDIENCIA)
+                .claim("rid", cesta.restauranteId())
+                .claim("base", base)
+                .claim("itens", itens)
+                .claim("taxa", cesta.taxaEntrega().toPlainString())
+                .setExpiration(new Date(expiraEm))
+                .signWith(chave, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    // Preços e taxa assinados ainda iguais aos da tabela atual, com os produtos disponíveis; os nomes vêm da tabela
+    private static Optional<CestaPrecificada> conferir(CestaPrecificada cesta, TabelaPrecos tabela) {
+        if (tabela.taxaEntrega().compareTo(cesta.taxaEntrega()) != 0) {
+            return Optional.empty();
+        }
+        List<CestaPrecificada.Item> itens = new ArrayList<>(cesta.itens().size());
+        for (CestaPrecificada.Item item : cesta.itens()) {
+            Produto produto = tabela.produtos().get(item.produtoId());
+            if (produto == null || !Boolean.TRUE.equals(produto.getDisponivel())
+                    || produto.getPreco().compareTo(item.precoUnitario()) != 0) {
+                return Optional.empty();
+            }
+            itens.add(new CestaPrecificada.Item(item.produtoId(), produto.getNome(), item.quantidade(),
+                    item.precoUnitario(), item.subtotal()));
+        }
+        return Optional.of(new CestaPrecificada(cesta.restauranteId(), itens, cesta.subtotal(), cesta.taxaEntrega(), cesta.valorTotal()));
+    }
+
+    // Refaz as contas a partir dos preços assinados (sem banco); o nome do produto não viaja no token
+    private static CestaPrecificada lerCesta(Claims claims, Long restauranteId) {
+        List<?> itens = claims.get("itens", List.class);
+        List<CestaPrecificada.Item> itensPrecificados = new ArrayList<>(itens.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (Object bruto : itens) {
+            List<?> item = (List<?>) bruto;
+            Long produtoId = ((Number) item.get(0)).longValue();
+            Integer quantidade = ((Number) item.get(1)).intValue();
+            BigDecimal preco = new BigDecimal((String) item.get(2));
+            BigDecimal subtotalItem = preco.multiply(new BigDecimal(quantidade));
+            itensPrecificados.add(new CestaPrecificada.Item(produtoId, null, quantidade, preco, subtotalItem));
+            subtotal = subtotal.add(subtotalItem);
+        }
+        BigDecimal taxa = new BigDecimal(claims.get("taxa", String.class));
+        return new CestaPrecificada(restauranteId, itensPrecificados, subtotal, taxa, subtotal.add(taxa));
+    }
+
+    private static <T> Map<Long, Integer> quantidadesPorProduto(List<T> itens, Function<T, Long> produto, Function<T, Integer> quantidade) {
+        return itens.stream().collect(Collectors.toMap(produto, quantidade, Integer::sum, TreeMap::new));
+    }
+
+    private Optional<CestaPrecificada> recusar(Exception motivo) {
+        tokensRecusados.increment();
+        if (motivo != null) {
+            log.debug("Token de cotação recusado: {}", motivo.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private record TabelaPrecos(Map<Long, Produto> produtos, BigDecimal taxaEntrega, long versao, long carregadaEm) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.deliverytech.delivery_api.services.cotacao;
+
+import com.deliverytech.delivery_api.dto.CestaPrecificada;
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.entity.Produto;
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
+import com.deliverytech.delivery_api.repository.ProdutoRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Regras de precificação de uma cesta, compartilhadas pelo PedidoService (produtos vindos do banco)
+ * e pelo CotacaoService (produtos vindos da tabela de preços em memória).
+ */
+public final class Precificador {
+
+    private Precificador() {
+    }
+
+    /**
+     * Calcula a cesta a partir de produtos já carregados (sem acesso ao banco)
+     */
+    public static CestaPrecificada precificar(List<ItemPedidoDTO> itens, Map<Long, Produto> produtos,
+                                              Long restauranteId, BigDecimal taxaEntrega) {
+        List<CestaPrecificada.Item> itensPrecificados = new ArrayList<>(itens.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+
+        for (ItemPedidoDTO item : itens) {
+            Produto produto = produtos.get(item.getProdutoId());
+            if (produto == null) {
+                throw new EntityNotFoundException("Produto não encontrado: " + item.getProdutoId());
+            }
+            if (!produto.getDisponivel()) {
+                throw new BusinessException("Produto indisponível: " + produto.getNome());
+            }
+            if (!produto.getRestauranteId().equals(restauranteId)) {
+                throw new BusinessException("Produto " + produto.getNome() + " não pertence ao restaurante selecionado.");
+            }
+
+            BigDecimal subtotalItem = produto.getPreco().multiply(new BigDecimal(item.getQuantidade()));
+            itensPrecificados.add(new CestaPrecificada.Item(
+                    produto.getId(), produto.getNome(), item.getQuantidade(), produto.getPreco(), subtotalItem));
+            subtotal = subtotal.add(subtotalItem);
+        }
+        return new CestaPrecificada(restauranteId, itensPrecificados, subtotal, taxaEntrega, subtotal.add(taxaEntrega));
+    }
+
+    /**
+     * Caminho de erro da precificação. Só é executado quando algum produto não veio entre os do restaurante,
+     * para diferenciar "não existe" (404) de "pertence a outro restaurante" (400).
+     */
+    public static void rejeitarProdutosForaDoRestaurante(ProdutoRepository produtoRepository, Set<Long> ids, Set<Long> encontrados) {
+        List<Long> ausentes = ids.stream().filter(id -> !encontrados.contains(id)).toList();
+        Map<Long, Produto> deOutrosRestaurantes = produtoRepository.findAllById(ausentes).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+
+        for (Long id : ausentes) {
+            Produto produto = deOutrosRestaurantes.get(id);
+            if (produto == null) {
+                throw new EntityNotFoundException("Produto não encontrado: " + id);
+            }
+            throw new BusinessException("Produto " + produto.getNome() + " não pertence ao restaurante selecionado.");
+        }
+    }
+}
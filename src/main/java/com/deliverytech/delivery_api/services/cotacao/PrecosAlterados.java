@@ -0,0 +1,8 @@
+package com.deliverytech.delivery_api.services.cotacao;
+
+/**
+ * Publicado quando muda algo que entra na cotação de um restaurante: preço, disponibilidade
+ * ou cadastro de produto, ou a taxa de entrega. Invalida a tabela de preços e os tokens emitidos antes.
+ */
+public record PrecosAlterados(Long restauranteId) {
+}
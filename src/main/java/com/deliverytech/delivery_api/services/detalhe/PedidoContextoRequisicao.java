@@ -0,0 +1,58 @@
+package com.deliverytech.delivery_api.services.detalhe;
+
+import com.deliverytech.delivery_api.dto.PedidoResponseDTO;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Pedidos já carregados na requisição HTTP atual. A checagem do @PreAuthorize (canAccess) carrega o detalhe
+ * e deixa aqui; o método do controller reaproveita a mesma leitura, mesmo com o cache de detalhe desligado.
+ *
+ * Fica nos atributos da requisição (escopo request); fora de uma requisição (workers, testes de unidade) não guarda nada.
+ */
+@Component
+public class PedidoContextoRequisicao {
+
+    private static final String ATRIBUTO = PedidoContextoRequisicao.class.getName() + ".detalhes";
+
+    public Optional<PedidoResponseDTO> buscar(Long pedidoId) {
+        Map<Long, PedidoResponseDTO> detalhes = detalhes(false);
+        return detalhes == null ? Optional.empty() : Optional.ofNullable(detalhes.get(pedidoId));
+    }
+
+    public void guardar(Long pedidoId, PedidoResponseDTO detalhe) {
+        Map<Long, PedidoResponseDTO> detalhes = detalhes(true);
+        if (detalhes != null) {
+            detalhes.put(pedidoId, detalhe);
+        }
+    }
+
+    /**
+     * Após uma alteração na mesma requisição, o detalhe carregado antes deixa de valer.
+     */
+    public void remover(Long pedidoId) {
+        Map<Long, PedidoResponseDTO> detalhes = detalhes(false);
+        if (detalhes != null) {
+            detalhes.remove(pedidoId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, PedidoResponseDTO> detalhes(boolean criar) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return null;
+        }
+        Map<Long, PedidoResponseDTO> detalhes = (Map<Long, PedidoResponseDTO>) atributos.getAttribute(ATRIBUTO, RequestAttributes.SCOPE_REQUEST);
+        if (detalhes == null && criar) {
+            detalhes = new HashMap<>();
+            atributos.setAttribute(ATRIBUTO, detalhes, RequestAttributes.SCOPE_REQUEST);
+        }
+        return detalhes;
+    }
+}
@@ -0,0 +1,94 @@
+package com.deliverytech.delivery_api.services.detalhe;
+
+import com.deliverytech.delivery_api.dto.PedidoResponseDTO;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache curto (por instância) do detalhe do pedido, por id. Telas de acompanhamento consultam o mesmo
+ * pedido a cada poucos segundos; dentro do TTL a resposta sai sem ir ao banco.
+ *
+ * A mudança de status invalida a entrada ao fim da transação. Para uma leitura iniciada antes da invalidação
+ * não regravar o valor antigo, a invalidação deixa uma marca com a versão e guardar() recusa leituras mais velhas.
+ * Outras instâncias só enxergam a mudança quando o TTL vencer: por isso o TTL é de poucos segundos.
+ */
+@Component
+public class PedidoDetalheCache {
+
+    private final long ttlMillis;
+    private final Map<Long, Entrada> entradas;
+    private long versao;
+
+    @Autowired
+    public PedidoDetalheCache(@Value("${pedidos.detalhe.cache.ttl:5s}") Duration ttl,
+                              @Value("${pedidos.detalhe.cache.max-entradas:10000}") int maxEntradas) {
+        this.ttlMillis = ttl.toMillis();
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    public synchronized Optional<PedidoResponseDTO> buscar(Long pedidoId) {
+        return Optional.ofNullable(valida(pedidoId)).map(Entrada::detalhe);
+    }
+
+    /**
+     * Versão a informar em guardar(): obtenha antes de consultar o banco.
+     */
+    public synchronized long versaoAtual() {
+        return versao;
+    }
+
+    public synchronized void guardar(Long pedidoId, PedidoResponseDTO detalhe, long versaoLeitura) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        Entrada atual = valida(pedidoId);
+        if (atual != null && atual.versao() > versaoLeitura) {
+            return; // invalidado depois que a leitura começou
+        }
+        entradas.put(pedidoId, new Entrada(detalhe, versaoLeitura, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void invalidar(Long pedidoId) {
+        versao++;
+        entradas.put(pedidoId, new Entrada(null, versao, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void limpar() {
+        entradas.clear();
+    }
+
+    // AFTER_COMPLETION: também no rollback (uma invalidação a mais custa só uma consulta)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void aoAlterarPedido(PedidoEvento evento) {
+        if (evento.tipo() == PedidoEvento.Tipo.STATUS_ALTERADO) {
+            invalidar(evento.pedidoId());
+        }
+    }
+
+    private Entrada valida(Long pedidoId) {
+        Entrada entrada = entradas.get(pedidoId);
+        if (entrada != null && entrada.expiraEm() <= System.currentTimeMillis()) {
+            entradas.remove(pedidoId);
+            return null;
+        }
+        return entrada;
+    }
+
+    // detalhe == null: marca de invalidação
+    private record Entrada(PedidoResponseDTO detalhe, long versao, long expiraEm) {
+    }
+}
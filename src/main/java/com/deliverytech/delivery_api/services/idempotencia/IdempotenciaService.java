@@ -0,0 +1,161 @@
+package com.deliverytech.delivery_api.services.idempotencia;
+
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.exceptions.ConflictException;
+import com.deliverytech.delivery_api.security.SecurityUtils;
+import com.deliverytech.delivery_api.services.idempotencia.IdempotenciaStore.Registro;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Garante que uma operação identificada por Idempotency-Key execute no máximo uma vez por usuário.
+ * - Repetições recebem a resposta original do store, sem tocar no banco.
+ * - Duplicatas simultâneas na mesma instância aguardam a execução em andamento (single-flight);
+ *   entre instâncias, a reserva atômica no store faz a duplicata receber 409.
+ * - A mesma chave com outro corpo de requisição é rejeitada (409).
+ * Se a operação falhar, a chave é liberada para que o cliente possa tentar de novo.
+ */
+@Service
+public class IdempotenciaService {
+
+    public static final String HEADER_CHAVE = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotent-Replayed";
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    @Autowired
+    private IdempotenciaStore store;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Value("${pedidos.idempotencia.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${pedidos.idempotencia.ttl-processamento:30s}")
+    private Duration ttlProcessamento;
+
+    private final ConcurrentMap<String, CompletableFuture<Registro>> emExecucao = new ConcurrentHashMap<>();
+
+    public <T> Resultado<T> executar(String operacao, String chave, Object requisicao, Class<T> tipo, Supplier<T> acao) {
+        validarChave(chave);
+        String chaveStore = "idempotencia:" + operacao + ":" + securityUtils.getCurrentUsername() + ":" + chave;
+        String impressaoDigital = impressaoDigital(requisicao);
+
+        CompletableFuture<Registro> futuro = new CompletableFuture<>();
+        CompletableFuture<Registro> emAndamento = emExecucao.putIfAbsent(chaveStore, futuro);
+        if (emAndamento != null) {
+            return reproduzir(aguardar(emAndamento), impressaoDigital, tipo);
+        }
+
+        try {
+            Optional<Registro> existente = store.buscar(chaveStore);
+            if (existente.isEmpty() && !store.reservar(chaveStore, impressaoDigital, ttlProcessamento)) {
+                existente = store.buscar(chaveStore);
+            }
+            if (existente.isPresent()) {
+                futuro.complete(existente.get());
+                return reproduzir(existente.get(), impressaoDigital, tipo);
+            }
+
+            T valor;
+            try {
+                valor = acao.get();
+            } catch (RuntimeException e) {
+                store.liberar(chaveStore);
+                throw e;
+            }
+            Registro registro = Registro.concluido(impressaoDigital, escrever(valor));
+            store.salvar(chaveStore, registro, ttl);
+            futuro.complete(registro);
+            return new Resultado<>(valor, false);
+        } catch (RuntimeException e) {
+            futuro.completeExceptionally(e);
+            throw e;
+        } finally {
+            emExecucao.remove(chaveStore, futuro);
+        }
+    }
+
+    private <T> Resultado<T> reproduzir(Registro registro, String impressaoDigital, Class<T> tipo) {
+        if (!registro.impressaoDigital().equals(impressaoDigital)) {
+            throw new ConflictException("Idempotency-Key já utilizada com outro conteúdo de requisição");
+        }
+        if (!registro.concluido()) {
+            throw new ConflictException("Já existe uma requisição com esta Idempotency-Key em processamento");
+        }
+        return new Resultado<>(ler(registro.resposta(), tipo), true);
+    }
+
+    private Registro aguardar(CompletableFuture<Registro> emAndamento) {
+        try {
+            return emAndamento.get(ttlProcessamento.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("Já existe uma requisição com esta Idempotency-Key em processamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void validarChave(String chave) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new BusinessException("Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+    }
+
+    private String impressaoDigital(Object requisicao) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(escrever(requisicao).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String escrever(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar resposta idempotente", e);
+        }
+    }
+
+    private <T> T ler(String json, Class<T> tipo) {
+        try {
+            return objectMapper.readValue(json, tipo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao ler resposta idempotente", e);
+        }
+    }
+
+    /**
+     * @param repetida true quando a resposta veio do store (a operação não foi executada de novo)
+     */
+    public record Resultado<T>(T valor, boolean repetida) {
+    }
+}
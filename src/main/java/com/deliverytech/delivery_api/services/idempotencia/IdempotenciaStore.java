@@ -0,0 +1,37 @@
+package com.deliverytech.delivery_api.services.idempotencia;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Armazenamento das respostas associadas a uma Idempotency-Key.
+ * Um registro nasce "em processamento" (reservar) e vira "concluído" (salvar) quando a operação termina.
+ */
+public interface IdempotenciaStore {
+
+    Optional<Registro> buscar(String chave);
+
+    /**
+     * Reserva a chave de forma atômica. Retorna false se ela já existir (concluída ou em processamento).
+     */
+    boolean reservar(String chave, String impressaoDigital, Duration ttl);
+
+    void salvar(String chave, Registro registro, Duration ttl);
+
+    void liberar(String chave);
+
+    /**
+     * @param impressaoDigital hash do corpo da requisição original
+     * @param resposta         resposta serializada em JSON (null enquanto em processamento)
+     */
+    record Registro(String impressaoDigital, String resposta, boolean concluido) {
+
+        public static Registro emProcessamento(String impressaoDigital) {
+            return new Registro(impressaoDigital, null, false);
+        }
+
+        public static Registro concluido(String impressaoDigital, String resposta) {
+            return new Registro(impressaoDigital, resposta, true);
+        }
+    }
+}
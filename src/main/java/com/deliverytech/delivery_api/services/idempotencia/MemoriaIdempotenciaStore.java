@@ -0,0 +1,73 @@
+package com.deliverytech.delivery_api.services.idempotencia;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Store em memória (por instância): LRU limitado a um número máximo de chaves, com TTL por entrada.
+ * Usado quando o Redis está desabilitado ou fora do ar.
+ */
+@Component
+public class MemoriaIdempotenciaStore implements IdempotenciaStore {
+
+    private final Map<String, Entrada> entradas;
+
+    public MemoriaIdempotenciaStore(@Value("${pedidos.idempotencia.max-entradas:10000}") int maxEntradas) {
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<Registro> buscar(String chave) {
+        return Optional.ofNullable(valida(chave)).map(Entrada::registro);
+    }
+
+    @Override
+    public synchronized boolean reservar(String chave, String impressaoDigital, Duration ttl) {
+        if (valida(chave) != null) {
+            return false;
+        }
+        entradas.put(chave, new Entrada(Registro.emProcessamento(impressaoDigital), expiracao(ttl)));
+        return true;
+    }
+
+    @Override
+    public synchronized void salvar(String chave, Registro registro, Duration ttl) {
+        entradas.put(chave, new Entrada(registro, expiracao(ttl)));
+    }
+
+    @Override
+    public synchronized void liberar(String chave) {
+        entradas.remove(chave);
+    }
+
+    synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    // Remove a entrada se já expirou; entradas expiradas que nunca mais são lidas saem pelo LRU
+    private Entrada valida(String chave) {
+        Entrada entrada = entradas.get(chave);
+        if (entrada != null && entrada.expiraEm() <= System.currentTimeMillis()) {
+            entradas.remove(chave);
+            return null;
+        }
+        return entrada;
+    }
+
+    private long expiracao(Duration ttl) {
+        return System.currentTimeMillis() + ttl.toMillis();
+    }
+
+    private record Entrada(Registro registro, long expiraEm) {
+    }
+}
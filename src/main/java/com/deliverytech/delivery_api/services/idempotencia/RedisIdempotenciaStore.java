@@ -0,0 +1,111 @@
+package com.deliverytech.delivery_api.services.idempotencia;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Store compartilhado entre instâncias, no Redis (SET NX para a reserva, TTL nativo).
+ * Se o Redis falhar, passa a usar o store em memória por um intervalo antes de tentar de novo,
+ * para não pagar o timeout de conexão em toda requisição.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "pedidos.idempotencia.redis", havingValue = "true", matchIfMissing = true)
+public class RedisIdempotenciaStore implements IdempotenciaStore {
+
+    private final StringRedisTemplate redisTemplate;
+    private final MemoriaIdempotenciaStore memoria;
+    private final ObjectMapper objectMapper;
+    private final long pausaAposFalhaMillis;
+
+    private volatile long redisIndisponivelAte;
+
+    public RedisIdempotenciaStore(StringRedisTemplate redisTemplate,
+                                  MemoriaIdempotenciaStore memoria,
+                                  ObjectMapper objectMapper,
+                                  @Value("${pedidos.idempotencia.redis-pausa-apos-falha:30s}") Duration pausaAposFalha) {
+        this.redisTemplate = redisTemplate;
+        this.memoria = memoria;
+        this.objectMapper = objectMapper;
+        this.pausaAposFalhaMillis = pausaAposFalha.toMillis();
+    }
+
+    @Override
+    public Optional<Registro> buscar(String chave) {
+        return comFallback(
+                () -> Optional.ofNullable(redisTemplate.opsForValue().get(chave)).map(this::lerRegistro),
+                () -> memoria.buscar(chave));
+    }
+
+    @Override
+    public boolean reservar(String chave, String impressaoDigital, Duration ttl) {
+        return comFallback(
+                () -> Boolean.TRUE.equals(redisTemplate.opsForValue()
+                        .setIfAbsent(chave, escreverRegistro(Registro.emProcessamento(impressaoDigital)), ttl)),
+                () -> memoria.reservar(chave, impressaoDigital, ttl));
+    }
+
+    @Override
+    public void salvar(String chave, Registro registro, Duration ttl) {
+        comFallback(
+                () -> {
+                    redisTemplate.opsForValue().set(chave, escreverRegistro(registro), ttl);
+                    return null;
+                },
+                () -> {
+                    memoria.salvar(chave, registro, ttl);
+                    return null;
+                });
+    }
+
+    @Override
+    public void liberar(String chave) {
+        comFallback(
+                () -> redisTemplate.delete(chave),
+                () -> {
+                    memoria.liberar(chave);
+                    return null;
+                });
+    }
+
+    private <T> T comFallback(Supplier<T> noRedis, Supplier<T> emMemoria) {
+        if (System.currentTimeMillis() < redisIndisponivelAte) {
+            return emMemoria.get();
+        }
+        try {
+            return noRedis.get();
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível para idempotência, usando store em memória: {}", e.getMessage());
+            redisIndisponivelAte = System.currentTimeMillis() + pausaAposFalhaMillis;
+            return emMemoria.get();
+        }
+    }
+
+    private Registro lerRegistro(String json) {
+        try {
+            return objectMapper.readValue(json, Registro.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Registro de idempotência inválido no Redis", e);
+        }
+    }
+
+    private String escreverRegistro(Registro registro) {
+        try {
+            return objectMapper.writeValueAsString(registro);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar registro de idempotência", e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.deliverytech.delivery_api.services.maisvendidos;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving (Metwally et al.) com pesos: no máximo {@code capacidade} contadores, qualquer que seja o número
+ * de produtos distintos. Um produto novo com os contadores cheios herda o menor deles (contagem + peso, erro =
+ * contagem herdada). Todo produto com mais de total/capacidade unidades está entre os contadores, e para cada um
+ * {@code quantidade - erro <= real <= quantidade}. Um produto fora dos contadores vendeu no máximo o menor deles.
+ *
+ * Resumos se combinam (soma das fatias de uma janela) pela regra dos resumos mesclaveis (Agarwal et al.): o produto
+ * ausente de um dos lados conta o mínimo daquele lado, e só os {@code capacidade} maiores ficam. Os limites acima
+ * continuam valendo para o resultado.
+ *
+ * Não é thread-safe: quem usa (RankingProdutos) sincroniza.
+ */
+final class EspacoEconomico {
+
+    record Contagem(long produtoId, long quantidade, long erro) {
+    }
+
+    private static final class Contador {
+        final long produtoId;
+        long quantidade;
+        long erro;
+
+        Contador(long produtoId, long quantidade, long erro) {
+            this.produtoId = produtoId;
+            this.quantidade = quantidade;
+            this.erro = erro;
+        }
+    }
+
+    private static final Comparator<Contador> ORDEM = Comparator.<Contador>comparingLong(c -> c.quantidade)
+            .thenComparingLong(c -> c.produtoId);
+
+    private final int capacidade;
+    private final Map<Long, Contador> porProduto = new HashMap<>();
+    // Do menor para o maior: first() é o contador a ceder, descendingIterator() é o ranking
+    private final TreeSet<Contador> ordenados = new TreeSet<>(ORDEM);
+
+    EspacoEconomico(int capacidade) {
+        this.capacidade = Math.max(1, capacidade);
+    }
+
+    void registrar(long produtoId, long quantidade) {
+        registrar(produtoId, quantidade, 0);
+    }
+
+    private void registrar(long produtoId, long quantidade, long erro) {
+        if (quantidade <= 0) {
+            return;
+        }
+        Contador contador = porProduto.get(produtoId);
+        if (contador != null) {
+            // Fora do TreeSet enquanto a chave de ordenação muda
+            ordenados.remove(contador);
+            contador.quantidade += quantidade;
+            contador.erro += erro;
+        } else if (porProduto.size() < capacidade) {
+            contador = new Contador(produtoId, quantidade, erro);
+            porProduto.put(produtoId, contador);
+        } else {
+            Contador menor = ordenados.pollFirst();
+            porProduto.remove(menor.produtoId);
+            contador = new Contador(produtoId, menor.quantidade + quantidade, menor.quantidade + erro);
+            porProduto.put(produtoId, contador);
+        }
+        ordenados.add(contador);
+    }
+
+    /**
+     * Soma as contagens de outro resumo a este (fatias de uma janela), mantendo a capacidade deste. Produto que só
+     * aparece de um lado recebe o mínimo do outro na contagem e no erro: pode ter vendido até isso lá e ter sido
+     * descartado.
+     */
+    void somar(EspacoEconomico outro) {
+        long minimoEste = minimo();
+        long minimoOutro = outro.minimo();
+        Map<Long, Contador> unidos = new HashMap<>();
+        for (Contador contador : ordenados) {
+            unidos.put(contador.produtoId, new Contador(contador.produtoId,
+                    contador.quantidade + minimoOutro, contador.erro + minimoOutro));
+        }
+        for (Contador contador : outro.ordenados) {
+            Contador unido = unidos.get(contador.produtoId);
+            if (unido != null) {
+                // Presente dos dois lados: troca o mínimo somado acima pela contagem real do outro
+                unido.quantidade += contador.quantidade - minimoOutro;
+                unido.erro += contador.erro - minimoOutro;
+            } else {
+                unidos.put(contador.produtoId, new Contador(contador.produtoId,
+                        contador.quantidade + minimoEste, contador.erro + minimoEste));
+            }
+        }
+        porProduto.clear();
+        ordenados.clear();
+        unidos.values().stream()
+                .sorted(ORDEM.reversed())
+                .limit(capacidade)
+                .forEach(contador -> {
+                    porProduto.put(contador.produtoId, contador);
+                    ordenados.add(contador);
+                });
+    }
+
+    // Maior contagem possível de um produto fora dos contadores: o menor deles com o resumo cheio, zero antes disso
+    private long minimo() {
+        return porProduto.size() < capacidade ? 0 : ordenados.first().quantidade;
+    }
+
+    /**
+     * Os até {@code limite} produtos com maior contagem, do maior para o menor.
+     */
+    List<Contagem> maiores(int limite) {
+        List<Contagem> maiores = new ArrayList<>(Math.min(limite, ordenados.size()));
+        Iterator<Contador> it = ordenados.descendingIterator();
+        while (it.hasNext() && maiores.size() < limite) {
+            Contador contador = it.next();
+            maiores.add(new Contagem(contador.produtoId, contador.quantidade, contador.erro));
+        }
+        return maiores;
+    }
+
+    List<Contagem> contagens() {
+        return maiores(ordenados.size());
+    }
+
+    static EspacoEconomico de(int capacidade, List<Contagem> contagens) {
+        EspacoEconomico resumo = new EspacoEconomico(capacidade);
+        for (Contagem contagem : contagens) {
+            resumo.registrar(contagem.produtoId(), contagem.quantidade(), contagem.erro());
+        }
+        return resumo;
+    }
+
+    boolean vazio() {
+        return ordenados.isEmpty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.deliverytech.delivery_api.services.maisvendidos;
+
+import java.time.Duration;
+
+/**
+ * Janelas do ranking de mais vendidos. As janelas com duração são deslizantes em fatias: a última hora são as
+ * fatias de 5 minutos que começam dentro dela (cobre até 1h05), o último dia fatias de 1 hora, a semana de 1 dia.
+ */
+public enum Janela {
+    TOTAL(null, null),
+    HORA(Duration.ofHours(1), Duration.ofMinutes(5)),
+    DIA(Duration.ofDays(1), Duration.ofHours(1)),
+    SEMANA(Duration.ofDays(7), Duration.ofDays(1));
+
+    private final Duration duracao;
+    private final Duration fatia;
+
+    Janela(Duration duracao, Duration fatia) {
+        this.duracao = duracao;
+        this.fatia = fatia;
+    }
+
+    public Duration getDuracao() {
+        return duracao;
+    }
+
+    boolean deslizante() {
+        return duracao != null;
+    }
+
+    /**
+     * Fatia (número sequencial desde a época) em que cai o instante, em segundos.
+     */
+    long fatia(long segundos) {
+        return Math.floorDiv(segundos, fatia.toSeconds());
+    }
+
+    /**
+     * Primeira fatia ainda dentro da janela que termina agora.
+     */
+    long primeiraFatia(long agora) {
+        return fatia(agora - duracao.toSeconds());
+    }
+}
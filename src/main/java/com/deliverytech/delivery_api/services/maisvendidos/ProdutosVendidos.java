@@ -0,0 +1,29 @@
+package com.deliverytech.delivery_api.services.maisvendidos;
+
+import com.deliverytech.delivery_api.entity.ItemPedido;
+import com.deliverytech.delivery_api.entity.Pedido;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Publicado pelo PedidoService junto com o PedidoEvento de criação: os itens do pedido, que o evento de pedido
+ * (também serializado no outbox e no SSE) não carrega. Consumido depois do commit pelo RankingProdutos.
+ */
+public record ProdutosVendidos(Long pedidoId, Long restauranteId, LocalDateTime dataPedido, List<Item> itens) {
+
+    public record Item(Long produtoId, int quantidade) {
+    }
+
+    public static ProdutosVendidos de(Pedido pedido) {
+        List<Item> itens = pedido.getItens().stream()
+                .map(ProdutosVendidos::item)
+                .toList();
+        return new ProdutosVendidos(pedido.getId(), pedido.getRestaurante().getId(),
+                pedido.getDataPedido() != null ? pedido.getDataPedido() : LocalDateTime.now(), itens);
+    }
+
+    private static Item item(ItemPedido item) {
+        return new Item(item.getProdutoId(), item.getQuantidade() != null ? item.getQuantidade() : 0);
+    }
+}
@@ -0,0 +1,383 @@
+package com.deliverytech.delivery_api.services.maisvendidos;
+
+import com.deliverytech.delivery_api.dto.reports.RelatorioProdutoVendidoDTO;
+import com.deliverytech.delivery_api.entity.Produto;
+import com.deliverytech.delivery_api.exceptions.ServiceUnavailableException;
+import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import com.deliverytech.delivery_api.repository.RankingProdutosRepository;
+import com.deliverytech.delivery_api.services.cotacao.PrecosAlterados;
+import com.deliverytech.delivery_api.services.maisvendidos.EspacoEconomico.Contagem;
+import com.deliverytech.delivery_api.services.tarefas.TarefaPeriodica;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ranking aproximado de produtos mais vendidos (unidades), mantido em memória a cada pedido criado, em vez de
+ * agrupar todos os itens já vendidos a cada consulta.
+ *
+ * Um painel geral e um por restaurante, cada um com um resumo Space-Saving de tudo (TOTAL) e fatias de tempo para
+ * as janelas deslizantes (HORA, DIA, SEMANA); fatias que saem da janela são descartadas. Memória limitada pela
+ * capacidade dos resumos, não pelo número de pedidos. Como no relatório por SQL, pedidos cancelados continuam
+ * contando (o resumo não desconta).
+ *
+ * O estado vai para ranking_produtos_checkpoint a cada intervalo e no desligamento, com a marca d'água: o maior id
+ * de pedido já somado. Na subida o checkpoint é restaurado e os itens dos pedidos com id acima da marca são somados de
+ * novo; sem checkpoint, o total vem da agregação de todos os itens e as janelas dos pedidos da última semana. A carga
+ * lê a marca do banco antes de começar e para nela, e as vendas que chegam enquanto isso ficam em espera: as de pedido
+ * até a marca já foram lidas e são descartadas. Enquanto isso, consultas recebem 503 (ou, no ranking geral, o
+ * controller usa a consulta SQL). Ids vêm de sequence com alocação em bloco, então um pedido de id menor que commite
+ * depois de um checkpoint fica de fora da reposição: o ranking é aproximado também por isso.
+ *
+ * Uma instância só: as vendas chegam pelos eventos do próprio processo, então cada instância enxergaria apenas os
+ * seus pedidos. Com mais de uma instância no ar, desligar (pedidos.ranking-produtos.habilitado=false) e deixar o
+ * ranking geral com a consulta SQL. O checkpoint não regride mesmo assim: só é gravado com marca d'água maior ou
+ * igual à salva.
+ */
+@Slf4j
+@Component
+public class RankingProdutos extends TarefaPeriodica {
+
+    private final RankingProdutosRepository rankingProdutosRepository;
+    private final ProdutoRepository produtoRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean habilitado;
+    private final int capacidade;
+    private final int capacidadeRestaurante;
+
+    // Guardados pelo lock deste objeto
+    private Estado estado;
+    private boolean carregando;
+    private final List<ProdutosVendidos> pendentes = new ArrayList<>();
+
+    // Só os nomes dos produtos que já apareceram num ranking; limpo quando um cadastro muda
+    private final Map<Long, String> nomes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RankingProdutos(RankingProdutosRepository rankingProdutosRepository,
+                           ProdutoRepository produtoRepository,
+                           ObjectMapper objectMapper,
+                           @Value("${pedidos.ranking-produtos.habilitado:true}") boolean habilitado,
+                           @Value("${pedidos.ranking-produtos.capacidade:200}") int capacidade,
+                           @Value("${pedidos.ranking-produtos.capacidade-restaurante:50}") int capacidadeRestaurante,
+                           @Value("${pedidos.ranking-produtos.checkpoint.intervalo:5m}") Duration intervaloCheckpoint) {
+        super("produtos-ranking", habilitado, intervaloCheckpoint, "Falha no ranking de mais vendidos");
+        this.rankingProdutosRepository = rankingProdutosRepository;
+        this.produtoRepository = produtoRepository;
+        this.objectMapper = objectMapper;
+        this.habilitado = habilitado;
+        this.capacidade = capacidade;
+        this.capacidadeRestaurante = capacidadeRestaurante;
+    }
+
+    /**
+     * Monta o ranking a partir do checkpoint (ou dos itens vendidos, sem checkpoint) e passa a atender consultas.
+     */
+    public void carregar() {
+        synchronized (this) {
+            if (carregando) {
+                return;
+            }
+            carregando = true;
+        }
+        try {
+            long inicio = System.nanoTime();
+            Estado novo = new Estado();
+            long ate = rankingProdutosRepository.ultimoPedidoId();
+            Optional<RankingProdutosRepository.Checkpoint> checkpoint = rankingProdutosRepository.findCheckpoint();
+            if (checkpoint.isPresent()) {
+                novo.restaurar(objectMapper.readValue(checkpoint.get().dados(), Salvo.class));
+                // Pedidos acima da marca do checkpoint: entram no total e nas janelas
+                rankingProdutosRepository.itensEntre(checkpoint.get().ultimoPedidoId(), ate, (restaurante, produto, data, quantidade) ->
+                        novo.registrar(restaurante, produto, data, quantidade, true));
+            } else {
+                rankingProdutosRepository.somarPorProduto(ate, (restaurante, produto, data, quantidade) ->
+                        novo.registrar(restaurante, produto, null, quantidade, true));
+                LocalDateTime desde = LocalDateTime.now().minus(Janela.SEMANA.getDuracao());
+                // O total já tem tudo: a última semana só preenche as janelas
+                rankingProdutosRepository.itensDesde(desde, ate, (restaurante, produto, data, quantidade) ->
+                        novo.registrar(restaurante, produto, data, quantidade, false));
+            }
+            novo.ultimoPedidoId = checkpoint.map(c -> Math.max(c.ultimoPedidoId(), ate)).orElse(ate);
+            synchronized (this) {
+                long lidos = novo.ultimoPedidoId;
+                pendentes.stream()
+                        .filter(vendidos -> vendidos.pedidoId() == null || vendidos.pedidoId() > lidos)
+                        .forEach(novo::registrar);
+                estado = novo;
+            }
+            log.info("Ranking de mais vendidos carregado ({}) em {} ms", checkpoint.isPresent() ? "checkpoint" : "itens vendidos",
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Checkpoint do ranking de mais vendidos ilegível", e);
+        } finally {
+            synchronized (this) {
+                pendentes.clear();
+                carregando = false;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoVenderProdutos(ProdutosVendidos vendidos) {
+        if (!habilitado) {
+            return;
+        }
+        synchronized (this) {
+            if (carregando) {
+                pendentes.add(vendidos);
+            } else if (estado != null) {
+                estado.registrar(vendidos);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void aoAlterarProdutos(PrecosAlterados evento) {
+        nomes.clear();
+    }
+
+    public synchronized boolean isPronto() {
+        return estado != null;
+    }
+
+    /**
+     * Top N da janela, geral (restauranteId nulo) ou de um restaurante. Quantidades estimadas: podem superar a real
+     * em até o erro do contador, nunca ficar abaixo. Sob o lock só a cópia das fatias da janela; a soma delas roda
+     * fora, sem segurar o registro das vendas.
+     */
+    public List<RelatorioProdutoVendidoDTO> maisVendidos(Janela janela, Long restauranteId, int limite) {
+        Copia copia;
+        synchronized (this) {
+            if (estado == null) {
+                throw new ServiceUnavailableException("Ranking de mais vendidos ainda em carga. Tente novamente em instantes.", 5);
+            }
+            copia = estado.copiar(janela, restauranteId, limite);
+        }
+        List<Contagem> contagens = copia.maiores(limite);
+        List<Long> semNome = contagens.stream().map(Contagem::produtoId).filter(id -> !nomes.containsKey(id)).toList();
+        if (!semNome.isEmpty()) {
+            for (Produto produto : produtoRepository.findAllById(semNome)) {
+                nomes.put(produto.getId(), produto.getNome());
+            }
+        }
+        return contagens.stream()
+                .map(c -> new RelatorioProdutoVendidoDTO(nomes.get(c.produtoId()), c.quantidade()))
+                .toList();
+    }
+
+    /**
+     * Grava o estado atual em ranking_produtos_checkpoint. Cópia sob o lock; JSON e banco fora dele.
+     */
+    public void salvarCheckpoint() {
+        Salvo salvo;
+        long ultimoPedidoId;
+        synchronized (this) {
+            if (estado == null) {
+                return;
+            }
+            salvo = estado.salvar();
+            ultimoPedidoId = estado.ultimoPedidoId;
+        }
+        try {
+            if (!rankingProdutosRepository.salvarCheckpoint(LocalDateTime.now(), ultimoPedidoId, objectMapper.writeValueAsString(salvo))) {
+                log.warn("Checkpoint do ranking de mais vendidos não gravado: já existe um mais novo (outra instância no ar?)");
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o ranking de mais vendidos", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        try {
+            salvarCheckpoint();
+        } catch (Exception e) {
+            log.warn("Falha no checkpoint final do ranking de mais vendidos: {}", e.getMessage());
+        }
+    }
+
+    // Primeira rodada carrega; as seguintes gravam o checkpoint (ou tentam a carga de novo, se ela falhou)
+    @Override
+    protected boolean executarRodada() {
+        if (isPronto()) {
+            salvarCheckpoint();
+        } else {
+            carregar();
+        }
+        return false;
+    }
+
+    private static long segundos(LocalDateTime data) {
+        return data.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // Formato do checkpoint (JSON): um painel por restaurante e o geral (restauranteId nulo)
+    record Salvo(List<PainelSalvo> paineis) {
+    }
+
+    record PainelSalvo(Long restauranteId, List<Contagem> total, Map<Janela, Map<Long, List<Contagem>>> fatias) {
+    }
+
+    // Contagens de uma janela copiadas sob o lock: uma lista já é o ranking; mais de uma são fatias a somar
+    private record Copia(int capacidade, List<List<Contagem>> fatias) {
+
+        List<Contagem> maiores(int limite) {
+            if (fatias.isEmpty()) {
+                return List.of();
+            }
+            if (fatias.size() == 1) {
+                return fatias.get(0);
+            }
+            EspacoEconomico soma = new EspacoEconomico(capacidade);
+            for (List<Contagem> fatia : fatias) {
+                soma.somar(EspacoEconomico.de(capacidade, fatia));
+            }
+            return soma.maiores(limite);
+        }
+    }
+
+    private final class Estado {
+
+        private final Painel geral = new Painel(capacidade);
+        private final Map<Long, Painel> porRestaurante = new HashMap<>();
+        // Marca d'água: maior id de pedido somado
+        private long ultimoPedidoId;
+
+        void registrar(ProdutosVendidos vendidos) {
+            if (vendidos.pedidoId() != null) {
+                ultimoPedidoId = Math.max(ultimoPedidoId, vendidos.pedidoId());
+            }
+            for (ProdutosVendidos.Item item : vendidos.itens()) {
+                if (item.produtoId() != null && vendidos.restauranteId() != null) {
+                    registrar(vendidos.restauranteId(), item.produtoId(), vendidos.dataPedido(), item.quantidade(), true);
+                }
+            }
+        }
+
+        void registrar(long restauranteId, long produtoId, LocalDateTime data, long quantidade, boolean noTotal) {
+            long agora = segundos(LocalDateTime.now());
+            Long quando = data != null ? segundos(data) : null;
+            geral.registrar(produtoId, quando, quantidade, agora, noTotal);
+            porRestaurante.computeIfAbsent(restauranteId, id -> new Painel(capacidadeRestaurante))
+                    .registrar(produtoId, quando, quantidade, agora, noTotal);
+        }
+
+        Copia copiar(Janela janela, Long restauranteId, int limite) {
+            Painel painel = restauranteId == null ? geral : porRestaurante.get(restauranteId);
+            return painel == null ? new Copia(capacidadeRestaurante, List.of())
+                    : painel.copiar(janela, segundos(LocalDateTime.now()), limite);
+        }
+
+        Salvo salvar() {
+            List<PainelSalvo> paineis = new ArrayList<>(porRestaurante.size() + 1);
+            paineis.add(geral.salvar(null));
+            porRestaurante.forEach((id, painel) -> paineis.add(painel.salvar(id)));
+            return new Salvo(paineis);
+        }
+
+        void restaurar(Salvo salvo) {
+            for (PainelSalvo painel : salvo.paineis()) {
+                if (painel.restauranteId() == null) {
+                    geral.restaurar(painel);
+                } else {
+                    porRestaurante.computeIfAbsent(painel.restauranteId(), id -> new Painel(capacidadeRestaurante)).restaurar(painel);
+                }
+            }
+        }
+    }
+
+    private static final class Painel {
+
+        private final int capacidade;
+        private EspacoEconomico total;
+        private final Map<Janela, TreeMap<Long, EspacoEconomico>> fatias = new EnumMap<>(Janela.class);
+
+        Painel(int capacidade) {
+            this.capacidade = capacidade;
+            this.total = new EspacoEconomico(capacidade);
+        }
+
+        void registrar(long produtoId, Long quando, long quantidade, long agora, boolean noTotal) {
+            if (noTotal) {
+                total.registrar(produtoId, quantidade);
+            }
+            if (quando == null) {
+                return;
+            }
+            for (Janela janela : Janela.values()) {
+                if (!janela.deslizante()) {
+                    continue;
+                }
+                long fatia = janela.fatia(quando);
+                if (fatia < janela.primeiraFatia(agora)) {
+                    continue;
+                }
+                TreeMap<Long, EspacoEconomico> daJanela = fatias.computeIfAbsent(janela, j -> new TreeMap<>());
+                daJanela.computeIfAbsent(fatia, f -> new EspacoEconomico(capacidade)).registrar(produtoId, quantidade);
+                descartarAntigas(janela, daJanela, agora);
+            }
+        }
+
+        Copia copiar(Janela janela, long agora, int limite) {
+            if (!janela.deslizante()) {
+                return new Copia(capacidade, List.of(total.maiores(limite)));
+            }
+            TreeMap<Long, EspacoEconomico> daJanela = fatias.get(janela);
+            if (daJanela == null) {
+                return new Copia(capacidade, List.of());
+            }
+            descartarAntigas(janela, daJanela, agora);
+            if (daJanela.size() == 1) {
+                return new Copia(capacidade, List.of(daJanela.firstEntry().getValue().maiores(limite)));
+            }
+            // A soma precisa das fatias inteiras: um produto fora do top N de cada uma pode estar no top N da soma
+            List<List<Contagem>> copias = new ArrayList<>(daJanela.size());
+            daJanela.values().forEach(resumo -> copias.add(resumo.contagens()));
+            return new Copia(capacidade, copias);
+        }
+
+        private static void descartarAntigas(Janela janela, TreeMap<Long, EspacoEconomico> daJanela, long agora) {
+            daJanela.headMap(janela.primeiraFatia(agora)).clear();
+        }
+
+        PainelSalvo salvar(Long restauranteId) {
+            Map<Janela, Map<Long, List<Contagem>>> salvas = new EnumMap<>(Janela.class);
+            fatias.forEach((janela, daJanela) -> {
+                Map<Long, List<Contagem>> porFatia = new TreeMap<>();
+                daJanela.forEach((fatia, resumo) -> porFatia.put(fatia, resumo.contagens()));
+                salvas.put(janela, porFatia);
+            });
+            return new PainelSalvo(restauranteId, total.contagens(), salvas);
+        }
+
+        void restaurar(PainelSalvo salvo) {
+            total = EspacoEconomico.de(capacidade, salvo.total());
+            if (salvo.fatias() == null) {
+                return;
+            }
+            salvo.fatias().forEach((janela, porFatia) -> {
+                TreeMap<Long, EspacoEconomico> daJanela = fatias.computeIfAbsent(janela, j -> new TreeMap<>());
+                porFatia.forEach((fatia, contagens) -> daJanela.put(fatia, EspacoEconomico.de(capacidade, contagens)));
+            });
+        }
+    }
+}
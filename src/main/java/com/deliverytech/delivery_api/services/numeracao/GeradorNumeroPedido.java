@@ -0,0 +1,11 @@
+package com.deliverytech.delivery_api.services.numeracao;
+
+/**
+ * Gera o código do pedido visível para o cliente (pedidos.numero_pedido).
+ * Implementações devem devolver valores únicos entre todas as instâncias da API
+ * e que ordenados como texto sigam a ordem de criação.
+ */
+public interface GeradorNumeroPedido {
+
+    String proximo();
+}
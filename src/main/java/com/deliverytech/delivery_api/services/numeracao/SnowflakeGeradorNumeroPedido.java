@@ -0,0 +1,99 @@
+package com.deliverytech.delivery_api.services.numeracao;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Gerador no formato "snowflake": 41 bits de milissegundos desde 2024-01-01, 10 bits de nó
+ * e 12 bits de sequência (4096 números por milissegundo por nó), sem coordenação entre instâncias.
+ * O número é impresso em base 36 com largura fixa, então a ordem alfabética é a ordem de criação.
+ *
+ * O relógio é lógico: nunca anda para trás (ajuste de NTP) e, se a sequência de um milissegundo
+ * se esgotar, avança para o próximo milissegundo em vez de esperar.
+ */
+@Slf4j
+@Component
+public class SnowflakeGeradorNumeroPedido implements GeradorNumeroPedido {
+
+    static final String PREFIXO = "PED";
+    static final long EPOCA = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int BITS_NO = 10;
+    static final int BITS_SEQUENCIA = 12;
+    static final long MAX_NO = (1L << BITS_NO) - 1;
+    static final long MAX_SEQUENCIA = (1L << BITS_SEQUENCIA) - 1;
+
+    // Long.MAX_VALUE em base 36 tem 13 dígitos
+    private static final int LARGURA = 13;
+
+    private final long noId;
+    private final LongSupplier relogio;
+
+    // (milissegundos desde a época << BITS_SEQUENCIA) | sequência do último número emitido
+    private final AtomicLong estado = new AtomicLong();
+
+    @Autowired
+    public SnowflakeGeradorNumeroPedido(@Value("${pedidos.numero.no-id:-1}") long noId) {
+        this(noId < 0 ? noIdPorHostname() : noId, System::currentTimeMillis);
+    }
+
+    SnowflakeGeradorNumeroPedido(long noId, LongSupplier relogio) {
+        if (noId < 0 || noId > MAX_NO) {
+            throw new IllegalArgumentException("pedidos.numero.no-id deve estar entre 0 e " + MAX_NO);
+        }
+        this.noId = noId;
+        this.relogio = relogio;
+    }
+
+    @Override
+    public String proximo() {
+        return formatar(proximoId());
+    }
+
+    long proximoId() {
+        long agora = relogio.getAsLong() - EPOCA;
+        long anterior;
+        long proximo;
+        do {
+            anterior = estado.get();
+            long ultimoInstante = anterior >>> BITS_SEQUENCIA;
+            if (agora > ultimoInstante) {
+                proximo = agora << BITS_SEQUENCIA;
+            } else {
+                // Mesmo milissegundo (ou relógio atrasado): incrementa a sequência;
+                // o estouro da sequência carrega para o instante, adiantando o relógio lógico
+                proximo = anterior + 1;
+            }
+        } while (!estado.compareAndSet(anterior, proximo));
+
+        long instante = proximo >>> BITS_SEQUENCIA;
+        long sequencia = proximo & MAX_SEQUENCIA;
+        return (instante << (BITS_NO + BITS_SEQUENCIA)) | (noId << BITS_SEQUENCIA) | sequencia;
+    }
+
+    static String formatar(long id) {
+        String base36 = Long.toString(id, 36).toUpperCase(Locale.ROOT);
+        return PREFIXO + "0".repeat(LARGURA - base36.length()) + base36;
+    }
+
+    private static long noIdPorHostname() {
+        try {
+            String hostname = InetAddress.getLocalHost().getHostName();
+            long noId = Math.floorMod(hostname.hashCode(), (int) MAX_NO + 1);
+            log.warn("pedidos.numero.no-id não configurado; usando {} (hash do hostname {}). " +
+                    "Configure um valor distinto por instância para garantir unicidade.", noId, hostname);
+            return noId;
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Não foi possível determinar o hostname; configure pedidos.numero.no-id", e);
+        }
+    }
+}
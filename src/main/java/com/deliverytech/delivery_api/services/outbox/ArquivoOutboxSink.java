@@ -0,0 +1,66 @@
+package com.deliverytech.delivery_api.services.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Sink em arquivo NDJSON (uma mensagem por linha), habilitado por pedidos.outbox.sink.arquivo.caminho.
+ * O lote só é confirmado ao relay depois do fsync, para que nada seja apagado do outbox antes de estar em disco.
+ */
+@Component
+@ConditionalOnProperty(name = "pedidos.outbox.sink.arquivo.caminho")
+public class ArquivoOutboxSink implements OutboxSink {
+
+    private final Path caminho;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ArquivoOutboxSink(@Value("${pedidos.outbox.sink.arquivo.caminho}") Path caminho, ObjectMapper objectMapper) {
+        this.caminho = caminho;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String nome() {
+        return "arquivo";
+    }
+
+    @Override
+    public synchronized void entregar(List<OutboxMensagem> mensagens) {
+        try {
+            StringBuilder linhas = new StringBuilder();
+            for (OutboxMensagem mensagem : mensagens) {
+                ObjectNode linha = objectMapper.createObjectNode()
+                        .put("id", mensagem.id())
+                        .put("tipo", mensagem.tipo())
+                        .put("pedidoId", mensagem.pedidoId())
+                        .put("criadoEm", mensagem.criadoEm().toString());
+                linha.set("evento", objectMapper.readTree(mensagem.payload()));
+                linhas.append(objectMapper.writeValueAsString(linha)).append('\n');
+            }
+            try (FileChannel canal = FileChannel.open(caminho,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(linhas.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                canal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar eventos do outbox em " + caminho, e);
+        }
+    }
+}
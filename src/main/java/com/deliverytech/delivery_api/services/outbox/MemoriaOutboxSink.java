@@ -0,0 +1,35 @@
+package com.deliverytech.delivery_api.services.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sink em memória, para testes e desenvolvimento (pedidos.outbox.sink.memoria.habilitado=true).
+ */
+@Component
+@ConditionalOnProperty(name = "pedidos.outbox.sink.memoria.habilitado", havingValue = "true")
+public class MemoriaOutboxSink implements OutboxSink {
+
+    private final List<OutboxMensagem> recebidas = new ArrayList<>();
+
+    @Override
+    public String nome() {
+        return "memoria";
+    }
+
+    @Override
+    public synchronized void entregar(List<OutboxMensagem> mensagens) {
+        recebidas.addAll(mensagens);
+    }
+
+    public synchronized List<OutboxMensagem> getRecebidas() {
+        return List.copyOf(recebidas);
+    }
+
+    public synchronized void limpar() {
+        recebidas.clear();
+    }
+}
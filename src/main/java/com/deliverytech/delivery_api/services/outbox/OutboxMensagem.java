@@ -0,0 +1,16 @@
+package com.deliverytech.delivery_api.services.outbox;
+
+import com.deliverytech.delivery_api.entity.OutboxEvento;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento do outbox como os sinks o recebem. A entrega é at-least-once:
+ * o mesmo id pode chegar mais de uma vez e deve ser usado pelos consumidores para descartar repetições.
+ */
+public record OutboxMensagem(Long id, String tipo, Long pedidoId, String payload, LocalDateTime criadoEm) {
+
+    public static OutboxMensagem de(OutboxEvento evento) {
+        return new OutboxMensagem(evento.getId(), evento.getTipo(), evento.getPedidoId(), evento.getPayload(), evento.getCriadoEm());
+    }
+}
@@ -0,0 +1,138 @@
+package com.deliverytech.delivery_api.services.outbox;
+
+import com.deliverytech.delivery_api.entity.OutboxEvento;
+import com.deliverytech.delivery_api.repository.OutboxEventoRepository;
+import com.deliverytech.delivery_api.services.tarefas.TarefaPeriodica;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Drena a tabela pedidos_outbox para os OutboxSink registrados.
+ *
+ * Cada rodada, em uma transação: lê até tamanho-lote eventos (FOR UPDATE SKIP LOCKED, na ordem de gravação),
+ * entrega o lote a todos os sinks e apaga as linhas. Se algum sink falhar, a transação volta e o lote inteiro
+ * é reentregue na próxima rodada (at-least-once). Com o lote cheio, a próxima rodada começa em seguida;
+ * com a fila vazia, espera o intervalo. Falhas seguidas aumentam a espera até 30s.
+ */
+@Slf4j
+@Component
+public class OutboxRelay extends TarefaPeriodica {
+
+    // Para depois do PedidoPipeline: os eventos gravados na drenagem do pipeline ainda saem nesta instância
+    private static final int FASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+    private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(30);
+
+    private final OutboxEventoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSink> sinks;
+    private final int tamanhoLote;
+
+    private final Counter entregues;
+    private final Counter falhas;
+    private final Timer duracaoLote;
+    private final Timer atraso;
+    private final DistributionSummary eventosPorLote;
+
+    @Autowired
+    public OutboxRelay(OutboxEventoRepository repository,
+                       PlatformTransactionManager transactionManager,
+                       List<OutboxSink> sinks,
+                       MeterRegistry meterRegistry,
+                       @Value("${pedidos.outbox.relay.habilitado:true}") boolean habilitado,
+                       @Value("${pedidos.outbox.relay.tamanho-lote:100}") int tamanhoLote,
+                       @Value("${pedidos.outbox.relay.intervalo:500ms}") Duration intervalo) {
+        super("pedidos-outbox-relay", habilitado, intervalo, "Falha ao entregar eventos do outbox");
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sinks = sinks;
+        this.tamanhoLote = tamanhoLote;
+
+        this.entregues = Counter.builder("pedidos.outbox.entregues")
+                .description("Eventos entregues a todos os sinks (taxa = vazão do relay)")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("pedidos.outbox.falhas")
+                .description("Rodadas em que algum sink falhou e o lote voltou para a fila")
+                .register(meterRegistry);
+        this.duracaoLote = Timer.builder("pedidos.outbox.lote")
+                .description("Duração da transação de cada lote (leitura, entrega e remoção)")
+                .register(meterRegistry);
+        this.atraso = Timer.builder("pedidos.outbox.atraso")
+                .description("Tempo entre a gravação do evento e sua entrega")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.eventosPorLote = DistributionSummary.builder("pedidos.outbox.eventos-por-lote")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Uma rodada do relay. Devolve quantos eventos foram entregues (0 = fila vazia ou nenhum sink).
+     */
+    public int drenar() {
+        if (sinks.isEmpty()) {
+            return 0;
+        }
+        Integer quantidade = duracaoLote.record(() -> transactionTemplate.execute(status -> {
+            List<OutboxEvento> eventos = repository.findPendentes(Limit.of(tamanhoLote));
+            if (eventos.isEmpty()) {
+                return 0;
+            }
+            List<OutboxMensagem> mensagens = eventos.stream().map(OutboxMensagem::de).toList();
+            for (OutboxSink sink : sinks) {
+                sink.entregar(mensagens);
+            }
+            repository.deleteAllByIdInBatch(mensagens.stream().map(OutboxMensagem::id).toList());
+            LocalDateTime entrega = LocalDateTime.now();
+            mensagens.forEach(m -> atraso.record(Duration.between(m.criadoEm(), entrega)));
+            return eventos.size();
+        }));
+        if (quantidade != null && quantidade > 0) {
+            entregues.increment(quantidade);
+            eventosPorLote.record(quantidade);
+        }
+        return quantidade == null ? 0 : quantidade;
+    }
+
+    @Override
+    public void start() {
+        if (sinks.isEmpty()) {
+            log.warn("Nenhum OutboxSink configurado: eventos de pedido ficam acumulados em pedidos_outbox");
+        }
+        super.start();
+    }
+
+    @Override
+    public int getPhase() {
+        return FASE;
+    }
+
+    @Override
+    protected boolean executarRodada() {
+        try {
+            // Lote cheio: ainda há eventos na fila, a próxima rodada começa em seguida
+            return drenar() >= tamanhoLote;
+        } catch (RuntimeException e) {
+            falhas.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    protected Duration esperaAposFalha(int falhasSeguidas) {
+        Duration espera = getIntervalo().multipliedBy(1L << Math.min(falhasSeguidas, 6));
+        return espera.compareTo(ESPERA_MAXIMA) > 0 ? ESPERA_MAXIMA : espera;
+    }
+}
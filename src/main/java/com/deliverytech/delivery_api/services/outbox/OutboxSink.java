@@ -0,0 +1,15 @@
+package com.deliverytech.delivery_api.services.outbox;
+
+import java.util.List;
+
+/**
+ * Destino dos eventos drenados pelo OutboxRelay (faturamento, notificações, entregadores...).
+ * Cada bean OutboxSink recebe todos os lotes. Uma exceção faz o lote inteiro ser reentregue
+ * (a todos os sinks) na próxima rodada, então a entrega precisa ser idempotente pelo id da mensagem.
+ */
+public interface OutboxSink {
+
+    String nome();
+
+    void entregar(List<OutboxMensagem> mensagens);
+}
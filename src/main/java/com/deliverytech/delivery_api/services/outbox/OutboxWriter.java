@@ -0,0 +1,45 @@
+package com.deliverytech.delivery_api.services.outbox;
+
+import com.deliverytech.delivery_api.entity.OutboxEvento;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Grava no outbox os eventos publicados pelo PedidoService (criação e mudanças de status, inclusive cancelamento).
+ * BEFORE_COMMIT: o INSERT entra na mesma transação do pedido, então o evento existe se e somente se o pedido
+ * foi gravado. É o único comando acrescentado ao caminho de escrita (e entra no lote JDBC do flush).
+ */
+@Component
+public class OutboxWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void registrar(PedidoEvento evento) {
+        OutboxEvento outbox = new OutboxEvento();
+        outbox.setTipo(evento.tipo().name());
+        outbox.setPedidoId(evento.pedidoId());
+        outbox.setPayload(serializar(evento));
+        outbox.setCriadoEm(evento.dataEvento());
+        entityManager.persist(outbox);
+    }
+
+    private String serializar(PedidoEvento evento) {
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Evento de pedido não serializável: " + evento, e);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.deliverytech.delivery_api.services.pipeline;
+
+import com.deliverytech.delivery_api.dto.PedidoAceiteDTO;
+import com.deliverytech.delivery_api.dto.PedidoAceiteDTO.Situacao;
+import com.deliverytech.delivery_api.dto.PedidoLoteResponseDTO;
+import com.deliverytech.delivery_api.dto.PedidoLoteResultadoDTO;
+import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.deliverytech.delivery_api.exceptions.ServiceUnavailableException;
+import com.deliverytech.delivery_api.services.PedidoService;
+import com.deliverytech.delivery_api.services.numeracao.GeradorNumeroPedido;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo assíncrono de POST /api/pedidos (Prefer: respond-async).
+ *
+ * A requisição só passa pela validação de campos, reserva o número do pedido e entra em uma fila limitada;
+ * a resposta é 202 com o número para acompanhamento. Workers retiram da fila o que estiver acumulado (até
+ * tamanho-lote) e gravam tudo em uma transação pelo caminho de lote do PedidoService. Assim, em um pico,
+ * quem limita a latência é a fila (cheia = 503 com Retry-After), e não o pool de conexões do banco.
+ *
+ * No desligamento (SmartLifecycle, depois do servidor web parar de aceitar requisições), novos aceites
+ * são recusados e os workers só terminam quando a fila estiver vazia ou o tempo de drenagem acabar.
+ */
+@Slf4j
+@Component
+public class PedidoPipeline implements SmartLifecycle {
+
+    // Para depois do servidor web (graceful shutdown em DEFAULT_PHASE - 1024 e DEFAULT_PHASE - 2048)
+    private static final int FASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final PedidoService pedidoService;
+    private final GeradorNumeroPedido geradorNumeroPedido;
+    private final int quantidadeWorkers;
+    private final int tamanhoLote;
+    private final Duration tempoDrenagem;
+    private final int maxAcompanhamentos;
+
+    private final BlockingQueue<Solicitacao> fila;
+    private final Map<String, Acompanhamento> acompanhamentos;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean rodando;
+
+    private final Counter aceitos;
+    private final Counter recusados;
+    private final Counter criados;
+    private final Counter rejeitados;
+    private final Timer espera;
+    private final Timer gravacaoLote;
+
+    @Autowired
+    public PedidoPipeline(PedidoService pedidoService,
+                          GeradorNumeroPedido geradorNumeroPedido,
+                          MeterRegistry meterRegistry,
+                          @Value("${pedidos.async.capacidade-fila:1000}") int capacidadeFila,
+                          @Value("${pedidos.async.workers:2}") int quantidadeWorkers,
+                          @Value("${pedidos.async.tamanho-lote:50}") int tamanhoLote,
+                          @Value("${pedidos.async.tempo-drenagem:30s}") Duration tempoDrenagem,
+                          @Value("${pedidos.async.max-acompanhamentos:10000}") int maxAcompanhamentos) {
+        this.pedidoService = pedidoService;
+        this.geradorNumeroPedido = geradorNumeroPedido;
+        this.quantidadeWorkers = quantidadeWorkers;
+        this.tamanhoLote = tamanhoLote;
+        this.tempoDrenagem = tempoDrenagem;
+        this.maxAcompanhamentos = maxAcompanhamentos;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        // Ordem de inserção: os pendentes são sempre os mais recentes (capacidade da fila < max-acompanhamentos)
+        this.acompanhamentos = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Acompanhamento> eldest) {
+                return size() > PedidoPipeline.this.maxAcompanhamentos;
+            }
+        };
+
+        Gauge.builder("pedidos.pipeline.fila", fila, BlockingQueue::size)
+                .description("Pedidos aguardando gravação")
+                .register(meterRegistry);
+        this.aceitos = Counter.builder("pedidos.pipeline.aceitos").register(meterRegistry);
+        this.recusados = Counter.builder("pedidos.pipeline.recusados")
+                .description("Aceites recusados com 503 (fila cheia ou desligando)")
+                .register(meterRegistry);
+        this.criados = Counter.builder("pedidos.pipeline.processados").tag("situacao", Situacao.CRIADO.name()).register(meterRegistry);
+        this.rejeitados = Counter.builder("pedidos.pipeline.processados").tag("situacao", Situacao.REJEITADO.name()).register(meterRegistry);
+        this.espera = Timer.builder("pedidos.pipeline.espera")
+                .description("Tempo entre o aceite (202) e o início da gravação")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.gravacaoLote = Timer.builder("pedidos.pipeline.lote")
+                .description("Duração da transação de cada lote")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enfileira o pedido (já validado pelo @Valid) e devolve o número reservado para acompanhamento.
+     */
+    public PedidoAceiteDTO aceitar(PedidoRequestDTO dto, String usuario) {
+        if (!rodando) {
+            recusados.increment();
+            throw new ServiceUnavailableException("Serviço em manutenção. Tente novamente em instantes.", 5);
+        }
+        PedidoAceiteDTO aceite = new PedidoAceiteDTO(geradorNumeroPedido.proximo(), Situacao.EM_FILA, null, null, LocalDateTime.now());
+        registrar(aceite, usuario);
+
+        if (!fila.offer(new Solicitacao(aceite.getNumeroPedido(), dto, System.nanoTime()))) {
+            synchronized (acompanhamentos) {
+                acompanhamentos.remove(aceite.getNumeroPedido());
+            }
+            recusados.increment();
+            throw new ServiceUnavailableException("Fila de pedidos cheia. Tente novamente em instantes.", 1);
+        }
+        aceitos.increment();
+        return aceite;
+    }
+
+    /**
+     * Situação de um pedido aceito. Só o usuário que o enviou enxerga o acompanhamento.
+     */
+    public Optional<PedidoAceiteDTO> acompanhar(String numeroPedido, String usuario) {
+        synchronized (acompanhamentos) {
+            Acompanhamento acompanhamento = acompanhamentos.get(numeroPedido);
+            if (acompanhamento == null || !acompanhamento.usuario().equals(usuario)) {
+                return Optional.empty();
+            }
+            return Optional.of(acompanhamento.aceite());
+        }
+    }
+
+    int tamanhoFila() {
+        return fila.size();
+    }
+
+    @Override
+    public void start() {
+        rodando = true;
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            Thread worker = new Thread(this::executarWorker, "pedidos-pipeline-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public void stop() {
+        rodando = false;
+        long limite = System.nanoTime() + tempoDrenagem.toNanos();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!fila.isEmpty()) {
+            log.error("Tempo de drenagem esgotado: {} pedidos aceitos não foram gravados", fila.size());
+        }
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return rodando;
+    }
+
+    @Override
+    public int getPhase() {
+        return FASE;
+    }
+
+    private void executarWorker() {
+        List<Solicitacao> lote = new ArrayList<>(tamanhoLote);
+        while (true) {
+            Solicitacao primeira;
+            try {
+                primeira = fila.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (primeira == null) {
+                if (!rodando) {
+                    return; // desligando e fila vazia: drenagem concluída
+                }
+                continue;
+            }
+            lote.add(primeira);
+            fila.drainTo(lote, tamanhoLote - 1);
+            processar(lote);
+            lote.clear();
+        }
+    }
+
+    private void processar(List<Solicitacao> lote) {
+        long inicio = System.nanoTime();
+        lote.forEach(s -> espera.record(inicio - s.aceitoEm(), TimeUnit.NANOSECONDS));
+
+        try {
+            PedidoLoteResponseDTO resposta = gravacaoLote.recordCallable(() -> pedidoService.criarPedidosAceitos(
+                    lote.stream().map(Solicitacao::dto).toList(),
+                    lote.stream().map(Solicitacao::numeroPedido).toList()));
+            for (PedidoLoteResultadoDTO resultado : resposta.getResultados()) {
+                Solicitacao solicitacao = lote.get(resultado.getIndice());
+                if (resultado.isSucesso()) {
+                    concluir(solicitacao, Situacao.CRIADO, resultado.getPedidoId(), null);
+                } else {
+                    concluir(solicitacao, Situacao.REJEITADO, null, resultado.getErro());
+                }
+            }
+        } catch (Exception e) {
+            if (lote.size() > 1) {
+                // Erros de banco na gravação já são isolados por pedido no serviço; qualquer outra falha
+                // (leitura do lote, por exemplo) é isolada regravando um a um
+                log.warn("Falha ao gravar lote de {} pedidos, regravando individualmente: {}", lote.size(), e.getMessage());
+                lote.forEach(s -> processar(List.of(s)));
+            } else {
+                log.error("Falha ao gravar o pedido aceito {}", lote.get(0).numeroPedido(), e);
+                concluir(lote.get(0), Situacao.REJEITADO, null, "Falha ao gravar o pedido");
+            }
+        }
+    }
+
+    private void concluir(Solicitacao solicitacao, Situacao situacao, Long pedidoId, String erro) {
+        (situacao == Situacao.CRIADO ? criados : rejeitados).increment();
+        synchronized (acompanhamentos) {
+            Acompanhamento atual = acompanhamentos.get(solicitacao.numeroPedido());
+            if (atual != null) {
+                PedidoAceiteDTO aceite = atual.aceite();
+                acompanhamentos.put(solicitacao.numeroPedido(), new Acompanhamento(atual.usuario(),
+                        new PedidoAceiteDTO(aceite.getNumeroPedido(), situacao, pedidoId, erro, aceite.getDataAceite())));
+            }
+        }
+    }
+
+    private void registrar(PedidoAceiteDTO aceite, String usuario) {
+        synchronized (acompanhamentos) {
+            acompanhamentos.put(aceite.getNumeroPedido(), new Acompanhamento(usuario, aceite));
+        }
+    }
+
+    private record Solicitacao(String numeroPedido, PedidoRequestDTO dto, long aceitoEm) {
+    }
+
+    private record Acompanhamento(String usuario, PedidoAceiteDTO aceite) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.deliverytech.delivery_api.services.relatorios;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.repository.RollupVendasRepository;
+import com.deliverytech.delivery_api.repository.RollupVendasRepository.Movimento;
+import com.deliverytech.delivery_api.services.outbox.OutboxMensagem;
+import com.deliverytech.delivery_api.services.outbox.OutboxSink;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mantém os rollups diários dos relatórios a partir do outbox de pedidos: criação soma em pedidos/valor_total,
+ * cancelamento em cancelados/valor_cancelado e entrega em entregues/valor_entregue.
+ *
+ * Fica fora da transação do pedido: as linhas (dia, categoria) e (dia, restaurante) são quentes, e um UPSERT nelas
+ * no checkout travaria todos os pedidos da mesma categoria no dia até o commit. Aqui a soma roda na transação do
+ * OutboxRelay, um comando por rollup e tipo de movimento para o lote inteiro, junto da remoção das mensagens:
+ * cada evento soma exatamente uma vez, e só o relay disputa as linhas. Com o relay desligado, os rollups só
+ * andam com o ReconciliadorRollups.
+ */
+@Component
+public class AtualizadorRollups implements OutboxSink {
+
+    @Autowired
+    private RollupVendasRepository rollupVendasRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public String nome() {
+        return "rollups";
+    }
+
+    @Override
+    public void entregar(List<OutboxMensagem> mensagens) {
+        Map<Movimento, Set<Long>> porMovimento = new EnumMap<>(Movimento.class);
+        for (OutboxMensagem mensagem : mensagens) {
+            Movimento movimento = movimento(mensagem);
+            if (movimento != null) {
+                porMovimento.computeIfAbsent(movimento, m -> new LinkedHashSet<>()).add(mensagem.pedidoId());
+            }
+        }
+        porMovimento.forEach(rollupVendasRepository::somar);
+    }
+
+    private Movimento movimento(OutboxMensagem mensagem) {
+        if (PedidoEvento.Tipo.CRIADO.name().equals(mensagem.tipo())) {
+            return Movimento.CRIADO;
+        }
+        String status = status(mensagem);
+        if (StatusPedido.CANCELADO.name().equals(status)) {
+            return Movimento.CANCELADO;
+        }
+        if (StatusPedido.ENTREGUE.name().equals(status)) {
+            return Movimento.ENTREGUE;
+        }
+        return null;
+    }
+
+    private String status(OutboxMensagem mensagem) {
+        try {
+            return objectMapper.readTree(mensagem.payload()).path("status").asText(null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Evento de outbox ilegível: " + mensagem.id(), e);
+        }
+    }
+}
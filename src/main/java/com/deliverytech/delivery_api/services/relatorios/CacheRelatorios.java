@@ -0,0 +1,183 @@
+package com.deliverytech.delivery_api.services.relatorios;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Cache (por instância) dos relatórios agregados do painel, por relatório + parâmetros, em fatias de tempo
+ * alinhadas ao relógio: todas as sessões que atualizam o painel dentro da mesma fatia recebem o mesmo resultado.
+ * Só para agregados, que toleram a defasagem de max-desatualizado; listagens paginadas de pedidos ficam de fora.
+ *
+ * Resultado de uma fatia anterior, ainda dentro de max-desatualizado, é devolvido na hora e recalculado em
+ * segundo plano (virtual thread). Sem resultado utilizável, quem chama calcula; chamadas iguais e simultâneas
+ * esperam o mesmo cálculo em vez de repetir a agregação (um cálculo por chave por vez, também em segundo plano).
+ * Erros não ficam no cache.
+ *
+ * Métricas por relatório: relatorios.cache.consultas (resultado = fresco, desatualizado, ausente) e
+ * relatorios.cache.recalculo (duração de cada cálculo).
+ */
+@Slf4j
+@Component
+public class CacheRelatorios {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean habilitado;
+    private final long fatiaMillis;
+    private final long maxDesatualizadoMillis;
+
+    // Acesso sincronizado no próprio mapa (LRU)
+    private final Map<Chave, Entrada> entradas;
+    private final Map<Chave, CompletableFuture<Object>> emCalculo = new ConcurrentHashMap<>();
+    private final Map<String, Metricas> metricas = new ConcurrentHashMap<>();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("relatorios-cache-", 0).factory());
+
+    @Autowired
+    public CacheRelatorios(MeterRegistry meterRegistry,
+                           @Value("${pedidos.relatorios.cache.habilitado:true}") boolean habilitado,
+                           @Value("${pedidos.relatorios.cache.fatia:30s}") Duration fatia,
+                           @Value("${pedidos.relatorios.cache.max-desatualizado:5m}") Duration maxDesatualizado,
+                           @Value("${pedidos.relatorios.cache.max-entradas:1000}") int maxEntradas) {
+        this.meterRegistry = meterRegistry;
+        this.habilitado = habilitado && !fatia.isZero();
+        this.fatiaMillis = Math.max(1, fatia.toMillis());
+        this.maxDesatualizadoMillis = maxDesatualizado.toMillis();
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, Entrada> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Resultado do relatório para os parâmetros, do cache ou de {@code calculo}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obter(String relatorio, Supplier<T> calculo, Object... parametros) {
+        if (!habilitado) {
+            return calculo.get();
+        }
+        Chave chave = new Chave(relatorio, Arrays.asList(parametros.clone()));
+        Metricas metricasRelatorio = metricas(relatorio);
+        long agora = System.currentTimeMillis();
+        Entrada entrada;
+        synchronized (entradas) {
+            entrada = entradas.get(chave);
+        }
+        if (entrada != null && entrada.fatia() == agora / fatiaMillis) {
+            metricasRelatorio.frescos.increment();
+            return (T) entrada.valor();
+        }
+        if (entrada != null && agora - entrada.calculadoEm() <= maxDesatualizadoMillis) {
+            metricasRelatorio.desatualizados.increment();
+            if (!emCalculo.containsKey(chave)) {
+                try {
+                    executor.execute(() -> recalcularEmSegundoPlano(chave, calculo));
+                } catch (RejectedExecutionException e) {
+                    // Desligando: o resultado desatualizado serve
+                }
+            }
+            return (T) entrada.valor();
+        }
+        metricasRelatorio.ausentes.increment();
+        try {
+            return (T) calcular(chave, calculo).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Descarta tudo (ex.: depois de uma reconstrução dos rollups). Cálculos em andamento terminam e gravam.
+     */
+    public void limpar() {
+        synchronized (entradas) {
+            entradas.clear();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private void recalcularEmSegundoPlano(Chave chave, Supplier<?> calculo) {
+        try {
+            calcular(chave, calculo).join();
+        } catch (Exception e) {
+            log.warn("Falha ao recalcular o relatório {} em segundo plano: {}", chave.relatorio(), e.getMessage());
+        }
+    }
+
+    // Um cálculo por chave: quem chega durante um cálculo recebe o mesmo future
+    private CompletableFuture<Object> calcular(Chave chave, Supplier<?> calculo) {
+        CompletableFuture<Object> novo = new CompletableFuture<>();
+        CompletableFuture<Object> emAndamento = emCalculo.putIfAbsent(chave, novo);
+        if (emAndamento != null) {
+            return emAndamento;
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+            Object valor = metricas(chave.relatorio()).recalculo.record(calculo::get);
+            synchronized (entradas) {
+                entradas.put(chave, new Entrada(valor, inicio / fatiaMillis, inicio));
+            }
+            novo.complete(valor);
+        } catch (RuntimeException e) {
+            novo.completeExceptionally(e);
+        } finally {
+            emCalculo.remove(chave, novo);
+        }
+        return novo;
+    }
+
+    private Metricas metricas(String relatorio) {
+        return metricas.computeIfAbsent(relatorio, r -> new Metricas(
+                consultas(r, "fresco"), consultas(r, "desatualizado"), consultas(r, "ausente"),
+                Timer.builder("relatorios.cache.recalculo")
+                        .description("Duração do cálculo de um relatório para o cache")
+                        .tag("relatorio", r)
+                        .register(meterRegistry)));
+    }
+
+    private Counter consultas(String relatorio, String resultado) {
+        return Counter.builder("relatorios.cache.consultas")
+                .description("Consultas ao cache de relatórios por resultado (taxa de acerto = fresco + desatualizado)")
+                .tag("relatorio", relatorio)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private record Chave(String relatorio, List<Object> parametros) {
+    }
+
+    // fatia: a do início do cálculo (um cálculo que atravessa a virada já nasce desatualizado)
+    private record Entrada(Object valor, long fatia, long calculadoEm) {
+    }
+
+    private record Metricas(Counter frescos, Counter desatualizados, Counter ausentes, Timer recalculo) {
+    }
+}
@@ -0,0 +1,321 @@
+package com.deliverytech.delivery_api.services.relatorios;
+
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.exceptions.TooManyRequestsException;
+import com.deliverytech.delivery_api.repository.PedidoConsolidadoRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+
+/**
+ * Exportação dos pedidos de um período (mesmas colunas do PedidoResumoDTO) direto do cursor JDBC para a saída.
+ *
+ * Cursor forward-only com fetch size ajustado: o driver traz o resultado em blocos e cada linha é escrita assim
+ * que lida, sem DTO nem lista, com memória constante qualquer que seja o período. Pedidos arquivados
+ * (quando o período os alcança) saem antes dos ativos, cada parte em ordem de data pelo índice (data_pedido, id).
+ * As duas tabelas são lidas na mesma transação somente leitura em REPEATABLE READ (um único snapshot no InnoDB):
+ * um lote que o arquivador mova durante a exportação não sai duas vezes nem some do arquivo.
+ * A conexão fica presa enquanto o cliente lê: quem chama deve usar uma thread fora do pool do servidor e, no
+ * streaming direto para o cliente, reservar uma vaga ({@link #reservarVaga()}) para não esgotar o pool de conexões.
+ */
+@Service
+public class ExportadorPedidos {
+
+    private static final String COLUNAS = "SELECT p.id, p.numero_pedido, p.data_pedido, p.status, p.valor_total, r.nome ";
+    private static final String FILTRO = "p LEFT JOIN restaurantes r ON r.id = p.restaurante_id " +
+            "WHERE p.data_pedido >= ? AND p.data_pedido <= ? ORDER BY p.data_pedido, p.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PedidoConsolidadoRepository pedidoConsolidadoRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate snapshot;
+    private final Semaphore vagas;
+
+    @Autowired
+    public ExportadorPedidos(DataSource dataSource,
+                             PedidoConsolidadoRepository pedidoConsolidadoRepository,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${pedidos.exportacao.fetch-size:1000}") int fetchSize,
+                             @Value("${pedidos.exportacao.maximo-simultaneas:2}") int maximoSimultaneas) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.pedidoConsolidadoRepository = pedidoConsolidadoRepository;
+        this.objectMapper = objectMapper;
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.vagas = new Semaphore(maximoSimultaneas);
+    }
+
+    public enum Formato {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        public static Formato de(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("Formato de exportação inválido: " + valor + " (use csv ou ndjson)");
+            }
+        }
+    }
+
+    /**
+     * Vaga para uma exportação em streaming: sem vaga livre, 429 na hora em vez de mais uma conexão presa.
+     * Quem reserva libera com close ao terminar de escrever (os jobs em segundo plano já têm o próprio limite).
+     */
+    public Vaga reservarVaga() {
+        if (!vagas.tryAcquire()) {
+            throw new TooManyRequestsException("Limite de exportações simultâneas atingido. Tente novamente em instantes.", 30);
+        }
+        return new Vaga(vagas);
+    }
+
+    /**
+     * Liberada uma vez só, mesmo com close repetido.
+     */
+    public static final class Vaga implements AutoCloseable {
+
+        private final Semaphore vagas;
+        private final AtomicBoolean liberada = new AtomicBoolean();
+
+        private Vaga(Semaphore vagas) {
+            this.vagas = vagas;
+        }
+
+        @Override
+        public void close() {
+            if (liberada.compareAndSet(false, true)) {
+                vagas.release();
+            }
+        }
+    }
+
+    /**
+     * Escreve os pedidos de inicio a fim (inclusive) em saida. Não fecha a saída. Devolve a quantidade de linhas.
+     */
+    public long exportar(LocalDateTime inicio, LocalDateTime fim, Formato formato, OutputStream saida) throws IOException {
+        return exportar(inicio, fim, formato, saida, linhas -> { });
+    }
+
+    /**
+     * Como {@link #exportar(LocalDateTime, LocalDateTime, Formato, OutputStream)}, avisando progresso com o total de
+     * linhas escritas até o momento a cada linha. Uma RuntimeException lançada pelo progresso interrompe o cursor.
+     */
+    public long exportar(LocalDateTime inicio, LocalDateTime fim, Formato formato, OutputStream saida,
+                         LongConsumer progresso) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 16 * 1024);
+        Escritor escritor = formato == Formato.CSV ? new EscritorCsv(writer) : new EscritorNdjson(objectMapper, writer);
+        long linhas;
+        try {
+            linhas = snapshot.execute(status -> {
+                try {
+                    escritor.cabecalho();
+                    long total = 0;
+                    if (alcancaArquivados(inicio)) {
+                        total += escrever("pedidos_historico", inicio, fim, escritor, total, progresso);
+                    }
+                    total += escrever("pedidos", inicio, fim, escritor, total, progresso);
+                    escritor.fim();
+                    return total;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Cliente desconectou no meio: interrompe a leitura do cursor
+            throw e.getCause();
+        }
+        writer.flush();
+        return linhas;
+    }
+
+    /**
+     * Quantidade de linhas que exportar escreveria para o período (estimativa de progresso: o período ainda aberto
+     * pode ganhar pedidos entre a contagem e a leitura).
+     */
+    public long contar(LocalDateTime inicio, LocalDateTime fim) {
+        String filtro = " WHERE data_pedido >= ? AND data_pedido <= ?";
+        return snapshot.execute(status -> {
+            long total = 0;
+            if (alcancaArquivados(inicio)) {
+                total += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedidos_historico" + filtro, Long.class,
+                        Timestamp.valueOf(inicio), Timestamp.valueOf(fim));
+            }
+            total += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedidos" + filtro, Long.class,
+                    Timestamp.valueOf(inicio), Timestamp.valueOf(fim));
+            return total;
+        });
+    }
+
+    /**
+     * Campo CSV conforme a RFC 4180 (entre aspas só quando precisa); null vira campo vazio.
+     */
+    static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    // Mesmo corte do PedidoService: só lê pedidos_historico se o período começar antes do arquivado mais recente
+    private boolean alcancaArquivados(LocalDateTime inicio) {
+        return pedidoConsolidadoRepository.findDataMaisRecenteArquivada()
+                .map(maisRecente -> !inicio.isAfter(maisRecente))
+                .orElse(false);
+    }
+
+    private long escrever(String tabela, LocalDateTime inicio, LocalDateTime fim, Escritor escritor,
+                          long anteriores, LongConsumer progresso) {
+        long[] linhas = {0};
+        jdbcTemplate.query(COLUNAS + "FROM " + tabela + " " + FILTRO, rs -> {
+            try {
+                escritor.linha(rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            linhas[0]++;
+            progresso.accept(anteriores + linhas[0]);
+        }, Timestamp.valueOf(inicio), Timestamp.valueOf(fim));
+        return linhas[0];
+    }
+
+    private interface Escritor {
+
+        void cabecalho() throws IOException;
+
+        void linha(ResultSet rs) throws SQLException, IOException;
+
+        void fim() throws IOException;
+    }
+
+    /**
+     * RFC 4180: separador vírgula, ponto decimal, campos com vírgula, aspas ou quebra de linha entre aspas.
+     */
+    private static final class EscritorCsv implements Escritor {
+
+        private final Writer writer;
+
+        EscritorCsv(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void cabecalho() throws IOException {
+            writer.write("id,numeroPedido,dataPedido,status,valorTotal,nomeRestaurante\r\n");
+        }
+
+        @Override
+        public void linha(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            campo(rs.getString(2));
+            writer.write(',');
+            Timestamp data = rs.getTimestamp(3);
+            campo(data != null ? data.toLocalDateTime().toString() : null);
+            writer.write(',');
+            campo(rs.getString(4));
+            writer.write(',');
+            BigDecimal valor = rs.getBigDecimal(5);
+            campo(valor != null ? valor.toPlainString() : null);
+            writer.write(',');
+            campo(rs.getString(6));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void fim() {
+        }
+
+        private void campo(String valor) throws IOException {
+            writer.write(campoCsv(valor));
+        }
+    }
+
+    /**
+     * Um objeto JSON por linha, com os nomes de campo do PedidoResumoDTO.
+     */
+    private static final class EscritorNdjson implements Escritor {
+
+        private final JsonGenerator json;
+
+        EscritorNdjson(ObjectMapper objectMapper, Writer writer) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(writer);
+            // Cada objeto termina na própria quebra de linha, sem o espaço padrão entre valores de raiz
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void cabecalho() {
+        }
+
+        @Override
+        public void linha(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong(1));
+            json.writeStringField("numeroPedido", rs.getString(2));
+            Timestamp data = rs.getTimestamp(3);
+            json.writeStringField("dataPedido", data != null ? data.toLocalDateTime().toString() : null);
+            json.writeStringField("status", rs.getString(4));
+            BigDecimal valor = rs.getBigDecimal(5);
+            if (valor != null) {
+                json.writeNumberField("valorTotal", valor);
+            } else {
+                json.writeNullField("valorTotal");
+            }
+            json.writeStringField("nomeRestaurante", rs.getString(6));
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void fim() throws IOException {
+            // Esvazia o buffer do gerador no writer, sem fechar a saída
+            json.flush();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.deliverytech.delivery_api.services.relatorios;
+
+import com.deliverytech.delivery_api.dto.RelatorioJobDTO;
+import com.deliverytech.delivery_api.dto.RelatorioJobDTO.Situacao;
+import com.deliverytech.delivery_api.dto.RelatorioJobRequestDTO;
+import com.deliverytech.delivery_api.dto.RelatorioJobRequestDTO.Tipo;
+import com.deliverytech.delivery_api.dto.reports.RelatorioRankingClienteDTO;
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.exceptions.ConflictException;
+import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
+import com.deliverytech.delivery_api.exceptions.ServiceUnavailableException;
+import com.deliverytech.delivery_api.repository.ClienteRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Relatórios longos demais para uma requisição (um ano de pedidos por período, ranking completo de clientes)
+ * gerados em segundo plano: POST /api/relatorios/jobs devolve o id, GET /jobs/{id} o progresso e
+ * GET /jobs/{id}/resultado o arquivo.
+ *
+ * Um pool fixo de threads com fila limitada executa os jobs (fila cheia = 503 com Retry-After), então no máximo
+ * {@code threads} conexões ficam presas em cursores longos. Cada job escreve em um arquivo local (.part até terminar).
+ * Submeter de novo os mesmos parâmetros, enquanto o job anterior está na fila, executando ou concluído dentro da
+ * retenção, devolve o mesmo job. Cancelar interrompe a execução entre uma linha e outra e apaga o arquivo parcial;
+ * o resultado concluído fica disponível até a retenção acabar (ou até ser descartado com DELETE).
+ *
+ * Jobs ficam só em memória: em um reinício, os arquivos que sobraram são apagados.
+ */
+@Slf4j
+@Component
+public class JobsRelatorios {
+
+    private static final String PARCIAL = ".part";
+
+    private final ExportadorPedidos exportadorPedidos;
+    private final ClienteRepository clienteRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Path diretorio;
+    private final Duration retencao;
+    private final ThreadPoolExecutor executor;
+
+    // Por id e por parâmetros (deduplicação); alterados juntos sob o monitor de jobs
+    private final Map<String, Job> jobs = new HashMap<>();
+    private final Map<Parametros, Job> porParametros = new HashMap<>();
+
+    @Autowired
+    public JobsRelatorios(ExportadorPedidos exportadorPedidos,
+                          ClienteRepository clienteRepository,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${pedidos.relatorios.jobs.diretorio:${java.io.tmpdir}/delivery-api-relatorios}") Path diretorio,
+                          @Value("${pedidos.relatorios.jobs.threads:2}") int threads,
+                          @Value("${pedidos.relatorios.jobs.capacidade-fila:20}") int capacidadeFila,
+                          @Value("${pedidos.relatorios.jobs.retencao:1h}") Duration retencao) {
+        this.exportadorPedidos = exportadorPedidos;
+        this.clienteRepository = clienteRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.diretorio = diretorio;
+        this.retencao = retencao;
+        prepararDiretorio();
+
+        AtomicInteger sequencia = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila),
+                tarefa -> new Thread(tarefa, "relatorios-job-" + sequencia.getAndIncrement()));
+
+        Gauge.builder("relatorios.jobs.fila", executor, e -> e.getQueue().size())
+                .description("Jobs de relatório aguardando uma thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Agenda o relatório, ou devolve o job já existente com os mesmos parâmetros.
+     */
+    public RelatorioJobDTO submeter(RelatorioJobRequestDTO dto) {
+        Parametros parametros = Parametros.de(dto);
+        synchronized (jobs) {
+            removerExpirados();
+            Job existente = porParametros.get(parametros);
+            if (existente != null) {
+                return existente.dto();
+            }
+            Job job = new Job(UUID.randomUUID().toString(), parametros);
+            try {
+                job.future = executor.submit(() -> executar(job));
+            } catch (RejectedExecutionException e) {
+                throw new ServiceUnavailableException("Fila de relatórios cheia. Tente novamente em instantes.", 30);
+            }
+            jobs.put(job.id, job);
+            porParametros.put(parametros, job);
+            return job.dto();
+        }
+    }
+
+    public RelatorioJobDTO consultar(String id) {
+        return buscar(id).dto();
+    }
+
+    /**
+     * Arquivo de um job concluído. 409 enquanto o job não tiver terminado com sucesso.
+     */
+    public Resultado resultado(String id) {
+        Job job = buscar(id);
+        if (job.situacao != Situacao.CONCLUIDO) {
+            throw new ConflictException("Relatório " + id + " não está concluído (situação: " + job.situacao + ")");
+        }
+        Parametros p = job.parametros;
+        String nome = switch (p.tipo()) {
+            case PEDIDOS_POR_PERIODO -> "pedidos-" + p.dataInicio().toLocalDate() + "-" + p.dataFim().toLocalDate();
+            case CLIENTES_MAIS_ATIVOS -> "clientes-mais-ativos";
+        };
+        return new Resultado(job.arquivo, nome + "." + p.formato().getExtensao(), p.formato(), job.tamanhoBytes);
+    }
+
+    /**
+     * Cancela um job na fila ou executando; um job já terminado é descartado (arquivo apagado, id esquecido).
+     */
+    public void cancelar(String id) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+            if (job == null) {
+                throw new EntityNotFoundException("Job de relatório não encontrado: " + id);
+            }
+            porParametros.remove(job.parametros, job);
+            if (job.terminado()) {
+                jobs.remove(id);
+                apagar(job.arquivo);
+                return;
+            }
+            job.cancelado = true;
+            job.terminar(Situacao.CANCELADO, null);
+        }
+        // A thread confere a marca a cada linha; a interrupção acorda quem estiver bloqueado no banco ou no disco
+        job.future.cancel(true);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private Job buscar(String id) {
+        synchronized (jobs) {
+            removerExpirados();
+            Job job = jobs.get(id);
+            if (job == null) {
+                throw new EntityNotFoundException("Job de relatório não encontrado: " + id);
+            }
+            return job;
+        }
+    }
+
+    private void executar(Job job) {
+        synchronized (jobs) {
+            if (job.cancelado) {
+                return;
+            }
+            job.situacao = Situacao.EXECUTANDO;
+        }
+        long inicio = System.nanoTime();
+        Path parcial = diretorio.resolve(job.id + PARCIAL);
+        Path arquivo = diretorio.resolve(job.id + "." + job.parametros.formato().getExtensao());
+        try {
+            try (OutputStream saida = Files.newOutputStream(parcial)) {
+                gerar(job, saida);
+            }
+            Files.move(parcial, arquivo, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (jobs) {
+                if (job.cancelado) {
+                    apagar(arquivo);
+                } else {
+                    job.arquivo = arquivo;
+                    job.tamanhoBytes = Files.size(arquivo);
+                    job.terminar(Situacao.CONCLUIDO, null);
+                }
+            }
+        } catch (Exception e) {
+            apagar(parcial);
+            synchronized (jobs) {
+                if (!job.cancelado) {
+                    log.error("Falha ao gerar o relatório {} ({})", job.id, job.parametros.tipo(), e);
+                    job.terminar(Situacao.FALHOU, "Falha ao gerar o relatório");
+                    // Uma nova submissão tenta de novo em vez de devolver a falha
+                    porParametros.remove(job.parametros, job);
+                }
+            }
+        } finally {
+            Timer.builder("relatorios.jobs.duracao")
+                    .description("Duração da geração de um relatório em segundo plano")
+                    .tag("tipo", job.parametros.tipo().name())
+                    .tag("situacao", job.situacao.name())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void gerar(Job job, OutputStream saida) throws IOException {
+        Parametros p = job.parametros;
+        switch (p.tipo()) {
+            case PEDIDOS_POR_PERIODO -> {
+                job.totalEstimado = exportadorPedidos.contar(p.dataInicio(), p.dataFim());
+                exportadorPedidos.exportar(p.dataInicio(), p.dataFim(), p.formato(), saida, job::progresso);
+            }
+            case CLIENTES_MAIS_ATIVOS -> {
+                List<RelatorioRankingClienteDTO> ranking = clienteRepository.findRankingClientesPorPedidos()
+                        .stream()
+                        .map(RelatorioRankingClienteDTO::new)
+                        .toList();
+                job.totalEstimado = (long) ranking.size();
+                escreverRankingClientes(job, ranking, p.formato(), saida);
+            }
+        }
+    }
+
+    private void escreverRankingClientes(Job job, List<RelatorioRankingClienteDTO> ranking,
+                                         ExportadorPedidos.Formato formato, OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 16 * 1024);
+        long linhas = 0;
+        if (formato == ExportadorPedidos.Formato.CSV) {
+            writer.write("clienteNome,totalPedidos\r\n");
+            for (RelatorioRankingClienteDTO cliente : ranking) {
+                writer.write(ExportadorPedidos.campoCsv(cliente.clienteNome()));
+                writer.write(',');
+                writer.write(String.valueOf(cliente.totalPedidos()));
+                writer.write("\r\n");
+                job.progresso(++linhas);
+            }
+        } else {
+            JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+            json.setRootValueSeparator(null);
+            for (RelatorioRankingClienteDTO cliente : ranking) {
+                json.writeObject(cliente);
+                json.writeRaw('\n');
+                job.progresso(++linhas);
+            }
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    // Chamado sob o monitor de jobs
+    private void removerExpirados() {
+        LocalDateTime limite = LocalDateTime.now().minus(retencao);
+        jobs.values().removeIf(job -> {
+            if (!job.terminado() || job.concluidoEm.isAfter(limite)) {
+                return false;
+            }
+            porParametros.remove(job.parametros, job);
+            apagar(job.arquivo);
+            return true;
+        });
+    }
+
+    private void prepararDiretorio() {
+        try {
+            Files.createDirectories(diretorio);
+            // Sobras de uma execução anterior (os jobs ficam só em memória): só arquivos com nome de job
+            try (DirectoryStream<Path> sobras = Files.newDirectoryStream(diretorio, "*-*-*-*-*.{part,csv,ndjson}")) {
+                for (Path sobra : sobras) {
+                    apagar(sobra);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Diretório de relatórios inacessível: " + diretorio, e);
+        }
+    }
+
+    private static void apagar(Path arquivo) {
+        if (arquivo == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Não foi possível apagar o arquivo de relatório {}: {}", arquivo, e.getMessage());
+        }
+    }
+
+    /**
+     * Arquivo pronto para download.
+     */
+    public record Resultado(Path arquivo, String nomeArquivo, ExportadorPedidos.Formato formato, long tamanhoBytes) {
+    }
+
+    // Chave de deduplicação: o período só conta para PEDIDOS_POR_PERIODO
+    private record Parametros(Tipo tipo, LocalDateTime dataInicio, LocalDateTime dataFim, ExportadorPedidos.Formato formato) {
+
+        static Parametros de(RelatorioJobRequestDTO dto) {
+            ExportadorPedidos.Formato formato = ExportadorPedidos.Formato.de(dto.getFormato() != null ? dto.getFormato() : "csv");
+            if (dto.getTipo() == Tipo.CLIENTES_MAIS_ATIVOS) {
+                return new Parametros(dto.getTipo(), null, null, formato);
+            }
+            if (dto.getDataInicio() == null || dto.getDataFim() == null) {
+                throw new BusinessException("dataInicio e dataFim são obrigatórios para " + dto.getTipo());
+            }
+            if (dto.getDataFim().isBefore(dto.getDataInicio())) {
+                throw new BusinessException("dataFim deve ser igual ou posterior a dataInicio");
+            }
+            return new Parametros(dto.getTipo(), dto.getDataInicio(), dto.getDataFim(), formato);
+        }
+    }
+
+    private static final class Job {
+
+        final String id;
+        final Parametros parametros;
+        final LocalDateTime criadoEm = LocalDateTime.now();
+        volatile Situacao situacao = Situacao.EM_FILA;
+        volatile long linhasProcessadas;
+        volatile Long totalEstimado;
+        volatile boolean cancelado;
+        volatile Path arquivo;
+        volatile Long tamanhoBytes;
+        volatile String erro;
+        volatile LocalDateTime concluidoEm;
+        volatile Future<?> future;
+
+        Job(String id, Parametros parametros) {
+            this.id = id;
+            this.parametros = parametros;
+        }
+
+        void progresso(long linhas) {
+            if (cancelado) {
+                throw new CancellationException();
+            }
+            linhasProcessadas = linhas;
+        }
+
+        boolean terminado() {
+            return concluidoEm != null;
+        }
+
+        void terminar(Situacao situacao, String erro) {
+            this.erro = erro;
+            this.situacao = situacao;
+            this.concluidoEm = LocalDateTime.now();
+        }
+
+        RelatorioJobDTO dto() {
+            Long total = totalEstimado;
+            long linhas = linhasProcessadas;
+            Integer percentual = situacao == Situacao.CONCLUIDO ? Integer.valueOf(100)
+                    : total == null || total == 0 ? null : (int) Math.min(99, linhas * 100 / total);
+            return new RelatorioJobDTO(id, parametros.tipo(), parametros.formato().getExtensao(), situacao, linhas, total,
+                    percentual, tamanhoBytes, erro, criadoEm, concluidoEm);
+        }
+    }
+}
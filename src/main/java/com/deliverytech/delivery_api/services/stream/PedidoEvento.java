@@ -0,0 +1,41 @@
+package com.deliverytech.delivery_api.services.stream;
+
+import com.deliverytech.delivery_api.entity.Pedido;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de domínio publicado pelo PedidoService (novo pedido ou mudança de status)
+ * e repassado aos restaurantes conectados em /api/pedidos/recebidos/stream.
+ * Na mudança de status restauranteId e clienteId vêm da própria atualização (PedidoStatusAtual), para que os
+ * ouvintes e o outbox não precisem reler o pedido.
+ * Na criação, dataEvento é a data do pedido.
+ */
+public record PedidoEvento(
+        Tipo tipo,
+        Long pedidoId,
+        Long restauranteId,
+        Long clienteId,
+        String numeroPedido,
+        String status,
+        BigDecimal valorTotal,
+        LocalDateTime dataEvento) {
+
+    public enum Tipo {
+        CRIADO,
+        STATUS_ALTERADO
+    }
+
+    public static PedidoEvento criado(Pedido pedido) {
+        return new PedidoEvento(Tipo.CRIADO, pedido.getId(), pedido.getRestaurante().getId(), pedido.getClienteId(),
+                pedido.getNumeroPedido(), pedido.getStatus(), pedido.getValorTotal(),
+                pedido.getDataPedido() != null ? pedido.getDataPedido() : LocalDateTime.now());
+    }
+
+    public static PedidoEvento statusAlterado(Long pedidoId, StatusPedido status, Long restauranteId, Long clienteId) {
+        return new PedidoEvento(Tipo.STATUS_ALTERADO, pedidoId, restauranteId, clienteId, null, status.name(), null,
+                LocalDateTime.now());
+    }
+}
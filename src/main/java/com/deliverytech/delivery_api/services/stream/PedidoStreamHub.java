@@ -0,0 +1,295 @@
+package com.deliverytech.delivery_api.services.stream;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribui os eventos de pedido (SSE) para os tablets dos restaurantes, no lugar do polling em /recebidos.
+ *
+ * Cada restaurante com alguém conectado tem um canal com um buffer circular dos últimos eventos,
+ * usado para retomar a conexão a partir do header Last-Event-ID. Cada conexão tem uma fila limitada
+ * e uma virtual thread que a esvazia (e manda heartbeats quando não há eventos). Se a fila encher,
+ * o cliente está lento: a conexão é encerrada e o EventSource reconecta, recuperando o que perdeu pelo buffer.
+ *
+ * Os eventos confirmados entram numa fila única esvaziada por uma só virtual thread (que também resolve o
+ * restaurante das mudanças de status), então cada canal recebe os eventos na ordem em que foram confirmados.
+ * Um canal sem conexões por mais que pedidos.stream.canal-ocioso é removido com o seu buffer; quem retomar
+ * depois com um Last-Event-ID anterior recebe "reset".
+ */
+@Slf4j
+@Component
+public class PedidoStreamHub {
+
+    static final String EVENTO_RESET = "reset";
+
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+    private final int tamanhoReplay;
+    private final int tamanhoFila;
+    private final long canalOciosoNanos;
+
+    // Ids de evento são "<instância>-<sequência>": após um restart o Last-Event-ID antigo não é confundido com um novo
+    private final String instancia = Long.toString(System.currentTimeMillis(), 36);
+    private long sequencia;
+
+    private final Map<Long, Canal> canais = new ConcurrentHashMap<>();
+    private final BlockingQueue<PedidoEvento> confirmados = new LinkedBlockingQueue<>();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-pedidos-", 0).factory());
+
+    @Autowired
+    public PedidoStreamHub(@Value("${pedidos.stream.timeout:30m}") Duration timeout,
+                           @Value("${pedidos.stream.heartbeat:15s}") Duration heartbeat,
+                           @Value("${pedidos.stream.tamanho-replay:256}") int tamanhoReplay,
+                           @Value("${pedidos.stream.tamanho-fila:64}") int tamanhoFila,
+                           @Value("${pedidos.stream.canal-ocioso:5m}") Duration canalOcioso) {
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeatMillis = heartbeat.toMillis();
+        this.tamanhoReplay = tamanhoReplay;
+        this.tamanhoFila = tamanhoFila;
+        this.canalOciosoNanos = canalOcioso.toNanos();
+        executor.execute(this::despachar);
+    }
+
+    /**
+     * Abre uma conexão SSE para o restaurante. Com {@code ultimoEventoId} (header Last-Event-ID),
+     * reenvia os eventos posteriores ainda no buffer, ou um evento "reset" se houver lacuna.
+     */
+    public SseEmitter assinar(Long restauranteId, String ultimoEventoId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        assinar(restauranteId, ultimoEventoId, emitter);
+        return emitter;
+    }
+
+    void assinar(Long restauranteId, String ultimoEventoId, SseEmitter emitter) {
+        // Registro dentro do compute: a limpeza de ociosos nunca remove um canal entre a busca e o registro
+        Assinante[] registrado = new Assinante[1];
+        Canal canal = canais.compute(restauranteId, (id, existente) -> {
+            Canal atual = existente != null ? existente : new Canal();
+            registrado[0] = atual.registrar(emitter, ultimoEventoId);
+            return atual;
+        });
+        Assinante assinante = registrado[0];
+
+        emitter.onCompletion(() -> encerrar(canal, assinante));
+        emitter.onTimeout(() -> encerrar(canal, assinante));
+        emitter.onError(e -> encerrar(canal, assinante));
+
+        executor.execute(() -> entregar(canal, assinante));
+    }
+
+    /**
+     * Recebe os eventos publicados pelo PedidoService somente após o commit, para nunca anunciar
+     * um pedido que sofreu rollback. O repasse sai da thread da requisição, pela fila de confirmados.
+     */
+    @TransactionalEventListener
+    public void aoConfirmarTransacao(PedidoEvento evento) {
+        if (canais.isEmpty()) {
+            return;
+        }
+        confirmados.add(evento);
+    }
+
+    void publicar(PedidoEvento evento) {
+        Long restauranteId = evento.restauranteId();
+        if (restauranteId == null) {
+            return;
+        }
+        while (true) {
+            Canal canal = canais.get(restauranteId);
+            if (canal == null) {
+                // Ninguém escutando: a sequência avança mesmo assim, para um canal novo saber que houve eventos
+                proximoId();
+                return;
+            }
+            if (canal.publicar(evento)) {
+                return;
+            }
+            // Canal removido por ociosidade entre a busca e a publicação: tenta o que o substituiu
+        }
+    }
+
+    /**
+     * Remove os canais sem conexões há mais de pedidos.stream.canal-ocioso. Chamado pela thread de despacho.
+     */
+    void removerCanaisOciosos() {
+        long agora = System.nanoTime();
+        for (Long restauranteId : canais.keySet()) {
+            canais.computeIfPresent(restauranteId, (id, canal) -> canal.descartarSeOcioso(agora) ? null : canal);
+        }
+    }
+
+    int canaisAbertos() {
+        return canais.size();
+    }
+
+    int conexoesAtivas(Long restauranteId) {
+        Canal canal = canais.get(restauranteId);
+        return canal == null ? 0 : canal.assinantes.size();
+    }
+
+    @PreDestroy
+    void desligar() {
+        canais.values().forEach(canal -> canal.assinantes.forEach(a -> a.ativo = false));
+        executor.shutdownNow();
+    }
+
+    private synchronized String proximoId() {
+        return instancia + "-" + (++sequencia);
+    }
+
+    private void encerrar(Canal canal, Assinante assinante) {
+        assinante.ativo = false;
+        if (canal.assinantes.remove(assinante) && canal.assinantes.isEmpty()) {
+            canal.vazioDesde = System.nanoTime();
+        }
+    }
+
+    // Única consumidora de confirmados: a ordem de chegada é a ordem de publicação em cada canal
+    private void despachar() {
+        long proximaLimpeza = System.nanoTime() + heartbeatMillis * 1_000_000;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                PedidoEvento evento = confirmados.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                if (evento != null) {
+                    publicar(evento);
+                }
+                if (System.nanoTime() - proximaLimpeza >= 0) {
+                    removerCanaisOciosos();
+                    proximaLimpeza = System.nanoTime() + heartbeatMillis * 1_000_000;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Falha ao repassar evento de pedido ao stream: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void entregar(Canal canal, Assinante assinante) {
+        SseEmitter emitter = assinante.emitter;
+        try {
+            while (assinante.ativo) {
+                Envio envio = assinante.fila.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                if (!assinante.ativo) {
+                    break;
+                }
+                if (envio == null) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    emitter.send(envio.paraSse());
+                }
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectou (ou o emitter já foi encerrado pelo container)
+            log.debug("Conexão SSE encerrada: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } finally {
+            encerrar(canal, assinante);
+        }
+    }
+
+    private record Envio(String id, String nome, Object dados) {
+        SseEmitter.SseEventBuilder paraSse() {
+            SseEmitter.SseEventBuilder evento = SseEmitter.event().name(nome).data(dados);
+            return id == null ? evento : evento.id(id);
+        }
+    }
+
+    private final class Assinante {
+        final SseEmitter emitter;
+        final BlockingQueue<Envio> fila;
+        volatile boolean ativo = true;
+
+        Assinante(SseEmitter emitter, int capacidade) {
+            this.emitter = emitter;
+            this.fila = new ArrayBlockingQueue<>(capacidade);
+        }
+    }
+
+    private final class Canal {
+        final Set<Assinante> assinantes = new CopyOnWriteArraySet<>();
+        final ArrayDeque<Envio> buffer = new ArrayDeque<>(tamanhoReplay);
+        // Sequência do evento mais novo que já saiu do buffer: quem parou antes dele perdeu eventos.
+        // Um canal novo começa na sequência atual: o que veio antes dele não está no buffer
+        long ultimaSequenciaDescartada = sequenciaDe(proximoId());
+        volatile long vazioDesde = System.nanoTime();
+        boolean removido;
+
+        synchronized boolean descartarSeOcioso(long agora) {
+            removido = assinantes.isEmpty() && agora - vazioDesde >= canalOciosoNanos;
+            return removido;
+        }
+
+        synchronized boolean publicar(PedidoEvento evento) {
+            if (removido) {
+                return false;
+            }
+            Envio envio = new Envio(proximoId(), evento.tipo().name(), evento);
+            if (buffer.size() == tamanhoReplay) {
+                ultimaSequenciaDescartada = sequenciaDe(buffer.removeFirst().id());
+            }
+            buffer.addLast(envio);
+
+            for (Assinante assinante : assinantes) {
+                if (!assinante.fila.offer(envio)) {
+                    log.warn("Conexão SSE lenta descartada ({} eventos pendentes)", assinante.fila.size());
+                    encerrar(this, assinante);
+                }
+            }
+            return true;
+        }
+
+        // Sincronizado com publicar(): nenhum evento entre o replay e o registro se perde ou se repete
+        synchronized Assinante registrar(SseEmitter emitter, String ultimoEventoId) {
+            List<Envio> pendentes = new ArrayList<>();
+            if (ultimoEventoId != null && !ultimoEventoId.isBlank()) {
+                long ultimaSequencia = ultimoEventoId.startsWith(instancia + "-") ? sequenciaDe(ultimoEventoId) : -1;
+                if (ultimaSequencia < ultimaSequenciaDescartada || ultimaSequencia < 0) {
+                    pendentes.add(new Envio(null, EVENTO_RESET, "Eventos perdidos: recarregue a lista em /api/pedidos/recebidos"));
+                }
+                for (Envio envio : buffer) {
+                    if (sequenciaDe(envio.id()) > ultimaSequencia) {
+                        pendentes.add(envio);
+                    }
+                }
+            }
+            Assinante assinante = new Assinante(emitter, tamanhoFila + pendentes.size());
+            assinante.fila.addAll(pendentes);
+            assinantes.add(assinante);
+            return assinante;
+        }
+    }
+
+    private static long sequenciaDe(String id) {
+        try {
+            return Long.parseLong(id.substring(id.lastIndexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.deliverytech.delivery_api.services.tarefas;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base dos trabalhos de fundo que rodam em rodadas (arquivamento, outbox, rollups, cargas em memória).
+ *
+ * Uma thread própria por tarefa, iniciada no start() quando habilitada: executa uma rodada e espera o intervalo.
+ * Uma rodada que devolve true tem trabalho pendente e a próxima começa em seguida. Falha numa rodada é logada e
+ * a tarefa tenta de novo depois de {@link #esperaAposFalha(int)}. O stop() interrompe a thread (sono ou
+ * InterruptedException dentro da rodada) e espera até 10s pelo fim da rodada em andamento.
+ */
+@Slf4j
+public abstract class TarefaPeriodica implements SmartLifecycle {
+
+    private static final long ESPERA_PARADA_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final String nomeThread;
+    private final boolean habilitado;
+    private final Duration intervalo;
+    private final String mensagemFalha;
+
+    private volatile Thread thread;
+    private volatile boolean rodando;
+
+    /**
+     * @param mensagemFalha início do aviso logado quando uma rodada falha (ex.: "Falha no arquivamento de pedidos")
+     */
+    protected TarefaPeriodica(String nomeThread, boolean habilitado, Duration intervalo, String mensagemFalha) {
+        this.nomeThread = nomeThread;
+        this.habilitado = habilitado;
+        this.intervalo = intervalo;
+        this.mensagemFalha = mensagemFalha;
+    }
+
+    /**
+     * Uma rodada do trabalho. Devolve true se ficou trabalho pendente (a próxima rodada começa sem esperar).
+     */
+    protected abstract boolean executarRodada() throws Exception;
+
+    /**
+     * Espera depois de uma rodada que falhou; falhasSeguidas começa em 1. Padrão: o próprio intervalo.
+     */
+    protected Duration esperaAposFalha(int falhasSeguidas) {
+        return intervalo;
+    }
+
+    /**
+     * Espera antes da primeira rodada. Padrão: nenhuma (a primeira rodada começa no start()).
+     */
+    protected Duration esperaInicial() {
+        return Duration.ZERO;
+    }
+
+    protected Duration getIntervalo() {
+        return intervalo;
+    }
+
+    @Override
+    public void start() {
+        rodando = true;
+        thread = new Thread(this::executar, nomeThread);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        rodando = false;
+        Thread atual = thread;
+        if (atual != null) {
+            atual.interrupt();
+            try {
+                atual.join(ESPERA_PARADA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return rodando;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return habilitado;
+    }
+
+    private void executar() {
+        if (!dormir(esperaInicial())) {
+            return; // stop()
+        }
+        int falhasSeguidas = 0;
+        while (rodando) {
+            Duration espera;
+            try {
+                espera = executarRodada() ? Duration.ZERO : intervalo;
+                falhasSeguidas = 0;
+            } catch (InterruptedException e) {
+                return; // stop()
+            } catch (Exception e) {
+                falhasSeguidas++;
+                espera = esperaAposFalha(falhasSeguidas);
+                log.warn("{} (tentativa {}), nova tentativa em {}: {}", mensagemFalha, falhasSeguidas, espera, e.getMessage());
+            }
+            if (!dormir(espera)) {
+                return; // stop()
+            }
+        }
+    }
+
+    private static boolean dormir(Duration espera) {
+        if (espera.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(espera);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
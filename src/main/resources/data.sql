@@ -26,10 +26,20 @@ INSERT INTO produtos (id, nome, descricao, preco, categoria, disponivel, restaur
 (9, 'Temaki Atum', 'Temaki de atum com cream cheese', 15.90, 'Temaki', true, 3);
 
 -- Inserir pedidos de exemplo
-INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, observacoes, cliente_id, restaurante_id, itens) VALUES
-(1, 'PED1234567890', CURRENT_TIMESTAMP, 'PENDENTE', 54.80, 'Sem cebola na pizza', 1, 1, 'Pizza Margherita, Pizza Calabresa'),
-(2, 'PED1234567891', CURRENT_TIMESTAMP, 'CONFIRMADO', 41.80, '', 2, 2, 'X-Burger, Batata Frita'),
-(3, 'PED1234567892', CURRENT_TIMESTAMP, 'ENTREGUE', 78.80, 'Wasabi à parte', 3, 3, 'Combo Sashimi, Hot Roll Salmão, Temaki Atum');
+INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, observacoes, cliente_id, restaurante_id) VALUES
+(1, 'PED1234567890', CURRENT_TIMESTAMP, 'PENDENTE', 54.80, 'Sem cebola na pizza', 1, 1),
+(2, 'PED1234567891', CURRENT_TIMESTAMP, 'CONFIRMADO', 41.80, '', 2, 2),
+(3, 'PED1234567892', CURRENT_TIMESTAMP, 'ENTREGUE', 78.80, 'Wasabi à parte', 3, 3);
+
+-- Inserir itens dos pedidos (ids via sequence, compatível com a alocação em bloco do Hibernate)
+INSERT INTO itens_pedido (id, pedido_id, produto_id, quantidade, preco_unitario) VALUES
+(NEXT VALUE FOR itens_pedido_seq, 1, 1, 1, 35.90),
+(NEXT VALUE FOR itens_pedido_seq, 1, 2, 1, 38.90),
+(NEXT VALUE FOR itens_pedido_seq, 2, 4, 1, 18.90),
+(NEXT VALUE FOR itens_pedido_seq, 2, 6, 1, 12.90),
+(NEXT VALUE FOR itens_pedido_seq, 3, 7, 1, 45.90),
+(NEXT VALUE FOR itens_pedido_seq, 3, 8, 1, 32.90),
+(NEXT VALUE FOR itens_pedido_seq, 3, 9, 1, 15.90);
 
 -- Inserir Usuários para Login (Senha para todos: 123456)
 INSERT INTO usuarios (id, nome, email, senha, role, ativo, data_criacao, restaurante_id) VALUES
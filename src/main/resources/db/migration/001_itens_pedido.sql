@@ -0,0 +1,66 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 001: pedidos.itens (texto livre) -> tabela itens_pedido
+--
+-- O schema.sql recria o banco do zero a cada start. Este script é para bancos
+-- MariaDB já existentes, com pedidos reais: executar uma única vez, manualmente,
+-- ANTES de subir a versão da API que usa a entidade ItemPedido.
+--
+-- O campo antigo aceitava dois formatos:
+--   * "2x (ID: 5), 1x (ID: 9)"            -> gerado pelo PedidoService
+--   * "Pizza Margherita, Pizza Calabresa" -> dados de carga (nome do produto, qtd 1)
+-- O preço unitário histórico não existia: o backfill usa o preço atual do produto.
+-- Trechos truncados pelo antigo VARCHAR(200) não casam com nenhum produto e são ignorados.
+-- ------------------------------------------------------------
+
+CREATE SEQUENCE IF NOT EXISTS itens_pedido_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS itens_pedido (
+                              id BIGINT PRIMARY KEY,
+                              pedido_id BIGINT NOT NULL,
+                              produto_id BIGINT NOT NULL,
+                              quantidade INT NOT NULL,
+                              preco_unitario DECIMAL(10,2) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_itens_pedido_pedido ON itens_pedido (pedido_id);
+CREATE INDEX IF NOT EXISTS idx_itens_pedido_produto ON itens_pedido (produto_id, quantidade);
+
+-- Backfill: quebra o texto em partes separadas por vírgula (CTE recursiva)
+INSERT INTO itens_pedido (id, pedido_id, produto_id, quantidade, preco_unitario)
+SELECT NEXT VALUE FOR itens_pedido_seq, x.pedido_id, pr.id, x.quantidade, pr.preco
+FROM (
+    WITH RECURSIVE partes (pedido_id, restaurante_id, parte, resto) AS (
+        SELECT p.id,
+               p.restaurante_id,
+               TRIM(SUBSTRING_INDEX(p.itens, ',', 1)),
+               IF(LOCATE(',', p.itens) > 0, SUBSTRING(p.itens, LOCATE(',', p.itens) + 1), NULL)
+        FROM pedidos p
+        WHERE p.itens IS NOT NULL
+          AND p.itens <> ''
+          AND NOT EXISTS (SELECT 1 FROM itens_pedido i WHERE i.pedido_id = p.id)
+        UNION ALL
+        SELECT pedido_id,
+               restaurante_id,
+               TRIM(SUBSTRING_INDEX(resto, ',', 1)),
+               IF(LOCATE(',', resto) > 0, SUBSTRING(resto, LOCATE(',', resto) + 1), NULL)
+        FROM partes
+        WHERE resto IS NOT NULL
+    )
+    SELECT pedido_id,
+           restaurante_id,
+           CASE WHEN parte LIKE '%x (ID: %)'
+                THEN CAST(SUBSTRING_INDEX(parte, 'x', 1) AS UNSIGNED)
+                ELSE 1 END AS quantidade,
+           CASE WHEN parte LIKE '%x (ID: %)'
+                THEN CAST(TRIM(TRAILING ')' FROM SUBSTRING_INDEX(parte, 'ID: ', -1)) AS UNSIGNED) END AS produto_id,
+           CASE WHEN parte LIKE '%x (ID: %)' THEN NULL ELSE parte END AS produto_nome
+    FROM partes
+) x
+JOIN produtos pr
+  ON (x.produto_id IS NOT NULL AND pr.id = x.produto_id)
+  OR (x.produto_id IS NULL AND pr.nome = x.produto_nome AND pr.restaurante_id = x.restaurante_id);
+
+ALTER TABLE itens_pedido ADD CONSTRAINT fk_itens_pedido_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos(id);
+ALTER TABLE itens_pedido ADD CONSTRAINT fk_itens_pedido_produto FOREIGN KEY (produto_id) REFERENCES produtos(id);
+
+ALTER TABLE pedidos DROP COLUMN itens;
@@ -0,0 +1,17 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 002: pedidos.id AUTO_INCREMENT -> sequence pedidos_seq
+--
+-- Com IDENTITY o Hibernate precisa executar cada INSERT de pedido na hora para
+-- descobrir o id, o que impede lotes JDBC. A entidade Pedido passa a usar a
+-- sequence pedidos_seq (allocationSize = 50). Executar uma única vez, manualmente,
+-- em bancos MariaDB já existentes ANTES de subir a versão da API com POST /api/pedidos/lote.
+-- ------------------------------------------------------------
+
+ALTER TABLE pedidos MODIFY id BIGINT NOT NULL;
+
+-- A sequence começa acima do maior id existente (incremento igual ao allocationSize)
+SET @inicio = (SELECT COALESCE(MAX(id), 0) + 51 FROM pedidos);
+SET @ddl = CONCAT('CREATE SEQUENCE IF NOT EXISTS pedidos_seq START WITH ', @inicio, ' INCREMENT BY 50');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
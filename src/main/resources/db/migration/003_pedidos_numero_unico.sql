@@ -0,0 +1,22 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 003: índice único em pedidos.numero_pedido
+--
+-- Os códigos antigos (10 caracteres de um UUID) não tinham garantia de unicidade.
+-- Antes de criar o índice, confira se há duplicatas:
+--
+--   SELECT numero_pedido, COUNT(*) FROM pedidos GROUP BY numero_pedido HAVING COUNT(*) > 1;
+--
+-- Se houver, o UPDATE abaixo acrescenta o id às repetições (mantendo a primeira intacta).
+-- Os novos códigos ("PED" + 13 caracteres) nunca colidem com os antigos.
+-- ------------------------------------------------------------
+
+UPDATE pedidos p
+JOIN (
+    SELECT numero_pedido, MIN(id) AS primeiro_id
+    FROM pedidos
+    GROUP BY numero_pedido
+    HAVING COUNT(*) > 1
+) d ON d.numero_pedido = p.numero_pedido AND p.id <> d.primeiro_id
+SET p.numero_pedido = LEFT(CONCAT(p.numero_pedido, '-', p.id), 20);
+
+CREATE UNIQUE INDEX uk_pedidos_numero_pedido ON pedidos (numero_pedido);
@@ -0,0 +1,15 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 004: índices compostos para a paginação por cursor do histórico
+--
+-- GET /api/pedidos/meus/cursor, /recebidos/cursor, /cliente/{id}/cursor e
+-- /restaurante/{id}/cursor filtram por cliente/restaurante e ordenam por
+-- (data_pedido DESC, id DESC). Com estes índices cada página é uma leitura de
+-- intervalo a partir do cursor, sem OFFSET e sem COUNT(*).
+-- ------------------------------------------------------------
+
+CREATE INDEX IF NOT EXISTS idx_pedidos_cliente_data ON pedidos (cliente_id, data_pedido, id);
+CREATE INDEX IF NOT EXISTS idx_pedidos_restaurante_data ON pedidos (restaurante_id, data_pedido, id);
+
+-- As FKs antigas criaram índices próprios (só cliente_id / restaurante_id), agora redundantes.
+-- Confira os nomes com SHOW INDEX FROM pedidos e remova-os, por exemplo:
+--   ALTER TABLE pedidos DROP INDEX cliente_id, DROP INDEX restaurante_id;
@@ -0,0 +1,19 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 005: outbox transacional de eventos de pedido
+--
+-- criarPedido, atualizarStatusPedido e cancelarPedido passam a gravar um evento
+-- em pedidos_outbox na mesma transação do pedido; o OutboxRelay lê em lotes
+-- (ordem criado_em, id), entrega aos sinks configurados e apaga o que foi entregue.
+-- ------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS pedidos_outbox (
+    id BIGINT PRIMARY KEY,
+    tipo VARCHAR(30) NOT NULL,
+    pedido_id BIGINT NOT NULL,
+    payload VARCHAR(2000) NOT NULL,
+    criado_em TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_pedidos_outbox_criado ON pedidos_outbox (criado_em, id);
+
+CREATE SEQUENCE IF NOT EXISTS pedidos_outbox_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,37 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 006: particionamento quente/frio dos pedidos
+--
+-- Pedidos ENTREGUE/CANCELADO mais antigos que pedidos.arquivamento.idade saem da
+-- tabela pedidos (e seus itens de itens_pedido) para as tabelas de histórico, em
+-- lotes, pelo ArquivadorPedidos. Os ids são preservados.
+-- ------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS pedidos_historico (
+    id BIGINT PRIMARY KEY,
+    numero_pedido VARCHAR(20) NOT NULL,
+    data_pedido TIMESTAMP NULL,
+    status VARCHAR(20),
+    valor_total DECIMAL(10,2),
+    observacoes VARCHAR(200),
+    cliente_id BIGINT,
+    restaurante_id BIGINT,
+    arquivado_em TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_pedidos_historico_data ON pedidos_historico (data_pedido, id);
+CREATE INDEX IF NOT EXISTS idx_pedidos_historico_cliente_data ON pedidos_historico (cliente_id, data_pedido, id);
+CREATE INDEX IF NOT EXISTS idx_pedidos_historico_restaurante_data ON pedidos_historico (restaurante_id, data_pedido, id);
+
+CREATE TABLE IF NOT EXISTS itens_pedido_historico (
+    id BIGINT PRIMARY KEY,
+    pedido_id BIGINT NOT NULL,
+    produto_id BIGINT NOT NULL,
+    quantidade INT NOT NULL,
+    preco_unitario DECIMAL(10,2) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_itens_pedido_historico_pedido ON itens_pedido_historico (pedido_id);
+CREATE INDEX IF NOT EXISTS idx_itens_pedido_historico_produto ON itens_pedido_historico (produto_id, quantidade);
+
+-- Seleção dos pedidos a arquivar (status final + data) e listagens por status na tabela quente
+CREATE INDEX IF NOT EXISTS idx_pedidos_status_data ON pedidos (status, data_pedido);
@@ -0,0 +1,23 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 007: índices compostos para a busca administrativa de pedidos
+--
+-- GET /api/pedidos combina status, período, restaurante, cliente e faixa de
+-- valor (PedidoSpecs). Junto com os índices das migrações 004 e 006 e o
+-- idx_pedidos_status_data, cada combinação de filtros tem um índice cujo
+-- prefixo atende o predicado mais seletivo:
+--   status (+ período)          -> idx_pedidos_status_data
+--   restaurante (+ período)     -> idx_pedidos_restaurante_data
+--   restaurante + status        -> idx_pedidos_restaurante_status_data
+--   cliente (+ status/período)  -> idx_pedidos_cliente_data
+--   período                     -> idx_pedidos_data
+--   valor (+ período)           -> idx_pedidos_valor
+-- Confira com EXPLAIN (PedidoBuscaRepositoryIT faz o mesmo no H2).
+-- ------------------------------------------------------------
+
+CREATE INDEX IF NOT EXISTS idx_pedidos_status_data ON pedidos (status, data_pedido);
+CREATE INDEX IF NOT EXISTS idx_pedidos_restaurante_status_data ON pedidos (restaurante_id, status, data_pedido);
+CREATE INDEX IF NOT EXISTS idx_pedidos_data ON pedidos (data_pedido, id);
+CREATE INDEX IF NOT EXISTS idx_pedidos_valor ON pedidos (valor_total, id);
+
+-- Relatório de pedidos por valor lê pedidos + pedidos_historico
+CREATE INDEX IF NOT EXISTS idx_pedidos_historico_valor ON pedidos_historico (valor_total, id);
@@ -0,0 +1,46 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 008: rollups diários dos relatórios
+--
+-- Vendas por restaurante, faturamento por categoria e ranking de clientes
+-- passam a ler agregados por dia em vez de agrupar pedidos + pedidos_historico
+-- a cada chamada. As linhas são somadas na transação do pedido (criação,
+-- cancelamento, entrega) pelo AtualizadorRollups e reconstruídas dia a dia pelo
+-- ReconciliadorRollups. Com as tabelas vazias, a primeira rodada do
+-- reconciliador reconstrói desde o pedido mais antigo (não há backfill aqui).
+-- ------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS vendas_restaurante_dia (
+    dia DATE NOT NULL,
+    restaurante_id BIGINT NOT NULL,
+    pedidos INT NOT NULL,
+    valor_total DECIMAL(14,2) NOT NULL,
+    cancelados INT NOT NULL,
+    valor_cancelado DECIMAL(14,2) NOT NULL,
+    entregues INT NOT NULL,
+    valor_entregue DECIMAL(14,2) NOT NULL,
+    PRIMARY KEY (dia, restaurante_id)
+);
+
+CREATE TABLE IF NOT EXISTS vendas_categoria_dia (
+    dia DATE NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    pedidos INT NOT NULL,
+    valor_total DECIMAL(14,2) NOT NULL,
+    cancelados INT NOT NULL,
+    valor_cancelado DECIMAL(14,2) NOT NULL,
+    entregues INT NOT NULL,
+    valor_entregue DECIMAL(14,2) NOT NULL,
+    PRIMARY KEY (dia, categoria)
+);
+
+CREATE TABLE IF NOT EXISTS pedidos_cliente_dia (
+    dia DATE NOT NULL,
+    cliente_id BIGINT NOT NULL,
+    pedidos INT NOT NULL,
+    valor_total DECIMAL(14,2) NOT NULL,
+    cancelados INT NOT NULL,
+    valor_cancelado DECIMAL(14,2) NOT NULL,
+    entregues INT NOT NULL,
+    valor_entregue DECIMAL(14,2) NOT NULL,
+    PRIMARY KEY (dia, cliente_id)
+);
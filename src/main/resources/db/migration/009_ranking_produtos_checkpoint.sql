@@ -0,0 +1,16 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 009: checkpoint do ranking de mais vendidos
+--
+-- O ranking de produtos mais vendidos (geral, por restaurante, última
+-- hora/dia/semana) passa a ser mantido em memória pelo RankingProdutos,
+-- alimentado a cada pedido criado. O estado é salvo aqui periodicamente e no
+-- desligamento; na subida ele é restaurado e os pedidos posteriores ao
+-- checkpoint são somados de novo. Sem checkpoint, o ranking é montado a partir
+-- de itens_pedido + itens_pedido_historico (não há backfill aqui).
+-- ------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS ranking_produtos_checkpoint (
+    id INT PRIMARY KEY,
+    instante TIMESTAMP NOT NULL,
+    dados LONGTEXT NOT NULL
+);
@@ -0,0 +1,15 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 010: marca d'água do checkpoint do ranking de mais vendidos
+--
+-- O checkpoint passa a guardar o maior id de pedido já somado, e a reposição
+-- na subida lê os pedidos acima dele pela PK, em vez dos pedidos com data
+-- posterior ao instante do checkpoint (relógio da instância). Também impede
+-- que um estado mais antigo sobrescreva um mais novo.
+--
+-- O checkpoint existente não tem marca d'água: é descartado, e a próxima
+-- subida remonta o ranking a partir dos itens vendidos.
+-- ------------------------------------------------------------
+
+DELETE FROM ranking_produtos_checkpoint;
+
+ALTER TABLE ranking_produtos_checkpoint ADD COLUMN ultimo_pedido_id BIGINT NOT NULL AFTER instante;
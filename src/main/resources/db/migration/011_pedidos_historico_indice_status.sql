@@ -0,0 +1,11 @@
+-- ------------------------------------------------------------
+-- MIGRAÇÃO 011: índice de status no histórico de pedidos
+--
+-- A busca administrativa (GET /api/pedidos) lê a união pedidos +
+-- pedidos_historico quando o filtro pode alcançar arquivados; o banco
+-- empurra o WHERE para cada ramo do UNION ALL. Filtro só por status final
+-- (ENTREGUE/CANCELADO) não tinha índice no histórico e varria a tabela.
+-- Confira com EXPLAIN (PedidoBuscaRepositoryIT faz o mesmo no H2).
+-- ------------------------------------------------------------
+
+CREATE INDEX IF NOT EXISTS idx_pedidos_historico_status_data ON pedidos_historico (status, data_pedido, id);
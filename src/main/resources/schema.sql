@@ -1,9 +1,20 @@
 
+DROP TABLE IF EXISTS itens_pedido;
 DROP TABLE IF EXISTS pedidos;
 DROP TABLE IF EXISTS usuarios;
 DROP TABLE IF EXISTS produtos;
 DROP TABLE IF EXISTS clientes;
 DROP TABLE IF EXISTS restaurantes;
+DROP SEQUENCE IF EXISTS itens_pedido_seq;
+DROP SEQUENCE IF EXISTS pedidos_seq;
+DROP TABLE IF EXISTS pedidos_outbox;
+DROP SEQUENCE IF EXISTS pedidos_outbox_seq;
+DROP TABLE IF EXISTS itens_pedido_historico;
+DROP TABLE IF EXISTS pedidos_historico;
+DROP TABLE IF EXISTS vendas_restaurante_dia;
+DROP TABLE IF EXISTS vendas_categoria_dia;
+DROP TABLE IF EXISTS pedidos_cliente_dia;
+DROP TABLE IF EXISTS ranking_produtos_checkpoint;
 
 CREATE TABLE clientes (
                           id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -38,17 +49,146 @@ CREATE TABLE produtos (
 );
 
 CREATE TABLE pedidos (
-                         id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                         id BIGINT PRIMARY KEY,
                          numero_pedido VARCHAR(20) NOT NULL,
                          data_pedido TIMESTAMP,
                          status VARCHAR(20),
                          valor_total DECIMAL(10,2),
                          observacoes VARCHAR(200),
                          cliente_id BIGINT,
-                         restaurante_id BIGINT,
-                         itens VARCHAR(200),
-                         FOREIGN KEY (cliente_id) REFERENCES clientes(id),
-                         FOREIGN KEY (restaurante_id) REFERENCES restaurantes(id)
+                         restaurante_id BIGINT
+);
+
+-- Garante a unicidade do código do pedido e atende PedidoRepository.findByNumeroPedido
+CREATE UNIQUE INDEX uk_pedidos_numero_pedido ON pedidos (numero_pedido);
+-- Paginação por cursor (keyset) do histórico: filtro + ORDER BY data_pedido DESC, id DESC direto no índice.
+-- Também servem às FKs abaixo (criadas depois para o banco reaproveitá-los)
+CREATE INDEX idx_pedidos_cliente_data ON pedidos (cliente_id, data_pedido, id);
+CREATE INDEX idx_pedidos_restaurante_data ON pedidos (restaurante_id, data_pedido, id);
+-- Filtro por status (listagens de pedidos ativos) e seleção dos pedidos finalizados a arquivar
+CREATE INDEX idx_pedidos_status_data ON pedidos (status, data_pedido);
+-- Busca administrativa (PedidoSpecs): restaurante + status, período sozinho (e ORDER BY data_pedido sem filtro)
+-- e faixa de valor. Os demais filtros usam os índices acima
+CREATE INDEX idx_pedidos_restaurante_status_data ON pedidos (restaurante_id, status, data_pedido);
+CREATE INDEX idx_pedidos_data ON pedidos (data_pedido, id);
+CREATE INDEX idx_pedidos_valor ON pedidos (valor_total, id);
+ALTER TABLE pedidos ADD CONSTRAINT fk_pedidos_cliente FOREIGN KEY (cliente_id) REFERENCES clientes(id);
+ALTER TABLE pedidos ADD CONSTRAINT fk_pedidos_restaurante FOREIGN KEY (restaurante_id) REFERENCES restaurantes(id);
+
+CREATE TABLE itens_pedido (
+                              id BIGINT PRIMARY KEY,
+                              pedido_id BIGINT NOT NULL,
+                              produto_id BIGINT NOT NULL,
+                              quantidade INT NOT NULL,
+                              preco_unitario DECIMAL(10,2) NOT NULL
+);
+
+-- Índices criados antes das FKs para que o banco os reutilize (sem índice duplicado)
+CREATE INDEX idx_itens_pedido_pedido ON itens_pedido (pedido_id);
+-- Cobre o agrupamento por produto (ranking de mais vendidos) sem ler a tabela
+CREATE INDEX idx_itens_pedido_produto ON itens_pedido (produto_id, quantidade);
+ALTER TABLE itens_pedido ADD CONSTRAINT fk_itens_pedido_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos(id);
+ALTER TABLE itens_pedido ADD CONSTRAINT fk_itens_pedido_produto FOREIGN KEY (produto_id) REFERENCES produtos(id);
+
+-- Incremento igual ao allocationSize da entidade ItemPedido
+CREATE SEQUENCE itens_pedido_seq START WITH 1 INCREMENT BY 50;
+-- Incremento igual ao allocationSize da entidade Pedido; começa acima dos ids fixos do data.sql
+CREATE SEQUENCE pedidos_seq START WITH 101 INCREMENT BY 50;
+
+-- Histórico (dados frios): pedidos ENTREGUE/CANCELADO mais antigos que pedidos.arquivamento.idade,
+-- movidos em lotes pelo ArquivadorPedidos com o mesmo id. Listagens de pedidos ativos leem só a tabela pedidos;
+-- relatórios leem a união das duas (entidade PedidoConsolidado). Sem FKs: a linha é imutável depois de arquivada.
+CREATE TABLE pedidos_historico (
+                                   id BIGINT PRIMARY KEY,
+                                   numero_pedido VARCHAR(20) NOT NULL,
+                                   data_pedido TIMESTAMP,
+                                   status VARCHAR(20),
+                                   valor_total DECIMAL(10,2),
+                                   observacoes VARCHAR(200),
+                                   cliente_id BIGINT,
+                                   restaurante_id BIGINT,
+                                   arquivado_em TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_pedidos_historico_data ON pedidos_historico (data_pedido, id);
+CREATE INDEX idx_pedidos_historico_cliente_data ON pedidos_historico (cliente_id, data_pedido, id);
+CREATE INDEX idx_pedidos_historico_restaurante_data ON pedidos_historico (restaurante_id, data_pedido, id);
+CREATE INDEX idx_pedidos_historico_valor ON pedidos_historico (valor_total, id);
+CREATE INDEX idx_pedidos_historico_status_data ON pedidos_historico (status, data_pedido, id);
+
+CREATE TABLE itens_pedido_historico (
+                                        id BIGINT PRIMARY KEY,
+                                        pedido_id BIGINT NOT NULL,
+                                        produto_id BIGINT NOT NULL,
+                                        quantidade INT NOT NULL,
+                                        preco_unitario DECIMAL(10,2) NOT NULL
+);
+
+CREATE INDEX idx_itens_pedido_historico_pedido ON itens_pedido_historico (pedido_id);
+CREATE INDEX idx_itens_pedido_historico_produto ON itens_pedido_historico (produto_id, quantidade);
+
+-- Outbox transacional: eventos do ciclo de vida do pedido gravados na mesma transação do pedido
+-- e drenados pelo OutboxRelay. Sem FK para pedidos: o evento sobrevive a um pedido removido.
+CREATE TABLE pedidos_outbox (
+                                id BIGINT PRIMARY KEY,
+                                tipo VARCHAR(30) NOT NULL,
+                                pedido_id BIGINT NOT NULL,
+                                payload VARCHAR(2000) NOT NULL,
+                                criado_em TIMESTAMP NOT NULL
+);
+
+-- Ordem de entrega do relay (criado_em, id): leitura do início do índice, sem ordenação
+CREATE INDEX idx_pedidos_outbox_criado ON pedidos_outbox (criado_em, id);
+-- Incremento igual ao allocationSize da entidade OutboxEvento
+CREATE SEQUENCE pedidos_outbox_seq START WITH 1 INCREMENT BY 50;
+
+-- Rollups diários dos relatórios (restaurante x dia, categoria x dia, cliente x dia), somados na mesma transação
+-- do pedido (criação, cancelamento, entrega) e reconstruídos a partir de pedidos + pedidos_historico pelo
+-- ReconciliadorRollups. O dia é o do pedido, então cancelar um pedido de ontem corrige a linha de ontem.
+CREATE TABLE vendas_restaurante_dia (
+                                        dia DATE NOT NULL,
+                                        restaurante_id BIGINT NOT NULL,
+                                        pedidos INT NOT NULL,
+                                        valor_total DECIMAL(14,2) NOT NULL,
+                                        cancelados INT NOT NULL,
+                                        valor_cancelado DECIMAL(14,2) NOT NULL,
+                                        entregues INT NOT NULL,
+                                        valor_entregue DECIMAL(14,2) NOT NULL,
+                                        PRIMARY KEY (dia, restaurante_id)
+);
+
+-- Categoria do restaurante no momento do pedido (a reconstrução usa a categoria atual)
+CREATE TABLE vendas_categoria_dia (
+                                      dia DATE NOT NULL,
+                                      categoria VARCHAR(50) NOT NULL,
+                                      pedidos INT NOT NULL,
+                                      valor_total DECIMAL(14,2) NOT NULL,
+                                      cancelados INT NOT NULL,
+                                      valor_cancelado DECIMAL(14,2) NOT NULL,
+                                      entregues INT NOT NULL,
+                                      valor_entregue DECIMAL(14,2) NOT NULL,
+                                      PRIMARY KEY (dia, categoria)
+);
+
+CREATE TABLE pedidos_cliente_dia (
+                                     dia DATE NOT NULL,
+                                     cliente_id BIGINT NOT NULL,
+                                     pedidos INT NOT NULL,
+                                     valor_total DECIMAL(14,2) NOT NULL,
+                                     cancelados INT NOT NULL,
+                                     valor_cancelado DECIMAL(14,2) NOT NULL,
+                                     entregues INT NOT NULL,
+                                     valor_entregue DECIMAL(14,2) NOT NULL,
+                                     PRIMARY KEY (dia, cliente_id)
+);
+
+-- Último estado salvo do ranking de mais vendidos em memória (RankingProdutos), em JSON; uma linha só.
+-- ultimo_pedido_id: maior id de pedido já somado no estado (a reposição na subida começa acima dele)
+CREATE TABLE ranking_produtos_checkpoint (
+                                             id INT PRIMARY KEY,
+                                             instante TIMESTAMP NOT NULL,
+                                             ultimo_pedido_id BIGINT NOT NULL,
+                                             dados LONGTEXT NOT NULL
 );
 
 CREATE TABLE usuarios (
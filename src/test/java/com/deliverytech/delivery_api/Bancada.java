@@ -0,0 +1,102 @@
+package com.deliverytech.delivery_api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Medição comum dos benchmarks (classes *Benchmark, fora do "mvn test" padrão; rodar com -Dtest=NomeDoBenchmark):
+ * aquecimento seguido de laço cronometrado, corrida de várias threads com largada única e a tabela de resultados
+ * impressa no stdout. Os números do H2 em memória são apenas indicativos: servem para comparar variantes na mesma
+ * execução, não como latência de produção.
+ */
+public final class Bancada {
+
+    // Primeira coluna é o rótulo da linha (à esquerda); as demais são números (à direita)
+    private static final int LARGURA_ROTULO = 24;
+    private static final int LARGURA_MINIMA = 10;
+
+    private final int[] larguras;
+
+    private Bancada(String... colunas) {
+        this.larguras = new int[colunas.length];
+        for (int i = 0; i < colunas.length; i++) {
+            larguras[i] = Math.max(colunas[i].length(), i == 0 ? LARGURA_ROTULO : LARGURA_MINIMA);
+        }
+        imprimir((Object[]) colunas);
+    }
+
+    /**
+     * Imprime o cabeçalho; cada {@link #linha(Object...)} sai alinhada a ele.
+     */
+    public static Bancada tabela(String... colunas) {
+        return new Bancada(colunas);
+    }
+
+    public void linha(Object... valores) {
+        imprimir(valores);
+    }
+
+    /**
+     * Roda a operação aquecimento vezes sem medir e devolve a média, em microssegundos, de outras iteracoes.
+     */
+    public static long mediaMicros(int aquecimento, int iteracoes, Runnable operacao) {
+        for (int i = 0; i < aquecimento; i++) {
+            operacao.run();
+        }
+        return TimeUnit.NANOSECONDS.toMicros(nanos(() -> {
+            for (int i = 0; i < iteracoes; i++) {
+                operacao.run();
+            }
+        }) / iteracoes);
+    }
+
+    public static long nanos(Runnable operacao) {
+        long inicio = System.nanoTime();
+        operacao.run();
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Solta as threads juntas, cada uma rodando porThread, e devolve o tempo até a última terminar.
+     * Uma falha em qualquer thread chega a quem chamou.
+     */
+    public static long emParalelo(int threads, Runnable porThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> corredores = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                corredores.add(executor.submit(() -> {
+                    largada.await();
+                    porThread.run();
+                    return null;
+                }));
+            }
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> corredor : corredores) {
+                corredor.get(2, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - inicio;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void imprimir(Object... valores) {
+        StringBuilder linha = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                linha.append(" | ");
+            }
+            String formato = i >= larguras.length ? "%s" : i == 0 ? "%-" + larguras[i] + "s" : "%" + larguras[i] + "s";
+            linha.append(String.format(formato, valores[i]));
+        }
+        System.out.println(linha);
+    }
+}
@@ -0,0 +1,35 @@
+package com.deliverytech.delivery_api;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StatementInspector dos testes (application-test.properties): guarda o SQL gerado pelo Hibernate na thread
+ * atual enquanto {@link #capturar(Runnable)} executa, para os testes rodarem EXPLAIN sobre o SQL real.
+ */
+public class SqlCapturado implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURADOS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> capturados = CAPTURADOS.get();
+        if (capturados != null) {
+            capturados.add(sql);
+        }
+        return sql;
+    }
+
+    public static List<String> capturar(Runnable acao) {
+        List<String> capturados = new ArrayList<>();
+        CAPTURADOS.set(capturados);
+        try {
+            acao.run();
+        } finally {
+            CAPTURADOS.remove();
+        }
+        return capturados;
+    }
+}
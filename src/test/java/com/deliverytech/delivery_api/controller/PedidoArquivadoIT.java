@@ -0,0 +1,133 @@
+package com.deliverytech.delivery_api.controller;
+
+import com.deliverytech.delivery_api.BaseIntegrationTest;
+import com.deliverytech.delivery_api.entity.Usuario;
+import com.deliverytech.delivery_api.enums.Role;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.services.arquivamento.ArquivadorPedidos;
+import com.deliverytech.delivery_api.services.detalhe.PedidoDetalheCache;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Leituras por id e por dono depois do arquivamento. O arquivador roda na transação do teste (revertida no fim).
+ */
+class PedidoArquivadoIT extends BaseIntegrationTest {
+
+    private static final long ARQUIVADO = 90_301L;
+
+    @Autowired
+    private ArquivadorPedidos arquivadorPedidos;
+
+    @Autowired
+    private PedidoDetalheCache pedidoDetalheCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void arquivarPedido() throws Exception {
+        pedidoDetalheCache.limpar();
+        jdbcTemplate.update("INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, cliente_id, restaurante_id) " +
+                "VALUES (?, 'ARQ90301', ?, ?, 112.70, 2, 1)", ARQUIVADO, LocalDateTime.now().minusDays(60), StatusPedido.ENTREGUE.name());
+        jdbcTemplate.update("INSERT INTO itens_pedido (id, pedido_id, produto_id, quantidade, preco_unitario) VALUES " +
+                "(9030101, 90301, 1, 2, 35.90), (9030102, 90301, 2, 1, 38.90)");
+
+        assertTrue(arquivadorPedidos.arquivar() >= 1);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedidos_historico WHERE id = 90301", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedidos WHERE id = 90301", Integer.class));
+    }
+
+    @AfterEach
+    void limparCache() {
+        pedidoDetalheCache.limpar();
+    }
+
+    @Test
+    @DisplayName("Pedido arquivado deve continuar acessível por id para o dono, com itens, e fora do escopo para os demais")
+    void testDetalheArquivado() throws Exception {
+        mockMvc.perform(get("/api/pedidos/" + ARQUIVADO).with(user(cliente(2L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.numeroPedido").value("ARQ90301"))
+                .andExpect(jsonPath("$.data.status").value("ENTREGUE"))
+                .andExpect(jsonPath("$.data.cliente.id").value(2))
+                .andExpect(jsonPath("$.data.restaurante.id").value(1))
+                .andExpect(jsonPath("$.data.itens.length()").value(2));
+
+        mockMvc.perform(get("/api/pedidos/" + ARQUIVADO).with(user(cliente(3L))))
+                .andExpect(status().isForbidden());
+
+        // Arquivado está em status final: cancelar é uma transição inválida (400), não "não encontrado"
+        mockMvc.perform(delete("/api/pedidos/" + ARQUIVADO).with(user(cliente(2L))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error.message").value("Não é possível cancelar um pedido já entregue."));
+    }
+
+    @Test
+    @DisplayName("Histórico do cliente (página e cursor) e listagem do restaurante devem incluir o pedido arquivado")
+    void testListagensIncluemArquivado() throws Exception {
+        String pagina = mockMvc.perform(get("/api/pedidos/meus").with(user(cliente(2L))).param("size", "50"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> ids = JsonPath.read(pagina, "$.data.content[*].id");
+        assertTrue(ids.contains((int) ARQUIVADO));
+        // Pedido de hoje (data.sql) antes do arquivado: mesma ordem da tabela quente
+        assertEquals((int) ARQUIVADO, ids.get(ids.size() - 1));
+
+        String semContagem = mockMvc.perform(get("/api/pedidos/meus").with(user(cliente(2L))).param("count", "false"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(JsonPath.<List<Integer>>read(semContagem, "$.data.content[*].id").contains((int) ARQUIVADO));
+
+        // Cursor de um em um: a segunda página vem da posição da primeira e alcança o arquivado
+        String primeira = mockMvc.perform(get("/api/pedidos/meus/cursor").with(user(cliente(2L))).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(primeira, "$.data.nextCursor");
+        List<Integer> idsCursor = JsonPath.read(mockMvc.perform(get("/api/pedidos/meus/cursor").with(user(cliente(2L)))
+                        .param("size", "10").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.data.content[*].id");
+        assertTrue(idsCursor.contains((int) ARQUIVADO));
+        assertFalse(idsCursor.contains(JsonPath.<Integer>read(primeira, "$.data.content[0].id")));
+
+        String recebidos = mockMvc.perform(get("/api/pedidos/restaurante/1").with(user(admin())).param("size", "50"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(JsonPath.<List<Integer>>read(recebidos, "$.data.content[*].id").contains((int) ARQUIVADO));
+    }
+
+    private static Usuario cliente(Long clienteId) {
+        Usuario cliente = new Usuario();
+        cliente.setId(clienteId);
+        cliente.setEmail("cliente" + clienteId + "@email.com");
+        cliente.setRole(Role.CLIENTE);
+        cliente.setAtivo(true);
+        return cliente;
+    }
+
+    private static Usuario admin() {
+        Usuario admin = new Usuario();
+        admin.setId(1L);
+        admin.setEmail("admin@delivery.com");
+        admin.setRole(Role.ADMIN);
+        admin.setAtivo(true);
+        return admin;
+    }
+}
@@ -0,0 +1,127 @@
+package com.deliverytech.delivery_api.controller;
+
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Modo assíncrono de POST /api/pedidos. Sem @Transactional (diferente do BaseIntegrationTest):
+ * os workers do pipeline gravam em suas próprias transações, então os pedidos são removidos ao final.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(username = "joao@email.com", roles = {"CLIENTE"})
+class PedidoAssincronoIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<String> numerosCriados = new ArrayList<>();
+
+    @AfterEach
+    void removerPedidos() {
+        for (String numero : numerosCriados) {
+            jdbcTemplate.update("DELETE FROM itens_pedido WHERE pedido_id IN (SELECT id FROM pedidos WHERE numero_pedido = ?)", numero);
+            jdbcTemplate.update("DELETE FROM pedidos WHERE numero_pedido = ?", numero);
+        }
+    }
+
+    @Test
+    @DisplayName("Prefer: respond-async deve responder 202 e gravar o pedido em seguida")
+    void testCriarPedidoAssincrono() throws Exception {
+        String resposta = mockMvc.perform(post("/api/pedidos")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(pedido(1L))))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.data.situacao").value("EM_FILA"))
+                .andReturn().getResponse().getContentAsString();
+        String numero = JsonPath.read(resposta, "$.data.numeroPedido");
+        numerosCriados.add(numero);
+
+        String acompanhamento = aguardarProcessamento(numero);
+
+        assertEquals("CRIADO", JsonPath.read(acompanhamento, "$.data.situacao"));
+        Integer pedidoId = JsonPath.read(acompanhamento, "$.data.pedidoId");
+        assertEquals(numero, jdbcTemplate.queryForObject("SELECT numero_pedido FROM pedidos WHERE id = ?", String.class, pedidoId));
+    }
+
+    @Test
+    @DisplayName("Regra de negócio violada é informada no acompanhamento (REJEITADO)")
+    void testCriarPedidoAssincrono_Rejeitado() throws Exception {
+        // Produto 4 pertence a outro restaurante (data.sql)
+        String resposta = mockMvc.perform(post("/api/pedidos")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(pedido(4L))))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String numero = JsonPath.read(resposta, "$.data.numeroPedido");
+
+        String acompanhamento = aguardarProcessamento(numero);
+
+        assertEquals("REJEITADO", JsonPath.read(acompanhamento, "$.data.situacao"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedidos WHERE numero_pedido = ?", Integer.class, numero));
+    }
+
+    @Test
+    @DisplayName("Acompanhamento de número desconhecido deve retornar 404")
+    void testAcompanharDesconhecido() throws Exception {
+        mockMvc.perform(get("/api/pedidos/aceites/PED0000000000000"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String aguardarProcessamento(String numero) throws Exception {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < limite) {
+            String corpo = mockMvc.perform(get("/api/pedidos/aceites/" + numero))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            if (!"EM_FILA".equals(JsonPath.read(corpo, "$.data.situacao"))) {
+                return corpo;
+            }
+            Thread.sleep(20);
+        }
+        return fail("Pedido " + numero + " não foi processado em 5s");
+    }
+
+    private static PedidoRequestDTO pedido(Long produtoId) {
+        ItemPedidoDTO item = new ItemPedidoDTO();
+        item.setProdutoId(produtoId);
+        item.setQuantidade(1);
+        PedidoRequestDTO request = new PedidoRequestDTO();
+        request.setClienteId(1L);
+        request.setRestauranteId(1L);
+        request.setItens(List.of(item));
+        return request;
+    }
+}
@@ -3,17 +3,50 @@ package com.deliverytech.delivery_api.controller;
 import com.deliverytech.delivery_api.BaseIntegrationTest;
 import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
 import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.deliverytech.delivery_api.entity.Pedido;
 import com.deliverytech.delivery_api.entity.Produto;
+import com.deliverytech.delivery_api.entity.Restaurante;
+import com.deliverytech.delivery_api.entity.Usuario;
+import com.deliverytech.delivery_api.enums.Role;
 import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.repository.PedidoRepository;
 import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import com.deliverytech.delivery_api.services.cotacao.CotacaoService;
+import com.deliverytech.delivery_api.services.detalhe.PedidoDetalheCache;
+import com.deliverytech.delivery_api.services.relatorios.ReconciliadorRollups;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import com.deliverytech.delivery_api.services.stream.PedidoStreamHub;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -22,6 +55,33 @@ class PedidoControllerIT extends BaseIntegrationTest {
     @Autowired
     private ProdutoRepository produtoRepository;
 
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PedidoStreamHub pedidoStreamHub;
+
+    @Autowired
+    private PedidoDetalheCache pedidoDetalheCache;
+
+    @Autowired
+    private CotacaoService cotacaoService;
+
+    @Autowired
+    private ReconciliadorRollups reconciliadorRollups;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     @DisplayName("Deve criar pedido completo com sucesso (201 Created)")
     // Simula um cliente logado (ID 1 do data.sql é o João Silva, email: joao@email.com)
@@ -45,6 +105,40 @@ class PedidoControllerIT extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.data.status").value("PENDENTE"));
     }
 
+    @Test
+    @DisplayName("Retentativa com a mesma Idempotency-Key deve devolver o pedido original sem duplicar")
+    @WithMockUser(username = "joao@email.com", roles = {"CLIENTE"})
+    void testCriarPedido_IdempotencyKey() throws Exception {
+        String corpo = objectMapper.writeValueAsString(novoPedido(1L, 1L, 1L));
+        long pedidosAntes = pedidoRepository.count();
+
+        String primeira = mockMvc.perform(post("/api/pedidos")
+                        .header("Idempotency-Key", "checkout-123")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"))
+                .andReturn().getResponse().getContentAsString();
+        Integer pedidoId = JsonPath.read(primeira, "$.data.id");
+
+        mockMvc.perform(post("/api/pedidos")
+                        .header("Idempotency-Key", "checkout-123")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.data.id").value(pedidoId));
+
+        assertEquals(pedidosAntes + 1, pedidoRepository.count());
+
+        // Mesma chave com outra cesta: conflito
+        mockMvc.perform(post("/api/pedidos")
+                        .header("Idempotency-Key", "checkout-123")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novoPedido(1L, 1L, 2L))))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @DisplayName("Deve retornar 400 se produto não pertencer ao restaurante")
     @WithMockUser(username = "joao@email.com", roles = {"CLIENTE"})
@@ -108,6 +202,361 @@ class PedidoControllerIT extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.data.status").value("PREPARANDO"));
     }
 
+    @Test
+    @DisplayName("Transição válida deve ser um UPDATE condicional e a leitura dos donos pela chave, sem carregar o pedido")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testAtualizarStatus_UmUnicoComando() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // Pedido 2 é CONFIRMADO no data.sql
+        mockMvc.perform(patch("/api/pedidos/2/status")
+                        .param("status", StatusPedido.PREPARANDO.name()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id").value(2))
+                .andExpect(jsonPath("$.data.status").value("PREPARANDO"))
+                .andExpect(jsonPath("$.data.proximos.length()").value(2));
+
+        // UPDATE condicional + restaurante e cliente do evento, lidos pela PK na linha já travada
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @DisplayName("Status em lote: uma leitura e um UPDATE por destino, com resultado por transição")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testAtualizarStatusEmLote() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            // data.sql: pedido 1 PENDENTE, 2 CONFIRMADO, 3 ENTREGUE
+            String corpo = """
+                    [{"pedidoId": 1, "status": "PREPARANDO"},
+                     {"pedidoId": 2, "status": "PREPARANDO"},
+                     {"pedidoId": 3, "status": "CANCELADO"},
+                     {"pedidoId": 999, "status": "CONFIRMADO"},
+                     {"pedidoId": 1, "status": "CANCELADO"}]""";
+            mockMvc.perform(patch("/api/pedidos/status")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(corpo))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.total").value(5))
+                    .andExpect(jsonPath("$.data.alterados").value(2))
+                    .andExpect(jsonPath("$.data.resultados[0].status").value("PREPARANDO"))
+                    .andExpect(jsonPath("$.data.resultados[1].sucesso").value(true))
+                    .andExpect(jsonPath("$.data.resultados[2].sucesso").value(false))
+                    .andExpect(jsonPath("$.data.resultados[2].status").value("ENTREGUE"))
+                    .andExpect(jsonPath("$.data.resultados[2].erro").value("Não é possível cancelar um pedido já entregue."))
+                    .andExpect(jsonPath("$.data.resultados[3].erro").value("Pedido não encontrado: 999"))
+                    .andExpect(jsonPath("$.data.resultados[4].erro").value("Pedido repetido no lote: 1"));
+
+            // Os dois pedidos vão para PREPARANDO: um SELECT ... FOR UPDATE e um único UPDATE
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(List.of("PREPARANDO", "PREPARANDO"), List.of(
+                    pedidoRepository.findStatusById(1L, null, null).orElseThrow(),
+                    pedidoRepository.findStatusById(2L, null, null).orElseThrow()));
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    @DisplayName("Status em lote com dono do restaurante: pedidos de outro restaurante são rejeitados um a um")
+    void testAtualizarStatusEmLote_Escopo() throws Exception {
+        mockMvc.perform(patch("/api/pedidos/status").with(user(donoDoRestaurante(1L)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"pedidoId\": 1, \"status\": \"CONFIRMADO\"}, {\"pedidoId\": 2, \"status\": \"PREPARANDO\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.alterados").value(1))
+                .andExpect(jsonPath("$.data.resultados[0].status").value("CONFIRMADO"))
+                .andExpect(jsonPath("$.data.resultados[1].erro").value("Pedido fora do escopo do usuário: 2"));
+
+        assertEquals("CONFIRMADO", pedidoRepository.findStatusById(2L, null, null).orElseThrow());
+
+        mockMvc.perform(patch("/api/pedidos/status").with(user(cliente(1L)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"pedidoId\": 1, \"status\": \"CANCELADO\"}]"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Listagem deve ser uma única consulta por página, com o nome do restaurante projetado (sem N+1)")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testListarPedidos_UmaConsultaPorPagina() throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            // Pedidos 1, 2 e 3 (data.sql) são de três restaurantes diferentes
+            mockMvc.perform(get("/api/pedidos")
+                            .param("size", "3")
+                            .param("sort", "id")
+                            .param("count", "false"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.content[0].nomeRestaurante").value("Pizzaria Bella"))
+                    .andExpect(jsonPath("$.data.content[2].nomeRestaurante").isNotEmpty());
+
+            // A listagem e, antes dela, o MAX(data_pedido) do histórico (vazio: a união não é necessária)
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+
+            statistics.clear();
+            mockMvc.perform(get("/api/pedidos").param("status", StatusPedido.CONFIRMADO.name()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.content[0].id").value(2));
+
+            // Página parcial: o Page dispensa o COUNT
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    @DisplayName("Detalhe do pedido deve custar uma consulta (checagem de acesso incluída) e zero dentro do TTL do cache")
+    void testBuscarPorId_UmaConsultaECache() throws Exception {
+        pedidoDetalheCache.limpar();
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            // Pedido 3 (data.sql): cliente 3, restaurante 3, três itens
+            mockMvc.perform(get("/api/pedidos/3").with(user(donoDoRestaurante(3L))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.numeroPedido").value("PED1234567892"))
+                    .andExpect(jsonPath("$.data.cliente.id").value(3))
+                    .andExpect(jsonPath("$.data.restaurante.nome").value("Sushi Master"))
+                    .andExpect(jsonPath("$.data.itens.length()").value(3));
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+
+            statistics.clear();
+            mockMvc.perform(get("/api/pedidos/3").with(user(donoDoRestaurante(3L))))
+                    .andExpect(status().isOk());
+            // Acesso negado também é decidido pelo detalhe em cache
+            mockMvc.perform(get("/api/pedidos/3").with(user(donoDoRestaurante(1L))))
+                    .andExpect(status().isForbidden());
+            assertEquals(0, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            pedidoDetalheCache.limpar();
+        }
+    }
+
+    @Test
+    @DisplayName("Posse no WHERE: pedido de outro dono custa uma consulta por tabela e responde 403; o dono altera o próprio pedido")
+    void testPosseNaConsulta() throws Exception {
+        pedidoDetalheCache.limpar();
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            // Pedido 3 é do restaurante 3: a consulta de detalhe com a posse no WHERE não devolve nada,
+            // nem a mesma consulta em pedidos_historico (pela PK)
+            mockMvc.perform(get("/api/pedidos/3").with(user(donoDoRestaurante(1L))))
+                    .andExpect(status().isForbidden());
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+
+            // Pedido 1 (PENDENTE) é do restaurante 1: o UPDATE de outro restaurante não altera nada
+            statistics.clear();
+            mockMvc.perform(patch("/api/pedidos/1/status").with(user(donoDoRestaurante(2L)))
+                            .param("status", StatusPedido.CONFIRMADO.name()))
+                    .andExpect(status().isForbidden());
+            assertEquals(3, statistics.getPrepareStatementCount()); // UPDATE sem linhas + sondagem do status (quente e histórico)
+            mockMvc.perform(delete("/api/pedidos/1").with(user(cliente(3L))))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(patch("/api/pedidos/1/status").with(user(cliente(1L)))
+                            .param("status", StatusPedido.CANCELADO.name()))
+                    .andExpect(status().isForbidden());
+            assertEquals("PENDENTE", pedidoRepository.findStatusById(1L, null, null).orElseThrow());
+
+            statistics.clear();
+            mockMvc.perform(patch("/api/pedidos/1/status").with(user(donoDoRestaurante(1L)))
+                            .param("status", StatusPedido.CONFIRMADO.name()))
+                    .andExpect(status().isOk());
+            assertEquals(2, statistics.getPrepareStatementCount()); // UPDATE + donos para o evento
+            mockMvc.perform(delete("/api/pedidos/1").with(user(cliente(1L))))
+                    .andExpect(status().isNoContent());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            pedidoDetalheCache.limpar();
+        }
+    }
+
+    private static Usuario cliente(Long clienteId) {
+        Usuario cliente = new Usuario();
+        cliente.setId(clienteId);
+        cliente.setEmail("cliente" + clienteId + "@email.com");
+        cliente.setRole(Role.CLIENTE);
+        cliente.setAtivo(true);
+        return cliente;
+    }
+
+    private static Usuario donoDoRestaurante(Long restauranteId) {
+        Usuario dono = new Usuario();
+        dono.setId(600L + restauranteId);
+        dono.setEmail("dono" + restauranteId + "@email.com");
+        dono.setRole(Role.RESTAURANTE);
+        dono.setRestauranteId(restauranteId);
+        dono.setAtivo(true);
+        return dono;
+    }
+
+    @Test
+    @DisplayName("Restaurante no limite de pedidos em andamento deve recusar novos pedidos com 429 e Retry-After")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testCriarPedido_LimiteDeAdmissao() throws Exception {
+        // Restaurante 1 já tem um pedido PENDENTE (data.sql)
+        mockMvc.perform(put("/api/restaurantes/1/admissao")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"maxEmAndamento\": 1, \"pedidosPorMinuto\": 0, \"rajada\": 1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.personalizado").value(true))
+                .andExpect(jsonPath("$.data.emAndamento").isNumber());
+        try {
+            mockMvc.perform(post("/api/pedidos").with(user("joao@email.com").roles("CLIENTE"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(novoPedido(1L, 1L, 1L))))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "30"));
+
+            // Outro restaurante segue com os limites padrão
+            mockMvc.perform(post("/api/pedidos").with(user("joao@email.com").roles("CLIENTE"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(novoPedido(1L, 2L, 4L))))
+                    .andExpect(status().isCreated());
+        } finally {
+            mockMvc.perform(delete("/api/restaurantes/1/admissao"))
+                    .andExpect(status().isNoContent());
+        }
+    }
+
+    @Test
+    @DisplayName("Repetição de Idempotency-Key deve ser respondida pelo store, sem passar pela admissão nem pelo banco")
+    void testCriarPedido_RepeticaoNaoPassaPelaAdmissao() throws Exception {
+        String corpo = objectMapper.writeValueAsString(novoPedido(1L, 1L, 1L));
+        mockMvc.perform(post("/api/pedidos").with(user("joao@email.com").roles("CLIENTE"))
+                        .header("Idempotency-Key", "checkout-admissao")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isCreated());
+        // Restaurante 1 passa a ter 2 pedidos em andamento, acima do novo limite
+        mockMvc.perform(put("/api/restaurantes/1/admissao").with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"maxEmAndamento\": 1, \"pedidosPorMinuto\": 0, \"rajada\": 1}"))
+                .andExpect(status().isOk());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(post("/api/pedidos").with(user("joao@email.com").roles("CLIENTE"))
+                            .header("Idempotency-Key", "checkout-admissao")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(corpo))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Idempotent-Replayed", "true"));
+            assertEquals(0, statistics.getPrepareStatementCount());
+
+            // Chave nova é um pedido novo: esse sim passa pela admissão
+            mockMvc.perform(post("/api/pedidos").with(user("joao@email.com").roles("CLIENTE"))
+                            .header("Idempotency-Key", "checkout-admissao-2")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(corpo))
+                    .andExpect(status().isTooManyRequests());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            mockMvc.perform(delete("/api/restaurantes/1/admissao").with(user("admin").roles("ADMIN")))
+                    .andExpect(status().isNoContent());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar transição fora da tabela (400) e pedido inexistente (404)")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testAtualizarStatus_TransicaoInvalida() throws Exception {
+        // Pedido 1 é PENDENTE: não pode pular direto para ENTREGUE
+        mockMvc.perform(patch("/api/pedidos/1/status")
+                        .param("status", StatusPedido.ENTREGUE.name()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error.message").value(org.hamcrest.Matchers.startsWith("Transição de status inválida: PENDENTE -> ENTREGUE")));
+
+        // Pedido 3 é ENTREGUE: estado final
+        mockMvc.perform(patch("/api/pedidos/3/status")
+                        .param("status", StatusPedido.PREPARANDO.name()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error.message").value("Pedido já finalizado ou cancelado. Não é possível alterar o status."));
+
+        mockMvc.perform(patch("/api/pedidos/999/status")
+                        .param("status", StatusPedido.CONFIRMADO.name()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Cancelar de novo um pedido cancelado deve responder 204 sem alterar nada; outras transições seguem rejeitadas")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testCancelarPedido_Idempotente() throws Exception {
+        mockMvc.perform(delete("/api/pedidos/1"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/pedidos/1"))
+                .andExpect(status().isNoContent());
+        assertEquals("CANCELADO", pedidoRepository.findStatusById(1L, null, null).orElseThrow());
+
+        mockMvc.perform(patch("/api/pedidos/1/status")
+                        .param("status", StatusPedido.PREPARANDO.name()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error.message").value("Pedido já finalizado ou cancelado. Não é possível alterar o status."));
+    }
+
+    @Test
+    @DisplayName("Stream SSE deve entregar ao restaurante os eventos publicados após o commit")
+    void testStreamPedidosRecebidos() throws Exception {
+        Usuario dono = new Usuario();
+        dono.setId(500L);
+        dono.setEmail("dono.stream@email.com");
+        dono.setRole(Role.RESTAURANTE);
+        dono.setRestauranteId(1L);
+        dono.setAtivo(true);
+
+        MvcResult resultado = mockMvc.perform(get("/api/pedidos/recebidos/stream").with(user(dono)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        pedidoStreamHub.aoConfirmarTransacao(new PedidoEvento(PedidoEvento.Tipo.CRIADO, 77L, 1L, 1L, "PED77",
+                StatusPedido.PENDENTE.name(), BigDecimal.TEN, LocalDateTime.now()));
+        pedidoStreamHub.aoConfirmarTransacao(new PedidoEvento(PedidoEvento.Tipo.CRIADO, 78L, 2L, 2L, "PED78",
+                StatusPedido.PENDENTE.name(), BigDecimal.TEN, LocalDateTime.now()));
+
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!resultado.getResponse().getContentAsString().contains("PED77") && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        String corpo = resultado.getResponse().getContentAsString();
+        assertTrue(corpo.contains("event:CRIADO"));
+        assertTrue(corpo.contains("\"numeroPedido\":\"PED77\""));
+        assertFalse(corpo.contains("PED78")); // pedido de outro restaurante
+        assertEquals(MediaType.TEXT_EVENT_STREAM_VALUE, resultado.getResponse().getContentType());
+        assertEquals("no", resultado.getResponse().getHeader("X-Accel-Buffering"));
+    }
+
+    @Test
+    @DisplayName("Stream SSE é exclusivo de restaurantes (403 para cliente)")
+    @WithMockUser(username = "joao@email.com", roles = {"CLIENTE"})
+    void testStreamPedidosRecebidos_Cliente() throws Exception {
+        mockMvc.perform(get("/api/pedidos/recebidos/stream"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @DisplayName("Deve listar histórico de pedidos do cliente")
     @WithMockUser(username = "admin", roles = {"ADMIN"})
@@ -117,4 +566,297 @@ class PedidoControllerIT extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.data.content").isArray())
                 .andExpect(jsonPath("$.data.totalElements").isNotEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Cotação deve carregar a tabela do restaurante uma vez e depois responder sem consultas, qualquer que seja a cesta")
+    @WithMockUser(username = "joao@email.com", roles = {"CLIENTE"})
+    void testCalcularTotal_ConsultasConstantes() throws Exception {
+        cotacaoService.limpar(); // A tabela carregada aqui teria produtos desta transação (desfeita no fim do teste)
+        // ARRANGE: 15 produtos no Restaurante 1
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            produtos.add(new Produto(null, "Produto Cesta " + i, null, new BigDecimal("10.00"), "Pizza", true, 1L));
+        }
+        produtos = produtoRepository.saveAll(produtos);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            long consultasCestaUnitaria = contarConsultasCalcular(statistics, produtos.subList(0, 1));
+            long consultasCestaCompleta = contarConsultasCalcular(statistics, produtos);
+
+            // Carga da tabela: 1 consulta do restaurante + 1 dos produtos; depois, tudo em memória
+            assertEquals(2, consultasCestaUnitaria);
+            assertEquals(0, consultasCestaCompleta);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            cotacaoService.limpar();
+        }
+    }
+
+    @Test
+    @DisplayName("Pedido com token de cotação válido deve manter os preços cotados; token adulterado reprecifica")
+    @WithMockUser(username = "joao@email.com", roles = {"CLIENTE"})
+    void testCriarPedido_ComTokenDeCotacao() throws Exception {
+        cotacaoService.limpar();
+        try {
+            PedidoRequestDTO request = novoPedido(1L, 1L, 1L);
+            String cotacao = mockMvc.perform(post("/api/pedidos/calcular")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.valorTotal").value(40.90))
+                    .andExpect(jsonPath("$.data.itens[0].precoUnitario").value(35.90))
+                    .andReturn().getResponse().getContentAsString();
+            String token = JsonPath.read(cotacao, "$.data.token");
+
+            // Preço alterado direto no banco (sem evento): só a reprecificação enxergaria
+            entityManager.createNativeQuery("UPDATE produtos SET preco = 99.00 WHERE id = 1").executeUpdate();
+            entityManager.clear();
+
+            request.setTokenCotacao(token);
+            mockMvc.perform(post("/api/pedidos")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.data.valorTotal").value(40.90));
+
+            request.setTokenCotacao(token.substring(0, token.length() - 2) + "xx");
+            mockMvc.perform(post("/api/pedidos")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.data.valorTotal").value(104.00));
+        } finally {
+            cotacaoService.limpar();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve processar lote informando sucesso ou falha de cada pedido")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testCriarPedidosEmLote_ResultadoPorItem() throws Exception {
+        PedidoRequestDTO valido = novoPedido(1L, 1L, 1L);          // Produto 1 é do Restaurante 1
+        PedidoRequestDTO produtoErrado = novoPedido(1L, 1L, 4L);   // Produto 4 é do Restaurante 2
+        PedidoRequestDTO clienteInexistente = novoPedido(99L, 2L, 4L);
+        PedidoRequestDTO semItens = novoPedido(2L, 2L, 4L);
+        semItens.setItens(List.of());
+
+        ResultActions resposta = mockMvc.perform(post("/api/pedidos/lote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(valido, produtoErrado, clienteInexistente, semItens))));
+        try {
+            resposta.andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.total").value(4))
+                    .andExpect(jsonPath("$.data.criados").value(1))
+                    .andExpect(jsonPath("$.data.rejeitados").value(3))
+                    .andExpect(jsonPath("$.data.resultados[0].sucesso").value(true))
+                    .andExpect(jsonPath("$.data.resultados[0].pedidoId").isNumber())
+                    // (35.90 * 1) + 5.00 (taxa)
+                    .andExpect(jsonPath("$.data.resultados[0].valorTotal").value(40.90))
+                    .andExpect(jsonPath("$.data.resultados[1].sucesso").value(false))
+                    .andExpect(jsonPath("$.data.resultados[1].erro").value("Produto X-Burger não pertence ao restaurante selecionado."))
+                    .andExpect(jsonPath("$.data.resultados[2].erro").value("Cliente não encontrado: 99"))
+                    .andExpect(jsonPath("$.data.resultados[3].indice").value(3))
+                    .andExpect(jsonPath("$.data.resultados[3].sucesso").value(false));
+        } finally {
+            removerGravadosPeloLote(resposta.andReturn());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar o lote com consultas e INSERTs agrupados, não um por pedido")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testCriarPedidosEmLote_ConsultasAgrupadas() throws Exception {
+        int quantidade = 120;
+        List<PedidoRequestDTO> lote = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            lote.add(novoPedido(1L + (i % 3), 1L, 1L + (i % 3)));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        entityManager.clear();
+        statistics.clear();
+
+        ResultActions resposta = mockMvc.perform(post("/api/pedidos/lote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(lote)));
+        try {
+            resposta.andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.criados").value(quantidade));
+
+            // 3 leituras (IN) e, por bloco de 50 pedidos (transação própria): sequences, 2 INSERTs em lote
+            // e o outbox (rollups ficam com o relay). Cresce com os blocos, não com os pedidos
+            int blocos = (quantidade + 49) / 50;
+            long statements = statistics.getPrepareStatementCount();
+            assertTrue(statements <= 3 + 9 * blocos, "Statements preparados: " + statements);
+        } finally {
+            removerGravadosPeloLote(resposta.andReturn());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar lote vazio (400)")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testCriarPedidosEmLote_Vazio() throws Exception {
+        mockMvc.perform(post("/api/pedidos/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Paginação por cursor deve percorrer o histórico sem repetir nem pular pedidos, sem carregar entidades")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testHistoricoPorCursor_PercorreTodasAsPaginas() throws Exception {
+        // ARRANGE: 7 pedidos novos no Restaurante 2, com datas repetidas para exercitar o desempate por id
+        LocalDateTime base = LocalDateTime.now().minusDays(1);
+        Restaurante restaurante = entityManager.getReference(Restaurante.class, 2L);
+        for (int i = 0; i < 7; i++) {
+            Pedido pedido = new Pedido();
+            pedido.setNumeroPedido("CURSOR" + i);
+            pedido.setDataPedido(base.plusMinutes(i / 2));
+            pedido.setStatus(StatusPedido.ENTREGUE.name());
+            pedido.setValorTotal(BigDecimal.TEN);
+            pedido.setClienteId(2L);
+            pedido.setRestaurante(restaurante);
+            pedidoRepository.save(pedido);
+        }
+        // Relê do banco: o cursor deve carregar a data com a precisão gravada na coluna
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Pedido> esperado = pedidoRepository.findAll().stream()
+                .filter(p -> p.getRestaurante().getId().equals(2L))
+                .sorted(Comparator.comparing(Pedido::getDataPedido).thenComparing(Pedido::getId).reversed())
+                .toList();
+
+        // ACT: percorre páginas de 3
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        List<Long> percorrido = new ArrayList<>();
+        String cursor = null;
+        boolean hasNext = true;
+        while (hasNext) {
+            var request = get("/api/pedidos/restaurante/2/cursor").param("size", "3");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String json = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.totalElements").doesNotExist())
+                    .andExpect(jsonPath("$.data.content[0].nomeRestaurante").value("Burger House"))
+                    .andReturn().getResponse().getContentAsString();
+
+            List<Integer> ids = JsonPath.read(json, "$.data.content[*].id");
+            ids.forEach(id -> percorrido.add(id.longValue()));
+            hasNext = JsonPath.read(json, "$.data.hasNext");
+            cursor = JsonPath.read(json, "$.data.nextCursor");
+        }
+
+        // Projeção direto em PedidoResumoDTO: nem Pedido nem Restaurante passam pelo contexto de persistência
+        assertEquals(0, statistics.getEntityLoadCount());
+        statistics.setStatisticsEnabled(false);
+
+        // ASSERT
+        assertEquals(esperado.stream().map(Pedido::getId).toList(), percorrido);
+        assertNull(cursor);
+    }
+
+    @Test
+    @DisplayName("Cursor inválido ou tamanho fora do limite deve retornar 400")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testHistoricoPorCursor_ParametrosInvalidos() throws Exception {
+        mockMvc.perform(get("/api/pedidos/cliente/1/cursor").param("cursor", "nao-e-um-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/pedidos/cliente/1/cursor").param("size", "101"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Históricos por cursor de um cliente ou restaurante qualquer devem ser só do ADMIN")
+    void testHistoricoPorCursor_SomenteAdmin() throws Exception {
+        mockMvc.perform(get("/api/pedidos/cliente/1/cursor").with(user(cliente(2L))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/pedidos/restaurante/1/cursor").with(user(donoDoRestaurante(2L))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/pedidos/restaurante/1/cursor").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Endpoints por cursor devem documentar os mesmos parâmetros e o mesmo tamanho padrão (10)")
+    void testHistoricoPorCursor_MesmosPadroes() throws Exception {
+        String docs = mockMvc.perform(get("/api-docs"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        for (String caminho : List.of("/api/pedidos/meus/cursor", "/api/pedidos/recebidos/cursor",
+                "/api/pedidos/cliente/{clienteId}/cursor", "/api/pedidos/restaurante/{restauranteId}/cursor")) {
+            String parametros = "$.paths['" + caminho + "'].get.parameters";
+            assertEquals(List.of(10), JsonPath.read(docs, parametros + "[?(@.name == 'size')].schema.default"), caminho);
+            assertEquals(List.of("Itens por página (1 a 100)"),
+                    JsonPath.read(docs, parametros + "[?(@.name == 'size')].description"), caminho);
+            assertEquals(1, JsonPath.<List<String>>read(docs, parametros + "[?(@.name == 'cursor')].description").size(), caminho);
+        }
+    }
+
+    private PedidoRequestDTO novoPedido(Long clienteId, Long restauranteId, Long produtoId) {
+        ItemPedidoDTO item = new ItemPedidoDTO();
+        item.setProdutoId(produtoId);
+        item.setQuantidade(1);
+
+        PedidoRequestDTO request = new PedidoRequestDTO();
+        request.setClienteId(clienteId);
+        request.setRestauranteId(restauranteId);
+        request.setItens(List.of(item));
+        return request;
+    }
+
+    private long contarConsultasCalcular(Statistics statistics, List<Produto> produtos) throws Exception {
+        List<ItemPedidoDTO> itens = new ArrayList<>();
+        for (Produto produto : produtos) {
+            ItemPedidoDTO item = new ItemPedidoDTO();
+            item.setProdutoId(produto.getId());
+            item.setQuantidade(2);
+            itens.add(item);
+        }
+
+        PedidoRequestDTO request = new PedidoRequestDTO();
+        request.setClienteId(1L);
+        request.setRestauranteId(1L);
+        request.setItens(itens);
+
+        entityManager.clear();
+        statistics.clear();
+
+        // Valor esperado: (10.00 * 2 * N) + 5.00 (taxa)
+        mockMvc.perform(post("/api/pedidos/calcular")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.valorTotal").value(20.00 * produtos.size() + 5.00));
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Cada bloco do lote commita na própria transação, fora da transação do teste: apaga o que ficou gravado
+    private void removerGravadosPeloLote(MvcResult resultado) throws Exception {
+        List<Number> ids = JsonPath.read(resultado.getResponse().getContentAsString(),
+                "$.data.resultados[?(@.sucesso == true)].pedidoId");
+        TransactionTemplate foraDoTeste = new TransactionTemplate(transactionManager);
+        foraDoTeste.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        foraDoTeste.executeWithoutResult(status -> {
+            for (Number id : ids) {
+                jdbcTemplate.update("DELETE FROM itens_pedido WHERE pedido_id = ?", id.longValue());
+                jdbcTemplate.update("DELETE FROM pedidos_outbox WHERE pedido_id = ?", id.longValue());
+                jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", id.longValue());
+            }
+            reconciliadorRollups.reconstruir(LocalDate.now(), LocalDate.now());
+        });
+    }
+}
@@ -0,0 +1,321 @@
+package com.deliverytech.delivery_api.controller;
+
+import com.deliverytech.delivery_api.BaseIntegrationTest;
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.deliverytech.delivery_api.dto.RelatorioJobRequestDTO;
+import com.deliverytech.delivery_api.services.analitico.ColunasPedidos;
+import com.deliverytech.delivery_api.services.relatorios.ExportadorPedidos;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RelatorioControllerIT extends BaseIntegrationTest {
+
+    @Autowired
+    private ColunasPedidos colunasPedidos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExportadorPedidos exportadorPedidos;
+
+    @Test
+    @DisplayName("Ranking de mais vendidos deve somar as quantidades da tabela itens_pedido")
+    @WithMockUser(username = "joao@email.com", roles = {"CLIENTE"})
+    void testProdutosMaisVendidos_SomaQuantidades() throws Exception {
+        // ARRANGE: data.sql já vendeu 1 unidade de cada produto; pedimos mais 3 Pizzas Calabresa (ID 2)
+        ItemPedidoDTO item = new ItemPedidoDTO();
+        item.setProdutoId(2L);
+        item.setQuantidade(3);
+
+        PedidoRequestDTO request = new PedidoRequestDTO();
+        request.setClienteId(1L);
+        request.setRestauranteId(1L);
+        request.setItens(List.of(item));
+
+        mockMvc.perform(post("/api/pedidos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // ACT & ASSERT
+        mockMvc.perform(get("/api/relatorios/produtos-mais-vendidos").param("limite", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(3))
+                .andExpect(jsonPath("$.data[0].produtoNome").value("Pizza Calabresa"))
+                .andExpect(jsonPath("$.data[0].quantidadeVendida").value(4));
+    }
+
+    @Test
+    @DisplayName("Relatório analítico deve agregar a base em memória, filtrando pelo período")
+    @WithMockUser(roles = {"ADMIN"})
+    void testAnalitico_VendasPorRestaurante() throws Exception {
+        // ARRANGE: um pedido num dia sem nenhum outro, gravado direto no banco e lido pela recarga
+        // (o rollback não o tira da memória, mas nenhum outro teste consulta esse dia)
+        jdbcTemplate.update("INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, cliente_id, restaurante_id) " +
+                "VALUES (?, ?, ?, 'ENTREGUE', 99.99, 2, 2)", 900_001L, "PEDANALITICO1", Timestamp.valueOf("2001-01-01 12:00:00"));
+        mockMvc.perform(post("/api/relatorios/analitico/recarregar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").isNumber());
+
+        // ACT & ASSERT
+        mockMvc.perform(get("/api/relatorios/analitico/vendas-por-restaurante")
+                        .param("dataInicio", "2001-01-01T00:00:00")
+                        .param("dataFim", "2001-01-01T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].restauranteNome").value("Burger House"))
+                .andExpect(jsonPath("$.data[0].totalVendas").value(99.99))
+                .andExpect(jsonPath("$.data[0].totalEntregue").value(99.99));
+
+        mockMvc.perform(get("/api/relatorios/analitico/clientes-mais-ativos")
+                        .param("dataInicio", "2001-01-01T00:00:00")
+                        .param("dataFim", "2001-01-01T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].clienteNome").value("Maria Santos"))
+                .andExpect(jsonPath("$.data[0].totalPedidos").value(1));
+
+        // Complemento: pedido novo acima da marca entra; depois, cancelado no banco, sai do total
+        jdbcTemplate.update("INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, cliente_id, restaurante_id) " +
+                "VALUES (?, ?, ?, 'PENDENTE', 0.01, 2, 2)", 900_002L, "PEDANALITICO2", Timestamp.valueOf("2001-01-01 13:00:00"));
+        colunasPedidos.complementar();
+        mockMvc.perform(get("/api/relatorios/analitico/vendas-por-restaurante")
+                        .param("dataInicio", "2001-01-01T00:00:00")
+                        .param("dataFim", "2001-01-01T23:59:59"))
+                .andExpect(jsonPath("$.data[0].totalVendas").value(100.00));
+
+        jdbcTemplate.update("UPDATE pedidos SET status = 'CANCELADO' WHERE id = ?", 900_002L);
+        colunasPedidos.complementar();
+        mockMvc.perform(get("/api/relatorios/analitico/vendas-por-restaurante")
+                        .param("dataInicio", "2001-01-01T00:00:00")
+                        .param("dataFim", "2001-01-01T23:59:59"))
+                .andExpect(jsonPath("$.data[0].totalVendas").value(99.99));
+    }
+
+    @Test
+    @DisplayName("Relatório analítico deve ser restrito a administradores")
+    @WithMockUser(roles = {"CLIENTE"})
+    void testAnalitico_SomenteAdmin() throws Exception {
+        mockMvc.perform(get("/api/relatorios/analitico/faturamento-por-categoria"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Exportação CSV deve trazer cabeçalho e uma linha por pedido do período")
+    @WithMockUser(roles = {"ADMIN"})
+    void testExportarPedidosPorPeriodo_Csv() throws Exception {
+        MvcResult inicio = mockMvc.perform(get("/api/relatorios/pedidos-por-periodo/export")
+                        .param("dataInicio", LocalDate.now().minusDays(1) + "T00:00:00")
+                        .param("dataFim", LocalDate.now().plusDays(1) + "T00:00:00")
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult resultado = mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andReturn();
+
+        // data.sql: três pedidos com data de hoje
+        List<String> linhas = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("id,numeroPedido,dataPedido,status,valorTotal,nomeRestaurante", linhas.get(0));
+        assertEquals(4, linhas.size());
+        assertTrue(linhas.stream().anyMatch(l -> l.startsWith("1,PED1234567890,") && l.endsWith(",PENDENTE,54.80,Pizzaria Bella")));
+    }
+
+    @Test
+    @DisplayName("Exportação NDJSON deve sair em gzip quando o cliente aceitar")
+    @WithMockUser(roles = {"ADMIN"})
+    void testExportarPedidosPorPeriodo_NdjsonGzip() throws Exception {
+        MvcResult inicio = mockMvc.perform(get("/api/relatorios/pedidos-por-periodo/export")
+                        .param("dataInicio", LocalDate.now().minusDays(1) + "T00:00:00")
+                        .param("dataFim", LocalDate.now().plusDays(1) + "T00:00:00")
+                        .param("format", "ndjson")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult resultado = mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        List<String> linhas = gunzip(resultado.getResponse().getContentAsByteArray()).lines().toList();
+        assertEquals(3, linhas.size());
+        assertEquals(List.of("Burger House"), linhas.stream()
+                .map(this::ler)
+                .filter(p -> p.get("id").asLong() == 2L)
+                .map(p -> p.get("nomeRestaurante").asText())
+                .toList());
+    }
+
+    @Test
+    @DisplayName("Exportação de pedidos deve ser restrita a administradores")
+    @WithMockUser(roles = {"CLIENTE"})
+    void testExportarPedidosPorPeriodo_ClienteProibido() throws Exception {
+        mockMvc.perform(get("/api/relatorios/pedidos-por-periodo/export")
+                        .param("dataInicio", "2025-01-01T00:00:00")
+                        .param("dataFim", "2025-01-31T23:59:59"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Com todas as vagas de exportação ocupadas, a próxima deve receber 429 com Retry-After")
+    @WithMockUser(roles = {"ADMIN"})
+    void testExportarPedidosPorPeriodo_LimiteSimultaneas() throws Exception {
+        // application.properties: duas exportações simultâneas
+        try (ExportadorPedidos.Vaga primeira = exportadorPedidos.reservarVaga();
+             ExportadorPedidos.Vaga segunda = exportadorPedidos.reservarVaga()) {
+            mockMvc.perform(get("/api/relatorios/pedidos-por-periodo/export")
+                            .param("dataInicio", "2025-01-01T00:00:00")
+                            .param("dataFim", "2025-01-31T23:59:59"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        }
+
+        // Vagas devolvidas: a exportação volta a ser aceita
+        MvcResult inicio = mockMvc.perform(get("/api/relatorios/pedidos-por-periodo/export")
+                        .param("dataInicio", "2025-01-01T00:00:00")
+                        .param("dataFim", "2025-01-31T23:59:59"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Exportação com formato desconhecido deve ser rejeitada antes de abrir o cursor")
+    @WithMockUser(roles = {"ADMIN"})
+    void testExportarPedidosPorPeriodo_FormatoInvalido() throws Exception {
+        mockMvc.perform(get("/api/relatorios/pedidos-por-periodo/export")
+                        .param("dataInicio", "2025-01-01T00:00:00")
+                        .param("dataFim", "2025-01-31T23:59:59")
+                        .param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Job de relatório deve ser acompanhado, baixado, reaproveitado para os mesmos parâmetros e descartado")
+    @WithMockUser(roles = {"ADMIN"})
+    void testJobPedidosPorPeriodo() throws Exception {
+        RelatorioJobRequestDTO request = new RelatorioJobRequestDTO(RelatorioJobRequestDTO.Tipo.PEDIDOS_POR_PERIODO,
+                LocalDate.now().minusDays(1).atStartOfDay(), LocalDate.now().plusDays(1).atStartOfDay(), "csv");
+
+        MvcResult aceite = mockMvc.perform(post("/api/relatorios/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andReturn();
+        String id = objectMapper.readTree(aceite.getResponse().getContentAsString()).at("/data/id").asText();
+
+        // O job roda em outra thread: espera terminar
+        JsonNode job = null;
+        long limite = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < limite) {
+            job = objectMapper.readTree(mockMvc.perform(get("/api/relatorios/jobs/{id}", id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).get("data");
+            if (!job.get("situacao").asText().equals("EM_FILA") && !job.get("situacao").asText().equals("EXECUTANDO")) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        assertEquals("CONCLUIDO", job.get("situacao").asText());
+        assertEquals(3, job.get("linhasProcessadas").asLong());
+        assertEquals(100, job.get("percentual").asInt());
+
+        MvcResult download = mockMvc.perform(get("/api/relatorios/jobs/{id}/resultado", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andReturn();
+        List<String> linhas = download.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("id,numeroPedido,dataPedido,status,valorTotal,nomeRestaurante", linhas.get(0));
+        assertEquals(4, linhas.size());
+
+        // Mesmos parâmetros: o mesmo job, já concluído
+        mockMvc.perform(post("/api/relatorios/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data.id").value(id))
+                .andExpect(jsonPath("$.data.situacao").value("CONCLUIDO"));
+
+        mockMvc.perform(delete("/api/relatorios/jobs/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/relatorios/jobs/{id}/resultado", id))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Job sem tipo ou sem o período deve ser rejeitado, e id desconhecido deve dar 404")
+    @WithMockUser(roles = {"ADMIN"})
+    void testJob_Validacao() throws Exception {
+        RelatorioJobRequestDTO semPeriodo = new RelatorioJobRequestDTO(RelatorioJobRequestDTO.Tipo.PEDIDOS_POR_PERIODO,
+                LocalDateTime.now(), null, "csv");
+        mockMvc.perform(post("/api/relatorios/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(semPeriodo)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/relatorios/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"formato\": \"csv\"}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/relatorios/jobs/{id}", "inexistente"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Jobs de relatório devem ser restritos a administradores")
+    @WithMockUser(roles = {"CLIENTE"})
+    void testJob_SomenteAdmin() throws Exception {
+        mockMvc.perform(post("/api/relatorios/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tipo\": \"CLIENTES_MAIS_ATIVOS\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    private JsonNode ler(String linha) {
+        try {
+            return objectMapper.readTree(linha);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String gunzip(byte[] conteudo) throws IOException {
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(conteudo))) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
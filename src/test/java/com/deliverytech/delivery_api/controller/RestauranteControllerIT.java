@@ -1,8 +1,14 @@
 package com.deliverytech.delivery_api.controller;
 
 import com.deliverytech.delivery_api.BaseIntegrationTest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -13,6 +19,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 public class RestauranteControllerIT extends BaseIntegrationTest {
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("Cenário 4.1: Deve listar restaurantes com filtro e paginação")
     void testListarRestaurantes_FilterAndPagination() throws Exception {
@@ -43,4 +52,31 @@ public class RestauranteControllerIT extends BaseIntegrationTest {
                 // Valida o conteúdo e a ordenação (Batata Frita vem antes de X-Bacon)
                 .andExpect(jsonPath("$.data.content[0].nome").value("Batata Frita"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Com count=false deve devolver Slice sem totais e sem a consulta de contagem")
+    void testBuscarProdutosPorRestaurante_SemContagem() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // Restaurante 2 (Burger House) tem 3 produtos no data.sql
+        mockMvc.perform(get("/api/restaurantes/2/produtos?page=0&size=2&sort=nome,asc&count=false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(2))
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andExpect(jsonPath("$.data.last").value(false))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.data.totalPages").doesNotExist());
+        long consultasSemContagem = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        mockMvc.perform(get("/api/restaurantes/2/produtos?page=0&size=2&sort=nome,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andExpect(jsonPath("$.data.totalElements").value(3));
+
+        assertEquals(1, consultasSemContagem);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,139 @@
+package com.deliverytech.delivery_api.repository;
+
+import com.deliverytech.delivery_api.BaseIntegrationTest;
+import com.deliverytech.delivery_api.SqlCapturado;
+import com.deliverytech.delivery_api.dto.PedidoResumoDTO;
+import com.deliverytech.delivery_api.entity.Pedido;
+import com.deliverytech.delivery_api.entity.PedidoConsolidado;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Busca por Specification: resultados e plano de execução. O SQL gerado pelo Hibernate é capturado (SqlCapturado)
+ * e passado ao EXPLAIN do H2 (MODE=MariaDB); cada combinação de filtros deve acessar pedidos por um índice,
+ * e na união com o histórico (PedidoConsolidado) o filtro deve descer aos dois ramos e usar índice em ambos.
+ */
+class PedidoBuscaRepositoryIT extends BaseIntegrationTest {
+
+    // Comentário do plano logo após a tabela pedidos: /* PUBLIC.IDX_...: ... */ ou /* PUBLIC.PEDIDOS.tableScan */
+    private static final Pattern ACESSO_PEDIDOS = Pattern.compile("\"PEDIDOS\"\\s+\"\\w+\"\\s*/\\*\\s*([\\w.\"]+)", Pattern.CASE_INSENSITIVE);
+    // Plano da subconsulta da união: FROM PUBLIC.PEDIDOS /* índice */ e FROM PUBLIC.PEDIDOS_HISTORICO /* índice */
+    private static final Pattern ACESSO_RAMO = Pattern.compile("FROM PUBLIC\\.(PEDIDOS(?:_HISTORICO)?)\\s*/\\*\\s*([\\w.]+)");
+
+    private static final Pageable PAGINA = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "dataPedido"));
+
+    @Autowired
+    private PedidoBuscaRepository pedidoBuscaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Filtros combinados devem restringir o resultado só pelos campos informados")
+    void testFiltrosCombinados() {
+        // data.sql: pedido 1 PENDENTE (cliente 1, restaurante 1), 2 CONFIRMADO (restaurante 2), 3 ENTREGUE (cliente 3, restaurante 3)
+        assertEquals(List.of(1L), ids(new PedidoFiltro(StatusPedido.PENDENTE, null, null, 1L, 1L, null, null)));
+        assertEquals(List.of(), ids(new PedidoFiltro(StatusPedido.PENDENTE, null, null, 2L, null, null, null)));
+        assertEquals(3, ids(new PedidoFiltro(null, null, null, null, null, null, null)).size());
+
+        Page<PedidoResumoDTO> restaurante3 = pedidoBuscaRepository.buscar(Pedido.class,
+                PedidoSpecs.doFiltro(new PedidoFiltro(null, null, LocalDateTime.now(), 3L, null, BigDecimal.ZERO, null)), PAGINA);
+        assertEquals(1, restaurante3.getTotalElements());
+        assertEquals("Sushi Master", restaurante3.getContent().get(0).getNomeRestaurante());
+    }
+
+    @Test
+    @DisplayName("Cada combinação de filtros deve ler pedidos (e o histórico, na união) por índice (EXPLAIN), sem varredura")
+    void testCombinacoesUsamIndice() {
+        LocalDateTime inicio = LocalDateTime.now().minusDays(7);
+        LocalDateTime fim = LocalDateTime.now();
+        BigDecimal minimo = new BigDecimal("50.00");
+        BigDecimal maximo = new BigDecimal("200.00");
+
+        Map<String, PedidoFiltro> combinacoes = new LinkedHashMap<>();
+        combinacoes.put("status", new PedidoFiltro(StatusPedido.PENDENTE, null, null, null, null, null, null));
+        combinacoes.put("status + período", new PedidoFiltro(StatusPedido.ENTREGUE, inicio, fim, null, null, null, null));
+        combinacoes.put("período", new PedidoFiltro(null, inicio, fim, null, null, null, null));
+        combinacoes.put("restaurante", new PedidoFiltro(null, null, null, 1L, null, null, null));
+        combinacoes.put("restaurante + status", new PedidoFiltro(StatusPedido.PREPARANDO, null, null, 1L, null, null, null));
+        combinacoes.put("restaurante + período", new PedidoFiltro(null, inicio, fim, 1L, null, null, null));
+        combinacoes.put("cliente", new PedidoFiltro(null, null, null, null, 1L, null, null));
+        combinacoes.put("cliente + status + período", new PedidoFiltro(StatusPedido.ENTREGUE, inicio, fim, null, 1L, null, null));
+        combinacoes.put("valor", new PedidoFiltro(null, null, null, null, null, minimo, maximo));
+        combinacoes.put("valor mínimo + status", new PedidoFiltro(StatusPedido.ENTREGUE, null, null, null, null, minimo, null));
+        combinacoes.put("todos", new PedidoFiltro(StatusPedido.ENTREGUE, inicio, fim, 3L, 3L, minimo, maximo));
+
+        combinacoes.forEach((nome, filtro) -> {
+            List<String> sqls = SqlCapturado.capturar(
+                    () -> pedidoBuscaRepository.buscar(Pedido.class, PedidoSpecs.doFiltro(filtro), PAGINA));
+            assertFalse(sqls.isEmpty(), nome);
+            for (String sql : sqls) {
+                // No H2 a FK ganha um índice próprio (FK_PEDIDOS_*); no MariaDB ela reaproveita o idx_pedidos_* de mesmo prefixo
+                String acesso = acessoAPedidos(explain(sql));
+                assertFalse(acesso.toLowerCase().endsWith("tablescan"), nome + ": pedidos lido por " + acesso + "\n" + sql);
+            }
+
+            // Mesmo filtro sobre a união com o histórico: listagem e COUNT
+            List<String> sqlsUniao = SqlCapturado.capturar(
+                    () -> pedidoBuscaRepository.buscar(PedidoConsolidado.class, PedidoSpecs.doFiltro(filtro), PAGINA));
+            assertFalse(sqlsUniao.isEmpty(), nome);
+            for (String sql : sqlsUniao) {
+                Map<String, String> acessos = acessosAosRamos(explain(sql));
+                assertEquals(2, acessos.size(), nome + ": ramos da união no plano " + acessos + "\n" + sql);
+                acessos.forEach((tabela, acesso) -> assertFalse(acesso.toLowerCase().endsWith("tablescan"),
+                        nome + " (união): " + tabela + " lido por " + acesso + "\n" + sql));
+            }
+        });
+    }
+
+    private List<Long> ids(PedidoFiltro filtro) {
+        return pedidoBuscaRepository.fatiar(Pedido.class, PedidoSpecs.doFiltro(filtro), PAGINA).getContent().stream()
+                .map(PedidoResumoDTO::getId)
+                .toList();
+    }
+
+    // Parâmetros não precisam de valor: o EXPLAIN do H2 planeja com os marcadores
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) conexao -> {
+            try (PreparedStatement ps = conexao.prepareStatement("EXPLAIN " + sql); ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        });
+    }
+
+    private static Map<String, String> acessosAosRamos(String plano) {
+        Map<String, String> acessos = new LinkedHashMap<>();
+        Matcher matcher = ACESSO_RAMO.matcher(plano);
+        while (matcher.find()) {
+            acessos.put(matcher.group(1), matcher.group(2));
+        }
+        return acessos;
+    }
+
+    private static String acessoAPedidos(String plano) {
+        Matcher matcher = ACESSO_PEDIDOS.matcher(plano);
+        assertTrue(matcher.find(), "Plano sem acesso à tabela pedidos:\n" + plano);
+        return matcher.group(1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.deliverytech.delivery_api.services;
+
+import com.deliverytech.delivery_api.Bancada;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark da paginação do histórico (não roda no "mvn test" padrão).
+ * Execução: ./mvnw test -Dtest=PedidoCursorBenchmark
+ *
+ * Carrega um restaurante com muitos pedidos e compara a latência da primeira página com a
+ * de uma página profunda, por OFFSET (Pageable) e por cursor. Com OFFSET a página profunda
+ * fica proporcionalmente mais lenta (e cada página paga um COUNT); com cursor o custo é o mesmo.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class PedidoCursorBenchmark {
+
+    private static final long RESTAURANTE_ID = 3L;
+    private static final int PEDIDOS = 50_000;
+    private static final int TAMANHO_PAGINA = 10;
+    private static final int PAGINA_PROFUNDA = PEDIDOS / TAMANHO_PAGINA - 1;
+    private static final int ITERACOES = 200;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Página profunda por cursor deve custar o mesmo que a primeira")
+    void benchmarkOffsetVersusCursor() {
+        LocalDateTime base = LocalDateTime.now().minusYears(1);
+        List<Object[]> linhas = new ArrayList<>(PEDIDOS);
+        for (int i = 0; i < PEDIDOS; i++) {
+            linhas.add(new Object[]{100_000L + i, "BENCH" + i, Timestamp.valueOf(base.plusMinutes(i)), RESTAURANTE_ID});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, cliente_id, restaurante_id) " +
+                "VALUES (?, ?, ?, 'ENTREGUE', 10.00, 3, ?)", linhas);
+
+        try {
+            // Cursor posicionado logo antes do pedido mais antigo: equivalente à última página
+            String cursorProfundo = new PedidoCursor(base.plusMinutes(TAMANHO_PAGINA), 100_000L + TAMANHO_PAGINA).codificar();
+            PageRequest primeira = PageRequest.of(0, TAMANHO_PAGINA, Sort.by("dataPedido").descending());
+            PageRequest profunda = PageRequest.of(PAGINA_PROFUNDA, TAMANHO_PAGINA, Sort.by("dataPedido").descending());
+
+            Bancada tabela = Bancada.tabela("modo", "media (us)");
+            tabela.linha("offset pagina 0", medir(() -> pedidoService.buscarPedidosPorRestaurante(RESTAURANTE_ID, primeira)));
+            tabela.linha("offset pagina " + PAGINA_PROFUNDA, medir(() -> pedidoService.buscarPedidosPorRestaurante(RESTAURANTE_ID, profunda)));
+            tabela.linha("cursor primeira pagina", medir(() -> pedidoService.buscarPedidosPorRestauranteCursor(RESTAURANTE_ID, null, TAMANHO_PAGINA)));
+            tabela.linha("cursor pagina profunda", medir(() -> pedidoService.buscarPedidosPorRestauranteCursor(RESTAURANTE_ID, cursorProfundo, TAMANHO_PAGINA)));
+        } finally {
+            jdbcTemplate.update("DELETE FROM pedidos WHERE numero_pedido LIKE 'BENCH%'");
+        }
+    }
+
+    private static long medir(Runnable consulta) {
+        return Bancada.mediaMicros(ITERACOES / 4, ITERACOES, consulta);
+    }
+}
@@ -0,0 +1,109 @@
+package com.deliverytech.delivery_api.services;
+
+import com.deliverytech.delivery_api.Bancada;
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.dto.PedidoLoteResponseDTO;
+import com.deliverytech.delivery_api.dto.PedidoLoteResultadoDTO;
+import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.deliverytech.delivery_api.services.relatorios.ReconciliadorRollups;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark da ingestão em lote (não roda no "mvn test" padrão).
+ * Execução: ./mvnw test -Dtest=PedidoLoteBenchmark
+ *
+ * Compara a vazão (pedidos/s) de N chamadas a criarPedido com uma chamada a
+ * criarPedidosEmLote para os mesmos N pedidos. A diferença cresce com a latência de rede até o MariaDB.
+ * Os dois caminhos commitam (por pedido e por bloco): a limpeza apaga pedidos, itens e outbox e refaz os rollups do dia.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PedidoLoteBenchmark {
+
+    private static final int PEDIDOS = 1_000;
+    private static final int AQUECIMENTO = 100;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ReconciliadorRollups reconciliadorRollups;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Vazão da ingestão em lote versus pedidos individuais")
+    void benchmarkLoteVersusIndividual() {
+        List<PedidoRequestDTO> pedidos = montarPedidos(PEDIDOS);
+        List<Long> criados = new ArrayList<>();
+
+        try {
+            for (PedidoRequestDTO dto : montarPedidos(AQUECIMENTO)) {
+                criados.add(pedidoService.criarPedido(dto).getId());
+            }
+            registrar(criados, pedidoService.criarPedidosEmLote(montarPedidos(AQUECIMENTO)));
+
+            long individualNanos = Bancada.nanos(() -> {
+                for (PedidoRequestDTO dto : pedidos) {
+                    criados.add(pedidoService.criarPedido(dto).getId());
+                }
+            });
+
+            PedidoLoteResponseDTO[] lote = new PedidoLoteResponseDTO[1];
+            long loteNanos = Bancada.nanos(() -> lote[0] = pedidoService.criarPedidosEmLote(pedidos));
+            registrar(criados, lote[0]);
+
+            assertEquals(PEDIDOS, lote[0].getCriados());
+
+            Bancada tabela = Bancada.tabela("modo", "pedidos/s");
+            tabela.linha("individual", String.format("%.0f", PEDIDOS * 1e9 / individualNanos));
+            tabela.linha("lote", String.format("%.0f", PEDIDOS * 1e9 / loteNanos));
+            tabela.linha("ganho", String.format("%.1fx", (double) individualNanos / loteNanos));
+        } finally {
+            for (Long id : criados) {
+                jdbcTemplate.update("DELETE FROM itens_pedido WHERE pedido_id = ?", id);
+                jdbcTemplate.update("DELETE FROM pedidos_outbox WHERE pedido_id = ?", id);
+                jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", id);
+            }
+            reconciliadorRollups.reconstruir(LocalDate.now(), LocalDate.now());
+        }
+    }
+
+    private void registrar(List<Long> criados, PedidoLoteResponseDTO lote) {
+        lote.getResultados().stream()
+                .filter(PedidoLoteResultadoDTO::isSucesso)
+                .forEach(r -> criados.add(r.getPedidoId()));
+    }
+
+    // Cestas de 3 itens do Restaurante 1, alternando entre os clientes do data.sql
+    private List<PedidoRequestDTO> montarPedidos(int quantidade) {
+        List<PedidoRequestDTO> pedidos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            List<ItemPedidoDTO> itens = new ArrayList<>();
+            for (long produtoId = 1; produtoId <= 3; produtoId++) {
+                ItemPedidoDTO item = new ItemPedidoDTO();
+                item.setProdutoId(produtoId);
+                item.setQuantidade(1 + i % 2);
+                itens.add(item);
+            }
+            PedidoRequestDTO dto = new PedidoRequestDTO();
+            dto.setClienteId(1L + i % 3);
+            dto.setRestauranteId(1L);
+            dto.setItens(itens);
+            pedidos.add(dto);
+        }
+        return pedidos;
+    }
+}
@@ -0,0 +1,87 @@
+package com.deliverytech.delivery_api.services;
+
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.dto.PedidoLoteResponseDTO;
+import com.deliverytech.delivery_api.dto.PedidoLoteResultadoDTO;
+import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.deliverytech.delivery_api.services.relatorios.ReconciliadorRollups;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gravação em lote com erro de banco no meio de um bloco.
+ * Sem @Transactional na classe: cada bloco do lote commita na sua própria transação.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PedidoLoteIT {
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ReconciliadorRollups reconciliadorRollups;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> pedidosCriados = new ArrayList<>();
+
+    @AfterEach
+    void removerPedidos() {
+        for (Long id : pedidosCriados) {
+            jdbcTemplate.update("DELETE FROM itens_pedido WHERE pedido_id = ?", id);
+            jdbcTemplate.update("DELETE FROM pedidos_outbox WHERE pedido_id = ?", id);
+            jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", id);
+        }
+        reconciliadorRollups.reconstruir(LocalDate.now(), LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("Erro de banco em um pedido deve recusar só esse pedido, sem derrubar o lote")
+    void testFalhaDeBancoNoBloco() {
+        // PED1234567890 já existe (data.sql): o INSERT do bloco viola o número único
+        List<String> numeros = List.of("LOTEIT0001", "PED1234567890", "LOTEIT0002");
+        List<PedidoRequestDTO> dtos = List.of(pedido(1L), pedido(2L), pedido(3L));
+
+        PedidoLoteResponseDTO resposta = pedidoService.criarPedidosAceitos(dtos, numeros);
+        resposta.getResultados().stream()
+                .filter(PedidoLoteResultadoDTO::isSucesso)
+                .map(PedidoLoteResultadoDTO::getPedidoId)
+                .forEach(pedidosCriados::add);
+
+        List<PedidoLoteResultadoDTO> resultados = resposta.getResultados();
+        assertTrue(resultados.get(0).isSucesso());
+        assertFalse(resultados.get(1).isSucesso());
+        assertEquals("Falha ao gravar o pedido", resultados.get(1).getErro());
+        assertTrue(resultados.get(2).isSucesso());
+
+        // Os outros dois foram de fato gravados, com os números entregues no aceite
+        assertEquals(List.of("LOTEIT0001", "LOTEIT0002"), jdbcTemplate.queryForList(
+                "SELECT numero_pedido FROM pedidos WHERE numero_pedido LIKE 'LOTEIT%' ORDER BY numero_pedido", String.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pedidos WHERE numero_pedido = 'PED1234567890'", Integer.class));
+    }
+
+    private static PedidoRequestDTO pedido(Long clienteId) {
+        ItemPedidoDTO item = new ItemPedidoDTO();
+        item.setProdutoId(1L);
+        item.setQuantidade(1);
+        PedidoRequestDTO dto = new PedidoRequestDTO();
+        dto.setClienteId(clienteId);
+        dto.setRestauranteId(1L);
+        dto.setItens(List.of(item));
+        return dto;
+    }
+}
@@ -0,0 +1,88 @@
+package com.deliverytech.delivery_api.services;
+
+import com.deliverytech.delivery_api.Bancada;
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.entity.Produto;
+import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark da precificação em lote (não roda no "mvn test" padrão).
+ * Execução: ./mvnw test -Dtest=PedidoPrecificacaoBenchmark
+ *
+ * Mede a latência média de calcularTotalPedido para cestas de tamanhos crescentes.
+ * Como a cesta é carregada com uma única consulta, a latência deve ficar praticamente
+ * plana em relação ao número de itens.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PedidoPrecificacaoBenchmark {
+
+    private static final int[] TAMANHOS_CESTA = {1, 5, 15, 50};
+    private static final int AQUECIMENTO = 200;
+    private static final int ITERACOES = 1_000;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Latência da precificação deve ser plana em relação ao tamanho da cesta")
+    void benchmarkPrecificacaoPorTamanhoDeCesta() {
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            produtos.add(new Produto(null, "Produto Benchmark " + i, null, new BigDecimal("12.50"), "Pizza", true, 1L));
+        }
+        produtos = produtoRepository.saveAll(produtos);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Bancada tabela = Bancada.tabela("itens", "media (us)", "consultas por chamada");
+        try {
+            for (int tamanho : TAMANHOS_CESTA) {
+                List<ItemPedidoDTO> itens = montarCesta(produtos.subList(0, tamanho));
+
+                statistics.clear();
+                long mediaMicros = Bancada.mediaMicros(AQUECIMENTO, ITERACOES,
+                        () -> pedidoService.calcularTotalPedido(itens, 1L, BigDecimal.ONE));
+                long consultasPorChamada = statistics.getPrepareStatementCount() / (AQUECIMENTO + ITERACOES);
+
+                tabela.linha(tamanho, mediaMicros, consultasPorChamada);
+                assertEquals(1, consultasPorChamada);
+            }
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            produtoRepository.deleteAll(produtos);
+        }
+    }
+
+    private List<ItemPedidoDTO> montarCesta(List<Produto> produtos) {
+        List<ItemPedidoDTO> itens = new ArrayList<>();
+        for (Produto produto : produtos) {
+            ItemPedidoDTO item = new ItemPedidoDTO();
+            item.setProdutoId(produto.getId());
+            item.setQuantidade(1);
+            itens.add(item);
+        }
+        return itens;
+    }
+}
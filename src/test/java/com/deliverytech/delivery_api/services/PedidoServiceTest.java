@@ -4,10 +4,20 @@ import com.deliverytech.delivery_api.dto.*;
 import com.deliverytech.delivery_api.entity.*;
 import com.deliverytech.delivery_api.enums.StatusPedido;
 import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
 import com.deliverytech.delivery_api.repository.ClienteRepository;
+import com.deliverytech.delivery_api.repository.PedidoArquivadoRepository;
+import com.deliverytech.delivery_api.repository.PedidoBuscaRepository;
+import com.deliverytech.delivery_api.repository.PedidoConsolidadoRepository;
+import com.deliverytech.delivery_api.repository.PedidoFiltro;
 import com.deliverytech.delivery_api.repository.PedidoRepository;
 import com.deliverytech.delivery_api.repository.ProdutoRepository;
 import com.deliverytech.delivery_api.repository.RestauranteRepository;
+import com.deliverytech.delivery_api.security.EscopoPedido;
+import com.deliverytech.delivery_api.services.cotacao.CotacaoService;
+import com.deliverytech.delivery_api.services.detalhe.PedidoContextoRequisicao;
+import com.deliverytech.delivery_api.services.numeracao.GeradorNumeroPedido;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,11 +25,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.AccessDeniedException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +47,12 @@ class PedidoServiceTest {
     @Mock
     private PedidoRepository pedidoRepository;
     @Mock
+    private PedidoConsolidadoRepository pedidoConsolidadoRepository;
+    @Mock
+    private PedidoArquivadoRepository pedidoArquivadoRepository;
+    @Mock
+    private PedidoBuscaRepository pedidoBuscaRepository;
+    @Mock
     private ClienteRepository clienteRepository;
     @Mock
     private RestauranteRepository restauranteRepository;
@@ -38,6 +60,14 @@ class PedidoServiceTest {
     private ProdutoRepository produtoRepository;
     @Mock
     private ModelMapper modelMapper;
+    @Mock
+    private GeradorNumeroPedido geradorNumeroPedido;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PedidoContextoRequisicao pedidoContextoRequisicao;
+    @Mock
+    private CotacaoService cotacaoService;
 
     @InjectMocks
     private PedidoService pedidoService;
@@ -72,12 +102,14 @@ class PedidoServiceTest {
 
         Pedido pedidoSalvo = new Pedido();
         pedidoSalvo.setId(100L);
+        pedidoSalvo.setRestaurante(restaurante);
         pedidoSalvo.setValorTotal(new BigDecimal("45.00")); // (2 * 20) + 5
 
         // Mocks
         when(clienteRepository.findById(1L)).thenReturn(Optional.of(cliente));
         when(restauranteRepository.findById(1L)).thenReturn(Optional.of(restaurante));
-        when(produtoRepository.findById(10L)).thenReturn(Optional.of(produto));
+        when(produtoRepository.findByRestauranteIdAndIdIn(eq(1L), any())).thenReturn(List.of(produto));
+        when(geradorNumeroPedido.proximo()).thenReturn("PED00000000000001");
         when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedidoSalvo);
 
         // Mock do ModelMapper para retornar um DTO não nulo
@@ -92,7 +124,9 @@ class PedidoServiceTest {
         // ASSERT
         assertNotNull(result);
         assertEquals(new BigDecimal("45.00"), result.getValorTotal());
-        verify(pedidoRepository).save(any(Pedido.class));
+        verify(pedidoRepository).save(argThat(p -> "PED00000000000001".equals(p.getNumeroPedido())));
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof PedidoEvento ev
+                && ev.tipo() == PedidoEvento.Tipo.CRIADO && ev.restauranteId().equals(1L)));
     }
 
     @Test
@@ -108,15 +142,17 @@ class PedidoServiceTest {
         dto.setItens(List.of(item));
 
         Cliente cliente = new Cliente(); cliente.setAtivo(true);
-        Restaurante restaurante = new Restaurante(); restaurante.setAtivo(true);
+        Restaurante restaurante = new Restaurante(); restaurante.setId(1L); restaurante.setAtivo(true);
 
         Produto produto = new Produto();
+        produto.setId(10L);
+        produto.setRestauranteId(1L);
         produto.setDisponivel(false); // INDISPONÍVEL
         produto.setNome("Hamburguer");
 
         when(clienteRepository.findById(1L)).thenReturn(Optional.of(cliente));
         when(restauranteRepository.findById(1L)).thenReturn(Optional.of(restaurante));
-        when(produtoRepository.findById(10L)).thenReturn(Optional.of(produto));
+        when(produtoRepository.findByRestauranteIdAndIdIn(eq(1L), any())).thenReturn(List.of(produto));
 
         // ACT & ASSERT
         BusinessException ex = assertThrows(BusinessException.class, () -> pedidoService.criarPedido(dto));
@@ -124,25 +160,87 @@ class PedidoServiceTest {
     }
 
     @Test
-    @DisplayName("Deve atualizar status do pedido com sucesso")
+    @DisplayName("Deve diferenciar produto de outro restaurante de produto inexistente")
+    void testCalcularTotal_ProdutoDeOutroRestaurante() {
+        // ARRANGE
+        ItemPedidoDTO item = new ItemPedidoDTO();
+        item.setProdutoId(4L);
+        item.setQuantidade(1);
+
+        Produto produtoDeOutroRestaurante = new Produto();
+        produtoDeOutroRestaurante.setId(4L);
+        produtoDeOutroRestaurante.setRestauranteId(2L);
+        produtoDeOutroRestaurante.setNome("X-Burger");
+
+        when(produtoRepository.findByRestauranteIdAndIdIn(eq(1L), any())).thenReturn(List.of());
+        when(produtoRepository.findAllById(List.of(4L))).thenReturn(List.of(produtoDeOutroRestaurante));
+
+        // ACT & ASSERT
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> pedidoService.calcularTotalPedido(List.of(item), 1L, BigDecimal.ONE));
+        assertTrue(ex.getMessage().contains("não pertence ao restaurante"));
+        verify(produtoRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar status do pedido com um UPDATE condicional e publicar o evento com os donos")
     void testAtualizarStatus() {
         // ARRANGE
         Long pedidoId = 1L;
-        Pedido pedido = new Pedido();
-        pedido.setId(pedidoId);
-        pedido.setStatus(StatusPedido.PENDENTE.name());
-
-        when(pedidoRepository.findById(pedidoId)).thenReturn(Optional.of(pedido));
-        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
-        when(modelMapper.map(any(Pedido.class), eq(PedidoResponseDTO.class))).thenReturn(new PedidoResponseDTO());
+        when(pedidoRepository.atualizarStatusSeEm(pedidoId, StatusPedido.PREPARANDO.name(),
+                List.of(StatusPedido.PENDENTE.name(), StatusPedido.CONFIRMADO.name()), null, null)).thenReturn(1);
+        when(pedidoRepository.findStatusAtualById(pedidoId))
+                .thenReturn(Optional.of(new PedidoStatusAtual(pedidoId, StatusPedido.PREPARANDO.name(), 3L, 7L)));
 
         // ACT
-        PedidoResponseDTO result = pedidoService.atualizarStatusPedido(pedidoId, StatusPedido.PREPARANDO);
+        PedidoStatusDTO result = pedidoService.atualizarStatusPedido(pedidoId, StatusPedido.PREPARANDO);
 
         // ASSERT
-        assertNotNull(result);
-        verify(pedidoRepository).save(pedido);
-        assertEquals(StatusPedido.PREPARANDO.name(), pedido.getStatus());
+        assertEquals(pedidoId, result.getId());
+        assertEquals(StatusPedido.PREPARANDO, result.getStatus());
+        assertEquals(Set.of(StatusPedido.SAIU_PARA_ENTREGA, StatusPedido.CANCELADO), result.getProximos());
+        verify(pedidoRepository, never()).findById(any());
+        verify(pedidoRepository, never()).findStatusById(any(), any(), any());
+        verify(pedidoRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof PedidoEvento ev
+                && ev.tipo() == PedidoEvento.Tipo.STATUS_ALTERADO && ev.pedidoId().equals(pedidoId)
+                && ev.restauranteId().equals(3L) && ev.clienteId().equals(7L)));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar transição fora da máquina de estados")
+    void testAtualizarStatus_TransicaoInvalida() {
+        // ARRANGE
+        Long pedidoId = 1L;
+        when(pedidoRepository.atualizarStatusSeEm(eq(pedidoId), eq(StatusPedido.ENTREGUE.name()), any(), isNull(), isNull())).thenReturn(0);
+        when(pedidoRepository.findStatusById(pedidoId, null, null)).thenReturn(Optional.of(StatusPedido.PENDENTE.name()));
+
+        // ACT & ASSERT
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> pedidoService.atualizarStatusPedido(pedidoId, StatusPedido.ENTREGUE));
+        assertTrue(ex.getMessage().startsWith("Transição de status inválida: PENDENTE -> ENTREGUE"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 quando o pedido da transição não existe")
+    void testAtualizarStatus_PedidoInexistente() {
+        when(pedidoRepository.atualizarStatusSeEm(eq(99L), any(), any(), isNull(), isNull())).thenReturn(0);
+        when(pedidoRepository.findStatusById(99L, null, null)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> pedidoService.atualizarStatusPedido(99L, StatusPedido.CONFIRMADO));
+    }
+
+    @Test
+    @DisplayName("Com escopo de dono, pedido de outro restaurante deve ser 403 sem distinguir de inexistente")
+    void testAtualizarStatus_ForaDoEscopo() {
+        EscopoPedido escopo = EscopoPedido.doRestaurante(2L);
+        when(pedidoRepository.atualizarStatusSeEm(eq(1L), any(), any(), isNull(), eq(2L))).thenReturn(0);
+        when(pedidoRepository.findStatusById(1L, null, 2L)).thenReturn(Optional.empty());
+
+        assertThrows(AccessDeniedException.class,
+                () -> pedidoService.atualizarStatusPedido(1L, StatusPedido.CONFIRMADO, escopo));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -150,13 +248,69 @@ class PedidoServiceTest {
     void testCancelarPedido_JaEntregue() {
         // ARRANGE
         Long pedidoId = 1L;
-        Pedido pedido = new Pedido();
-        pedido.setStatus(StatusPedido.ENTREGUE.name());
-
-        when(pedidoRepository.findById(pedidoId)).thenReturn(Optional.of(pedido));
+        when(pedidoRepository.atualizarStatusSeEm(eq(pedidoId), eq(StatusPedido.CANCELADO.name()), any(), isNull(), isNull())).thenReturn(0);
+        when(pedidoRepository.findStatusById(pedidoId, null, null)).thenReturn(Optional.of(StatusPedido.ENTREGUE.name()));
 
         // ACT & ASSERT
-        assertThrows(BusinessException.class, () -> pedidoService.cancelarPedido(pedidoId));
+        BusinessException ex = assertThrows(BusinessException.class, () -> pedidoService.cancelarPedido(pedidoId));
+        assertEquals("Não é possível cancelar um pedido já entregue.", ex.getMessage());
         verify(pedidoRepository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Cancelar pedido já cancelado deve ser um sucesso sem efeito (sem evento)")
+    void testCancelarPedido_JaCancelado() {
+        // ARRANGE
+        Long pedidoId = 1L;
+        when(pedidoRepository.atualizarStatusSeEm(eq(pedidoId), eq(StatusPedido.CANCELADO.name()), any(), isNull(), isNull())).thenReturn(0);
+        when(pedidoRepository.findStatusById(pedidoId, null, null)).thenReturn(Optional.of(StatusPedido.CANCELADO.name()));
+
+        // ACT & ASSERT
+        assertDoesNotThrow(() -> pedidoService.cancelarPedido(pedidoId));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Tabela de transições: estados finais não têm saída e origens são o índice inverso")
+    void testTabelaDeTransicoes() {
+        assertTrue(StatusPedido.ENTREGUE.isFinal());
+        assertTrue(StatusPedido.CANCELADO.isFinal());
+        assertFalse(StatusPedido.SAIU_PARA_ENTREGA.podeAvancarPara(StatusPedido.CANCELADO));
+        assertEquals(List.of(StatusPedido.SAIU_PARA_ENTREGA.name()), StatusPedido.origensDe(StatusPedido.ENTREGUE));
+        assertTrue(StatusPedido.origensDe(StatusPedido.PENDENTE).isEmpty());
+        for (StatusPedido origem : StatusPedido.values()) {
+            for (StatusPedido destino : origem.getProximos()) {
+                assertTrue(StatusPedido.origensDe(destino).contains(origem.name()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Listagem de pedidos ativos ou recentes deve ler só a tabela quente; as demais incluem o histórico")
+    void testListarPedidos_RoteamentoQuenteFrio() {
+        Pageable pageable = PageRequest.of(0, 10);
+        LocalDateTime arquivadoMaisRecente = LocalDateTime.now().minusDays(30);
+        when(pedidoBuscaRepository.buscar(any(), any(), eq(pageable))).thenReturn(Page.empty());
+        when(pedidoConsolidadoRepository.findDataMaisRecenteArquivada()).thenReturn(Optional.of(arquivadoMaisRecente));
+
+        // Status ativo: nunca arquivado
+        pedidoService.listarPedidos(PedidoFiltro.de(StatusPedido.PENDENTE, null, null), pageable);
+        verify(pedidoBuscaRepository).buscar(eq(Pedido.class), any(), eq(pageable));
+        verifyNoInteractions(pedidoConsolidadoRepository);
+
+        // Status final em período iniciado depois do último arquivado: tabela quente
+        LocalDateTime agora = LocalDateTime.now();
+        pedidoService.listarPedidos(PedidoFiltro.de(StatusPedido.ENTREGUE, agora.minusDays(1), null), pageable);
+        verify(pedidoBuscaRepository, times(2)).buscar(eq(Pedido.class), any(), eq(pageable));
+
+        // Período que alcança o histórico, ou status final sem período: união
+        pedidoService.listarPedidos(PedidoFiltro.de(StatusPedido.ENTREGUE, agora.minusDays(90), agora), pageable);
+        pedidoService.listarPedidos(new PedidoFiltro(StatusPedido.CANCELADO, null, null, 1L, null, null, null), pageable);
+        verify(pedidoBuscaRepository, times(2)).buscar(eq(PedidoConsolidado.class), any(), eq(pageable));
+
+        // Histórico vazio: nem sem período vale a união
+        when(pedidoConsolidadoRepository.findDataMaisRecenteArquivada()).thenReturn(Optional.empty());
+        pedidoService.listarPedidos(PedidoFiltro.de(StatusPedido.ENTREGUE, null, null), pageable);
+        verify(pedidoBuscaRepository, times(3)).buscar(eq(Pedido.class), any(), eq(pageable));
+    }
+}
@@ -0,0 +1,138 @@
+package com.deliverytech.delivery_api.services;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Várias threads (cozinha, entregador, cliente...) alterando o status do mesmo pedido ao mesmo tempo.
+ * Sem @Transactional na classe: cada chamada ao serviço precisa commitar na sua própria transação.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PedidoStatusConcorrenciaIT {
+
+    private static final long PEDIDO_ID = 90_001L;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void inserirPedido() {
+        jdbcTemplate.update("INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, cliente_id, restaurante_id) " +
+                "VALUES (?, 'CONC90001', CURRENT_TIMESTAMP, 'PENDENTE', 10.00, 1, 1)", PEDIDO_ID);
+    }
+
+    @AfterEach
+    void removerPedido() {
+        jdbcTemplate.update("DELETE FROM pedidos_outbox WHERE pedido_id = ?", PEDIDO_ID);
+        jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", PEDIDO_ID);
+    }
+
+    @Test
+    @DisplayName("Só uma de várias confirmações concorrentes do mesmo pedido deve vencer")
+    void testTransicoesConcorrentes_UmVencedor() throws Exception {
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger rejeitadas = new AtomicInteger();
+
+        executarEmParalelo(i -> {
+            try {
+                pedidoService.atualizarStatusPedido(PEDIDO_ID, StatusPedido.CONFIRMADO);
+                sucessos.incrementAndGet();
+            } catch (BusinessException e) {
+                rejeitadas.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, sucessos.get());
+        assertEquals(THREADS - 1, rejeitadas.get());
+        assertEquals(StatusPedido.CONFIRMADO.name(), statusAtual());
+    }
+
+    @Test
+    @DisplayName("Sob disputa, cada status é alcançado no máximo uma vez e o estado final é coerente")
+    void testCicloDeVidaConcorrente_SemAtualizacaoPerdida() throws Exception {
+        List<StatusPedido> destinos = new ArrayList<>(List.of(StatusPedido.values()));
+        destinos.remove(StatusPedido.PENDENTE);
+
+        executarEmParalelo(i -> {
+            List<StatusPedido> ordem = new ArrayList<>(destinos);
+            for (int rodada = 0; rodada < 10; rodada++) {
+                Collections.shuffle(ordem);
+                for (StatusPedido destino : ordem) {
+                    try {
+                        pedidoService.atualizarStatusPedido(PEDIDO_ID, destino);
+                    } catch (BusinessException e) {
+                        // transição inválida para o status atual: esperado sob disputa
+                    }
+                }
+            }
+        });
+
+        // O grafo de transições é acíclico: uma atualização perdida apareceria como um status alcançado duas vezes.
+        // Conta pelos eventos gravados no outbox (um por transição aplicada): cancelar de novo um pedido cancelado
+        // responde sucesso, mas não altera nada nem gera evento
+        for (StatusPedido status : destinos) {
+            int total = transicoesPara(status);
+            assertTrue(total <= 1, status + " alcançado " + total + " vezes");
+        }
+        StatusPedido fim = StatusPedido.valueOf(statusAtual());
+        assertTrue(fim.isFinal());
+        assertEquals(1, transicoesPara(fim));
+    }
+
+    private int transicoesPara(StatusPedido status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedidos_outbox WHERE pedido_id = ? AND tipo = ? " +
+                "AND payload LIKE ?", Integer.class, PEDIDO_ID, "STATUS_ALTERADO", "%\"status\":\"" + status.name() + "\"%");
+    }
+
+    private void executarEmParalelo(IntConsumer tarefa) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int indice = i;
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    tarefa.accept(indice);
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String statusAtual() {
+        return jdbcTemplate.queryForObject("SELECT status FROM pedidos WHERE id = ?", String.class, PEDIDO_ID);
+    }
+}
@@ -0,0 +1,124 @@
+package com.deliverytech.delivery_api.services.admissao;
+
+import com.deliverytech.delivery_api.dto.LimitesAdmissaoDTO;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.exceptions.TooManyRequestsException;
+import com.deliverytech.delivery_api.repository.PedidoRepository;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ControleAdmissaoTest {
+
+    private final PedidoRepository pedidoRepository = mock(PedidoRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Restaurante no limite de pedidos em andamento deve ser recusado com 429 até uma vaga abrir")
+    void testLimiteDeEmAndamento() {
+        noBanco(new Object[]{1L, 1L});
+        ControleAdmissao controle = novoControle(2, 0, 1);
+        controle.sincronizar();
+
+        controle.reservar(1L).confirmar();
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class, () -> controle.reservar(1L));
+        assertEquals(30, ex.getRetryAfterSegundos());
+        assertEquals(1, registry.get("pedidos.admissao.recusados").tag("motivo", "capacidade").counter().count());
+
+        // Pedido saiu para entrega: libera a vaga
+        controle.aoAlterarPedido(PedidoEvento.statusAlterado(10L, StatusPedido.SAIU_PARA_ENTREGA, 1L, 1L));
+        assertDoesNotThrow(() -> controle.reservar(1L));
+        // Só a sincronização consulta o banco, nunca a reserva
+        verify(pedidoRepository, times(1)).countEmAndamentoPorRestaurante(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Sincronização deve aplicar a diferença do banco sem apagar as reservas em andamento")
+    void testSincronizacaoPorDiferenca() {
+        ControleAdmissao controle = novoControle(3, 0, 1);
+        noBanco(new Object[]{1L, 1L});
+        controle.sincronizar();
+        ControleAdmissao.Reserva emAndamento = controle.reservar(1L);
+        assertEquals(2, controle.consultar(1L).getEmAndamento());
+
+        // Outra instância criou um pedido: o banco tem 2, e a reserva em andamento continua contando
+        noBanco(new Object[]{1L, 2L});
+        controle.sincronizar();
+        assertEquals(3, controle.consultar(1L).getEmAndamento());
+        assertThrows(TooManyRequestsException.class, () -> controle.reservar(1L));
+
+        emAndamento.confirmar();
+        // Todos saíram da cozinha (o restaurante some do COUNT agrupado); a confirmação a mais é desfeita
+        noBanco();
+        controle.sincronizar();
+        assertEquals(0, controle.consultar(1L).getEmAndamento());
+    }
+
+    @Test
+    @DisplayName("Reserva liberada (pedido não criado) devolve a vaga; depois de confirmada não tem efeito")
+    void testLiberarReserva() {
+        ControleAdmissao controle = novoControle(1, 0, 1);
+
+        controle.reservar(1L).liberar();
+        ControleAdmissao.Reserva confirmada = controle.reservar(1L);
+        confirmada.confirmar();
+        confirmada.liberar();
+
+        assertThrows(TooManyRequestsException.class, () -> controle.reservar(1L));
+        assertEquals(1, controle.consultar(1L).getEmAndamento());
+    }
+
+    @Test
+    @DisplayName("Acima da taxa com rajada esgotada deve recusar com Retry-After até o próximo pedido caber")
+    void testLimiteDeTaxa() {
+        // 60 por minuto = 1 por segundo, rajada de 3
+        ControleAdmissao controle = novoControle(0, 60, 3);
+
+        for (int i = 0; i < 3; i++) {
+            controle.reservar(1L).confirmar();
+        }
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class, () -> controle.reservar(1L));
+        assertEquals(1, ex.getRetryAfterSegundos());
+        assertEquals(1, registry.get("pedidos.admissao.recusados").tag("motivo", "taxa").counter().count());
+
+        // Outro restaurante tem a própria taxa
+        assertDoesNotThrow(() -> controle.reservar(2L));
+        // Recusa por taxa não ocupa vaga
+        assertEquals(3, controle.consultar(1L).getEmAndamento());
+    }
+
+    @Test
+    @DisplayName("Limites próprios do restaurante valem no lugar do padrão até serem removidos")
+    void testLimitesPorRestaurante() {
+        ControleAdmissao controle = novoControle(0, 0, 1);
+
+        LimitesAdmissaoDTO definido = controle.definir(1L, new LimitesAdmissaoDTO(1, 0, 1, null, null));
+        assertTrue(definido.getPersonalizado());
+
+        controle.reservar(1L).confirmar();
+        assertThrows(TooManyRequestsException.class, () -> controle.reservar(1L));
+        assertDoesNotThrow(() -> controle.reservar(2L));
+
+        controle.removerLimites(1L);
+        assertFalse(controle.consultar(1L).getPersonalizado());
+        assertDoesNotThrow(() -> controle.reservar(1L));
+    }
+
+    private void noBanco(Object[]... linhas) {
+        when(pedidoRepository.countEmAndamentoPorRestaurante(anyCollection())).thenReturn(List.of(linhas));
+    }
+
+    private ControleAdmissao novoControle(int maxEmAndamento, int pedidosPorMinuto, int rajada) {
+        return new ControleAdmissao(pedidoRepository, registry, true, maxEmAndamento, pedidosPorMinuto, rajada,
+                Duration.ofMinutes(1), Duration.ofSeconds(30));
+    }
+}
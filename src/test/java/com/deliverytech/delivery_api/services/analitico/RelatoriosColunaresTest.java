@@ -0,0 +1,256 @@
+package com.deliverytech.delivery_api.services.analitico;
+
+import com.deliverytech.delivery_api.dto.reports.RelatorioFaturamentoCategoriaDTO;
+import com.deliverytech.delivery_api.dto.reports.RelatorioRankingClienteDTO;
+import com.deliverytech.delivery_api.dto.reports.RelatorioVendasRestauranteDTO;
+import com.deliverytech.delivery_api.entity.Cliente;
+import com.deliverytech.delivery_api.entity.Restaurante;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.repository.ClienteRepository;
+import com.deliverytech.delivery_api.repository.PedidoConsolidadoRepository;
+import com.deliverytech.delivery_api.repository.RestauranteRepository;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RelatoriosColunaresTest {
+
+    // Mais de um pedaço do fork-join (LINHAS_MINIMAS_POR_PEDACO) e várias duplicações das colunas
+    private static final int PEDIDOS = 200_000;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private final PedidoConsolidadoRepository pedidoConsolidadoRepository = mock(PedidoConsolidadoRepository.class);
+    private final RestauranteRepository restauranteRepository = mock(RestauranteRepository.class);
+    private final ClienteRepository clienteRepository = mock(ClienteRepository.class);
+
+    private ColunasPedidos colunas;
+    private RelatoriosColunares relatorios;
+
+    @BeforeEach
+    void carregar() {
+        // Arquivados: ids pares; ativos: ímpares (cada stream em ordem de id, como no banco)
+        when(pedidoConsolidadoRepository.streamColunasArquivadas()).thenReturn(linhas(0));
+        when(pedidoConsolidadoRepository.streamColunasAtivas()).thenReturn(linhas(1));
+        when(restauranteRepository.findAllById(any())).thenReturn(List.of(
+                restaurante(1L, "Pizzaria Bella", "Italiana"), restaurante(2L, "Burger House", "Hamburgueria"),
+                restaurante(3L, "Cantina", "Italiana")));
+        when(clienteRepository.findAllById(any())).thenAnswer(inv -> {
+            List<Cliente> clientes = new ArrayList<>();
+            inv.<Iterable<Long>>getArgument(0).forEach(id -> clientes.add(cliente(id)));
+            return clientes;
+        });
+
+        colunas = new ColunasPedidos(pedidoConsolidadoRepository, mock(PlatformTransactionManager.class), true, 16, Duration.ofHours(1));
+        assertEquals(PEDIDOS, colunas.carregar());
+        relatorios = new RelatoriosColunares();
+        ReflectionTestUtils.setField(relatorios, "colunasPedidos", colunas);
+        ReflectionTestUtils.setField(relatorios, "restauranteRepository", restauranteRepository);
+        ReflectionTestUtils.setField(relatorios, "clienteRepository", clienteRepository);
+    }
+
+    @Test
+    @DisplayName("Vendas por restaurante devem somar os não cancelados, com filtro de período e top N")
+    void testVendasPorRestaurante() {
+        List<RelatorioVendasRestauranteDTO> todos = relatorios.vendasPorRestaurante(null, null, 10);
+        assertEquals(3, todos.size());
+        for (RelatorioVendasRestauranteDTO linha : todos) {
+            long restaurante = idRestaurante(linha.restauranteNome());
+            assertEquals(esperado(restaurante, null, null, false), linha.totalVendas());
+            assertEquals(esperado(restaurante, null, null, true), linha.totalEntregue());
+        }
+        assertTrue(todos.get(0).totalVendas().compareTo(todos.get(1).totalVendas()) >= 0);
+
+        LocalDateTime de = INICIO.plusMinutes(1_000);
+        LocalDateTime ate = INICIO.plusMinutes(5_000);
+        List<RelatorioVendasRestauranteDTO> top = relatorios.vendasPorRestaurante(de, ate, 2);
+        assertEquals(2, top.size());
+        for (RelatorioVendasRestauranteDTO linha : top) {
+            assertEquals(esperado(idRestaurante(linha.restauranteNome()), de, ate, false), linha.totalVendas());
+        }
+    }
+
+    @Test
+    @DisplayName("Faturamento por categoria deve juntar os restaurantes da mesma categoria")
+    void testFaturamentoPorCategoria() {
+        List<RelatorioFaturamentoCategoriaDTO> categorias = relatorios.faturamentoPorCategoria(null, null);
+
+        assertEquals(List.of("Italiana", "Hamburgueria"), categorias.stream().map(RelatorioFaturamentoCategoriaDTO::categoria).toList());
+        assertEquals(esperado(1L, null, null, false).add(esperado(3L, null, null, false)), categorias.get(0).faturamentoTotal());
+    }
+
+    @Test
+    @DisplayName("Eventos devem acrescentar pedidos (inclusive fora de ordem) e alterar o status no lugar")
+    void testEventos() {
+        BigDecimal antes = relatorios.vendasPorRestaurante(null, null, 10).stream()
+                .filter(l -> l.restauranteNome().equals("Burger House")).findFirst().orElseThrow().totalVendas();
+
+        // Id abaixo dos carregados (outra instância, bloco de sequence antigo) e o mesmo evento repetido
+        PedidoEvento criado = new PedidoEvento(PedidoEvento.Tipo.CRIADO, -7L, 2L, 9L, "PEDX", StatusPedido.PENDENTE.name(),
+                new BigDecimal("100.00"), INICIO);
+        colunas.aoAlterarPedido(criado);
+        colunas.aoAlterarPedido(criado);
+        assertEquals(antes.add(new BigDecimal("100.00")), vendasBurger());
+
+        colunas.aoAlterarPedido(PedidoEvento.statusAlterado(-7L, StatusPedido.CANCELADO, 2L, 9L));
+        assertEquals(antes, vendasBurger());
+        // Pedido carregado, achado pela busca binária (id 2: restaurante 2, entregue)
+        colunas.aoAlterarPedido(PedidoEvento.statusAlterado(2L, StatusPedido.CANCELADO, 2L, 2L));
+        assertEquals(antes.subtract(new BigDecimal("10.00")), vendasBurger());
+    }
+
+    @Test
+    @DisplayName("Mudança de status antes da criação deve esperar o pedido; a recarga deve valer mais que o status guardado")
+    void testStatusAntesDaCriacao() {
+        BigDecimal antes = vendasBurger();
+
+        colunas.aoAlterarPedido(PedidoEvento.statusAlterado(-8L, StatusPedido.CANCELADO, 2L, 9L));
+        colunas.aoAlterarPedido(new PedidoEvento(PedidoEvento.Tipo.CRIADO, -8L, 2L, 9L, "PEDY", StatusPedido.PENDENTE.name(),
+                new BigDecimal("50.00"), INICIO));
+        // Criado e já cancelado: não soma
+        assertEquals(antes, vendasBurger());
+
+        // Status de um pedido que a recarga vai encontrar no banco já com outro status: o banco vale
+        colunas.aoAlterarPedido(PedidoEvento.statusAlterado(PEDIDOS + 1L, StatusPedido.CANCELADO, 1L, 1L));
+        when(pedidoConsolidadoRepository.streamColunasArquivadas()).thenReturn(linhas(0));
+        when(pedidoConsolidadoRepository.streamColunasAtivas()).thenReturn(Stream.concat(linhas(1), Stream.<Object[]>of(new Object[]{
+                PEDIDOS + 1L, Timestamp.valueOf(INICIO), 2L, 9L, new BigDecimal("30.00"), StatusPedido.ENTREGUE.name()})));
+        assertEquals(PEDIDOS + 1, colunas.carregar());
+        assertEquals(antes.add(new BigDecimal("30.00")), vendasBurger());
+        // Criação repetida depois da recarga não reaplica o status descartado
+        colunas.aoAlterarPedido(new PedidoEvento(PedidoEvento.Tipo.CRIADO, PEDIDOS + 1L, 2L, 9L, "PEDZ", StatusPedido.ENTREGUE.name(),
+                new BigDecimal("30.00"), INICIO));
+        assertEquals(antes.add(new BigDecimal("30.00")), vendasBurger());
+    }
+
+    @Test
+    @DisplayName("Complemento deve ler só os pedidos acima da marca e o status dos em andamento, sem recarregar tudo")
+    void testComplemento() {
+        BigDecimal antes = vendasBurger();
+        // Pedido novo de outra instância (Burger House, entregue) e o id 5 (Burger House, pendente) cancelado lá
+        when(pedidoConsolidadoRepository.streamColunasAtivasApos(PEDIDOS)).thenReturn(Stream.<Object[]>of(new Object[]{
+                PEDIDOS + 1L, Timestamp.valueOf(INICIO), 2L, 9L, new BigDecimal("30.00"), StatusPedido.ENTREGUE.name()}));
+        List<Integer> lotes = new ArrayList<>();
+        when(pedidoConsolidadoRepository.findStatusPorIds(any())).thenAnswer(inv -> {
+            List<Long> ids = inv.getArgument(0);
+            lotes.add(ids.size());
+            return ids.contains(5L) ? List.<Object[]>of(new Object[]{5L, StatusPedido.CANCELADO.name()}) : List.of();
+        });
+
+        assertEquals(2, colunas.complementar());
+
+        assertEquals(antes.add(new BigDecimal("20.00")), vendasBurger());
+        // Só os não finais (70% dos pedidos), em lotes de até 1000 ids
+        assertEquals(PEDIDOS * 7 / 10, lotes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(lotes.stream().allMatch(tamanho -> tamanho <= 1000));
+        verify(pedidoConsolidadoRepository, times(1)).streamColunasAtivas();
+        verify(pedidoConsolidadoRepository, times(1)).streamColunasArquivadas();
+
+        // A marca avançou para o pedido novo, e o cancelado saiu da conferência
+        when(pedidoConsolidadoRepository.streamColunasAtivasApos(PEDIDOS + 1L)).thenReturn(Stream.empty());
+        lotes.clear();
+        assertEquals(0, colunas.complementar());
+        assertEquals(PEDIDOS * 7 / 10 - 1, lotes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    @DisplayName("Ranking de clientes deve contar os pedidos não cancelados e devolver o top N em ordem")
+    void testClientesMaisAtivos() {
+        List<RelatorioRankingClienteDTO> ranking = relatorios.clientesMaisAtivos(null, null, 3);
+
+        assertEquals(3, ranking.size());
+        long anterior = Long.MAX_VALUE;
+        for (RelatorioRankingClienteDTO linha : ranking) {
+            long cliente = Long.parseLong(linha.clienteNome().substring("Cliente ".length()));
+            long esperado = IntStream.range(0, PEDIDOS).filter(i -> cliente(i) == cliente && status(i) != StatusPedido.CANCELADO).count();
+            assertEquals(esperado, linha.totalPedidos());
+            assertTrue(linha.totalPedidos() <= anterior);
+            anterior = linha.totalPedidos();
+        }
+    }
+
+    @Test
+    @DisplayName("Top N deve ignorar grupos zerados")
+    void testMaiores() {
+        assertArrayEquals(new int[]{3, 0}, RelatoriosColunares.maiores(new long[]{5, 0, 1, 9}, 2));
+        assertArrayEquals(new int[]{3, 0, 2}, RelatoriosColunares.maiores(new long[]{5, 0, 1, 9}, 10));
+        assertArrayEquals(new int[]{}, RelatoriosColunares.maiores(new long[]{5, 9}, 0));
+    }
+
+    // Pedido i (id i + 1): restaurante 1..3, cliente 1..97, R$ 10,00, um minuto depois do anterior
+    private static Stream<Object[]> linhas(int paridade) {
+        return LongStream.range(0, PEDIDOS).filter(i -> i % 2 == paridade).mapToObj(i -> new Object[]{
+                i + 1, Timestamp.valueOf(INICIO.plusMinutes(i)), restaurante((int) i), cliente((int) i),
+                new BigDecimal("10.00"), status((int) i).name()});
+    }
+
+    private static long restaurante(int i) {
+        return 1 + i % 3;
+    }
+
+    private static long cliente(int i) {
+        return 1 + (i * 7L) % 97;
+    }
+
+    private static StatusPedido status(int i) {
+        return switch (i % 10) {
+            case 0 -> StatusPedido.CANCELADO;
+            case 1, 2 -> StatusPedido.ENTREGUE;
+            default -> StatusPedido.PENDENTE;
+        };
+    }
+
+    private static BigDecimal esperado(long restaurante, LocalDateTime de, LocalDateTime ate, boolean soEntregues) {
+        long centavos = IntStream.range(0, PEDIDOS)
+                .filter(i -> restaurante(i) == restaurante && status(i) != StatusPedido.CANCELADO)
+                .filter(i -> !soEntregues || status(i) == StatusPedido.ENTREGUE)
+                .filter(i -> de == null || !INICIO.plusMinutes(i).isBefore(de))
+                .filter(i -> ate == null || !INICIO.plusMinutes(i).isAfter(ate))
+                .count() * 1000;
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    private BigDecimal vendasBurger() {
+        return relatorios.vendasPorRestaurante(null, null, 10).stream()
+                .filter(l -> l.restauranteNome().equals("Burger House")).findFirst().orElseThrow().totalVendas();
+    }
+
+    private static long idRestaurante(String nome) {
+        return switch (nome) {
+            case "Pizzaria Bella" -> 1L;
+            case "Burger House" -> 2L;
+            default -> 3L;
+        };
+    }
+
+    private static Restaurante restaurante(Long id, String nome, String categoria) {
+        Restaurante restaurante = new Restaurante();
+        restaurante.setId(id);
+        restaurante.setNome(nome);
+        restaurante.setCategoria(categoria);
+        return restaurante;
+    }
+
+    private static Cliente cliente(Long id) {
+        Cliente cliente = new Cliente();
+        cliente.setId(id);
+        cliente.setNome("Cliente " + id);
+        return cliente;
+    }
+}
@@ -0,0 +1,175 @@
+package com.deliverytech.delivery_api.services.arquivamento;
+
+import com.deliverytech.delivery_api.dto.PedidoResumoDTO;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.repository.ClienteRepository;
+import com.deliverytech.delivery_api.repository.PedidoFiltro;
+import com.deliverytech.delivery_api.repository.PedidoRepository;
+import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import com.deliverytech.delivery_api.repository.RestauranteRepository;
+import com.deliverytech.delivery_api.services.PedidoService;
+import com.deliverytech.delivery_api.services.relatorios.ReconciliadorRollups;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arquivamento de pedidos finalizados. Sem @Transactional na classe: cada lote commita na própria transação.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ArquivadorPedidosIT {
+
+    private static final List<Long> PEDIDOS = List.of(90_201L, 90_202L, 90_203L, 90_204L);
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private RestauranteRepository restauranteRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ReconciliadorRollups reconciliadorRollups;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void inserirPedidos() {
+        LocalDateTime agora = LocalDateTime.now();
+        inserirPedido(90_201L, StatusPedido.ENTREGUE, agora.minusDays(60));
+        inserirPedido(90_202L, StatusPedido.CANCELADO, agora.minusDays(45));
+        inserirPedido(90_203L, StatusPedido.PENDENTE, agora.minusDays(60));   // antigo, mas ainda ativo
+        inserirPedido(90_204L, StatusPedido.ENTREGUE, agora.minusDays(1));    // finalizado, mas recente
+        jdbcTemplate.update("INSERT INTO itens_pedido (id, pedido_id, produto_id, quantidade, preco_unitario) VALUES " +
+                "(9020101, 90201, 1, 2, 35.90), (9020102, 90201, 2, 1, 38.90), (9020201, 90202, 1, 1, 35.90)");
+    }
+
+    @AfterEach
+    void removerPedidos() {
+        for (Long id : PEDIDOS) {
+            jdbcTemplate.update("DELETE FROM itens_pedido WHERE pedido_id = ?", id);
+            jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", id);
+            jdbcTemplate.update("DELETE FROM itens_pedido_historico WHERE pedido_id = ?", id);
+            jdbcTemplate.update("DELETE FROM pedidos_historico WHERE id = ?", id);
+        }
+        reconstruirRollups();
+    }
+
+    @Test
+    @DisplayName("Deve mover, em lotes, só os pedidos finalizados mais antigos que a idade, com seus itens")
+    void testArquivaFinalizadosAntigos() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        int arquivados = novoArquivador(registry, 1).arquivar();
+
+        assertEquals(2, arquivados);
+        // Dois lotes de 1 + a leitura vazia que encerra a rodada
+        assertEquals(3, registry.get("pedidos.arquivamento.lote").timer().count());
+        assertEquals(List.of(90_201L, 90_202L), idsEm("pedidos_historico"));
+        assertEquals(List.of(90_203L, 90_204L), idsEm("pedidos"));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM itens_pedido_historico WHERE pedido_id IN (90201, 90202)", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM itens_pedido WHERE pedido_id IN (90201, 90202)", Integer.class));
+        assertEquals("ENTREGUE", jdbcTemplate.queryForObject("SELECT status FROM pedidos_historico WHERE id = 90201", String.class));
+
+        assertEquals(0, novoArquivador(registry, 1).arquivar());
+    }
+
+    @Test
+    @DisplayName("Relatórios devem ser os mesmos antes e depois do arquivamento")
+    void testRelatoriosIncluemHistorico() throws Exception {
+        // Pedidos inseridos direto no banco: os rollups vêm da reconstrução, refeita depois do arquivamento
+        reconstruirRollups();
+        // Comparação sem ordem: empates no ranking podem trocar de posição
+        List<String> vendasAntes = vendasPorRestaurante();
+        List<String> clientesAntes = rankingClientes();
+        List<String> produtosAntes = produtosMaisVendidos();
+
+        novoArquivador(new SimpleMeterRegistry(), 500).arquivar();
+        reconstruirRollups();
+
+        assertEquals(vendasAntes, vendasPorRestaurante());
+        assertEquals(clientesAntes, rankingClientes());
+        assertEquals(produtosAntes, produtosMaisVendidos());
+    }
+
+    @Test
+    @DisplayName("Listagens devem encontrar pedidos arquivados quando o filtro os alcança")
+    void testListagemRoteada() throws Exception {
+        novoArquivador(new SimpleMeterRegistry(), 500).arquivar();
+        LocalDateTime agora = LocalDateTime.now();
+        PageRequest pagina = PageRequest.of(0, 100);
+
+        assertTrue(idsListados(pedidoService.listarPedidos(PedidoFiltro.de(StatusPedido.ENTREGUE, null, null), pagina).getContent()).contains(90_201L));
+        assertTrue(idsListados(pedidoService.listarPedidos(PedidoFiltro.de(null, agora.minusDays(90), agora), pagina, false).getContent())
+                .containsAll(List.of(90_201L, 90_202L, 90_203L, 90_204L)));
+        List<Long> recentes = idsListados(pedidoService.listarPedidos(PedidoFiltro.de(StatusPedido.ENTREGUE, agora.minusDays(2), agora), pagina).getContent());
+        assertTrue(recentes.contains(90_204L));
+        assertFalse(recentes.contains(90_201L));
+        assertTrue(idsListados(pedidoService.listarPedidos(PedidoFiltro.de(StatusPedido.PENDENTE, null, null), pagina).getContent()).contains(90_203L));
+    }
+
+    private ArquivadorPedidos novoArquivador(SimpleMeterRegistry registry, int tamanhoLote) {
+        return new ArquivadorPedidos(pedidoRepository, transactionManager, registry, false,
+                Duration.ofDays(30), tamanhoLote, Duration.ZERO, Duration.ofHours(1));
+    }
+
+    private void inserirPedido(Long id, StatusPedido status, LocalDateTime data) {
+        jdbcTemplate.update("INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, cliente_id, restaurante_id) " +
+                "VALUES (?, ?, ?, ?, 100.00, 1, 1)", id, "ARQ" + id, data, status.name());
+    }
+
+    private List<Long> idsEm(String tabela) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + tabela + " WHERE id BETWEEN 90201 AND 90204 ORDER BY id", Long.class);
+    }
+
+    private static List<Long> idsListados(List<PedidoResumoDTO> pedidos) {
+        return pedidos.stream().map(PedidoResumoDTO::getId).toList();
+    }
+
+    private void reconstruirRollups() {
+        reconciliadorRollups.reconstruir(LocalDate.now().minusDays(60), LocalDate.now());
+    }
+
+    private List<String> vendasPorRestaurante() {
+        return restauranteRepository.findTotalVendasPorRestaurante().stream()
+                .map(r -> r.getRestauranteNome() + "=" + r.getTotalVendas()).sorted().toList();
+    }
+
+    private List<String> rankingClientes() {
+        return clienteRepository.findRankingClientesPorPedidos().stream()
+                .map(r -> r.getClienteNome() + "=" + r.getTotalPedidos()).sorted().toList();
+    }
+
+    private List<String> produtosMaisVendidos() {
+        return produtoRepository.findProdutosMaisVendidos(10).stream()
+                .map(r -> r.getProdutoNome() + "=" + r.getQuantidadeVendida()).sorted().toList();
+    }
+}
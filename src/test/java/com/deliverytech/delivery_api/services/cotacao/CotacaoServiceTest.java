@@ -0,0 +1,181 @@
+package com.deliverytech.delivery_api.services.cotacao;
+
+import com.deliverytech.delivery_api.dto.CestaPrecificada;
+import com.deliverytech.delivery_api.dto.CotacaoDTO;
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.entity.Produto;
+import com.deliverytech.delivery_api.entity.Restaurante;
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.exceptions.EntityNotFoundException;
+import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import com.deliverytech.delivery_api.repository.RestauranteRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CotacaoServiceTest {
+
+    private static final String SEGREDO = "segredoDeTesteComMaisDeTrintaEDoisBytes!!";
+
+    private final ProdutoRepository produtoRepository = mock(ProdutoRepository.class);
+    private final RestauranteRepository restauranteRepository = mock(RestauranteRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CotacaoService cotacaoService;
+
+    @BeforeEach
+    void setUp() {
+        cotacaoService = new CotacaoService(produtoRepository, restauranteRepository, registry,
+                SEGREDO, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        when(restauranteRepository.findById(1L)).thenReturn(Optional.of(restaurante(new BigDecimal("5.00"))));
+        when(produtoRepository.findByRestauranteId(1L)).thenReturn(List.of(
+                produto(1L, "35.90", true), produto(2L, "38.90", true), produto(3L, "28.90", false)));
+    }
+
+    @Test
+    @DisplayName("Cotações seguintes do mesmo restaurante devem sair da tabela em memória")
+    void testTabelaEmMemoria() {
+        CotacaoDTO primeira = cotacaoService.cotar(1L, List.of(item(1L, 2)));
+        CotacaoDTO segunda = cotacaoService.cotar(1L, List.of(item(1L, 1), item(2L, 1)));
+
+        assertEquals(new BigDecimal("76.80"), primeira.getValorTotal());
+        assertEquals(new BigDecimal("79.80"), segunda.getValorTotal());
+        verify(produtoRepository, times(1)).findByRestauranteId(1L);
+        verify(restauranteRepository, times(1)).findById(1L);
+        assertEquals(1, registry.get("pedidos.cotacao.tabela").tag("origem", "memoria").counter().count());
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> cotacaoService.cotar(1L, List.of(item(3L, 1))));
+        assertEquals("Produto indisponível: Produto 3", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Token válido devolve a cesta cotada; outra cesta, outro restaurante ou assinatura adulterada não")
+    void testResgateDoToken() {
+        String token = cotacaoService.cotar(1L, List.of(item(1L, 2), item(2L, 1))).getToken();
+
+        CestaPrecificada cesta = cotacaoService.resgatar(token, 1L, List.of(item(2L, 1), item(1L, 2))).orElseThrow();
+        assertEquals(new BigDecimal("115.70"), cesta.valorTotal());
+        assertEquals(new BigDecimal("35.90"), cesta.itens().get(0).precoUnitario());
+
+        assertTrue(cotacaoService.resgatar(token, 1L, List.of(item(1L, 3), item(2L, 1))).isEmpty());
+        assertTrue(cotacaoService.resgatar(token, 2L, List.of(item(1L, 2), item(2L, 1))).isEmpty());
+        assertTrue(cotacaoService.resgatar(token + "x", 1L, List.of(item(1L, 2), item(2L, 1))).isEmpty());
+        assertTrue(cotacaoService.resgatar(null, 1L, List.of(item(1L, 2))).isEmpty());
+
+        CotacaoService outroSegredo = new CotacaoService(produtoRepository, restauranteRepository, new SimpleMeterRegistry(),
+                SEGREDO.replace('s', 'S'), Duration.ofMinutes(5), Duration.ofMinutes(1));
+        assertTrue(outroSegredo.resgatar(token, 1L, List.of(item(1L, 2), item(2L, 1))).isEmpty());
+    }
+
+    @Test
+    @DisplayName("JWT com a mesma chave mas sem aud de cotação, ou sem as claims da cesta, deve ser recusado sem erro")
+    void testTokenDeOutraFinalidade() {
+        // Como um token de login assinado com a mesma chave: subject = usuário, sem aud nem claims da cotação
+        String login = Jwts.builder()
+                .setSubject("joao@email.com")
+                .claim("rid", 1L)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        assertTrue(cotacaoService.resgatar(login, 1L, List.of(item(1L, 1))).isEmpty());
+
+        String semCesta = Jwts.builder()
+                .setAudience("cotacao")
+                .claim("rid", 1L)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        assertTrue(cotacaoService.resgatar(semCesta, 1L, List.of(item(1L, 1))).isEmpty());
+        assertEquals(2, registry.get("pedidos.cotacao.tokens").tag("resultado", "recusado").counter().count());
+    }
+
+    @Test
+    @DisplayName("Alteração de preço deve recarregar a tabela e invalidar os tokens emitidos antes")
+    void testInvalidacao() {
+        String token = cotacaoService.cotar(1L, List.of(item(1L, 1))).getToken();
+
+        when(produtoRepository.findByRestauranteId(1L)).thenReturn(List.of(produto(1L, "40.00", true)));
+        cotacaoService.aoAlterarPrecos(new PrecosAlterados(1L));
+
+        assertTrue(cotacaoService.resgatar(token, 1L, List.of(item(1L, 1))).isEmpty());
+        CotacaoDTO nova = cotacaoService.cotar(1L, List.of(item(1L, 1)));
+        assertEquals(new BigDecimal("45.00"), nova.getValorTotal());
+        assertTrue(cotacaoService.resgatar(nova.getToken(), 1L, List.of(item(1L, 1))).isPresent());
+
+        // Outro restaurante não é afetado
+        cotacaoService.aoAlterarPrecos(new PrecosAlterados(2L));
+        assertTrue(cotacaoService.resgatar(nova.getToken(), 1L, List.of(item(1L, 1))).isPresent());
+        verify(produtoRepository, times(2)).findByRestauranteId(1L);
+    }
+
+    @Test
+    @DisplayName("Produto que a tabela não conhece deve recarregá-la sem invalidar os tokens já emitidos")
+    void testProdutoNovoNaoInvalidaTokens() {
+        String token = cotacaoService.cotar(1L, List.of(item(1L, 1))).getToken();
+
+        when(produtoRepository.findByRestauranteId(1L)).thenReturn(List.of(
+                produto(1L, "35.90", true), produto(2L, "38.90", true), produto(4L, "12.00", true)));
+        CotacaoDTO comNovo = cotacaoService.cotar(1L, List.of(item(4L, 1)));
+        assertEquals(new BigDecimal("17.00"), comNovo.getValorTotal());
+        verify(produtoRepository, times(2)).findByRestauranteId(1L);
+
+        assertTrue(cotacaoService.resgatar(token, 1L, List.of(item(1L, 1))).isPresent());
+        assertTrue(cotacaoService.resgatar(comNovo.getToken(), 1L, List.of(item(4L, 1))).isPresent());
+
+        // Produto que também não está no banco: recarrega uma vez e recusa, ainda sem invalidar
+        when(produtoRepository.findAllById(any())).thenReturn(List.of());
+        assertThrows(EntityNotFoundException.class, () -> cotacaoService.cotar(1L, List.of(item(99L, 1))));
+        assertTrue(cotacaoService.resgatar(token, 1L, List.of(item(1L, 1))).isPresent());
+    }
+
+    @Test
+    @DisplayName("Em outra instância (ou depois de um reinício), preço alterado ou produto desativado deve recusar o token")
+    void testResgateConfereTabelaAtual() {
+        String token = cotacaoService.cotar(1L, List.of(item(1L, 1), item(2L, 1))).getToken();
+
+        // Outra instância, sem o evento de alteração: só enxerga o banco
+        CotacaoService outraInstancia = new CotacaoService(produtoRepository, restauranteRepository, new SimpleMeterRegistry(),
+                SEGREDO, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        CestaPrecificada cesta = outraInstancia.resgatar(token, 1L, List.of(item(1L, 1), item(2L, 1))).orElseThrow();
+        assertEquals("Produto 1", cesta.itens().get(0).nome());
+
+        when(produtoRepository.findByRestauranteId(1L)).thenReturn(List.of(produto(1L, "40.00", true), produto(2L, "38.90", true)));
+        outraInstancia.limpar();
+        assertTrue(outraInstancia.resgatar(token, 1L, List.of(item(1L, 1), item(2L, 1))).isEmpty());
+
+        when(produtoRepository.findByRestauranteId(1L)).thenReturn(List.of(produto(1L, "35.90", true), produto(2L, "38.90", false)));
+        outraInstancia.limpar();
+        assertTrue(outraInstancia.resgatar(token, 1L, List.of(item(1L, 1), item(2L, 1))).isEmpty());
+    }
+
+    private static ItemPedidoDTO item(Long produtoId, int quantidade) {
+        ItemPedidoDTO item = new ItemPedidoDTO();
+        item.setProdutoId(produtoId);
+        item.setQuantidade(quantidade);
+        return item;
+    }
+
+    private static Produto produto(Long id, String preco, boolean disponivel) {
+        return new Produto(id, "Produto " + id, null, new BigDecimal(preco), "Pizza", disponivel, 1L);
+    }
+
+    private static Restaurante restaurante(BigDecimal taxaEntrega) {
+        Restaurante restaurante = new Restaurante();
+        restaurante.setId(1L);
+        restaurante.setTaxaEntrega(taxaEntrega);
+        return restaurante;
+    }
+}
@@ -0,0 +1,66 @@
+package com.deliverytech.delivery_api.services.detalhe;
+
+import com.deliverytech.delivery_api.dto.PedidoResponseDTO;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.services.stream.PedidoEvento;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PedidoDetalheCacheTest {
+
+    @Test
+    @DisplayName("Deve devolver o detalhe guardado até o TTL vencer")
+    void testTtl() throws Exception {
+        PedidoDetalheCache cache = new PedidoDetalheCache(Duration.ofMillis(50), 100);
+
+        cache.guardar(1L, detalhe(1L, "PENDENTE"), cache.versaoAtual());
+
+        assertEquals("PENDENTE", cache.buscar(1L).orElseThrow().getStatus());
+        Thread.sleep(80);
+        assertTrue(cache.buscar(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Mudança de status deve invalidar e recusar leituras iniciadas antes dela")
+    void testInvalidacaoNaMudancaDeStatus() {
+        PedidoDetalheCache cache = new PedidoDetalheCache(Duration.ofMinutes(1), 100);
+        cache.guardar(1L, detalhe(1L, "PENDENTE"), cache.versaoAtual());
+        long leituraAntiga = cache.versaoAtual();
+
+        cache.aoAlterarPedido(PedidoEvento.statusAlterado(1L, StatusPedido.CONFIRMADO, 1L, 1L));
+
+        assertTrue(cache.buscar(1L).isEmpty());
+        cache.guardar(1L, detalhe(1L, "PENDENTE"), leituraAntiga);
+        assertTrue(cache.buscar(1L).isEmpty());
+
+        cache.guardar(1L, detalhe(1L, "CONFIRMADO"), cache.versaoAtual());
+        assertEquals("CONFIRMADO", cache.buscar(1L).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Criação de pedido não invalida e TTL zero desliga o cache")
+    void testCriacaoETtlZero() {
+        PedidoDetalheCache cache = new PedidoDetalheCache(Duration.ofMinutes(1), 100);
+        cache.guardar(1L, detalhe(1L, "PENDENTE"), cache.versaoAtual());
+        cache.aoAlterarPedido(new PedidoEvento(PedidoEvento.Tipo.CRIADO, 1L, 1L, 1L, "PED1",
+                StatusPedido.PENDENTE.name(), BigDecimal.TEN, LocalDateTime.now()));
+        assertTrue(cache.buscar(1L).isPresent());
+
+        PedidoDetalheCache desligado = new PedidoDetalheCache(Duration.ZERO, 100);
+        desligado.guardar(1L, detalhe(1L, "PENDENTE"), desligado.versaoAtual());
+        assertTrue(desligado.buscar(1L).isEmpty());
+    }
+
+    private static PedidoResponseDTO detalhe(Long id, String status) {
+        PedidoResponseDTO dto = new PedidoResponseDTO();
+        dto.setId(id);
+        dto.setStatus(status);
+        return dto;
+    }
+}
@@ -0,0 +1,156 @@
+package com.deliverytech.delivery_api.services.idempotencia;
+
+import com.deliverytech.delivery_api.dto.PedidoResponseDTO;
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import com.deliverytech.delivery_api.exceptions.ConflictException;
+import com.deliverytech.delivery_api.security.SecurityUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceTest {
+
+    @Mock
+    private SecurityUtils securityUtils;
+
+    private IdempotenciaService idempotenciaService;
+    private final AtomicInteger execucoes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotenciaService = new IdempotenciaService();
+        ReflectionTestUtils.setField(idempotenciaService, "store", new MemoriaIdempotenciaStore(100));
+        ReflectionTestUtils.setField(idempotenciaService, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(idempotenciaService, "securityUtils", securityUtils);
+        ReflectionTestUtils.setField(idempotenciaService, "ttl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(idempotenciaService, "ttlProcessamento", Duration.ofSeconds(5));
+        lenient().when(securityUtils.getCurrentUsername()).thenReturn("joao@email.com");
+    }
+
+    @Test
+    @DisplayName("Deve devolver a resposta original sem executar a operação de novo")
+    void testExecutar_RepeticaoDevolveRespostaOriginal() {
+        IdempotenciaService.Resultado<PedidoResponseDTO> primeira = executar("chave-1", Map.of("itens", 2));
+        IdempotenciaService.Resultado<PedidoResponseDTO> segunda = executar("chave-1", Map.of("itens", 2));
+
+        assertFalse(primeira.repetida());
+        assertTrue(segunda.repetida());
+        assertEquals(primeira.valor().getId(), segunda.valor().getId());
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Deve isolar a mesma chave entre usuários diferentes")
+    void testExecutar_ChaveIsoladaPorUsuario() {
+        executar("chave-1", Map.of("itens", 2));
+        lenient().when(securityUtils.getCurrentUsername()).thenReturn("maria@email.com");
+        IdempotenciaService.Resultado<PedidoResponseDTO> outroUsuario = executar("chave-1", Map.of("itens", 2));
+
+        assertFalse(outroUsuario.repetida());
+        assertEquals(2, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar a mesma chave com outro conteúdo (409)")
+    void testExecutar_ConteudoDiferente() {
+        executar("chave-1", Map.of("itens", 2));
+
+        assertThrows(ConflictException.class, () -> executar("chave-1", Map.of("itens", 3)));
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Deve liberar a chave quando a operação falha, permitindo nova tentativa")
+    void testExecutar_FalhaLiberaChave() {
+        assertThrows(BusinessException.class, () -> idempotenciaService.executar("criar-pedido", "chave-1",
+                Map.of("itens", 2), PedidoResponseDTO.class, () -> {
+                    throw new BusinessException("Restaurante não está disponível");
+                }));
+
+        IdempotenciaService.Resultado<PedidoResponseDTO> novaTentativa = executar("chave-1", Map.of("itens", 2));
+        assertFalse(novaTentativa.repetida());
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar chave vazia ou longa demais")
+    void testExecutar_ChaveInvalida() {
+        assertThrows(BusinessException.class, () -> executar(" ", Map.of()));
+        assertThrows(BusinessException.class, () -> executar("x".repeat(256), Map.of()));
+    }
+
+    @Test
+    @DisplayName("Duplicatas simultâneas devem compartilhar uma única execução")
+    void testExecutar_DuplicatasSimultaneas() throws Exception {
+        int threads = 8;
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<IdempotenciaService.Resultado<PedidoResponseDTO>>> futuros = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    return idempotenciaService.executar("criar-pedido", "chave-concorrente", Map.of("itens", 1),
+                            PedidoResponseDTO.class, () -> {
+                                dormir(200);
+                                return novoPedido();
+                            });
+                }));
+            }
+            largada.countDown();
+
+            int repetidas = 0;
+            Long pedidoId = null;
+            for (Future<IdempotenciaService.Resultado<PedidoResponseDTO>> futuro : futuros) {
+                IdempotenciaService.Resultado<PedidoResponseDTO> resultado = futuro.get();
+                repetidas += resultado.repetida() ? 1 : 0;
+                pedidoId = pedidoId == null ? resultado.valor().getId() : pedidoId;
+                assertEquals(pedidoId, resultado.valor().getId());
+            }
+
+            assertEquals(1, execucoes.get());
+            assertEquals(threads - 1, repetidas);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private IdempotenciaService.Resultado<PedidoResponseDTO> executar(String chave, Object requisicao) {
+        return idempotenciaService.executar("criar-pedido", chave, requisicao, PedidoResponseDTO.class, this::novoPedido);
+    }
+
+    private PedidoResponseDTO novoPedido() {
+        PedidoResponseDTO dto = new PedidoResponseDTO();
+        dto.setId((long) execucoes.incrementAndGet());
+        dto.setStatus("PENDENTE");
+        return dto;
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.deliverytech.delivery_api.services.idempotencia;
+
+import com.deliverytech.delivery_api.services.idempotencia.IdempotenciaStore.Registro;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoriaIdempotenciaStoreTest {
+
+    @Test
+    @DisplayName("Deve descartar a chave usada há mais tempo quando atingir o limite")
+    void testLimiteLru() {
+        MemoriaIdempotenciaStore store = new MemoriaIdempotenciaStore(2);
+        store.salvar("a", Registro.concluido("h", "{}"), Duration.ofMinutes(1));
+        store.salvar("b", Registro.concluido("h", "{}"), Duration.ofMinutes(1));
+        store.buscar("a"); // "a" passa a ser a mais recente
+        store.salvar("c", Registro.concluido("h", "{}"), Duration.ofMinutes(1));
+
+        assertEquals(2, store.tamanho());
+        assertTrue(store.buscar("a").isPresent());
+        assertTrue(store.buscar("b").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Reserva deve falhar para chave existente e valer de novo após o TTL")
+    void testReservaETtl() throws InterruptedException {
+        MemoriaIdempotenciaStore store = new MemoriaIdempotenciaStore(10);
+
+        assertTrue(store.reservar("a", "h", Duration.ofMillis(50)));
+        assertFalse(store.reservar("a", "h", Duration.ofMillis(50)));
+        assertFalse(store.buscar("a").orElseThrow().concluido());
+
+        Thread.sleep(80);
+        assertTrue(store.buscar("a").isEmpty());
+        assertTrue(store.reservar("a", "h", Duration.ofMillis(50)));
+    }
+}
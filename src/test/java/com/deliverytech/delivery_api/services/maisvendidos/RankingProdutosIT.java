@@ -0,0 +1,76 @@
+package com.deliverytech.delivery_api.services.maisvendidos;
+
+import com.deliverytech.delivery_api.dto.reports.RelatorioProdutoVendidoDTO;
+import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import com.deliverytech.delivery_api.repository.RankingProdutosRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Consultas do RankingProdutosRepository no banco (carga a partir dos itens, checkpoint com upsert).
+ * Usa uma instância própria do RankingProdutos: a do contexto fica sem carga, e o ranking geral dos outros
+ * testes continua vindo da consulta SQL.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RankingProdutosIT {
+
+    @Autowired
+    private RankingProdutosRepository rankingProdutosRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void removerCheckpoint() {
+        jdbcTemplate.update("DELETE FROM ranking_produtos_checkpoint");
+    }
+
+    @Test
+    @DisplayName("Carga sem checkpoint deve somar os itens vendidos e o checkpoint deve sobreviver a um reinício")
+    void testCargaECheckpoint() {
+        RankingProdutos ranking = novoRanking();
+        ranking.carregar();
+
+        // data.sql: uma unidade de 7 produtos em pedidos de hoje; do restaurante 1, Margherita e Calabresa
+        List<RelatorioProdutoVendidoDTO> total = ranking.maisVendidos(Janela.TOTAL, null, 10);
+        assertEquals(7, total.size());
+        assertTrue(total.stream().allMatch(p -> p.quantidadeVendida() == 1L));
+        assertEquals(2, ranking.maisVendidos(Janela.DIA, 1L, 10).size());
+
+        ranking.salvarCheckpoint();
+        ranking.aoVenderProdutos(new ProdutosVendidos(3L, 1L, LocalDateTime.now(), List.of(new ProdutosVendidos.Item(2L, 5))));
+        ranking.salvarCheckpoint();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ranking_produtos_checkpoint", Integer.class));
+        assertEquals(3L, rankingProdutosRepository.findCheckpoint().orElseThrow().ultimoPedidoId());
+        // Estado mais antigo (outra instância, marca d'água menor) não sobrescreve o salvo
+        assertFalse(rankingProdutosRepository.salvarCheckpoint(LocalDateTime.now(), 2L, "{\"paineis\":[]}"));
+
+        RankingProdutos reiniciado = novoRanking();
+        reiniciado.carregar();
+        assertEquals(new RelatorioProdutoVendidoDTO("Pizza Calabresa", 6L), reiniciado.maisVendidos(Janela.TOTAL, null, 1).get(0));
+        assertEquals(ranking.maisVendidos(Janela.SEMANA, null, 10), reiniciado.maisVendidos(Janela.SEMANA, null, 10));
+    }
+
+    private RankingProdutos novoRanking() {
+        return new RankingProdutos(rankingProdutosRepository, produtoRepository, objectMapper, true, 200, 50, Duration.ofMinutes(5));
+    }
+}
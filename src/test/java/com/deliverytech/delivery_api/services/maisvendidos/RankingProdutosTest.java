@@ -0,0 +1,226 @@
+package com.deliverytech.delivery_api.services.maisvendidos;
+
+import com.deliverytech.delivery_api.dto.reports.RelatorioProdutoVendidoDTO;
+import com.deliverytech.delivery_api.entity.Produto;
+import com.deliverytech.delivery_api.exceptions.ServiceUnavailableException;
+import com.deliverytech.delivery_api.repository.ProdutoRepository;
+import com.deliverytech.delivery_api.repository.RankingProdutosRepository;
+import com.deliverytech.delivery_api.repository.RankingProdutosRepository.Venda;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RankingProdutosTest {
+
+    private final RankingProdutosRepository rankingProdutosRepository = mock(RankingProdutosRepository.class);
+    private final ProdutoRepository produtoRepository = mock(ProdutoRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RankingProdutos ranking;
+
+    @BeforeEach
+    void setUp() {
+        when(produtoRepository.findAllById(any())).thenAnswer(inv -> {
+            List<Produto> produtos = new ArrayList<>();
+            inv.<Iterable<Long>>getArgument(0).forEach(id -> produtos.add(produto(id)));
+            return produtos;
+        });
+        ranking = novoRanking();
+    }
+
+    @Test
+    @DisplayName("Sem checkpoint, o total vem de todos os itens e as janelas só da última semana")
+    void testCargaSemCheckpoint() {
+        when(rankingProdutosRepository.findCheckpoint()).thenReturn(Optional.empty());
+        when(rankingProdutosRepository.ultimoPedidoId()).thenReturn(40L);
+        doAnswer(inv -> {
+            Venda venda = inv.getArgument(1);
+            venda.aceitar(1L, 10L, null, 5);
+            venda.aceitar(1L, 11L, null, 3);
+            return null;
+        }).when(rankingProdutosRepository).somarPorProduto(eq(40L), any());
+        doAnswer(inv -> {
+            // Já somado no total acima: só entra nas janelas
+            inv.<Venda>getArgument(2).aceitar(1L, 10L, LocalDateTime.now().minusHours(2), 2);
+            return null;
+        }).when(rankingProdutosRepository).itensDesde(any(), eq(40L), any());
+
+        assertThrows(ServiceUnavailableException.class, () -> ranking.maisVendidos(Janela.TOTAL, null, 10));
+        ranking.carregar();
+
+        assertEquals(Map.of("Produto 10", 5L, "Produto 11", 3L), quantidades(ranking.maisVendidos(Janela.TOTAL, null, 10)));
+        assertEquals(Map.of("Produto 10", 2L), quantidades(ranking.maisVendidos(Janela.DIA, 1L, 10)));
+        assertEquals(Map.of(), quantidades(ranking.maisVendidos(Janela.HORA, null, 10)));
+        assertEquals(List.of(), ranking.maisVendidos(Janela.TOTAL, 99L, 10));
+    }
+
+    @Test
+    @DisplayName("Vendas depois da carga devem entrar no geral, no restaurante e nas janelas")
+    void testVendasIncrementais() {
+        carregarVazio(ranking);
+
+        ranking.aoVenderProdutos(new ProdutosVendidos(1L, 2L, LocalDateTime.now(),
+                List.of(new ProdutosVendidos.Item(12L, 7), new ProdutosVendidos.Item(13L, 1))));
+        ranking.aoVenderProdutos(new ProdutosVendidos(2L, 1L, LocalDateTime.now().minusDays(3), List.of(new ProdutosVendidos.Item(10L, 4))));
+
+        List<RelatorioProdutoVendidoDTO> top = ranking.maisVendidos(Janela.TOTAL, null, 2);
+        assertEquals(List.of(new RelatorioProdutoVendidoDTO("Produto 12", 7L), new RelatorioProdutoVendidoDTO("Produto 10", 4L)), top);
+        assertEquals(Map.of("Produto 12", 7L, "Produto 13", 1L), quantidades(ranking.maisVendidos(Janela.HORA, null, 10)));
+        assertEquals(Map.of("Produto 10", 4L), quantidades(ranking.maisVendidos(Janela.SEMANA, 1L, 10)));
+        // Duas fatias (hoje e 3 dias atrás), somadas fora do lock e cortadas no limite
+        assertEquals(List.of(new RelatorioProdutoVendidoDTO("Produto 12", 7L), new RelatorioProdutoVendidoDTO("Produto 10", 4L)),
+                ranking.maisVendidos(Janela.SEMANA, null, 2));
+        assertEquals(Map.of(), quantidades(ranking.maisVendidos(Janela.DIA, 1L, 10)));
+        // Nomes resolvidos uma vez e guardados
+        ranking.maisVendidos(Janela.TOTAL, null, 2);
+        verify(produtoRepository, times(2)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Checkpoint restaurado mais os pedidos acima da sua marca d'água deve reproduzir o ranking")
+    void testCheckpoint() {
+        carregarVazio(ranking);
+        ranking.aoVenderProdutos(new ProdutosVendidos(51L, 1L, LocalDateTime.now(), List.of(new ProdutosVendidos.Item(10L, 5))));
+        ranking.aoVenderProdutos(new ProdutosVendidos(52L, 2L, LocalDateTime.now(), List.of(new ProdutosVendidos.Item(12L, 7))));
+
+        when(rankingProdutosRepository.salvarCheckpoint(any(), anyLong(), any())).thenReturn(true);
+        ranking.salvarCheckpoint();
+        ArgumentCaptor<LocalDateTime> instante = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<String> dados = ArgumentCaptor.forClass(String.class);
+        verify(rankingProdutosRepository).salvarCheckpoint(instante.capture(), eq(52L), dados.capture());
+
+        // Outra instância (reinício): checkpoint + um pedido gravado depois dele
+        RankingProdutos reiniciado = novoRanking();
+        when(rankingProdutosRepository.findCheckpoint())
+                .thenReturn(Optional.of(new RankingProdutosRepository.Checkpoint(instante.getValue(), 52L, dados.getValue())));
+        when(rankingProdutosRepository.ultimoPedidoId()).thenReturn(53L);
+        doAnswer(inv -> {
+            inv.<Venda>getArgument(2).aceitar(1L, 10L, LocalDateTime.now(), 10);
+            return null;
+        }).when(rankingProdutosRepository).itensEntre(eq(52L), eq(53L), any());
+        reiniciado.carregar();
+
+        assertEquals(Map.of("Produto 10", 15L, "Produto 12", 7L), quantidades(reiniciado.maisVendidos(Janela.TOTAL, null, 10)));
+        assertEquals(Map.of("Produto 10", 15L, "Produto 12", 7L), quantidades(reiniciado.maisVendidos(Janela.HORA, null, 10)));
+        assertEquals(Map.of("Produto 12", 7L), quantidades(reiniciado.maisVendidos(Janela.DIA, 2L, 10)));
+        // Só a primeira instância (sem checkpoint) agregou todos os itens
+        verify(rankingProdutosRepository, times(1)).somarPorProduto(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Vendas que chegam durante a carga só devem somar se o pedido estiver acima da marca lida")
+    void testVendasDuranteACarga() {
+        when(rankingProdutosRepository.findCheckpoint()).thenReturn(Optional.empty());
+        when(rankingProdutosRepository.ultimoPedidoId()).thenReturn(10L);
+        doAnswer(inv -> {
+            inv.<Venda>getArgument(1).aceitar(1L, 10L, null, 4);
+            // Commitados enquanto a agregação roda: o 10 já foi lido por ela, o 11 não
+            ranking.aoVenderProdutos(new ProdutosVendidos(10L, 1L, LocalDateTime.now(), List.of(new ProdutosVendidos.Item(10L, 4))));
+            ranking.aoVenderProdutos(new ProdutosVendidos(11L, 1L, LocalDateTime.now(), List.of(new ProdutosVendidos.Item(10L, 1))));
+            return null;
+        }).when(rankingProdutosRepository).somarPorProduto(eq(10L), any());
+
+        ranking.carregar();
+
+        assertEquals(Map.of("Produto 10", 5L), quantidades(ranking.maisVendidos(Janela.TOTAL, null, 10)));
+        when(rankingProdutosRepository.salvarCheckpoint(any(), anyLong(), any())).thenReturn(false);
+        ranking.salvarCheckpoint();
+        verify(rankingProdutosRepository).salvarCheckpoint(any(), eq(11L), any());
+    }
+
+    @Test
+    @DisplayName("Space-Saving deve manter os produtos frequentes com memória limitada e limites de erro corretos")
+    void testEspacoEconomico() {
+        EspacoEconomico resumo = new EspacoEconomico(10);
+        Map<Long, Long> real = new HashMap<>();
+        // 3 produtos frequentes no meio de 2000 vendas avulsas de produtos distintos
+        for (long i = 0; i < 2000; i++) {
+            long avulso = 1000 + i;
+            resumo.registrar(avulso, 1);
+            real.merge(avulso, 1L, Long::sum);
+            long frequente = 1 + i % 3;
+            resumo.registrar(frequente, 2);
+            real.merge(frequente, 2L, Long::sum);
+        }
+
+        List<EspacoEconomico.Contagem> top = resumo.maiores(3);
+        assertEquals(List.of(1L, 2L, 3L), top.stream().map(EspacoEconomico.Contagem::produtoId).sorted().toList());
+        for (EspacoEconomico.Contagem contagem : resumo.contagens()) {
+            long valorReal = real.get(contagem.produtoId());
+            assertTrue(contagem.quantidade() - contagem.erro() <= valorReal, "limite inferior");
+            assertTrue(valorReal <= contagem.quantidade(), "limite superior");
+        }
+        assertEquals(10, resumo.contagens().size());
+    }
+
+    @Test
+    @DisplayName("Soma de resumos deve manter os limites de erro mesmo quando um produto foi descartado de uma das fatias")
+    void testEspacoEconomicoSomado() {
+        EspacoEconomico primeira = new EspacoEconomico(3);
+        EspacoEconomico segunda = new EspacoEconomico(3);
+        Map<Long, Long> real = new HashMap<>();
+        // Produto 1: forte na segunda fatia, mas descartado da primeira pelos avulsos que vieram depois dele
+        registrar(primeira, real, 1L, 4);
+        for (long avulso = 100; avulso < 120; avulso++) {
+            registrar(primeira, real, avulso, 1);
+        }
+        assertFalse(primeira.contagens().stream().anyMatch(c -> c.produtoId() == 1L));
+        registrar(segunda, real, 1L, 20);
+        registrar(segunda, real, 2L, 3);
+
+        // Segunda primeiro: o produto 1 já está na soma quando chega a fatia que o descartou
+        EspacoEconomico soma = new EspacoEconomico(3);
+        soma.somar(segunda);
+        soma.somar(primeira);
+
+        assertEquals(1L, soma.maiores(1).get(0).produtoId());
+        for (EspacoEconomico.Contagem contagem : soma.contagens()) {
+            long valorReal = real.get(contagem.produtoId());
+            assertTrue(contagem.quantidade() - contagem.erro() <= valorReal, "limite inferior");
+            assertTrue(valorReal <= contagem.quantidade(), "limite superior: produto " + contagem.produtoId());
+        }
+    }
+
+    private static void registrar(EspacoEconomico resumo, Map<Long, Long> real, long produtoId, long quantidade) {
+        resumo.registrar(produtoId, quantidade);
+        real.merge(produtoId, quantidade, Long::sum);
+    }
+
+    private RankingProdutos novoRanking() {
+        return new RankingProdutos(rankingProdutosRepository, produtoRepository, objectMapper, true, 200, 50, Duration.ofMinutes(5));
+    }
+
+    private void carregarVazio(RankingProdutos alvo) {
+        when(rankingProdutosRepository.findCheckpoint()).thenReturn(Optional.empty());
+        alvo.carregar();
+    }
+
+    private static Map<String, Long> quantidades(List<RelatorioProdutoVendidoDTO> relatorio) {
+        Map<String, Long> quantidades = new HashMap<>();
+        relatorio.forEach(r -> quantidades.put(r.produtoNome(), r.quantidadeVendida()));
+        return quantidades;
+    }
+
+    private static Produto produto(Long id) {
+        Produto produto = new Produto();
+        produto.setId(id);
+        produto.setNome("Produto " + id);
+        return produto;
+    }
+}
@@ -0,0 +1,44 @@
+package com.deliverytech.delivery_api.services.numeracao;
+
+import com.deliverytech.delivery_api.Bancada;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark de contenção do gerador de números (não roda no "mvn test" padrão).
+ * Execução: ./mvnw test -Dtest=GeradorNumeroPedidoBenchmark
+ *
+ * Várias threads geram números ao mesmo tempo no mesmo nó; mede a vazão total
+ * e confere que nenhum número se repete.
+ */
+class GeradorNumeroPedidoBenchmark {
+
+    private static final int[] THREADS = {1, 4, 16, 64};
+    private static final int NUMEROS_POR_THREAD = 50_000;
+
+    @Test
+    @DisplayName("Vazão e unicidade do gerador sob contenção")
+    void benchmarkContencao() throws Exception {
+        Bancada tabela = Bancada.tabela("threads", "numeros/ms", "unicos");
+        for (int threads : THREADS) {
+            SnowflakeGeradorNumeroPedido gerador = new SnowflakeGeradorNumeroPedido(1, System::currentTimeMillis);
+            ConcurrentHashMap<String, Boolean> gerados = new ConcurrentHashMap<>(threads * NUMEROS_POR_THREAD * 2);
+
+            long nanos = Bancada.emParalelo(threads, () -> {
+                for (int i = 0; i < NUMEROS_POR_THREAD; i++) {
+                    gerados.put(gerador.proximo(), Boolean.TRUE);
+                }
+            });
+            long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+
+            int total = threads * NUMEROS_POR_THREAD;
+            tabela.linha(threads, total / millis, gerados.size());
+            assertEquals(total, gerados.size());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.deliverytech.delivery_api.services.numeracao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeGeradorNumeroPedidoTest {
+
+    private static final long AGORA = SnowflakeGeradorNumeroPedido.EPOCA + 1_000_000L;
+
+    @Test
+    @DisplayName("Números devem ter largura fixa e crescer em ordem alfabética")
+    void testFormatoEOrdem() {
+        AtomicLong relogio = new AtomicLong(AGORA);
+        SnowflakeGeradorNumeroPedido gerador = new SnowflakeGeradorNumeroPedido(7, relogio::get);
+
+        String anterior = gerador.proximo();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 100 == 0) {
+                relogio.addAndGet(1);
+            }
+            String atual = gerador.proximo();
+            assertEquals(16, atual.length());
+            assertTrue(atual.startsWith("PED"));
+            assertTrue(atual.compareTo(anterior) > 0, anterior + " >= " + atual);
+            anterior = atual;
+        }
+    }
+
+    @Test
+    @DisplayName("Esgotar a sequência do milissegundo deve adiantar o relógio lógico sem repetir números")
+    void testEstouroDeSequencia() {
+        SnowflakeGeradorNumeroPedido gerador = new SnowflakeGeradorNumeroPedido(1, () -> AGORA);
+
+        long primeiro = gerador.proximoId();
+        long ultimo = primeiro;
+        for (int i = 0; i < SnowflakeGeradorNumeroPedido.MAX_SEQUENCIA + 10; i++) {
+            long atual = gerador.proximoId();
+            assertTrue(atual > ultimo);
+            ultimo = atual;
+        }
+        long instantePrimeiro = primeiro >>> 22;
+        long instanteUltimo = ultimo >>> 22;
+        assertEquals(instantePrimeiro + 1, instanteUltimo);
+    }
+
+    @Test
+    @DisplayName("Relógio voltando no tempo (ajuste de NTP) não deve gerar duplicatas")
+    void testRelogioRetrocedendo() {
+        AtomicLong relogio = new AtomicLong(AGORA);
+        SnowflakeGeradorNumeroPedido gerador = new SnowflakeGeradorNumeroPedido(1, relogio::get);
+
+        long antes = gerador.proximoId();
+        relogio.addAndGet(-5_000);
+        assertTrue(gerador.proximoId() > antes);
+    }
+
+    @Test
+    @DisplayName("Nós diferentes no mesmo milissegundo devem gerar números distintos")
+    void testNosDiferentes() {
+        Set<String> numeros = new HashSet<>();
+        List<SnowflakeGeradorNumeroPedido> nos = new ArrayList<>();
+        for (int no = 0; no <= SnowflakeGeradorNumeroPedido.MAX_NO; no += 100) {
+            nos.add(new SnowflakeGeradorNumeroPedido(no, () -> AGORA));
+        }
+        for (int i = 0; i < 100; i++) {
+            for (SnowflakeGeradorNumeroPedido gerador : nos) {
+                assertTrue(numeros.add(gerador.proximo()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar id de nó fora do intervalo")
+    void testNoInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeGeradorNumeroPedido(1024, () -> AGORA));
+    }
+}
@@ -0,0 +1,54 @@
+package com.deliverytech.delivery_api.services.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArquivoOutboxSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve acrescentar uma linha JSON por mensagem, preservando as entregas anteriores")
+    void testGravaNdjson() throws Exception {
+        Path arquivo = diretorio.resolve("outbox.ndjson");
+        ArquivoOutboxSink sink = new ArquivoOutboxSink(arquivo, objectMapper);
+
+        sink.entregar(List.of(mensagem(1L, "CRIADO"), mensagem(2L, "STATUS_ALTERADO")));
+        sink.entregar(List.of(mensagem(3L, "STATUS_ALTERADO")));
+
+        List<String> linhas = Files.readAllLines(arquivo);
+        assertEquals(3, linhas.size());
+        JsonNode primeira = objectMapper.readTree(linhas.get(0));
+        assertEquals(1L, primeira.get("id").asLong());
+        assertEquals("CRIADO", primeira.get("tipo").asText());
+        assertEquals(10L, primeira.get("pedidoId").asLong());
+        // Payload embutido como objeto, não como string escapada
+        assertEquals("PENDENTE", primeira.get("evento").get("status").asText());
+        assertEquals(3L, objectMapper.readTree(linhas.get(2)).get("id").asLong());
+    }
+
+    @Test
+    @DisplayName("Falha de escrita deve chegar ao relay para o lote ser reentregue")
+    void testFalhaDeEscrita() {
+        ArquivoOutboxSink sink = new ArquivoOutboxSink(diretorio.resolve("inexistente").resolve("outbox.ndjson"), objectMapper);
+
+        assertThrows(RuntimeException.class, () -> sink.entregar(List.of(mensagem(1L, "CRIADO"))));
+    }
+
+    private static OutboxMensagem mensagem(Long id, String tipo) {
+        return new OutboxMensagem(id, tipo, 10L, "{\"pedidoId\":10,\"status\":\"PENDENTE\"}", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,190 @@
+package com.deliverytech.delivery_api.services.outbox;
+
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.deliverytech.delivery_api.dto.PedidoResponseDTO;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.repository.OutboxEventoRepository;
+import com.deliverytech.delivery_api.services.PedidoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Outbox gravado na transação do pedido e drenado pelo relay.
+ * Sem @Transactional na classe: o evento só é gravado no commit (BEFORE_COMMIT), que precisa acontecer de fato.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxIT {
+
+    private static final long PEDIDO_ID = 90_101L;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private MemoriaOutboxSink memoriaOutboxSink;
+
+    @Autowired
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long pedidoCriado;
+
+    @BeforeEach
+    void preparar() {
+        // Outros testes não transacionais também deixam eventos no outbox (o relay não roda nos testes)
+        jdbcTemplate.update("DELETE FROM pedidos_outbox");
+        memoriaOutboxSink.limpar();
+        jdbcTemplate.update("INSERT INTO pedidos (id, numero_pedido, data_pedido, status, valor_total, cliente_id, restaurante_id) " +
+                "VALUES (?, 'OUTB90101', CURRENT_TIMESTAMP, 'PENDENTE', 10.00, 1, 1)", PEDIDO_ID);
+    }
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("DELETE FROM pedidos_outbox");
+        jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", PEDIDO_ID);
+        if (pedidoCriado != null) {
+            jdbcTemplate.update("DELETE FROM itens_pedido WHERE pedido_id = ?", pedidoCriado);
+            jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", pedidoCriado);
+        }
+    }
+
+    @Test
+    @DisplayName("Criar pedido deve gravar o evento CRIADO no mesmo commit")
+    void testCriarPedidoGravaEvento() {
+        ItemPedidoDTO item = new ItemPedidoDTO();
+        item.setProdutoId(1L);
+        item.setQuantidade(2);
+        PedidoRequestDTO dto = new PedidoRequestDTO();
+        dto.setClienteId(1L);
+        dto.setRestauranteId(1L);
+        dto.setItens(List.of(item));
+
+        PedidoResponseDTO pedido = pedidoService.criarPedido(dto);
+        pedidoCriado = pedido.getId();
+
+        assertEquals(List.of("CRIADO"), tiposDoPedido(pedidoCriado));
+        String payload = jdbcTemplate.queryForObject("SELECT payload FROM pedidos_outbox WHERE pedido_id = ?", String.class, pedidoCriado);
+        assertTrue(payload.contains(pedido.getNumeroPedido()));
+    }
+
+    @Test
+    @DisplayName("Mudança de status deve acrescentar um único INSERT (o do outbox) ao UPDATE condicional")
+    void testStatusGravaEventoComUmInsert() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            pedidoService.atualizarStatusPedido(PEDIDO_ID, StatusPedido.CONFIRMADO);
+
+            assertEquals(1, statistics.getEntityInsertCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+        assertEquals(List.of("STATUS_ALTERADO"), tiposDoPedido(PEDIDO_ID));
+
+        pedidoService.cancelarPedido(PEDIDO_ID);
+        assertEquals(List.of("STATUS_ALTERADO", "STATUS_ALTERADO"), tiposDoPedido(PEDIDO_ID));
+        assertTrue(jdbcTemplate.queryForList("SELECT payload FROM pedidos_outbox WHERE pedido_id = ? ORDER BY id", String.class, PEDIDO_ID)
+                .get(1).contains("CANCELADO"));
+    }
+
+    @Test
+    @DisplayName("Transação revertida não deve deixar evento no outbox")
+    void testRollbackNaoGravaEvento() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            pedidoService.atualizarStatusPedido(PEDIDO_ID, StatusPedido.CONFIRMADO);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(tiposDoPedido(PEDIDO_ID).isEmpty());
+        assertEquals("PENDENTE", jdbcTemplate.queryForObject("SELECT status FROM pedidos WHERE id = ?", String.class, PEDIDO_ID));
+    }
+
+    @Test
+    @DisplayName("Relay deve entregar os eventos em ordem e removê-los do outbox")
+    void testRelayEntregaEApaga() {
+        pedidoService.atualizarStatusPedido(PEDIDO_ID, StatusPedido.CONFIRMADO);
+        pedidoService.atualizarStatusPedido(PEDIDO_ID, StatusPedido.PREPARANDO);
+
+        assertEquals(2, outboxRelay.drenar());
+        assertEquals(0, outboxRelay.drenar());
+
+        List<OutboxMensagem> recebidas = memoriaOutboxSink.getRecebidas();
+        assertEquals(2, recebidas.size());
+        assertTrue(recebidas.get(0).payload().contains("CONFIRMADO"));
+        assertTrue(recebidas.get(1).payload().contains("PREPARANDO"));
+        assertEquals(0, outboxEventoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Falha em um sink deve manter o lote no outbox e reentregá-lo (at-least-once), respeitando o tamanho do lote")
+    void testFalhaNoSinkReentrega() {
+        pedidoService.atualizarStatusPedido(PEDIDO_ID, StatusPedido.CONFIRMADO);
+        pedidoService.atualizarStatusPedido(PEDIDO_ID, StatusPedido.PREPARANDO);
+        pedidoService.atualizarStatusPedido(PEDIDO_ID, StatusPedido.SAIU_PARA_ENTREGA);
+
+        AtomicInteger tentativas = new AtomicInteger();
+        OutboxSink instavel = new OutboxSink() {
+            @Override
+            public String nome() {
+                return "instavel";
+            }
+
+            @Override
+            public void entregar(List<OutboxMensagem> mensagens) {
+                if (tentativas.incrementAndGet() == 1) {
+                    throw new IllegalStateException("destino fora do ar");
+                }
+            }
+        };
+        OutboxRelay relay = new OutboxRelay(outboxEventoRepository, transactionManager, List.of(memoriaOutboxSink, instavel),
+                new SimpleMeterRegistry(), false, 2, Duration.ofMillis(500));
+
+        assertThrows(IllegalStateException.class, relay::drenar);
+        assertEquals(3, outboxEventoRepository.count());
+
+        assertEquals(2, relay.drenar());
+        assertEquals(1, relay.drenar());
+        assertEquals(0, outboxEventoRepository.count());
+
+        // O primeiro lote chegou duas vezes ao sink em memória: consumidores descartam repetições pelo id
+        List<Long> ids = memoriaOutboxSink.getRecebidas().stream().map(OutboxMensagem::id).toList();
+        assertEquals(5, ids.size());
+        assertEquals(ids.subList(0, 2), ids.subList(2, 4));
+    }
+
+    private List<String> tiposDoPedido(Long pedidoId) {
+        return jdbcTemplate.queryForList("SELECT tipo FROM pedidos_outbox WHERE pedido_id = ? ORDER BY id", String.class, pedidoId);
+    }
+}
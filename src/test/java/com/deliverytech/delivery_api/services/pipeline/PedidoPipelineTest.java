@@ -0,0 +1,188 @@
+package com.deliverytech.delivery_api.services.pipeline;
+
+import com.deliverytech.delivery_api.dto.PedidoAceiteDTO;
+import com.deliverytech.delivery_api.dto.PedidoAceiteDTO.Situacao;
+import com.deliverytech.delivery_api.dto.PedidoLoteResponseDTO;
+import com.deliverytech.delivery_api.dto.PedidoLoteResultadoDTO;
+import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.deliverytech.delivery_api.entity.Pedido;
+import com.deliverytech.delivery_api.exceptions.ServiceUnavailableException;
+import com.deliverytech.delivery_api.services.PedidoService;
+import com.deliverytech.delivery_api.services.numeracao.GeradorNumeroPedido;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class PedidoPipelineTest {
+
+    private final PedidoService pedidoService = mock(PedidoService.class);
+    private final AtomicLong sequencia = new AtomicLong();
+    private final GeradorNumeroPedido gerador = () -> "PED" + sequencia.incrementAndGet();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // Lotes recebidos pelo serviço; o primeiro fica bloqueado até liberar, para a fila acumular
+    private final List<List<String>> lotes = new CopyOnWriteArrayList<>();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+
+    private PedidoPipeline pipeline;
+
+    @AfterEach
+    void parar() {
+        liberar.countDown();
+        if (pipeline.isRunning()) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Pedidos acumulados na fila devem ser gravados juntos em um lote")
+    void testAgrupaEmLotes() throws Exception {
+        pipeline = novoPipeline(100, 50);
+        simularGravacao();
+        pipeline.start();
+
+        PedidoAceiteDTO primeiro = pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        aguardar(() -> lotes.size() == 1);
+        for (int i = 0; i < 10; i++) {
+            pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        }
+        liberar.countDown();
+
+        aguardar(() -> lotes.stream().mapToInt(List::size).sum() == 11);
+        assertEquals(2, lotes.size());
+        assertEquals(10, lotes.get(1).size());
+        assertEquals(List.of(primeiro.getNumeroPedido()), lotes.get(0));
+
+        aguardar(() -> pipeline.acompanhar(primeiro.getNumeroPedido(), "joao").orElseThrow().getSituacao() == Situacao.CRIADO);
+        assertEquals(11, registry.get("pedidos.pipeline.processados").tag("situacao", "CRIADO").counter().count());
+        assertEquals(11, registry.get("pedidos.pipeline.espera").timer().count());
+    }
+
+    @Test
+    @DisplayName("Fila cheia deve recusar com 503 sem reservar acompanhamento")
+    void testFilaCheia() throws Exception {
+        pipeline = novoPipeline(2, 50);
+        simularGravacao();
+        pipeline.start();
+
+        pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        aguardar(() -> lotes.size() == 1); // worker ocupado
+        pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        pipeline.aceitar(new PedidoRequestDTO(), "joao");
+
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                () -> pipeline.aceitar(new PedidoRequestDTO(), "joao"));
+        assertEquals(1, ex.getRetryAfterSegundos());
+        assertTrue(pipeline.acompanhar("PED4", "joao").isEmpty());
+        assertEquals(2.0, registry.get("pedidos.pipeline.fila").gauge().value());
+        assertEquals(1, registry.get("pedidos.pipeline.recusados").counter().count());
+    }
+
+    @Test
+    @DisplayName("No desligamento deve recusar novos aceites e gravar tudo o que já estava na fila")
+    void testDrenaNoDesligamento() throws Exception {
+        pipeline = novoPipeline(100, 5);
+        simularGravacao();
+        pipeline.start();
+
+        pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        aguardar(() -> lotes.size() == 1);
+        for (int i = 0; i < 12; i++) {
+            pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        }
+
+        Thread desligamento = new Thread(pipeline::stop);
+        desligamento.start();
+        aguardar(() -> !pipeline.isRunning());
+        assertThrows(ServiceUnavailableException.class, () -> pipeline.aceitar(new PedidoRequestDTO(), "joao"));
+
+        liberar.countDown();
+        desligamento.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(desligamento.isAlive());
+        assertEquals(0, pipeline.tamanhoFila());
+        assertEquals(13, lotes.stream().mapToInt(List::size).sum());
+        assertTrue(lotes.stream().allMatch(lote -> lote.size() <= 5));
+    }
+
+    @Test
+    @DisplayName("Falha de banco no lote deve isolar o pedido com problema e gravar os demais")
+    void testFalhaNoLoteRegravaIndividualmente() throws Exception {
+        pipeline = novoPipeline(100, 50);
+        when(pedidoService.criarPedidosAceitos(anyList(), anyList())).thenAnswer(inv -> {
+            List<String> numeros = inv.getArgument(1);
+            lotes.add(new ArrayList<>(numeros));
+            if (lotes.size() == 1) {
+                liberar.await();
+            }
+            if (numeros.contains("PED3")) {
+                throw new IllegalStateException("violação de constraint");
+            }
+            return sucesso(numeros);
+        });
+        pipeline.start();
+
+        pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        aguardar(() -> lotes.size() == 1);
+        pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        pipeline.aceitar(new PedidoRequestDTO(), "joao");
+        liberar.countDown();
+
+        aguardar(() -> pipeline.acompanhar("PED4", "joao").orElseThrow().getSituacao() != Situacao.EM_FILA);
+        assertEquals(Situacao.CRIADO, pipeline.acompanhar("PED2", "joao").orElseThrow().getSituacao());
+        assertEquals(Situacao.REJEITADO, pipeline.acompanhar("PED3", "joao").orElseThrow().getSituacao());
+        assertEquals(Situacao.CRIADO, pipeline.acompanhar("PED4", "joao").orElseThrow().getSituacao());
+        // Acompanhamento é visível só para quem enviou
+        assertTrue(pipeline.acompanhar("PED2", "maria").isEmpty());
+    }
+
+    private PedidoPipeline novoPipeline(int capacidadeFila, int tamanhoLote) {
+        return new PedidoPipeline(pedidoService, gerador, registry, capacidadeFila, 1, tamanhoLote, Duration.ofSeconds(5), 1000);
+    }
+
+    private void simularGravacao() {
+        when(pedidoService.criarPedidosAceitos(anyList(), anyList())).thenAnswer(inv -> {
+            List<String> numeros = inv.getArgument(1);
+            lotes.add(new ArrayList<>(numeros));
+            if (lotes.size() == 1) {
+                liberar.await();
+            }
+            return sucesso(numeros);
+        });
+    }
+
+    private static PedidoLoteResponseDTO sucesso(List<String> numeros) {
+        List<PedidoLoteResultadoDTO> resultados = new ArrayList<>();
+        for (int i = 0; i < numeros.size(); i++) {
+            Pedido pedido = new Pedido();
+            pedido.setId((long) i + 1);
+            pedido.setNumeroPedido(numeros.get(i));
+            resultados.add(PedidoLoteResultadoDTO.sucesso(i, pedido));
+        }
+        return new PedidoLoteResponseDTO(resultados);
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!condicao.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                fail("Condição não atingida em 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
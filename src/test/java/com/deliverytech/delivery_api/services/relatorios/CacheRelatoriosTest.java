@@ -0,0 +1,138 @@
+package com.deliverytech.delivery_api.services.relatorios;
+
+import com.deliverytech.delivery_api.exceptions.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheRelatoriosTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CacheRelatorios cache;
+
+    @AfterEach
+    void encerrar() {
+        if (cache != null) {
+            cache.encerrar();
+        }
+    }
+
+    @Test
+    @DisplayName("Dentro da mesma fatia, relatório e parâmetros iguais devem ser calculados uma vez só")
+    void testMesmaFatia() {
+        cache = new CacheRelatorios(registry, true, Duration.ofHours(1), Duration.ofHours(1), 100);
+        AtomicInteger calculos = new AtomicInteger();
+
+        assertEquals(1, (int) cache.obter("vendas", calculos::incrementAndGet, 10, null));
+        assertEquals(1, (int) cache.obter("vendas", calculos::incrementAndGet, 10, null));
+        assertEquals(2, (int) cache.obter("vendas", calculos::incrementAndGet, 20, null));
+        assertEquals(3, (int) cache.obter("clientes", calculos::incrementAndGet, 10, null));
+
+        assertEquals(1.0, registry.get("relatorios.cache.consultas").tag("relatorio", "vendas").tag("resultado", "fresco").counter().count());
+        assertEquals(2.0, registry.get("relatorios.cache.consultas").tag("relatorio", "vendas").tag("resultado", "ausente").counter().count());
+        assertEquals(2, registry.get("relatorios.cache.recalculo").tag("relatorio", "vendas").timer().count());
+    }
+
+    @Test
+    @DisplayName("Resultado de fatia anterior deve sair na hora e ser recalculado em segundo plano")
+    void testDesatualizadoRecalculaEmSegundoPlano() throws Exception {
+        cache = new CacheRelatorios(registry, true, Duration.ofMillis(50), Duration.ofMinutes(1), 100);
+        AtomicInteger calculos = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        assertEquals(1, (int) cache.obter("vendas", calculos::incrementAndGet));
+        Thread.sleep(120);
+
+        // O recálculo fica preso até o teste liberar: a resposta não espera por ele
+        assertEquals(1, (int) cache.obter("vendas", () -> {
+            await(liberar);
+            return calculos.incrementAndGet();
+        }));
+        liberar.countDown();
+
+        long limite = System.currentTimeMillis() + 5_000;
+        int valor = 1;
+        while (valor == 1 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+            valor = cache.obter("vendas", () -> -1);
+        }
+        // -1 só apareceria se alguém recalculasse de novo no primeiro plano
+        assertTrue(valor == 2 || valor == -1 && calculos.get() == 2, "valor recalculado: " + valor);
+        assertEquals(2, calculos.get());
+        assertTrue(registry.get("relatorios.cache.consultas").tag("resultado", "desatualizado").counter().count() >= 1);
+    }
+
+    @Test
+    @DisplayName("Chamadas iguais e simultâneas sem cache devem esperar um único cálculo")
+    void testSemEstouroDeCalculos() throws Exception {
+        cache = new CacheRelatorios(registry, true, Duration.ofHours(1), Duration.ofHours(1), 100);
+        AtomicInteger calculos = new AtomicInteger();
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> respostas = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                respostas.add(executor.submit(() -> cache.obter("ranking", () -> {
+                    iniciou.countDown();
+                    await(liberar);
+                    return calculos.incrementAndGet();
+                })));
+            }
+            assertTrue(iniciou.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            liberar.countDown();
+            for (Future<Integer> resposta : respostas) {
+                assertEquals(1, resposta.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calculos.get());
+    }
+
+    @Test
+    @DisplayName("Erro no cálculo deve chegar a quem chamou com o tipo original e não ficar no cache")
+    void testErroNaoFicaNoCache() {
+        cache = new CacheRelatorios(registry, true, Duration.ofHours(1), Duration.ofHours(1), 100);
+
+        assertThrows(BusinessException.class, () -> cache.obter("vendas", () -> {
+            throw new BusinessException("período inválido");
+        }));
+        assertEquals("ok", cache.obter("vendas", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("Desabilitado, o cache deve calcular sempre")
+    void testDesabilitado() {
+        cache = new CacheRelatorios(registry, false, Duration.ofHours(1), Duration.ofHours(1), 100);
+        AtomicInteger calculos = new AtomicInteger();
+
+        cache.obter("vendas", calculos::incrementAndGet);
+        cache.obter("vendas", calculos::incrementAndGet);
+
+        assertEquals(2, calculos.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
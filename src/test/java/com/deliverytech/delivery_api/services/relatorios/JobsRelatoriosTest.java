@@ -0,0 +1,177 @@
+package com.deliverytech.delivery_api.services.relatorios;
+
+import com.deliverytech.delivery_api.dto.RelatorioJobDTO;
+import com.deliverytech.delivery_api.dto.RelatorioJobDTO.Situacao;
+import com.deliverytech.delivery_api.dto.RelatorioJobRequestDTO;
+import com.deliverytech.delivery_api.dto.RelatorioJobRequestDTO.Tipo;
+import com.deliverytech.delivery_api.dto.reports.RelatorioRankingCliente;
+import com.deliverytech.delivery_api.exceptions.ConflictException;
+import com.deliverytech.delivery_api.exceptions.ServiceUnavailableException;
+import com.deliverytech.delivery_api.repository.ClienteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JobsRelatoriosTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime FIM = LocalDateTime.of(2025, 12, 31, 23, 59, 59);
+
+    @TempDir
+    Path diretorio;
+
+    private final ExportadorPedidos exportadorPedidos = mock(ExportadorPedidos.class);
+    private final ClienteRepository clienteRepository = mock(ClienteRepository.class);
+    private JobsRelatorios jobs;
+
+    @AfterEach
+    void encerrar() {
+        jobs.encerrar();
+    }
+
+    @Test
+    @DisplayName("Cancelar um job executando deve interrompê-lo entre linhas e apagar o arquivo parcial")
+    void testCancelarExecutando() throws Exception {
+        jobs = novosJobs(1, 1);
+        CountDownLatch escreveu = new CountDownLatch(1);
+        when(exportadorPedidos.contar(INICIO, FIM)).thenReturn(1_000_000L);
+        when(exportadorPedidos.exportar(any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            OutputStream saida = inv.getArgument(3);
+            LongConsumer progresso = inv.getArgument(4);
+            for (long linha = 1; linha <= 1_000_000; linha++) {
+                saida.write("linha\n".getBytes(StandardCharsets.UTF_8));
+                progresso.accept(linha);
+                if (linha == 10) {
+                    escreveu.countDown();
+                }
+                Thread.sleep(1);
+            }
+            return 1_000_000L;
+        });
+
+        RelatorioJobDTO job = jobs.submeter(pedidosPorPeriodo("csv"));
+        assertTrue(escreveu.await(5, TimeUnit.SECONDS));
+        RelatorioJobDTO executando = jobs.consultar(job.getId());
+        assertEquals(Situacao.EXECUTANDO, executando.getSituacao());
+        assertEquals(1_000_000L, executando.getTotalEstimado());
+        assertTrue(executando.getLinhasProcessadas() >= 10);
+
+        jobs.cancelar(job.getId());
+
+        assertEquals(Situacao.CANCELADO, jobs.consultar(job.getId()).getSituacao());
+        assertThrows(ConflictException.class, () -> jobs.resultado(job.getId()));
+        aguardar(() -> arquivos().isEmpty());
+        // Cancelado não é reaproveitado: os mesmos parâmetros geram outro job
+        assertNotEquals(job.getId(), jobs.submeter(pedidosPorPeriodo("csv")).getId());
+    }
+
+    @Test
+    @DisplayName("Com as threads ocupadas e a fila cheia, a submissão deve ser recusada com 503; parâmetros iguais reaproveitam o job")
+    void testFilaCheia() throws Exception {
+        jobs = novosJobs(1, 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(exportadorPedidos.exportar(any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+
+        RelatorioJobDTO executando = jobs.submeter(pedidosPorPeriodo("csv"));
+        RelatorioJobDTO naFila = jobs.submeter(pedidosPorPeriodo("ndjson"));
+        assertEquals(naFila.getId(), jobs.submeter(pedidosPorPeriodo("ndjson")).getId());
+        assertThrows(ServiceUnavailableException.class, () -> jobs.submeter(
+                new RelatorioJobRequestDTO(Tipo.CLIENTES_MAIS_ATIVOS, null, null, "csv")));
+
+        // Cancelado na fila: nem chega a executar
+        jobs.cancelar(naFila.getId());
+        liberar.countDown();
+        aguardar(() -> jobs.consultar(executando.getId()).getSituacao() == Situacao.CONCLUIDO);
+        assertEquals(Situacao.CANCELADO, jobs.consultar(naFila.getId()).getSituacao());
+        verify(exportadorPedidos, times(1)).exportar(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Ranking de clientes deve sair no formato pedido, e uma falha não deve ser reaproveitada")
+    void testRankingClientesEFalha() throws Exception {
+        jobs = novosJobs(1, 5);
+        when(clienteRepository.findRankingClientesPorPedidos())
+                .thenThrow(new IllegalStateException("banco fora"))
+                .thenReturn(List.of(ranking("Ana, a Primeira", 3L), ranking("Bruno", 1L)));
+        RelatorioJobRequestDTO request = new RelatorioJobRequestDTO(Tipo.CLIENTES_MAIS_ATIVOS, null, null, "csv");
+
+        RelatorioJobDTO falhou = jobs.submeter(request);
+        aguardar(() -> jobs.consultar(falhou.getId()).getSituacao() == Situacao.FALHOU);
+
+        RelatorioJobDTO job = jobs.submeter(request);
+        assertNotEquals(falhou.getId(), job.getId());
+        aguardar(() -> jobs.consultar(job.getId()).getSituacao() == Situacao.CONCLUIDO);
+
+        JobsRelatorios.Resultado resultado = jobs.resultado(job.getId());
+        assertEquals("clientes-mais-ativos.csv", resultado.nomeArquivo());
+        assertEquals(List.of("clienteNome,totalPedidos", "\"Ana, a Primeira\",3", "Bruno,1"),
+                Files.readAllLines(resultado.arquivo()));
+        assertEquals(2L, jobs.consultar(job.getId()).getLinhasProcessadas());
+
+        // Descartar o concluído apaga o arquivo
+        jobs.cancelar(job.getId());
+        assertFalse(Files.exists(resultado.arquivo()));
+    }
+
+    private JobsRelatorios novosJobs(int threads, int capacidadeFila) {
+        return new JobsRelatorios(exportadorPedidos, clienteRepository, new ObjectMapper(), new SimpleMeterRegistry(),
+                diretorio, threads, capacidadeFila, Duration.ofHours(1));
+    }
+
+    private static RelatorioJobRequestDTO pedidosPorPeriodo(String formato) {
+        return new RelatorioJobRequestDTO(Tipo.PEDIDOS_POR_PERIODO, INICIO, FIM, formato);
+    }
+
+    private List<Path> arquivos() throws Exception {
+        try (var lista = Files.list(diretorio)) {
+            return lista.toList();
+        }
+    }
+
+    private static void aguardar(Condicao condicao) throws Exception {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!condicao.verdadeira()) {
+            assertTrue(System.currentTimeMillis() < limite, "condição não atingida a tempo");
+            Thread.sleep(10);
+        }
+    }
+
+    private static RelatorioRankingCliente ranking(String nome, Long total) {
+        return new RelatorioRankingCliente() {
+            @Override
+            public String getClienteNome() {
+                return nome;
+            }
+
+            @Override
+            public Long getTotalPedidos() {
+                return total;
+            }
+        };
+    }
+
+    private interface Condicao {
+        boolean verdadeira() throws Exception;
+    }
+}
@@ -0,0 +1,183 @@
+package com.deliverytech.delivery_api.services.relatorios;
+
+import com.deliverytech.delivery_api.SqlCapturado;
+import com.deliverytech.delivery_api.dto.ItemPedidoDTO;
+import com.deliverytech.delivery_api.dto.PedidoRequestDTO;
+import com.deliverytech.delivery_api.dto.PedidoLoteResultadoDTO;
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import com.deliverytech.delivery_api.repository.ClienteRepository;
+import com.deliverytech.delivery_api.repository.RestauranteRepository;
+import com.deliverytech.delivery_api.services.PedidoService;
+import com.deliverytech.delivery_api.services.outbox.OutboxRelay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rollups dos relatórios mantidos pelo relay do outbox (fora da transação do pedido) e reconstruídos a partir dos pedidos.
+ * Sem @Transactional na classe: o relay só enxerga eventos commitados. O relay não roda sozinho nos testes: {@link #relay()} drena.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RollupsVendasIT {
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ReconciliadorRollups reconciliadorRollups;
+
+    @Autowired
+    private RestauranteRepository restauranteRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> pedidosCriados = new ArrayList<>();
+
+    @BeforeEach
+    void reconstruirHoje() {
+        // Outros testes gravam pedidos direto no banco, sem passar pelos rollups, ou deixam eventos no outbox
+        relay();
+        reconciliadorRollups.reconstruir(LocalDate.now(), LocalDate.now());
+    }
+
+    @AfterEach
+    void removerPedidos() {
+        for (Long id : pedidosCriados) {
+            jdbcTemplate.update("DELETE FROM itens_pedido WHERE pedido_id = ?", id);
+            jdbcTemplate.update("DELETE FROM pedidos_outbox WHERE pedido_id = ?", id);
+            jdbcTemplate.update("DELETE FROM pedidos WHERE id = ?", id);
+        }
+        reconciliadorRollups.reconstruir(LocalDate.now(), LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("Criação, cancelamento e entrega devem atualizar os três rollups, iguais à reconstrução a partir dos pedidos")
+    void testRollupsIncrementais() {
+        Map<String, BigDecimal> vendasAntes = vendasPorRestaurante();
+        Map<String, BigDecimal> entregueAntes = entreguePorRestaurante();
+        Map<String, BigDecimal> categoriasAntes = faturamentoPorCategoria();
+        long pedidosJoaoAntes = pedidosDoCliente("João Silva");
+
+        Long cancelado = criarPedido(1L, 1L, 2);      // 2 x Pizza Margherita (35.90) + taxa 5.00
+        Long entregue = criarPedido(1L, 1L, 1);       // 1 x Pizza Margherita + taxa
+        BigDecimal valorCancelado = new BigDecimal("76.80");
+        BigDecimal valorEntregue = new BigDecimal("40.90");
+        // Antes do relay, nada mudou: a transação do pedido não toca nos rollups
+        assertEquals(vendasAntes, vendasPorRestaurante());
+        relay();
+
+        assertEquals(vendasAntes.get("Pizzaria Bella").add(valorCancelado).add(valorEntregue), vendasPorRestaurante().get("Pizzaria Bella"));
+        assertEquals(categoriasAntes.get("Italiana").add(valorCancelado).add(valorEntregue), faturamentoPorCategoria().get("Italiana"));
+        assertEquals(pedidosJoaoAntes + 2, pedidosDoCliente("João Silva"));
+
+        pedidoService.cancelarPedido(cancelado);
+        for (StatusPedido status : List.of(StatusPedido.CONFIRMADO, StatusPedido.PREPARANDO, StatusPedido.SAIU_PARA_ENTREGA, StatusPedido.ENTREGUE)) {
+            pedidoService.atualizarStatusPedido(entregue, status);
+        }
+        relay();
+
+        Map<String, BigDecimal> vendas = vendasPorRestaurante();
+        Map<String, BigDecimal> entregues = entreguePorRestaurante();
+        Map<String, BigDecimal> categorias = faturamentoPorCategoria();
+        assertEquals(vendasAntes.get("Pizzaria Bella").add(valorEntregue), vendas.get("Pizzaria Bella"));
+        assertEquals(entregueAntes.get("Pizzaria Bella").add(valorEntregue), entregues.get("Pizzaria Bella"));
+        assertEquals(categoriasAntes.get("Italiana").add(valorEntregue), categorias.get("Italiana"));
+        assertEquals(pedidosJoaoAntes + 1, pedidosDoCliente("João Silva"));
+
+        // A reconstrução do dia a partir dos pedidos chega aos mesmos números
+        reconciliadorRollups.reconstruir(LocalDate.now(), LocalDate.now());
+        assertEquals(vendas, vendasPorRestaurante());
+        assertEquals(entregues, entreguePorRestaurante());
+        assertEquals(categorias, faturamentoPorCategoria());
+        assertEquals(pedidosJoaoAntes + 1, pedidosDoCliente("João Silva"));
+    }
+
+    @Test
+    @DisplayName("Um lote de pedidos não deve tocar nos rollups; o relay soma com um comando por rollup, independentemente do tamanho")
+    void testLoteSomaComUmComandoPorRollup() {
+        Map<String, BigDecimal> vendasAntes = vendasPorRestaurante();
+        List<PedidoRequestDTO> lote = List.of(pedido(1L, 1L, 1), pedido(2L, 1L, 1), pedido(3L, 4L, 1), pedido(1L, 4L, 2));
+
+        List<String> sql = SqlCapturado.capturar(() -> pedidoService.criarPedidosEmLote(lote).getResultados().stream()
+                .map(PedidoLoteResultadoDTO::getPedidoId)
+                .forEach(pedidosCriados::add));
+
+        assertEquals(4, pedidosCriados.size());
+        assertEquals(0, upserts(sql));
+        assertEquals(3, upserts(SqlCapturado.capturar(this::relay)));
+        // Pizzaria Bella: 2 x 40.90; Burger House: 1 x (18.90 + 3.50) + 2 x 18.90 + 3.50
+        assertEquals(vendasAntes.get("Pizzaria Bella").add(new BigDecimal("81.80")), vendasPorRestaurante().get("Pizzaria Bella"));
+        assertEquals(vendasAntes.get("Burger House").add(new BigDecimal("63.70")), vendasPorRestaurante().get("Burger House"));
+    }
+
+    private void relay() {
+        while (outboxRelay.drenar() > 0) {
+            // drena até a fila esvaziar
+        }
+    }
+
+    private static long upserts(List<String> sql) {
+        return sql.stream().filter(s -> s.toLowerCase().contains("on duplicate key update")).count();
+    }
+
+    private Long criarPedido(Long clienteId, Long produtoId, int quantidade) {
+        Long id = pedidoService.criarPedido(pedido(clienteId, produtoId, quantidade)).getId();
+        pedidosCriados.add(id);
+        return id;
+    }
+
+    private static PedidoRequestDTO pedido(Long clienteId, Long produtoId, int quantidade) {
+        ItemPedidoDTO item = new ItemPedidoDTO();
+        item.setProdutoId(produtoId);
+        item.setQuantidade(quantidade);
+        PedidoRequestDTO dto = new PedidoRequestDTO();
+        dto.setClienteId(clienteId);
+        dto.setRestauranteId(produtoId <= 3 ? 1L : 2L);
+        dto.setItens(List.of(item));
+        return dto;
+    }
+
+    private Map<String, BigDecimal> vendasPorRestaurante() {
+        return restauranteRepository.findTotalVendasPorRestaurante().stream()
+                .collect(Collectors.toMap(r -> r.getRestauranteNome(), r -> r.getTotalVendas()));
+    }
+
+    private Map<String, BigDecimal> entreguePorRestaurante() {
+        return restauranteRepository.findTotalVendasPorRestaurante().stream()
+                .collect(Collectors.toMap(r -> r.getRestauranteNome(), r -> r.getTotalEntregue()));
+    }
+
+    private Map<String, BigDecimal> faturamentoPorCategoria() {
+        return restauranteRepository.findFaturamentoPorCategoria().stream()
+                .collect(Collectors.toMap(r -> r.getCategoria(), r -> r.getFaturamentoTotal()));
+    }
+
+    private long pedidosDoCliente(String nome) {
+        return clienteRepository.findRankingClientesPorPedidos().stream()
+                .filter(r -> r.getClienteNome().equals(nome))
+                .mapToLong(r -> r.getTotalPedidos())
+                .sum();
+    }
+}
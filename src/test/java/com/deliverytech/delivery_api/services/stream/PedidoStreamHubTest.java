@@ -0,0 +1,265 @@
+package com.deliverytech.delivery_api.services.stream;
+
+import com.deliverytech.delivery_api.enums.StatusPedido;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PedidoStreamHubTest {
+
+    private PedidoStreamHub hub = novoHub(Duration.ofSeconds(30), 8, 4, Duration.ofMinutes(5));
+
+    @AfterEach
+    void desligar() {
+        hub.desligar();
+    }
+
+    @Test
+    @DisplayName("Deve entregar só os eventos do restaurante assinado")
+    void testEntregaPorRestaurante() throws Exception {
+        EmitterCapturado restaurante1 = new EmitterCapturado();
+        EmitterCapturado restaurante2 = new EmitterCapturado();
+        hub.assinar(1L, null, restaurante1);
+        hub.assinar(2L, null, restaurante2);
+
+        hub.publicar(criado(10L, 1L));
+
+        aguardar(() -> restaurante1.eventos().size() == 1);
+        assertTrue(restaurante1.texto().contains("event:CRIADO"));
+        assertTrue(restaurante2.eventos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Mudança de status deve chegar ao restaurante informado no evento")
+    void testStatusAlteradoPorRestaurante() throws Exception {
+        EmitterCapturado emitter = new EmitterCapturado();
+        EmitterCapturado outro = new EmitterCapturado();
+        hub.assinar(1L, null, emitter);
+        hub.assinar(2L, null, outro);
+
+        hub.publicar(PedidoEvento.statusAlterado(10L, StatusPedido.CONFIRMADO, 1L, 1L));
+
+        aguardar(() -> emitter.eventos().size() == 1);
+        assertTrue(emitter.texto().contains("event:STATUS_ALTERADO"));
+        assertTrue(outro.eventos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Ao reconectar com Last-Event-ID deve reenviar apenas os eventos posteriores")
+    void testRetomadaComLastEventId() throws Exception {
+        EmitterCapturado primeira = new EmitterCapturado();
+        hub.assinar(1L, null, primeira);
+        hub.publicar(criado(10L, 1L));
+        hub.publicar(criado(11L, 1L));
+        hub.publicar(criado(12L, 1L));
+        aguardar(() -> primeira.ids().size() == 3);
+
+        EmitterCapturado segunda = new EmitterCapturado();
+        hub.assinar(1L, primeira.ids().get(0), segunda);
+
+        aguardar(() -> segunda.ids().size() == 2);
+        assertEquals(primeira.ids().subList(1, 3), segunda.ids());
+        assertFalse(segunda.texto().contains("event:" + PedidoStreamHub.EVENTO_RESET));
+    }
+
+    @Test
+    @DisplayName("Last-Event-ID anterior ao buffer ou de outra instância deve gerar evento reset")
+    void testRetomadaComLacuna() throws Exception {
+        EmitterCapturado primeira = new EmitterCapturado();
+        hub.assinar(1L, null, primeira);
+        hub.publicar(criado(100L, 1L));
+        aguardar(() -> primeira.ids().size() == 1);
+        for (long i = 1; i < 10; i++) { // buffer de replay = 8: o primeiro evento sai do buffer
+            hub.publicar(criado(100L + i, 1L));
+        }
+
+        EmitterCapturado atrasada = new EmitterCapturado();
+        hub.assinar(1L, primeira.ids().get(0), atrasada);
+        aguardar(() -> atrasada.ids().size() == 8);
+        assertTrue(atrasada.texto().startsWith("event:" + PedidoStreamHub.EVENTO_RESET));
+
+        EmitterCapturado outraInstancia = new EmitterCapturado();
+        hub.assinar(1L, "abc-5", outraInstancia);
+        aguardar(() -> outraInstancia.ids().size() == 8);
+        assertTrue(outraInstancia.texto().startsWith("event:" + PedidoStreamHub.EVENTO_RESET));
+    }
+
+    @Test
+    @DisplayName("Cliente lento deve ser desconectado sem travar os demais")
+    void testClienteLentoDescartado() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        EmitterCapturado lento = new EmitterCapturado(liberar);
+        EmitterCapturado rapido = new EmitterCapturado();
+        hub.assinar(1L, null, lento);
+        hub.assinar(1L, null, rapido);
+
+        // Fila por conexão = 4: o lento estoura a fila, o rápido acompanha. Publicar as 8 de uma vez
+        // deixaria o rápido estourar também se a thread dele não drenasse a tempo, então espera cada entrega.
+        for (int i = 0; i < 8; i++) {
+            hub.publicar(criado(200L + i, 1L));
+            int recebidos = i + 1;
+            aguardar(() -> rapido.ids().size() == recebidos);
+        }
+
+        assertEquals(1, hub.conexoesAtivas(1L));
+
+        liberar.countDown();
+        aguardar(() -> lento.concluido);
+    }
+
+    @Test
+    @DisplayName("Sem eventos deve mandar heartbeat para manter a conexão")
+    void testHeartbeat() throws Exception {
+        hub.desligar();
+        hub = novoHub(Duration.ofMillis(20), 8, 4, Duration.ofMinutes(5));
+        EmitterCapturado emitter = new EmitterCapturado();
+        hub.assinar(1L, null, emitter);
+
+        aguardar(() -> emitter.texto().contains(":heartbeat"));
+        assertTrue(emitter.ids().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Eventos confirmados devem chegar na ordem em que foram confirmados")
+    void testOrdemDosEventosConfirmados() throws Exception {
+        hub.desligar();
+        hub = novoHub(Duration.ofSeconds(30), 256, 128, Duration.ofMinutes(5));
+        EmitterCapturado emitter = new EmitterCapturado();
+        hub.assinar(1L, null, emitter);
+
+        for (long pedido = 1; pedido <= 50; pedido++) {
+            hub.aoConfirmarTransacao(criado(pedido, 1L));
+            hub.aoConfirmarTransacao(PedidoEvento.statusAlterado(pedido, StatusPedido.CONFIRMADO, 1L, 1L));
+        }
+
+        aguardar(() -> emitter.eventos().size() == 100);
+        List<String> tipos = emitter.eventos().stream()
+                .map(e -> e.contains("event:CRIADO") ? "CRIADO" : "STATUS_ALTERADO")
+                .toList();
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(List.of("CRIADO", "STATUS_ALTERADO"), tipos.subList(i, i + 2));
+        }
+        List<Long> sequencias = emitter.ids().stream()
+                .map(id -> Long.parseLong(id.substring(id.lastIndexOf('-') + 1)))
+                .toList();
+        assertEquals(sequencias.stream().sorted().toList(), sequencias);
+    }
+
+    @Test
+    @DisplayName("Canal sem conexões deve ser removido, e quem retomar depois deve receber reset")
+    void testCanalOciosoRemovido() throws Exception {
+        hub.desligar();
+        hub = novoHub(Duration.ofMillis(20), 8, 4, Duration.ZERO);
+        EmitterCapturado primeira = new EmitterCapturado();
+        hub.assinar(1L, null, primeira);
+        hub.publicar(criado(10L, 1L));
+        aguardar(() -> primeira.ids().size() == 1);
+
+        primeira.desconectar();
+        aguardar(() -> hub.canaisAbertos() == 0);
+
+        // Publicado sem ninguém escutando: não fica em buffer nenhum
+        hub.publicar(criado(11L, 1L));
+        EmitterCapturado retomada = new EmitterCapturado();
+        hub.assinar(1L, primeira.ids().get(0), retomada);
+
+        aguardar(() -> retomada.texto().contains("event:" + PedidoStreamHub.EVENTO_RESET));
+        assertEquals(1, hub.canaisAbertos());
+    }
+
+    private PedidoStreamHub novoHub(Duration heartbeat, int tamanhoReplay, int tamanhoFila, Duration canalOcioso) {
+        return new PedidoStreamHub(Duration.ofMinutes(1), heartbeat, tamanhoReplay, tamanhoFila, canalOcioso);
+    }
+
+    private static PedidoEvento criado(Long pedidoId, Long restauranteId) {
+        return new PedidoEvento(PedidoEvento.Tipo.CRIADO, pedidoId, restauranteId, 1L, "PED" + pedidoId,
+                StatusPedido.PENDENTE.name(), BigDecimal.TEN, LocalDateTime.now());
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!condicao.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                fail("Condição não atingida em 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * SseEmitter sem container: guarda o que seria escrito na resposta.
+     * Com um latch, cada envio fica bloqueado até a liberação (simula um cliente lento).
+     */
+    private static class EmitterCapturado extends SseEmitter {
+        private final List<String> eventos = new CopyOnWriteArrayList<>();
+        private final CountDownLatch liberar;
+        volatile boolean concluido;
+        volatile boolean desconectado;
+
+        EmitterCapturado() {
+            this(new CountDownLatch(0));
+        }
+
+        EmitterCapturado(CountDownLatch liberar) {
+            this.liberar = liberar;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            if (desconectado) {
+                throw new IOException("cliente desconectado");
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> partes = builder.build();
+            // Partes de texto do protocolo (id:, event:, data:); o objeto do evento seria serializado em JSON
+            eventos.add(partes.stream()
+                    .filter(p -> p.getData() instanceof String)
+                    .map(p -> (String) p.getData())
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            concluido = true;
+        }
+
+        void desconectar() {
+            desconectado = true;
+        }
+
+        List<String> eventos() {
+            return eventos.stream().filter(e -> !e.startsWith(":")).toList();
+        }
+
+        List<String> ids() {
+            return eventos().stream()
+                    .filter(e -> e.contains("id:"))
+                    .map(e -> e.substring(e.indexOf("id:") + 3, e.indexOf('\n', e.indexOf("id:"))))
+                    .toList();
+        }
+
+        String texto() {
+            return String.join("", eventos);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.deliverytech.delivery_api.services.tarefas;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarefaPeriodicaTest {
+
+    private TarefaPeriodica tarefa;
+
+    @AfterEach
+    void parar() {
+        if (tarefa != null && tarefa.isRunning()) {
+            tarefa.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Rodada com trabalho pendente deve emendar na próxima; sem pendência, espera o intervalo")
+    void testPendenteNaoEspera() throws Exception {
+        AtomicInteger rodadas = new AtomicInteger();
+        CountDownLatch tresRodadas = new CountDownLatch(3);
+        tarefa = new Tarefa(Duration.ofHours(1)) {
+            @Override
+            protected boolean executarRodada() {
+                tresRodadas.countDown();
+                return rodadas.incrementAndGet() < 3;
+            }
+        };
+
+        tarefa.start();
+
+        assertTrue(tresRodadas.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(3, rodadas.get());
+    }
+
+    @Test
+    @DisplayName("Falhas seguidas devem usar a espera de falha, com a contagem zerada depois de um sucesso")
+    void testFalhasSeguidas() throws Exception {
+        List<Integer> tentativas = new CopyOnWriteArrayList<>();
+        AtomicInteger rodadas = new AtomicInteger();
+        CountDownLatch tresFalhas = new CountDownLatch(3);
+        tarefa = new Tarefa(Duration.ofHours(1)) {
+            @Override
+            protected boolean executarRodada() {
+                int rodada = rodadas.incrementAndGet();
+                if (rodada == 3) {
+                    return true; // sucesso com pendência: zera as falhas sem esperar o intervalo
+                }
+                throw new IllegalStateException("rodada " + rodada);
+            }
+
+            @Override
+            protected Duration esperaAposFalha(int falhasSeguidas) {
+                tentativas.add(falhasSeguidas);
+                tresFalhas.countDown();
+                return Duration.ofMillis(1);
+            }
+        };
+
+        tarefa.start();
+
+        assertTrue(tresFalhas.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 1), tentativas.subList(0, 3));
+    }
+
+    @Test
+    @DisplayName("stop() deve interromper a rodada em andamento e a espera")
+    void testStopInterrompe() throws Exception {
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch interrompida = new CountDownLatch(1);
+        tarefa = new Tarefa(Duration.ofHours(1)) {
+            @Override
+            protected boolean executarRodada() throws InterruptedException {
+                iniciou.countDown();
+                try {
+                    Thread.sleep(Duration.ofHours(1));
+                } catch (InterruptedException e) {
+                    interrompida.countDown();
+                    throw e;
+                }
+                return false;
+            }
+        };
+        tarefa.start();
+        assertTrue(iniciou.await(5, TimeUnit.SECONDS));
+
+        tarefa.stop();
+
+        assertTrue(interrompida.await(1, TimeUnit.SECONDS));
+        assertFalse(tarefa.isRunning());
+    }
+
+    private abstract static class Tarefa extends TarefaPeriodica {
+
+        Tarefa(Duration intervalo) {
+            super("tarefa-teste", true, intervalo, "Falha na tarefa de teste");
+        }
+    }
+}